@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.DefaultSettings;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.test_utils.TestConfiguration;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Seeded generators for synthetic benchmark inputs. The same seed and parameters always produce the same inputs, so
+ * that results of different benchmark runs are comparable.
+ *
+ * @author agent
+ */
+public class BenchmarkInputs {
+
+    /**
+     * The fraction of variables that are "hot", i.e., that are picked with the overlap probability.
+     */
+    private static final double HOT_FRACTION = 0.1;
+
+    private final Random random;
+
+    private final int numVariables;
+
+    private final double overlap;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed The seed for the random number generator.
+     * @param numVariables The number of distinct variables to use.
+     * @param overlap The probability (0 to 1) that a variable is picked from a small set of hot variables. Higher
+     *      values result in more variables that appear in many presence conditions.
+     */
+    public BenchmarkInputs(long seed, int numVariables, double overlap) {
+        this.random = new Random(seed);
+        this.numVariables = numVariables;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Returns the name of the variable with the given index.
+     *
+     * @param index The index of the variable.
+     *
+     * @return The variable name.
+     */
+    public static String variableName(int index) {
+        return "VAR_" + index;
+    }
+
+    /**
+     * Picks a random variable, respecting the overlap.
+     *
+     * @return A random variable.
+     */
+    public Variable randomVariable() {
+        int index;
+        int numHot = Math.max(1, (int) (numVariables * HOT_FRACTION));
+        if (random.nextDouble() < overlap) {
+            index = random.nextInt(numHot);
+        } else {
+            index = random.nextInt(numVariables);
+        }
+        return new Variable(variableName(index));
+    }
+
+    /**
+     * Creates a random formula.
+     *
+     * @param size The number of variables in the formula.
+     *
+     * @return A random formula.
+     */
+    public Formula randomFormula(int size) {
+        Formula result;
+        if (size <= 1) {
+            result = randomVariable();
+        } else {
+            int leftSize = 1 + random.nextInt(size - 1);
+            Formula left = randomFormula(leftSize);
+            Formula right = randomFormula(size - leftSize);
+            result = random.nextBoolean() ? new Conjunction(left, right) : new Disjunction(left, right);
+        }
+
+        if (random.nextInt(4) == 0) {
+            result = new Negation(result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates source files with nested code blocks.
+     *
+     * @param numFiles The number of source files.
+     * @param blocksPerFile The number of top-level blocks per file.
+     * @param depth The nesting depth below each top-level block.
+     * @param formulaSize The number of variables in the condition of each block.
+     *
+     * @return The generated source files.
+     */
+    public List<SourceFile<?>> createSourceFiles(int numFiles, int blocksPerFile, int depth, int formulaSize) {
+        List<SourceFile<?>> result = new ArrayList<>(numFiles);
+        for (int i = 0; i < numFiles; i++) {
+            SourceFile<CodeElement<?>> file = new SourceFile<>(new File("dir" + (i % 10) + "/file" + i + ".c"));
+            for (int j = 0; j < blocksPerFile; j++) {
+                file.addElement(createBlock(null, depth, formulaSize));
+            }
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a code block with a chain of nested blocks below it.
+     *
+     * @param parentPc The presence condition of the parent block, <code>null</code> for top-level blocks.
+     * @param depth The number of nested levels below this block.
+     * @param formulaSize The number of variables in the condition of each block.
+     *
+     * @return The created block.
+     */
+    private CodeBlock createBlock(Formula parentPc, int depth, int formulaSize) {
+        Formula condition = randomFormula(formulaSize);
+        Formula pc = parentPc != null ? new Conjunction(parentPc, condition) : condition;
+        CodeBlock block = new CodeBlock(pc);
+        if (depth > 0) {
+            block.addNestedElement(createBlock(pc, depth - 1, formulaSize));
+        }
+        return block;
+    }
+
+    /**
+     * Creates variables with presence conditions, sorted by variable name (like the output of the PcFinder).
+     *
+     * @param pcsPerVariable The number of presence conditions per variable.
+     * @param formulaSize The number of variables in each presence condition (besides the variable itself).
+     *
+     * @return The generated variables with presence conditions.
+     */
+    public List<VariableWithPcs> createVariablesWithPcs(int pcsPerVariable, int formulaSize) {
+        List<String> names = new ArrayList<>(numVariables);
+        for (int i = 0; i < numVariables; i++) {
+            names.add(variableName(i));
+        }
+        names.sort(null);
+
+        List<VariableWithPcs> result = new ArrayList<>(numVariables);
+        for (String name : names) {
+            Set<Formula> pcs = new LinkedHashSet<>();
+            for (int i = 0; i < pcsPerVariable; i++) {
+                pcs.add(new Conjunction(new Variable(name), randomFormula(formulaSize)));
+            }
+            result.add(new VariableWithPcs(name, pcs));
+        }
+        return result;
+    }
+
+    /**
+     * Creates feature effects for non-boolean variables, as produced by the feature effect finder after a
+     * non-boolean preparation (e.g. <code>VAR_1_eq_2</code>). Sorted by variable name.
+     *
+     * @param valuesPerVariable The number of different values per variable.
+     * @param formulaSize The number of variables in each feature effect.
+     *
+     * @return The generated feature effects.
+     */
+    public List<VariableWithFeatureEffect> createNonBooleanFeatureEffects(int valuesPerVariable, int formulaSize) {
+        List<String> names = new ArrayList<>(numVariables * valuesPerVariable);
+        for (int i = 0; i < numVariables; i++) {
+            for (int j = 0; j < valuesPerVariable; j++) {
+                names.add(variableName(i) + "_eq_" + j);
+            }
+        }
+        names.sort(null);
+
+        List<VariableWithFeatureEffect> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(new VariableWithFeatureEffect(name, randomFormula(formulaSize)));
+        }
+        return result;
+    }
+
+    /**
+     * Writes presence conditions in the CSV format read by the PcReader.
+     *
+     * @param file The file to write to.
+     * @param pcs The presence conditions to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    public static void writePcCsv(File file, List<VariableWithPcs> pcs) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            out.println("Variable;Presence conditions");
+            for (VariableWithPcs var : pcs) {
+                out.println(var.getVariable() + ";" + var.getPcs());
+            }
+        }
+    }
+
+    /**
+     * Writes feature effects in the CSV format read by the FeatureEffectReader.
+     *
+     * @param file The file to write to.
+     * @param fes The feature effects to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    public static void writeFeCsv(File file, List<VariableWithFeatureEffect> fes) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            out.println("Variable;Feature Effect");
+            for (VariableWithFeatureEffect fe : fes) {
+                out.println(fe.getVariable() + ";" + fe.getFeatureEffect());
+            }
+        }
+    }
+
+    /**
+     * Creates a configuration for running analysis components in a benchmark.
+     *
+     * @param properties The properties to set.
+     *
+     * @return The configuration.
+     *
+     * @throws SetUpException If creating the configuration fails.
+     */
+    public static TestConfiguration createConfiguration(Properties properties) throws SetUpException {
+        TestConfiguration config = new TestConfiguration(properties);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+        return config;
+    }
+
+    /**
+     * Retrieves all results of the given component.
+     *
+     * @param component The component to run.
+     * @param <T> The result type of the component.
+     *
+     * @return The number of results; returned to prevent dead code elimination.
+     */
+    public static <T> int drain(AnalysisComponent<T> component) {
+        int count = 0;
+        while (component.getNextResult() != null) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.Settings;
+import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeAggregator;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
+
+/**
+ * Benchmarks the aggregation of non-boolean feature effects in the {@link FeAggregator}.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FeAggregatorBenchmark {
+
+    @Param({"1000"})
+    private int numVariables;
+
+    @Param({"2", "10"})
+    private int valuesPerVariable;
+
+    @Param({"NO_SIMPLIFICATION", "FEATURE_EFFECTS"})
+    private SimplificationType simplification;
+
+    private List<VariableWithFeatureEffect> featureEffects;
+
+    /**
+     * Generates the feature effects.
+     */
+    @Setup
+    public void setUp() {
+        BenchmarkInputs inputs = new BenchmarkInputs(42, numVariables, 0.5);
+        featureEffects = inputs.createNonBooleanFeatureEffects(valuesPerVariable, 4);
+    }
+
+    /**
+     * Runs the {@link FeAggregator} on the generated feature effects.
+     *
+     * @return The number of aggregated feature effects.
+     *
+     * @throws SetUpException If creating the component fails.
+     */
+    @Benchmark
+    public int aggregate() throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(Settings.SIMPLIFIY.getKey(), simplification.name());
+
+        FeAggregator aggregator = new FeAggregator(BenchmarkInputs.createConfiguration(props),
+                new TestAnalysisComponentProvider<>(featureEffects));
+        return BenchmarkInputs.drain(aggregator);
+    }
+
+}
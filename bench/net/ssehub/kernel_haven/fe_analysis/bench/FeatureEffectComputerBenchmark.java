@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.ssehub.kernel_haven.fe_analysis.fes.BddFeatureEffectComputer;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectComputer;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+
+/**
+ * Benchmarks the XOR-tree construction in the {@link FeatureEffectComputer}, with and without simplification, and
+ * the {@link BddFeatureEffectComputer}.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FeatureEffectComputerBenchmark {
+
+    @Param({"10", "200"})
+    private int pcsPerVariable;
+
+    @Param({"3", "8"})
+    private int formulaSize;
+
+    @Param({"0.2", "0.8"})
+    private double overlap;
+
+    private List<VariableWithPcs> variables;
+
+    /**
+     * Generates the presence conditions.
+     */
+    @Setup
+    public void setUp() {
+        BenchmarkInputs inputs = new BenchmarkInputs(42, 50, overlap);
+        variables = inputs.createVariablesWithPcs(pcsPerVariable, formulaSize);
+    }
+
+    /**
+     * Builds the XOR trees without simplification.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void xorTree(Blackhole blackhole) {
+        run(new FeatureEffectComputer(false, false), blackhole);
+    }
+
+    /**
+     * Builds the XOR trees with simplification.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void xorTreeSimplified(Blackhole blackhole) {
+        run(new FeatureEffectComputer(true, false), blackhole);
+    }
+
+    /**
+     * Builds the feature effects on binary decision diagrams.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void bdd(Blackhole blackhole) {
+        run(new BddFeatureEffectComputer(false), blackhole);
+    }
+
+    /**
+     * Computes the feature effects of all variables.
+     *
+     * @param computer The computer to use.
+     * @param blackhole Consumes the results.
+     */
+    private void run(FeatureEffectComputer computer, Blackhole blackhole) {
+        for (VariableWithPcs var : variables) {
+            blackhole.consume(computer.buildFeatureEffefct(var));
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ssehub.kernel_haven.fe_analysis.StringUtils;
+
+/**
+ * Compares the operator scanners of {@link StringUtils} with the regular expressions they replaced. Each invocation
+ * scans all generated variable names.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OperatorScanBenchmark {
+
+    private static final String COMPARISON_REGEX = "(=|!=|<|<=|>|>=)";
+
+    private static final Pattern OPERATOR_PATTERN = Pattern.compile("(=|<|>|>=|<=|!=|\\+|\\*|\\-|/|%|\\||&)");
+
+    private static final String[] OPERATORS = {"=", "!=", "<", "<=", ">", ">="};
+
+    @Param({"10000"})
+    private int numNames;
+
+    /**
+     * The probability (0 to 1) that a generated name contains a comparison.
+     */
+    @Param({"0.5"})
+    private double comparisonFraction;
+
+    private String[] names;
+
+    /**
+     * Generates the variable names.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        names = new String[numNames];
+        for (int i = 0; i < numNames; i++) {
+            String name = BenchmarkInputs.variableName(i);
+            if (random.nextDouble() < comparisonFraction) {
+                name += OPERATORS[random.nextInt(OPERATORS.length)] + random.nextInt(100);
+            }
+            names[i] = name;
+        }
+    }
+
+    /**
+     * The previous implementation of {@link StringUtils#getLastOperatorIndex(String)}, which compiles the regular
+     * expression on every call.
+     *
+     * @return The sum of all found indices.
+     */
+    @Benchmark
+    public int comparisonRegex() {
+        int result = 0;
+        for (String name : names) {
+            Matcher matcher = Pattern.compile(COMPARISON_REGEX).matcher(name);
+            result += matcher.find() ? matcher.start() : -1;
+        }
+        return result;
+    }
+
+    /**
+     * The character scanner {@link StringUtils#getLastOperatorIndex(String)}.
+     *
+     * @return The sum of all found indices.
+     */
+    @Benchmark
+    public int comparisonScanner() {
+        int result = 0;
+        for (String name : names) {
+            result += StringUtils.getLastOperatorIndex(name);
+        }
+        return result;
+    }
+
+    /**
+     * The precompiled regular expression previously used by the relation components.
+     *
+     * @return The sum of all found indices.
+     */
+    @Benchmark
+    public int allOperatorsRegex() {
+        int result = 0;
+        for (String name : names) {
+            Matcher matcher = OPERATOR_PATTERN.matcher(name);
+            result += matcher.find() ? matcher.start() : -1;
+        }
+        return result;
+    }
+
+    /**
+     * The character scanner {@link StringUtils#getFirstOperatorIndex(String)}.
+     *
+     * @return The sum of all found indices.
+     */
+    @Benchmark
+    public int allOperatorsScanner() {
+        int result = 0;
+        for (String name : names) {
+            result += StringUtils.getFirstOperatorIndex(name);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
+
+/**
+ * Benchmarks the collection (and sorting) of presence conditions in the {@link PcFinder}.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PcFinderBenchmark {
+
+    @Param({"100", "1000"})
+    private int numFiles;
+
+    @Param({"2", "8"})
+    private int depth;
+
+    @Param({"0.2", "0.8"})
+    private double overlap;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private List<SourceFile<?>> sourceFiles;
+
+    /**
+     * Generates the source files.
+     */
+    @Setup
+    public void setUp() {
+        BenchmarkInputs inputs = new BenchmarkInputs(42, 500, overlap);
+        sourceFiles = inputs.createSourceFiles(numFiles, 10, depth, 3);
+    }
+
+    /**
+     * Runs the {@link PcFinder} on the generated source files.
+     *
+     * @return The number of variables found.
+     *
+     * @throws SetUpException If creating the component fails.
+     */
+    @Benchmark
+    public int collectPcs() throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(PcFinder.THREADS.getKey(), String.valueOf(threads));
+
+        PcFinder finder = new PcFinder(BenchmarkInputs.createConfiguration(props),
+                new TestAnalysisComponentProvider<>(sourceFiles));
+        return BenchmarkInputs.drain(finder);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectReader;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcReader;
+
+/**
+ * Benchmarks reading CSV files with the {@link PcReader} and the {@link FeatureEffectReader}.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReaderBenchmark {
+
+    @Param({"1000", "10000"})
+    private int numVariables;
+
+    @Param({"5"})
+    private int formulaSize;
+
+    private File pcFile;
+
+    private File feFile;
+
+    /**
+     * Generates the input files.
+     *
+     * @throws IOException If writing the files fails.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkInputs inputs = new BenchmarkInputs(42, numVariables, 0.5);
+
+        pcFile = File.createTempFile("pcs", ".csv");
+        BenchmarkInputs.writePcCsv(pcFile, inputs.createVariablesWithPcs(5, formulaSize));
+
+        feFile = File.createTempFile("fes", ".csv");
+        BenchmarkInputs.writeFeCsv(feFile, inputs.createNonBooleanFeatureEffects(1, formulaSize));
+    }
+
+    /**
+     * Deletes the input files.
+     */
+    @TearDown
+    public void tearDown() {
+        pcFile.delete();
+        feFile.delete();
+    }
+
+    /**
+     * Reads the presence conditions.
+     *
+     * @return The number of variables read.
+     *
+     * @throws SetUpException If creating the component fails.
+     */
+    @Benchmark
+    public int readPcs() throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(PcReader.INPUT_FILE_SETTING.getKey(), pcFile.getAbsolutePath());
+        return BenchmarkInputs.drain(new PcReader(BenchmarkInputs.createConfiguration(props)));
+    }
+
+    /**
+     * Reads the feature effects.
+     *
+     * @return The number of variables read.
+     *
+     * @throws SetUpException If creating the component fails.
+     */
+    @Benchmark
+    public int readFeatureEffects() throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(FeatureEffectReader.INPUT_FILE_SETTING.getKey(), feFile.getAbsolutePath());
+        return BenchmarkInputs.drain(new FeatureEffectReader(BenchmarkInputs.createConfiguration(props)));
+    }
+
+}
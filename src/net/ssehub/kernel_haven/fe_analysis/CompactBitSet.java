@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import java.util.Arrays;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A set of non-negative integers (e.g. variable IDs of a {@link VariableDictionary}), which stays small for sparse
+ * sets. The values are split into chunks of 2<sup>16</sup> values (by their upper 16 bits); each chunk stores its
+ * values either as a sorted array of their lower 16 bits (as long as it contains at most {@value #ARRAY_LIMIT}
+ * values) or as a bitmap of 2<sup>16</sup> bits. Thus, a set of a few values costs a few bytes instead of a bitmap
+ * up to the largest value, like a {@link java.util.BitSet} would.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author agent
+ */
+public class CompactBitSet {
+
+    /**
+     * The maximum number of values in a chunk stored as an array. Above this, a bitmap (8 KiB) is smaller.
+     */
+    static final int ARRAY_LIMIT = 4096;
+
+    private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+
+    private static final char @NonNull [] NO_KEYS = new char[0];
+
+    private static final Object @NonNull [] NO_CHUNKS = new Object[0];
+
+    /**
+     * The upper 16 bits of the values in each chunk, sorted ascending.
+     */
+    private char @NonNull [] keys = NO_KEYS;
+
+    /**
+     * The chunks, in the same order as {@link #keys}. Either a <code>char[]</code> with the sorted lower 16 bits of
+     * the values (the used length is stored in {@link #chunkSizes}) or a <code>long[]</code> bitmap.
+     */
+    private Object @NonNull [] chunks = NO_CHUNKS;
+
+    /**
+     * The number of values in each chunk.
+     */
+    private int @NonNull [] chunkSizes = new int[0];
+
+    private int numChunks;
+
+    private int cardinality;
+
+    /**
+     * Adds a value to this set.
+     *
+     * @param value The value to add; must not be negative.
+     *
+     * @return <code>true</code> if the value was added, <code>false</code> if it was already contained.
+     *
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public boolean add(int value) throws IllegalArgumentException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+
+        int index = Arrays.binarySearch(keys, 0, numChunks, high);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, high);
+        }
+
+        boolean added;
+        Object chunk = chunks[index];
+        if (chunk instanceof long[]) {
+            long[] bitmap = (long[]) chunk;
+            long mask = 1L << low;
+            added = (bitmap[low >>> 6] & mask) == 0;
+            bitmap[low >>> 6] |= mask;
+
+        } else {
+            char[] array = (char[]) chunk;
+            int size = chunkSizes[index];
+            int position = Arrays.binarySearch(array, 0, size, low);
+            added = position < 0;
+            if (added) {
+                position = -position - 1;
+                if (size == ARRAY_LIMIT) {
+                    chunks[index] = toBitmap(array, size, low);
+                } else {
+                    if (size == array.length) {
+                        array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, Math.max(4, size * 2)));
+                        chunks[index] = array;
+                    }
+                    System.arraycopy(array, position, array, position + 1, size - position);
+                    array[position] = low;
+                }
+            }
+        }
+
+        if (added) {
+            chunkSizes[index]++;
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * Checks whether a value is contained in this set.
+     *
+     * @param value The value to check.
+     *
+     * @return Whether the value is contained.
+     */
+    public boolean contains(int value) {
+        boolean result = false;
+        if (value >= 0) {
+            char low = (char) value;
+            int index = Arrays.binarySearch(keys, 0, numChunks, (char) (value >>> 16));
+            if (index >= 0) {
+                Object chunk = chunks[index];
+                if (chunk instanceof long[]) {
+                    result = (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+                } else {
+                    result = Arrays.binarySearch((char[]) chunk, 0, chunkSizes[index], low) >= 0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of values in this set.
+     *
+     * @return The number of values.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns whether this set is empty.
+     *
+     * @return Whether this set contains no values.
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns all values of this set.
+     *
+     * @return The values in ascending order.
+     */
+    public int @NonNull [] toArray() {
+        int[] result = new int[cardinality];
+        int i = 0;
+        for (int c = 0; c < numChunks; c++) {
+            int base = keys[c] << 16;
+            Object chunk = chunks[c];
+            if (chunk instanceof long[]) {
+                long[] bitmap = (long[]) chunk;
+                for (int w = 0; w < bitmap.length; w++) {
+                    long word = bitmap[w];
+                    while (word != 0) {
+                        result[i++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] array = (char[]) chunk;
+                for (int j = 0; j < chunkSizes[c]; j++) {
+                    result[i++] = base | array[j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        keys = NO_KEYS;
+        chunks = NO_CHUNKS;
+        chunkSizes = new int[0];
+        numChunks = 0;
+        cardinality = 0;
+    }
+
+    /**
+     * Inserts a new, empty array chunk.
+     *
+     * @param index The position of the new chunk.
+     * @param high The upper 16 bits of the values in the new chunk.
+     */
+    private void insertChunk(int index, char high) {
+        if (numChunks == keys.length) {
+            int newLength = Math.max(1, numChunks * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            chunks = Arrays.copyOf(chunks, newLength);
+            chunkSizes = Arrays.copyOf(chunkSizes, newLength);
+        }
+        System.arraycopy(keys, index, keys, index + 1, numChunks - index);
+        System.arraycopy(chunks, index, chunks, index + 1, numChunks - index);
+        System.arraycopy(chunkSizes, index, chunkSizes, index + 1, numChunks - index);
+        keys[index] = high;
+        chunks[index] = NO_KEYS;
+        chunkSizes[index] = 0;
+        numChunks++;
+    }
+
+    /**
+     * Converts a full array chunk into a bitmap.
+     *
+     * @param array The array chunk.
+     * @param size The number of values in the array chunk.
+     * @param additional An additional value to set in the bitmap.
+     *
+     * @return The bitmap.
+     */
+    private static long @NonNull [] toBitmap(char @NonNull [] array, int size, char additional) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < size; i++) {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        bitmap[additional >>> 6] |= 1L << additional;
+        return bitmap;
+    }
+
+}
@@ -21,8 +21,11 @@ import net.ssehub.kernel_haven.analysis.JoinComponent;
 import net.ssehub.kernel_haven.analysis.PipelineAnalysis;
 import net.ssehub.kernel_haven.analysis.SplitComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.Settings.FeatureEffectBackend;
+import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureRelations;
+import net.ssehub.kernel_haven.fe_analysis.fes.PcEffectCache;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
 import net.ssehub.kernel_haven.fe_analysis.relations.PotentialParentFinder;
@@ -49,12 +52,23 @@ public class EnhancedDependencyGraph extends PipelineAnalysis {
         // Common input
         PcFinder finder =  new PcFinder(config, getCmComponent(), getBmComponent());
         SplitComponent<VariableWithPcs> pcSplit = new SplitComponent<>(config, finder);
+        
+        // Both branches compute the effects of the same single PCs; share them (the branches run concurrently).
+        // The PotentialParentFinder always simplifies, thus they are only shared if the FeatureEffectFinder does, too
+        PcEffectCache pcEffects = null;
+        config.registerSetting(Settings.FE_BACKEND);
+        if (config.getValue(Settings.FE_BACKEND) != FeatureEffectBackend.BDD) {
+            config.registerSetting(Settings.SIMPLIFIY);
+            if (config.getValue(Settings.SIMPLIFIY).ordinal() >= SimplificationType.PRESENCE_CONDITIONS.ordinal()) {
+                pcEffects = new PcEffectCache(true, 2);
+            }
+        }
 
         // "Final" Analysis components of the analysis branches
         FeatureRelations relationsComponent = new FeatureRelations(config,
-            new FeatureEffectFinder(config, pcSplit.createOutputComponent()));
+            new FeatureEffectFinder(config, pcSplit.createOutputComponent(), pcEffects));
         PotentialParentRelationFinder parentComponent = new PotentialParentRelationFinder(config,
-            new PotentialParentFinder(config, pcSplit.createOutputComponent()));
+            new PotentialParentFinder(config, pcSplit.createOutputComponent(), pcEffects));
         
         // Automatically prints results of PotentialParentFinder & FeatureRelations
         // Other results must be printed via the analysis.output.intermediate_results config
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A hash-consing factory for {@link Formula}s. All formulas created or interned by this class are shared: each
+ * structurally distinct (sub-)formula exists exactly once, so that two interned formulas are equal if and only if they
+ * are the same instance.
+ * <p>
+ * Lookups are done on the identity of the (already interned) operands, thus interning a node costs constant time
+ * and does not require to compute the (recursive) {@link Formula#hashCode()}. This class is thread-safe.
+ *
+ * @author agent
+ */
+public class FormulaInterner {
+
+    /**
+     * Rough estimate of the heap size of a single formula node (object header, references and fields).
+     */
+    private static final int NODE_SIZE_ESTIMATE = 24;
+
+    private static final int NEGATION = 1;
+
+    private static final int CONJUNCTION = 2;
+
+    private static final int DISJUNCTION = 3;
+
+    /**
+     * Lookup key of a composite formula node. Operands are compared by identity, since they are already interned.
+     */
+    private static final class Key {
+
+        private final int type;
+
+        private final @NonNull Formula left;
+
+        private final @Nullable Formula right;
+
+        private final int hash;
+
+        /**
+         * Creates a lookup key.
+         *
+         * @param type The type of the node.
+         * @param left The first (interned) operand.
+         * @param right The second (interned) operand, <code>null</code> for {@link Negation}s.
+         */
+        private Key(int type, @NonNull Formula left, @Nullable Formula right) {
+            this.type = type;
+            this.left = left;
+            this.right = right;
+            this.hash = 31 * (31 * type + System.identityHashCode(left)) + System.identityHashCode(right);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            boolean equal = false;
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                equal = type == other.type && left == other.left && right == other.right;
+            }
+            return equal;
+        }
+
+    }
+
+    private final @NonNull Map<String, @NonNull Variable> variables = new ConcurrentHashMap<>();
+
+    private final @NonNull Map<Key, @NonNull Formula> nodes = new ConcurrentHashMap<>();
+
+    private final @NonNull AtomicLong hits = new AtomicLong();
+
+    private final @NonNull AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the shared instance of the given formula. All sub-formulas are interned, too.
+     *
+     * @param formula The formula to intern.
+     *
+     * @return The shared instance, which is equal to the given formula.
+     */
+    public @NonNull Formula intern(@NonNull Formula formula) {
+        Formula result;
+
+        if (formula instanceof Variable) {
+            result = lookupVariable((Variable) formula);
+
+        } else if (formula instanceof Negation) {
+            Negation negation = (Negation) formula;
+            Formula nested = intern(negation.getFormula());
+            result = lookup(new Key(NEGATION, nested, null), nested == negation.getFormula() ? negation : null);
+
+        } else if (formula instanceof Conjunction) {
+            Conjunction con = (Conjunction) formula;
+            Formula left = intern(con.getLeft());
+            Formula right = intern(con.getRight());
+            result = lookup(new Key(CONJUNCTION, left, right),
+                    left == con.getLeft() && right == con.getRight() ? con : null);
+
+        } else if (formula instanceof Disjunction) {
+            Disjunction dis = (Disjunction) formula;
+            Formula left = intern(dis.getLeft());
+            Formula right = intern(dis.getRight());
+            result = lookup(new Key(DISJUNCTION, left, right),
+                    left == dis.getLeft() && right == dis.getRight() ? dis : null);
+
+        } else if (formula instanceof True) {
+            result = True.INSTANCE;
+
+        } else if (formula instanceof False) {
+            result = False.INSTANCE;
+
+        } else {
+            // unknown formula type, can't be shared
+            result = formula;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the shared {@link Variable} with the given name.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The shared variable instance.
+     */
+    public @NonNull Variable variable(@NonNull String name) {
+        return lookupVariable(new Variable(name));
+    }
+
+    /**
+     * Returns the shared {@link Negation} of the given formula.
+     *
+     * @param formula The formula to negate, must already be interned.
+     *
+     * @return The shared negation.
+     */
+    public @NonNull Formula not(@NonNull Formula formula) {
+        return lookup(new Key(NEGATION, formula, null), null);
+    }
+
+    /**
+     * Returns the shared {@link Conjunction} of the given formulas.
+     *
+     * @param left The left operand, must already be interned.
+     * @param right The right operand, must already be interned.
+     *
+     * @return The shared conjunction.
+     */
+    public @NonNull Formula and(@NonNull Formula left, @NonNull Formula right) {
+        return lookup(new Key(CONJUNCTION, left, right), null);
+    }
+
+    /**
+     * Returns the shared {@link Disjunction} of the given formulas.
+     *
+     * @param left The left operand, must already be interned.
+     * @param right The right operand, must already be interned.
+     *
+     * @return The shared disjunction.
+     */
+    public @NonNull Formula or(@NonNull Formula left, @NonNull Formula right) {
+        return lookup(new Key(DISJUNCTION, left, right), null);
+    }
+
+    /**
+     * Looks up the shared instance of a variable, registers the given one if none exists so far.
+     *
+     * @param variable The variable to look up.
+     *
+     * @return The shared instance.
+     */
+    private @NonNull Variable lookupVariable(@NonNull Variable variable) {
+        Variable result = variables.putIfAbsent(variable.getName(), variable);
+        if (result == null) {
+            misses.incrementAndGet();
+            result = variable;
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the shared instance of a composite node, creates and registers one if none exists so far.
+     *
+     * @param key The key of the node.
+     * @param candidate Optional: An existing formula for the key, which is registered instead of creating a new node.
+     *
+     * @return The shared instance.
+     */
+    private @NonNull Formula lookup(@NonNull Key key, @Nullable Formula candidate) {
+        Formula result = nodes.get(key);
+        if (result == null) {
+            Formula created = candidate != null ? candidate : create(key);
+            result = nodes.putIfAbsent(key, created);
+            if (result == null) {
+                misses.incrementAndGet();
+                result = created;
+            } else {
+                // another thread was faster
+                hits.incrementAndGet();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new node for the given key.
+     *
+     * @param key The key describing the node.
+     *
+     * @return A new formula node.
+     */
+    private static @NonNull Formula create(@NonNull Key key) {
+        Formula result;
+        switch (key.type) {
+        case NEGATION:
+            result = new Negation(key.left);
+            break;
+        case CONJUNCTION:
+            result = new Conjunction(key.left, notNull(key.right));
+            break;
+        default:
+            result = new Disjunction(key.left, notNull(key.right));
+            break;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups that returned an already existing instance.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that registered a new instance.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of distinct formula nodes (including variables) stored in this interner.
+     *
+     * @return The number of shared nodes.
+     */
+    public int size() {
+        return variables.size() + nodes.size();
+    }
+
+    /**
+     * Returns an estimate of how much heap space was saved by sharing formula nodes. Each hit is a node that
+     * would have been stored as separate instance otherwise.
+     *
+     * @return The estimated number of saved bytes.
+     */
+    public long getEstimatedBytesSaved() {
+        return hits.get() * NODE_SIZE_ESTIMATE;
+    }
+
+    /**
+     * Returns a human readable summary of the statistics of this interner.
+     *
+     * @return A summary of hits, misses and saved memory.
+     */
+    public @NonNull String getStatistics() {
+        long numHits = getHits();
+        long numMisses = getMisses();
+        long total = numHits + numMisses;
+        double hitRate = total > 0 ? 100.0 * numHits / total : 0.0;
+
+        return notNull(String.format("Formula interning: %d hits, %d misses (%.2f%% hit rate), %d shared nodes,"
+                + " ~%d KiB saved", numHits, numMisses, hitRate, size(), getEstimatedBytesSaved() / 1024));
+    }
+
+}
@@ -17,10 +17,11 @@ package net.ssehub.kernel_haven.fe_analysis;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import net.ssehub.kernel_haven.PipelineConfigurator;
@@ -46,6 +47,34 @@ import net.ssehub.kernel_haven.variability_model.VariabilityModel;
  */
 public class PresenceConditionAnalysisHelper {
     
+    /**
+     * The number of slots in the formula relevance cache. Must be a power of 2.
+     */
+    private static final int FORMULA_CACHE_SIZE = 1 << 12;
+    
+    /**
+     * An entry of the formula relevance cache. Immutable, so that entries can be shared between threads without
+     * synchronization.
+     */
+    private static final class FormulaRelevance {
+        
+        private final @NonNull Formula formula;
+        
+        private final boolean relevant;
+        
+        /**
+         * Creates a cache entry.
+         * 
+         * @param formula The formula instance.
+         * @param relevant Whether the formula is relevant.
+         */
+        private FormulaRelevance(@NonNull Formula formula, boolean relevant) {
+            this.formula = formula;
+            this.relevant = relevant;
+        }
+        
+    }
+    
     /**
      * Whether non-boolean replacements are enabled. This is true if the NonBooleanPreperation ran on the source tree.
      */
@@ -58,6 +87,27 @@ public class PresenceConditionAnalysisHelper {
     
     private @NonNull Pattern relevantVarsPattern;
     private @Nullable VariabilityModel vm;
+    
+    private @Nullable FormulaInterner interner;
+    
+    /**
+     * Cache for {@link #isRelevant(String)}, the relevance of a variable does not change during an analysis.
+     */
+    private final @NonNull Map<String, Boolean> variableRelevance = new ConcurrentHashMap<>();
+    
+    /**
+     * Direct-mapped cache for {@link #isRelevant(Formula)}, indexed by the identity hash code of the formula. A newer
+     * entry simply replaces an older one in the same slot, which bounds the size of the cache.
+     */
+    private final @Nullable FormulaRelevance @NonNull [] formulaRelevance = new FormulaRelevance[FORMULA_CACHE_SIZE];
+    
+    private final @NonNull AtomicLong variableHits = new AtomicLong();
+    
+    private final @NonNull AtomicLong variableMisses = new AtomicLong();
+    
+    private final @NonNull AtomicLong formulaHits = new AtomicLong();
+    
+    private final @NonNull AtomicLong formulaMisses = new AtomicLong();
 
     /**
      * Sole constructor for this class.
@@ -69,10 +119,14 @@ public class PresenceConditionAnalysisHelper {
     public PresenceConditionAnalysisHelper(@NonNull Configuration config) throws SetUpException {
         config.registerSetting(Settings.RELEVANT_VARIABLES);
         config.registerSetting(Settings.SIMPLIFIY);
+        config.registerSetting(Settings.INTERN_FORMULAS);
         
         relevantVarsPattern = config.getValue(Settings.RELEVANT_VARIABLES);
         considerVmVarsOnly = config.getValue(DefaultSettings.ANALYSIS_USE_VARMODEL_VARIABLES_ONLY);
         simplificationType = config.getValue(Settings.SIMPLIFIY);
+        if (config.getValue(Settings.INTERN_FORMULAS)) {
+            interner = new FormulaInterner();
+        }
         
         vm = considerVmVarsOnly ? getVariabilityModel() : null;
         if (null == vm && considerVmVarsOnly) {
@@ -101,6 +155,15 @@ public class PresenceConditionAnalysisHelper {
         return notNull(PipelineConfigurator.instance().getVmProvider()).getResult();
     }
     
+    /**
+     * Returns the variability model that is used to determine the relevant variables.
+     * 
+     * @return The {@link VariabilityModel} or <code>null</code> if the variability model is not considered.
+     */
+    public @Nullable VariabilityModel getConsideredVariabilityModel() {
+        return vm;
+    }
+    
     /**
      * Finds all variables in the given formula. This recursively walks through the whole tree.
      * 
@@ -130,32 +193,83 @@ public class PresenceConditionAnalysisHelper {
     }
     
     /**
-     * Checks if a complete formula should be considered.
+     * Checks if a complete formula should be considered. The result is cached for the given formula instance.
      * @param formula The formula to check.
      * @return <tt>true</tt> if the formula should be kept, <tt>false</tt> if the formula should be discarded.
      */
     public boolean isRelevant(@NonNull Formula formula) {
-        boolean isRelevant = false;
+        int slot = System.identityHashCode(formula) & (FORMULA_CACHE_SIZE - 1);
         
-        // Checks that at least one variable of the formula is relevant
-        Set<@NonNull Variable> variables = new HashSet<>();
-        findVars(formula, variables);
-        Iterator<Variable> varItr = variables.iterator();
-        while (varItr.hasNext() && !isRelevant) {
-            Variable variable = varItr.next();
-            isRelevant = isRelevant(variable.getName());
+        FormulaRelevance cached = formulaRelevance[slot];
+        boolean isRelevant;
+        if (cached != null && cached.formula == formula) {
+            formulaHits.incrementAndGet();
+            isRelevant = cached.relevant;
+        } else {
+            formulaMisses.incrementAndGet();
+            isRelevant = containsRelevantVariable(formula);
+            formulaRelevance[slot] = new FormulaRelevance(formula, isRelevant);
         }
         
         return isRelevant;
     }
     
     /**
-     * Helper function to determine which variables are relevant.
+     * Checks that at least one variable of the formula is relevant. Walks through the formula without creating any
+     * intermediate collections, and stops at the first relevant variable.
+     * 
+     * @param formula The formula to check.
+     * @return Whether the formula contains at least one relevant variable.
+     */
+    private boolean containsRelevantVariable(@NonNull Formula formula) {
+        boolean result = false;
+        
+        if (formula instanceof Variable) {
+            result = isRelevant(((Variable) formula).getName());
+            
+        } else if (formula instanceof Negation) {
+            result = containsRelevantVariable(((Negation) formula).getFormula());
+            
+        } else if (formula instanceof Disjunction) {
+            Disjunction dis = (Disjunction) formula;
+            result = containsRelevantVariable(dis.getLeft()) || containsRelevantVariable(dis.getRight());
+            
+        } else if (formula instanceof Conjunction) {
+            Conjunction con = (Conjunction) formula;
+            result = containsRelevantVariable(con.getLeft()) || containsRelevantVariable(con.getRight());
+        }
+        // ignore true and false
+        
+        return result;
+    }
+    
+    /**
+     * Helper function to determine which variables are relevant. The result is cached per variable name.
      * 
      * @param variable The variable to check.
      * @return Whether the variable is relevant or not.
      */
     public boolean isRelevant(@NonNull String variable) {
+        Boolean cached = variableRelevance.get(variable);
+        boolean isRelevant;
+        if (cached != null) {
+            variableHits.incrementAndGet();
+            isRelevant = cached;
+        } else {
+            variableMisses.incrementAndGet();
+            isRelevant = computeRelevance(variable);
+            variableRelevance.put(variable, isRelevant);
+        }
+        return isRelevant;
+    }
+    
+    /**
+     * Determines whether the given variable is relevant, without using the cache.
+     * 
+     * @param variable The variable to check.
+     * @return Whether the variable is relevant or not.
+     */
+    private boolean computeRelevance(@NonNull String variable) {
         boolean isRelevant;
         if (considerVmVarsOnly) {
             // vm != since considerVmVarsOnly == true
@@ -187,19 +301,19 @@ public class PresenceConditionAnalysisHelper {
         
         if (replaceNonBooleanReplacements) {
             if (formula instanceof Variable) {
-                result = new Variable(doReplacements(((Variable) formula).getName()));
+                result = createVariable(doReplacements(((Variable) formula).getName()));
                 
             } else if (formula instanceof Negation) {
-                result = new Negation(
+                result = createNegation(
                         doReplacements(((Negation) formula).getFormula()));
                 
             } else if (formula instanceof Disjunction) {
-                result = new Disjunction(
+                result = createDisjunction(
                         doReplacements(((Disjunction) formula).getLeft()),
                         doReplacements(((Disjunction) formula).getRight()));
                 
             } else if (formula instanceof Conjunction) {
-                result = new Conjunction(
+                result = createConjunction(
                         doReplacements(((Conjunction) formula).getLeft()),
                         doReplacements(((Conjunction) formula).getRight()));
             }
@@ -242,19 +356,19 @@ public class PresenceConditionAnalysisHelper {
         Formula result = formula;
         
         if (formula instanceof Variable) {
-            result = new Variable(removeReplacements(((Variable) formula).getName()));
+            result = createVariable(removeReplacements(((Variable) formula).getName()));
             
         } else if (formula instanceof Negation) {
-            result = new Negation(
+            result = createNegation(
                     removeReplacements(((Negation) formula).getFormula()));
             
         } else if (formula instanceof Disjunction) {
-            result = new Disjunction(
+            result = createDisjunction(
                     removeReplacements(((Disjunction) formula).getLeft()),
                     removeReplacements(((Disjunction) formula).getRight()));
             
         } else if (formula instanceof Conjunction) {
-            result = new Conjunction(
+            result = createConjunction(
                     removeReplacements(((Conjunction) formula).getLeft()),
                     removeReplacements(((Conjunction) formula).getRight()));
         }
@@ -292,6 +406,78 @@ public class PresenceConditionAnalysisHelper {
         return formula;
     }
     
+    /**
+     * Returns the shared instance of the given formula, if interning of formulas is enabled
+     * (see {@link Settings#INTERN_FORMULAS}).
+     * 
+     * @param formula The formula to intern.
+     * 
+     * @return The shared instance of the formula, or the formula itself if interning is disabled.
+     */
+    public @NonNull Formula intern(@NonNull Formula formula) {
+        FormulaInterner formulaInterner = this.interner;
+        return formulaInterner != null ? formulaInterner.intern(formula) : formula;
+    }
+    
+    /**
+     * Returns the {@link FormulaInterner} used by this helper.
+     * 
+     * @return The interner, or <code>null</code> if interning of formulas is disabled.
+     */
+    public @Nullable FormulaInterner getFormulaInterner() {
+        return interner;
+    }
+    
+    /**
+     * Creates a {@link Variable}, shared if interning is enabled.
+     * 
+     * @param name The name of the variable.
+     * 
+     * @return The variable.
+     */
+    private @NonNull Formula createVariable(@NonNull String name) {
+        FormulaInterner formulaInterner = this.interner;
+        return formulaInterner != null ? formulaInterner.variable(name) : new Variable(name);
+    }
+    
+    /**
+     * Creates a {@link Negation}, shared if interning is enabled.
+     * 
+     * @param nested The negated formula, already interned if interning is enabled.
+     * 
+     * @return The negation.
+     */
+    private @NonNull Formula createNegation(@NonNull Formula nested) {
+        FormulaInterner formulaInterner = this.interner;
+        return formulaInterner != null ? formulaInterner.not(nested) : new Negation(nested);
+    }
+    
+    /**
+     * Creates a {@link Disjunction}, shared if interning is enabled.
+     * 
+     * @param left The left operand, already interned if interning is enabled.
+     * @param right The right operand, already interned if interning is enabled.
+     * 
+     * @return The disjunction.
+     */
+    private @NonNull Formula createDisjunction(@NonNull Formula left, @NonNull Formula right) {
+        FormulaInterner formulaInterner = this.interner;
+        return formulaInterner != null ? formulaInterner.or(left, right) : new Disjunction(left, right);
+    }
+    
+    /**
+     * Creates a {@link Conjunction}, shared if interning is enabled.
+     * 
+     * @param left The left operand, already interned if interning is enabled.
+     * @param right The right operand, already interned if interning is enabled.
+     * 
+     * @return The conjunction.
+     */
+    private @NonNull Formula createConjunction(@NonNull Formula left, @NonNull Formula right) {
+        FormulaInterner formulaInterner = this.interner;
+        return formulaInterner != null ? formulaInterner.and(left, right) : new Conjunction(left, right);
+    }
+    
     /**
      * Whether non boolean replacements in variable names (e.g. _gt_) are used and should be turned back into the
      * human readable form.
@@ -317,4 +503,51 @@ public class PresenceConditionAnalysisHelper {
     public boolean isNonBooleanMode() {
         return nonBooleanMode;
     }
+    
+    /**
+     * Returns the number of {@link #isRelevant(String)} calls that were answered from the cache.
+     * @return The number of cache hits for variables.
+     */
+    public long getVariableRelevanceHits() {
+        return variableHits.get();
+    }
+    
+    /**
+     * Returns the number of {@link #isRelevant(String)} calls that had to evaluate the relevance of the variable.
+     * @return The number of cache misses for variables.
+     */
+    public long getVariableRelevanceMisses() {
+        return variableMisses.get();
+    }
+    
+    /**
+     * Returns the number of {@link #isRelevant(Formula)} calls that were answered from the cache.
+     * @return The number of cache hits for formulas.
+     */
+    public long getFormulaRelevanceHits() {
+        return formulaHits.get();
+    }
+    
+    /**
+     * Returns the number of {@link #isRelevant(Formula)} calls that had to walk through the formula.
+     * @return The number of cache misses for formulas.
+     */
+    public long getFormulaRelevanceMisses() {
+        return formulaMisses.get();
+    }
+    
+    /**
+     * Returns a human readable summary of the relevance cache statistics.
+     * @return A summary of hits and misses for variables and formulas.
+     */
+    public @NonNull String getRelevanceStatistics() {
+        long varHits = getVariableRelevanceHits();
+        long varTotal = varHits + getVariableRelevanceMisses();
+        long fHits = getFormulaRelevanceHits();
+        long fTotal = fHits + getFormulaRelevanceMisses();
+        
+        return notNull(String.format("Relevance cache: %d/%d variable hits (%.2f%%), %d/%d formula hits (%.2f%%)",
+                varHits, varTotal, varTotal > 0 ? 100.0 * varHits / varTotal : 0.0,
+                fHits, fTotal, fTotal > 0 ? 100.0 * fHits / fTotal : 0.0));
+    }
 }
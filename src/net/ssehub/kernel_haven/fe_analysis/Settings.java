@@ -65,6 +65,38 @@ public class Settings {
             + " - " + SimplificationType.FEATURE_EFFECTS + ": Will simplifiy the results of the feature effect "
             + "analysis.");
     
+    /**
+     * The different backends for computing feature effects.
+     */
+    public static enum FeatureEffectBackend {
+        
+        /**
+         * Builds a disjunction of XOR trees over the (restricted) presence conditions and simplifies the result with
+         * the {@link net.ssehub.kernel_haven.util.logic.FormulaSimplifier}.
+         */
+        XOR_TREE,
+        
+        /**
+         * Builds the feature effect on a binary decision diagram and converts the diagram back to a formula.
+         */
+        BDD,
+    }
+    
+    public static final @NonNull Setting<@NonNull FeatureEffectBackend> FE_BACKEND
+        = new EnumSetting<>("analysis.feature_effect.backend", FeatureEffectBackend.class, true,
+            FeatureEffectBackend.XOR_TREE,
+            "Specifies how feature effects are computed:\n"
+            + " - " + FeatureEffectBackend.XOR_TREE + ": Builds XOR trees over the presence conditions and simplifies\n"
+            + "   them (depending on " + SIMPLIFIY.getKey() + ").\n"
+            + " - " + FeatureEffectBackend.BDD + ": Builds the feature effect on a binary decision diagram. This is\n"
+            + "   considerably faster for variables with many presence conditions; the result is logically\n"
+            + "   equivalent, but may be structured differently.");
+    
+    public static final @NonNull Setting<@NonNull Boolean> INTERN_FORMULAS
+        = new Setting<>("analysis.intern_formulas", Type.BOOLEAN, true, "false", "Whether presence conditions should "
+            + "be hash-consed while they are collected or read, i.e., whether structurally equal (sub-)formulas should "
+            + "be shared as a single instance. This reduces the memory consumption for large code bases.");
+    
     /**
      * Don't allow any instances.
      */
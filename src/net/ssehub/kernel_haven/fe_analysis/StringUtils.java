@@ -15,20 +15,21 @@
  */
 package net.ssehub.kernel_haven.fe_analysis;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 
 /**
- * String operations, e.g., regular expressions, used in this package.
+ * String operations, e.g., finding operators in variable names, used in this package.
+ * <p>
+ * The operator scanners only look at the characters of the given string; they neither compile nor run regular
+ * expressions and don't allocate any objects. Callers that see the same variable names repeatedly should cache the
+ * results per variable, e.g., by the IDs of a {@link VariableDictionary}.
  * @author El-Sharkawy
  *
  */
 public class StringUtils {
     
-    private static final String OPERATOR_REGEX = "(=|!=|<|<=|>|>=)";
-    
     /**
      * Avoids instantiation.
      */
@@ -36,20 +37,78 @@ public class StringUtils {
     
     /**
      * Gets the last (starting index) of an operator, which may be used inside variable names.
+     * The comparison operators <tt>=, !=, &lt;, &lt;=, &gt;, &gt;=</tt> are considered; the first one found in the
+     * name decides.
      * @param name The variable name (or a formula) to test.
      * @return The index of the last operator, or -1 if the name won't have any operators.
      */
     public static int getLastOperatorIndex(@NonNull String name) {
-        Matcher matcher = Pattern.compile(OPERATOR_REGEX).matcher(name);
-        int result;
-        if (matcher.find()) {
-            String identified = matcher.group(matcher.groupCount());
-            result = matcher.end() - identified.length();
-        } else {
-            result = -1;
+        int result = -1;
+        for (int i = 0; i < name.length() && result == -1; i++) {
+            char c = name.charAt(i);
+            if (c == '=' || c == '<' || c == '>' || (c == '!' && isFollowedByEquals(name, i))) {
+                result = i;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Gets the index of the first operator in the given name. Besides the comparison operators (see
+     * {@link #getLastOperatorIndex(String)}), also the arithmetic operators <tt>+, -, *, /, %</tt> and the bitwise
+     * operators <tt>|, &amp;</tt> are considered.
+     * @param name The variable name (or a formula) to test.
+     * @return The index of the first operator, or -1 if the name won't have any operators.
+     */
+    public static int getFirstOperatorIndex(@NonNull String name) {
+        int result = -1;
+        for (int i = 0; i < name.length() && result == -1; i++) {
+            switch (name.charAt(i)) {
+            case '=':
+            case '<':
+            case '>':
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+            case '%':
+            case '|':
+            case '&':
+                result = i;
+                break;
+            case '!':
+                if (isFollowedByEquals(name, i)) {
+                    result = i;
+                }
+                break;
+            default:
+                break;
+            }
         }
         
         return result;
     }
+    
+    /**
+     * Returns the base name of the given variable, i.e., the part in front of a comparison operator (see
+     * {@link #getLastOperatorIndex(String)}). For instance, the base name of <tt>A=1</tt> is <tt>A</tt>.
+     * @param name The variable name to strip.
+     * @return The base name, the same instance if the name has no operator.
+     */
+    public static @NonNull String getBaseName(@NonNull String name) {
+        int index = getLastOperatorIndex(name);
+        return -1 == index ? name : notNull(name.substring(0, index));
+    }
+    
+    /**
+     * Checks whether the character after the given position is a <tt>=</tt>.
+     * @param name The string to check.
+     * @param index The position in front of the checked character.
+     * @return <tt>true</tt> if <tt>name[index + 1] == '='</tt>.
+     */
+    private static boolean isFollowedByEquals(@NonNull String name, int index) {
+        return index + 1 < name.length() && name.charAt(index + 1) == '=';
+    }
 
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Assigns dense integer IDs to variable names, so that analysis components can use arrays and primitive comparisons
+ * instead of hashing and comparing strings. For each variable, the base variable and the comparison operator of a
+ * non-Boolean replacement are computed once, when the name is added. Both the replaced form (e.g.
+ * <code>A_eq_1</code>) and the human readable form (e.g. <code>A=1</code>) are understood; they get different IDs,
+ * but the same base variable.
+ * <p>
+ * IDs start at 0 and are never re-used. This class is thread-safe.
+ *
+ * @author agent
+ */
+public class VariableDictionary {
+
+    /**
+     * The comparison operator of a non-Boolean variable.
+     */
+    public enum Operator {
+
+        NONE(null, null),
+        EQ("_eq_", "="),
+        NE("_ne_", "!="),
+        GE("_ge_", ">="),
+        GT("_gt_", ">"),
+        LE("_le_", "<="),
+        LT("_lt_", "<");
+
+        private final @Nullable String replacement;
+
+        private final @Nullable String symbol;
+
+        /**
+         * Creates an operator.
+         *
+         * @param replacement The infix used by the non-Boolean replacements.
+         * @param symbol The human readable infix.
+         */
+        Operator(@Nullable String replacement, @Nullable String symbol) {
+            this.replacement = replacement;
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the infix used in replaced variable names, e.g. <code>_eq_</code>.
+         *
+         * @return The infix, <code>null</code> for {@link #NONE}.
+         */
+        public @Nullable String getReplacement() {
+            return replacement;
+        }
+
+        /**
+         * Returns the human readable infix, e.g. <code>=</code>.
+         *
+         * @return The infix, <code>null</code> for {@link #NONE}.
+         */
+        public @Nullable String getSymbol() {
+            return symbol;
+        }
+
+    }
+
+    /**
+     * The pre-computed information about a single variable.
+     */
+    private static final class Entry {
+
+        private final @NonNull String name;
+
+        private final int baseId;
+
+        private final @NonNull Operator operator;
+
+        private final @Nullable String value;
+
+        private final @Nullable Integer intValue;
+
+        /**
+         * Creates an entry.
+         *
+         * @param name The name of the variable.
+         * @param baseId The ID of the base variable.
+         * @param operator The operator.
+         * @param value The right side of the comparison.
+         */
+        private Entry(@NonNull String name, int baseId, @NonNull Operator operator, @Nullable String value) {
+            this.name = name;
+            this.baseId = baseId;
+            this.operator = operator;
+            this.value = value;
+
+            Integer parsed = null;
+            if (value != null) {
+                try {
+                    parsed = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    // not an integer value
+                }
+            }
+            this.intValue = parsed;
+        }
+
+    }
+
+    private final @NonNull Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The entries by ID. Replaced by a larger copy when full; an entry is always written before its ID is published
+     * in {@link #ids}.
+     */
+    private volatile @Nullable Entry @NonNull [] entries = new Entry[1024];
+
+    private int size;
+
+    /**
+     * Creates an empty dictionary. A dictionary is owned by the component (or data structure) that assigns the IDs;
+     * other components that need the same IDs get it from there (e.g. {@link
+     * net.ssehub.kernel_haven.fe_analysis.arch_components.ArchComponentStorage#getDictionary()}). Thus, a dictionary
+     * lives only as long as its pipeline.
+     */
+    public VariableDictionary() {
+    }
+
+    /**
+     * Returns the ID of the given variable, adds the variable if it is not known yet.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The ID of the variable.
+     */
+    public int getId(@NonNull String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of the given variable, without adding it.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The ID of the variable, or -1 if the variable is not known.
+     */
+    public int findId(@NonNull String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Adds a new variable, together with its base variable.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The ID of the variable.
+     */
+    private synchronized int add(@NonNull String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            // added concurrently
+            return existing;
+        }
+
+        Operator operator = Operator.NONE;
+        int operatorIndex = -1;
+        int operatorLength = 0;
+        for (Operator op : Operator.values()) {
+            if (op != Operator.NONE) {
+                int index = name.indexOf(notNull(op.replacement));
+                if (index != -1 && (operatorIndex == -1 || index < operatorIndex)) {
+                    operator = op;
+                    operatorIndex = index;
+                    operatorLength = notNull(op.replacement).length();
+                }
+            }
+        }
+        if (operator == Operator.NONE) {
+            // human readable form; the first operator character decides, two-character operators end with =
+            int index = StringUtils.getLastOperatorIndex(name);
+            if (index != -1) {
+                char c = name.charAt(index);
+                boolean twoChars = index + 1 < name.length() && name.charAt(index + 1) == '=';
+                if (c == '=') {
+                    operator = Operator.EQ;
+                } else if (c == '!') {
+                    operator = Operator.NE;
+                } else if (c == '>') {
+                    operator = twoChars ? Operator.GE : Operator.GT;
+                } else {
+                    operator = twoChars ? Operator.LE : Operator.LT;
+                }
+                operatorIndex = index;
+                operatorLength = notNull(operator.symbol).length();
+            }
+        }
+
+        int baseId;
+        String value = null;
+        if (operator != Operator.NONE && operatorIndex > 0) {
+            baseId = add(notNull(name.substring(0, operatorIndex)));
+            value = name.substring(operatorIndex + operatorLength);
+        } else {
+            operator = Operator.NONE;
+            baseId = size;
+        }
+
+        int id = size++;
+        Entry @NonNull [] current = entries;
+        if (id >= current.length) {
+            current = notNull(Arrays.copyOf(current, current.length * 2));
+        }
+        current[id] = new Entry(name, baseId, operator, value);
+        entries = current;
+        ids.put(name, id);
+
+        return id;
+    }
+
+    /**
+     * Returns the entry for the given ID.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The entry of the variable.
+     *
+     * @throws IllegalArgumentException If the ID is not assigned.
+     */
+    private @NonNull Entry getEntry(int id) throws IllegalArgumentException {
+        Entry @NonNull [] current = entries;
+        Entry entry = id >= 0 && id < current.length ? current[id] : null;
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown variable ID " + id);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the name of the variable with the given ID.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The name of the variable.
+     */
+    public @NonNull String getName(int id) {
+        return getEntry(id).name;
+    }
+
+    /**
+     * Returns the ID of the base variable, i.e. the variable without a non-Boolean comparison. For example, the base
+     * variable of both <code>A_eq_1</code> and <code>A=1</code> is <code>A</code>.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The ID of the base variable; the given ID if the variable has no comparison.
+     */
+    public int getBaseId(int id) {
+        return getEntry(id).baseId;
+    }
+
+    /**
+     * Returns the comparison operator of the variable.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The operator, {@link Operator#NONE} if the variable has no comparison.
+     */
+    public @NonNull Operator getOperator(int id) {
+        return getEntry(id).operator;
+    }
+
+    /**
+     * Returns the right side of the comparison of the variable, e.g. <code>1</code> for <code>A_eq_1</code>.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The compared value, <code>null</code> if the variable has no comparison.
+     */
+    public @Nullable String getValue(int id) {
+        return getEntry(id).value;
+    }
+
+    /**
+     * Returns the right side of the comparison of the variable as an integer.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The compared value, <code>null</code> if the variable has no comparison or the value is not an
+     *      integer.
+     */
+    public @Nullable Integer getIntValue(int id) {
+        return getEntry(id).intValue;
+    }
+
+    /**
+     * Returns the number of variables in this dictionary. All IDs are smaller than this.
+     *
+     * @return The number of variables.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+}
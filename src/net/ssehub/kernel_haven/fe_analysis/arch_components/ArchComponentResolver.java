@@ -18,12 +18,13 @@ package net.ssehub.kernel_haven.fe_analysis.arch_components;
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.StringUtils;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.logic.Conjunction;
@@ -44,8 +45,6 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class ArchComponentResolver extends AnalysisComponent<FeatureEffectWithArchComponent> {
     
-    private static final Pattern OPERATOR_PATTERN = Pattern.compile("(=|<|>|>=|<=|!=|\\+|\\*|\\-|/|%|\\||&)");
-
     private @NonNull AnalysisComponent<ArchComponentStorage> componentInput;
     
     private @NonNull AnalysisComponent<VariableWithFeatureEffect> feInput;
@@ -92,7 +91,15 @@ public class ArchComponentResolver extends AnalysisComponent<FeatureEffectWithAr
      
         private @NonNull ArchComponentStorage componentStorage;
         
-        private @NonNull String feVar = ""; // will be initialized in reset()
+        private @NonNull VariableDictionary dictionary;
+        
+        /**
+         * The component number of the base name (up to the first operator) of each variable, by variable ID. -1 if
+         * not computed yet.
+         */
+        private int @NonNull [] componentByVariable;
+        
+        private int feVarComponent; // will be initialized in reset()
         
         private boolean foundSame;
         
@@ -105,6 +112,8 @@ public class ArchComponentResolver extends AnalysisComponent<FeatureEffectWithAr
          */
         public ComponentFinder(@NonNull ArchComponentStorage componentStorage) {
             this.componentStorage = componentStorage;
+            this.dictionary = componentStorage.getDictionary();
+            this.componentByVariable = new int[0];
         }
         
         /**
@@ -113,21 +122,44 @@ public class ArchComponentResolver extends AnalysisComponent<FeatureEffectWithAr
          * @param feVar The variable to run the next visitation for.
          */
         public void reset(@NonNull String feVar) {
-            this.feVar = feVar;
+            this.feVarComponent = componentStorage.getComponentNumber(dictionary.findId(feVar));
             this.foundSame = false;
             this.foundOther = false;
         }
         
-        @Override
-        public void visitVariable(@NonNull Variable variable) {
-            String varName = variable.getName();
-            // only use base name up to <= etc.
-            Matcher m = OPERATOR_PATTERN.matcher(varName);
-            if (m.find()) {
-                varName = notNull(varName.substring(0, m.start()));
+        /**
+         * Returns the component number of the base name of the given variable. The base name is only computed the
+         * first time a variable is seen.
+         * 
+         * @param varName The name of the variable.
+         * 
+         * @return The component number, see {@link ArchComponentStorage#getComponentNumber(int)}.
+         */
+        private int getComponentOfBaseName(@NonNull String varName) {
+            int id = dictionary.getId(varName);
+            if (id >= componentByVariable.length) {
+                int oldLength = componentByVariable.length;
+                componentByVariable = notNull(Arrays.copyOf(componentByVariable, Math.max(id + 1, oldLength * 2)));
+                Arrays.fill(componentByVariable, oldLength, componentByVariable.length, -1);
             }
             
-            if (componentStorage.isSameComponent(feVar, varName)) {
+            int component = componentByVariable[id];
+            if (component == -1) {
+                String baseName = varName;
+                // only use base name up to <= etc.
+                int pos = StringUtils.getFirstOperatorIndex(baseName);
+                if (pos != -1) {
+                    baseName = notNull(baseName.substring(0, pos));
+                }
+                component = componentStorage.getComponentNumber(dictionary.findId(baseName));
+                componentByVariable[id] = component;
+            }
+            return component;
+        }
+        
+        @Override
+        public void visitVariable(@NonNull Variable variable) {
+            if (ArchComponentStorage.isSameComponent(feVarComponent, getComponentOfBaseName(variable.getName()))) {
                 foundSame = true;
             } else {
                 foundOther = true;
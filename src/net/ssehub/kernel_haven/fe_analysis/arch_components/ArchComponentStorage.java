@@ -17,11 +17,13 @@ package net.ssehub.kernel_haven.fe_analysis.arch_components;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 
 /**
@@ -31,13 +33,42 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class ArchComponentStorage implements Iterable<Map.Entry<String, String>> {
     
+    /**
+     * The number that represents "no component". Different to all other numbers, including itself.
+     */
+    public static final int NO_COMPONENT = 0;
+    
     private @NonNull Map<String, String> components;
     
+    private @NonNull VariableDictionary dictionary;
+    
+    /**
+     * The numbers assigned to the architecture component names, starting at 1.
+     */
+    private @NonNull Map<String, Integer> componentNumbers;
+    
+    /**
+     * The component number per variable ID (see {@link VariableDictionary}); {@link #NO_COMPONENT} if not set.
+     */
+    private int @NonNull [] componentOfVariable;
+    
     /**
      * Creates an empty storage.
      */
     public ArchComponentStorage() {
         components = new HashMap<>();
+        dictionary = new VariableDictionary();
+        componentNumbers = new HashMap<>();
+        componentOfVariable = new int[0];
+    }
+    
+    /**
+     * Returns the dictionary that is used to identify the variables in this storage.
+     * 
+     * @return The variable dictionary.
+     */
+    public @NonNull VariableDictionary getDictionary() {
+        return dictionary;
     }
     
     /**
@@ -49,6 +80,19 @@ public class ArchComponentStorage implements Iterable<Map.Entry<String, String>>
     public void setComponent(@NonNull String var, @NonNull String component) {
         if (!component.isEmpty()) {
             components.put(var, component);
+            
+            Integer number = componentNumbers.get(component);
+            if (number == null) {
+                number = componentNumbers.size() + 1;
+                componentNumbers.put(component, number);
+            }
+            
+            int id = dictionary.getId(var);
+            if (id >= componentOfVariable.length) {
+                componentOfVariable = notNull(Arrays.copyOf(componentOfVariable,
+                        Math.max(id + 1, componentOfVariable.length * 2)));
+            }
+            componentOfVariable[id] = number;
         }
     }
     
@@ -82,16 +126,36 @@ public class ArchComponentStorage implements Iterable<Map.Entry<String, String>>
      * @return Whether the two variables belong to the same architecture component.
      */
     public boolean isSameComponent(@NonNull String var1, @NonNull String var2) {
-        String c1 = getComponent(var1);
-        String c2 = getComponent(var2);
-        
-        boolean result = false;
-        // empty strings are always different
-        if (!c1.isEmpty() && !c2.isEmpty()) {
-            result = c1.equals(c2);
-        }
-        
-        return result;
+        int c1 = getComponentNumber(dictionary.findId(var1));
+        int c2 = getComponentNumber(dictionary.findId(var2));
+        return isSameComponent(c1, c2);
+    }
+    
+    /**
+     * Returns the number of the architecture component of the given variable. Two variables belong to the same
+     * architecture component, iff they have the same number and this number is not {@link #NO_COMPONENT}.
+     * 
+     * @param variableId The ID of the variable in the dictionary of this storage (see {@link #getDictionary()}); may
+     *      be -1 for unknown variables.
+     * 
+     * @return The number of the component, {@link #NO_COMPONENT} if the variable has no architecture component.
+     */
+    public int getComponentNumber(int variableId) {
+        return variableId >= 0 && variableId < componentOfVariable.length
+                ? componentOfVariable[variableId] : NO_COMPONENT;
+    }
+    
+    /**
+     * Checks whether the two given component numbers denote the same architecture component.
+     * 
+     * @param component1 The first component number, see {@link #getComponentNumber(int)}.
+     * @param component2 The second component number, see {@link #getComponentNumber(int)}.
+     * 
+     * @return Whether the two numbers denote the same architecture component.
+     */
+    public static boolean isSameComponent(int component1, int component2) {
+        // no component is always different
+        return component1 != NO_COMPONENT && component1 == component2;
     }
 
     @Override
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.fe_analysis.config_relevancy.VariableRelevance.Relevance;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeAggregator;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.util.ProgressLogger;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Checks feature effects of variables against many product configurations at once, e.g. the output of a randconfig
+ * farm. This is the batch version of the {@link ConfigRelevancyChecker} and uses the same rating for each pair of
+ * configuration and variable.
+ * <p>
+ * All <code>*.csv</code> files in the configured directory are loaded as product configurations (in the format of
+ * {@link ConfigRelevancyChecker#INPUT_FILE_PROPERTY}). Each feature effect is compiled only once into a
+ * {@link FeatureEffectProgram}, which is then evaluated against 64 configurations at a time (see
+ * {@link ConfigurationBatch}).
+ * <p>
+ * The result contains one row per configuration for each variable with a feature effect, in the order of the
+ * configuration file names. Afterwards, the configured variables without a feature effect are listed as
+ * {@link Relevance#NOT_FOUND_IN_CODE}.
+ *
+ * @author agent
+ */
+public class BatchConfigRelevancyChecker extends AnalysisComponent<ConfigurationRelevance> {
+
+    public static final @NonNull Setting<@NonNull File> CONFIGURATION_DIR
+        = new Setting<>("analysis.config_relevancy_checker.configuration_dir", Type.DIRECTORY, true, null,
+            "A directory with historical SPL configuration files (*.csv), which should be analyzed w.r.t. the "
+            + "relevance of the configured variables.");
+
+    private @NonNull AnalysisComponent<VariableWithFeatureEffect> featureEffectFinder;
+
+    private @NonNull File configurationDir;
+
+    private @NonNull VariableDictionary dictionary = new VariableDictionary();
+
+    /**
+     * Sole constructor for this class.
+     *
+     * @param config The pipeline configuration.
+     * @param featureEffectFinder Probably {@link FeatureEffectFinder} or {@link FeAggregator}.
+     *
+     * @throws SetUpException If configuration fails, e.g., if no configuration directory was passed to this analysis.
+     */
+    public BatchConfigRelevancyChecker(@NonNull Configuration config,
+            @NonNull AnalysisComponent<VariableWithFeatureEffect> featureEffectFinder) throws SetUpException {
+
+        super(config);
+        this.featureEffectFinder = featureEffectFinder;
+
+        config.registerSetting(CONFIGURATION_DIR);
+        configurationDir = config.getValue(CONFIGURATION_DIR);
+    }
+
+    /**
+     * Loads all product configurations of the given directory.
+     *
+     * @param directory The directory containing the configuration files.
+     *
+     * @return The loaded configurations, sorted by their file names.
+     *
+     * @throws IOException If the directory or one of the files could not be read.
+     */
+    private @NonNull List<@NonNull ProductConfiguration> loadConfigurations(@NonNull File directory)
+            throws IOException {
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".csv"));
+        if (files == null) {
+            throw new IOException("Can't list files in " + directory);
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        List<@NonNull ProductConfiguration> result = new ArrayList<>(files.length);
+        for (File file : files) {
+            result.add(ProductConfiguration.load(notNull(file), dictionary));
+        }
+        return result;
+    }
+
+    /**
+     * Splits the given configurations into {@link ConfigurationBatch}es.
+     *
+     * @param configurations The configurations to split.
+     *
+     * @return The batches, in the order of the configurations.
+     */
+    private @NonNull List<@NonNull ConfigurationBatch> createBatches(
+            @NonNull List<@NonNull ProductConfiguration> configurations) {
+
+        List<@NonNull ConfigurationBatch> result = new ArrayList<>();
+        for (int i = 0; i < configurations.size(); i += ConfigurationBatch.MAX_SIZE) {
+            int end = Math.min(configurations.size(), i + ConfigurationBatch.MAX_SIZE);
+            result.add(new ConfigurationBatch(notNull(configurations.subList(i, end))));
+        }
+        return result;
+    }
+
+    @Override
+    protected void execute() {
+        ProgressLogger progress = new ProgressLogger(notNull(getClass().getSimpleName()));
+
+        try {
+            List<@NonNull ProductConfiguration> configurations = loadConfigurations(configurationDir);
+            List<@NonNull ConfigurationBatch> batches = createBatches(configurations);
+            LOGGER.logInfo("Checking " + configurations.size() + " configurations in " + batches.size() + " batches");
+
+            BitSet variablesWithFe = new BitSet();
+            long[] evaluation = new long[2];
+            FeatureEffectProgram.Compiler compiler = new FeatureEffectProgram.Compiler(dictionary);
+
+            VariableWithFeatureEffect var;
+            while ((var = featureEffectFinder.getNextResult()) != null) {
+
+                if (var.getVariable().contains("=")) {
+                    LOGGER.logWarning("Variable name still contains a '=': " + var.getVariable(),
+                            "You probably want to run the " + FeAggregator.class.getCanonicalName()
+                            + " component before this one");
+                }
+
+                FeatureEffectProgram program = compiler.compile(var.getFeatureEffect());
+                int id = dictionary.findId(var.getVariable());
+                if (id >= 0) {
+                    variablesWithFe.set(id);
+                }
+
+                for (ConfigurationBatch batch : batches) {
+                    batch.evaluate(program, evaluation);
+
+                    for (int i = 0; i < batch.size(); i++) {
+                        ProductConfiguration configuration = batch.get(i);
+                        Integer value = configuration.getValueOrNull(id);
+                        Relevance relevance = Relevance.of(toBoolean(evaluation, i), value != null);
+
+                        addResult(new ConfigurationRelevance(configuration.getName(), var.getVariable(), value,
+                                relevance));
+                    }
+                }
+
+                progress.processedOne();
+            }
+
+            // all configured variables that we got no FE for were not found in any PC
+            for (ProductConfiguration configuration : configurations) {
+                for (int id : configuration.getConfiguredIds()) {
+                    if (!variablesWithFe.get(id)) {
+                        addResult(new ConfigurationRelevance(configuration.getName(), dictionary.getName(id),
+                                configuration.getValue(id), Relevance.NOT_FOUND_IN_CODE));
+                    }
+                }
+            }
+
+        } catch (IOException e) {
+            LOGGER.logException("Can't read files with product configurations", e);
+        } finally {
+            progress.close();
+        }
+    }
+
+    /**
+     * Extracts the result for a single configuration from the evaluation masks of a batch.
+     *
+     * @param evaluation The result of {@link ConfigurationBatch#evaluate(FeatureEffectProgram, long[])}.
+     * @param index The position of the configuration in the batch.
+     *
+     * @return The evaluated feature effect; <code>null</code> if it could not be solved.
+     */
+    private static @Nullable Boolean toBoolean(long @NonNull [] evaluation, int index) {
+        Boolean result = null;
+        if ((evaluation[0] & (1L << index)) != 0) {
+            result = Boolean.TRUE;
+        } else if ((evaluation[1] & (1L << index)) != 0) {
+            result = Boolean.FALSE;
+        }
+        return result;
+    }
+
+    @Override
+    public @NonNull String getResultName() {
+        return "Batch Configuration Relevancy";
+    }
+
+}
@@ -18,11 +18,8 @@ package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,16 +28,14 @@ import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
 import net.ssehub.kernel_haven.config.Setting;
 import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.fe_analysis.config_relevancy.VariableRelevance.Relevance;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeAggregator;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
 import net.ssehub.kernel_haven.util.ProgressLogger;
-import net.ssehub.kernel_haven.util.io.csv.CsvReader;
 import net.ssehub.kernel_haven.util.logic.False;
 import net.ssehub.kernel_haven.util.logic.Formula;
-import net.ssehub.kernel_haven.util.logic.FormulaEvaluator;
-import net.ssehub.kernel_haven.util.logic.VariableFinder;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
@@ -51,8 +46,9 @@ import net.ssehub.kernel_haven.util.null_checks.Nullable;
  * variable names in the feature effect formulas can have the format "VAR=2"; a product configuration
  * (SPL configuration) that is checked is a mapping <code>variable name -&gt; integer</code>.
  * <p>
- * Feature effects are not allowed to contain &gt;, &lt;, &gt;=, &lt;=, != comparisons
- * in their variable names. They must only contains variable names in the form of "VAR" or "VAR=4".
+ * Variable names in the feature effects may contain integer comparisons, e.g. "VAR=4", "VAR!=4" or "VAR&gt;=4". Each
+ * feature effect is compiled into a {@link FeatureEffectProgram}, which resolves these comparisons once. The
+ * compiler and the operand stack are re-used for all feature effects.
  * 
  * @author Adam
  */
@@ -67,6 +63,16 @@ public class ConfigRelevancyChecker extends AnalysisComponent<VariableRelevance>
     
     private @NonNull File inputFile;
     
+    private @NonNull VariableDictionary dictionary = new VariableDictionary();
+    
+    private final FeatureEffectProgram.@NonNull Compiler compiler = new FeatureEffectProgram.Compiler(dictionary);
+    
+    /**
+     * The operand stack for {@link FeatureEffectProgram#evaluate(ProductConfiguration, byte[])}, re-used for all
+     * feature effects.
+     */
+    private byte @NonNull [] stack = new byte[16];
+    
     /**
      * Sole constructor for this class.
      * 
@@ -94,33 +100,14 @@ public class ConfigRelevancyChecker extends AnalysisComponent<VariableRelevance>
      * @throws IOException If the file could not be read.
      */
     protected @NonNull Map<String, Integer> loadFile(@NonNull File inputFile) throws IOException {
-        Map<String, Integer> variableValues = new HashMap<>();
-        
-        final int nameIndex = 0;
-        final int valueIndex = 1;
-        
-        try (CsvReader in = new CsvReader(new FileInputStream(inputFile))) {
-            
-            String[] line;
-            while ((line = in.readNextRow()) != null) {
-                try {
-                    variableValues.put(line[nameIndex], Integer.parseInt(line[valueIndex]));
-                } catch (NumberFormatException e) {
-                    LOGGER.logWarning("Invalid integer value in " + inputFile + " at line "
-                            + in.getLineNumber() + ": " + line[valueIndex]);
-                }
-            }
-            
-        }
-        
-        return variableValues;
+        return ProductConfiguration.readCsv(inputFile);
     }
     
     /**
-     * Solves the given constraint while using the configuration of the map.
+     * Solves the given constraint while using the given configuration.
      * 
      * @param featureEffect The constraint to solve.
-     * @param variableValues The configuration to use.
+     * @param configuration The configuration to use.
      * 
      * @return 
      * <ul>
@@ -130,52 +117,21 @@ public class ConfigRelevancyChecker extends AnalysisComponent<VariableRelevance>
      * </ul>
      */
     private @Nullable Boolean evaluateFeatureEffect(@NonNull Formula featureEffect,
-            @NonNull Map<String, Integer> variableValues) {
-        
-        VariableFinder varFinder = new VariableFinder();
-        varFinder.visit(featureEffect);
+            @NonNull ProductConfiguration configuration) {
         
-        Map<String, Boolean> variableMapping = new HashMap<>();
-        
-        List<String> variables = varFinder.getVariableNames();
-        for (String variable : variables) {
-            if (variable.contains(">") || variable.contains("<") || variable.contains("!")) {
-                LOGGER.logWarning("Variable name contains operators that this component cannot handle: "
-                    + variable, "Setting its value to undefined");
-                
-                continue;
-            }
-            
-            String baseName = variable;
-            int equalIndex = baseName.indexOf('=');
-            
-            if (equalIndex != -1) {
-                // a variable with "a = ..." is true, if its right part is an integer equal to the configured value
-                baseName = baseName.substring(0, equalIndex);
-                try  {
-                    int equalityValue = Integer.parseInt(variable.substring(equalIndex + 1));
-                    Integer configuredValue = variableValues.get(baseName);
-                    if (configuredValue != null) {
-                        variableMapping.put(variable, equalityValue == configuredValue);
-                    }
-                
-                } catch (NumberFormatException e) {
-                    LOGGER.logExceptionWarning("Can't parse right side of variable " + variable
-                            + "; setting its value to undefined", e);
-                }
-                
-                
-            } else {
-                // a variable without = is true, if it has _some_ value
-                // TODO: should 0 be treated like false here?
-                
-                if (variableValues.get(baseName) != null) {
-                    variableMapping.put(baseName, true);
-                }
-            }
+        FeatureEffectProgram program = compiler.compile(featureEffect);
+        if (program.getMaxStackDepth() > stack.length) {
+            stack = new byte[program.getMaxStackDepth()];
         }
         
-        return new FormulaEvaluator(variableMapping).visit(featureEffect);
+        Boolean result = null;
+        byte evaluation = program.evaluate(configuration, stack);
+        if (evaluation == FeatureEffectProgram.TRUE) {
+            result = Boolean.TRUE;
+        } else if (evaluation == FeatureEffectProgram.FALSE) {
+            result = Boolean.FALSE;
+        }
+        return result;
     }
 
     @Override
@@ -185,6 +141,8 @@ public class ConfigRelevancyChecker extends AnalysisComponent<VariableRelevance>
         try {
             Map<String, Integer> variableValues = loadFile(inputFile);
             Set<String> allVariables = new HashSet<>(variableValues.keySet());
+            ProductConfiguration configuration = new ProductConfiguration(notNull(inputFile.getName()),
+                    variableValues, dictionary);
             
             VariableWithFeatureEffect var;
             while ((var = featureEffectFinder.getNextResult()) != null) {
@@ -195,22 +153,10 @@ public class ConfigRelevancyChecker extends AnalysisComponent<VariableRelevance>
                             + " component before this one");
                 }
                 
-                Boolean feEvaluation = evaluateFeatureEffect(var.getFeatureEffect(), variableValues);
-                Integer value = variableValues.get(var.getVariable());
+                Boolean feEvaluation = evaluateFeatureEffect(var.getFeatureEffect(), configuration);
+                Integer value = configuration.getValueOrNull(dictionary.findId(var.getVariable()));
                 
-                Relevance relevance = Relevance.UNKOWN;
-                if (feEvaluation == Boolean.FALSE && value == null) {
-                    relevance = Relevance.NOT_SET_AND_IRRELEVANT;
-                        
-                } else if (feEvaluation == Boolean.FALSE && value != null) {
-                    relevance = Relevance.SET_AND_IRRELEVANT;
-                        
-                } else if (feEvaluation == Boolean.TRUE && value == null) {
-                    relevance = Relevance.NOT_SET_AND_RELEVANT;
-                    
-                } else if (feEvaluation == Boolean.TRUE && value != null) {
-                    relevance = Relevance.SET_AND_RELEVANT;
-                }
+                Relevance relevance = Relevance.of(feEvaluation, value != null);
                 
                 VariableRelevance varRelevance = new VariableRelevance(var.getVariable(), relevance,
                         var.getFeatureEffect(), value);
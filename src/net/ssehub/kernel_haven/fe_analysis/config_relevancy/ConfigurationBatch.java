@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Up to 64 product configurations (using the same {@link VariableDictionary}), that are evaluated together: bit
+ * <code>i</code> of a <code>long</code> holds the value for configuration <code>i</code>. A three-valued result is
+ * represented by two masks: the configurations for which it is true and the configurations for which it is false;
+ * configurations in neither mask are unknown.
+ * <p>
+ * The masks of the atoms are computed once per batch and re-used for all {@link FeatureEffectProgram}s.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author agent
+ */
+class ConfigurationBatch {
+
+    /**
+     * The maximum number of configurations in a single batch.
+     */
+    static final int MAX_SIZE = Long.SIZE;
+
+    private final @NonNull ProductConfiguration @NonNull [] configurations;
+
+    /**
+     * The mask with the bits of all configurations of this batch set.
+     */
+    private final long allMask;
+
+    /**
+     * The configurations for which an atom is true, by variable ID; only valid for the IDs set in {@link #computed}.
+     */
+    private long @NonNull [] trueMasks = new long[0];
+
+    /**
+     * The configurations for which an atom is false, by variable ID; only valid for the IDs set in {@link #computed}.
+     */
+    private long @NonNull [] falseMasks = new long[0];
+
+    private final @NonNull BitSet computed = new BitSet();
+
+    private long @NonNull [] trueStack = new long[16];
+
+    private long @NonNull [] falseStack = new long[16];
+
+    /**
+     * Creates a batch.
+     *
+     * @param configurations The configurations of this batch; at most {@link #MAX_SIZE}.
+     */
+    ConfigurationBatch(@NonNull List<@NonNull ProductConfiguration> configurations) {
+        if (configurations.size() > MAX_SIZE) {
+            throw new IllegalArgumentException("A batch can contain at most " + MAX_SIZE + " configurations, got "
+                    + configurations.size());
+        }
+        this.configurations = notNull(configurations.toArray(new ProductConfiguration[configurations.size()]));
+        this.allMask = configurations.size() == MAX_SIZE ? -1L : (1L << configurations.size()) - 1;
+    }
+
+    /**
+     * Returns the number of configurations in this batch.
+     *
+     * @return The size of this batch.
+     */
+    int size() {
+        return configurations.length;
+    }
+
+    /**
+     * Returns the configuration at the given position (bit) of this batch.
+     *
+     * @param index The position of the configuration.
+     *
+     * @return The configuration.
+     */
+    @NonNull ProductConfiguration get(int index) {
+        return configurations[index];
+    }
+
+    /**
+     * Evaluates the given program against all configurations of this batch.
+     *
+     * @param program The program to evaluate.
+     * @param result Receives the result: index 0 is the mask of the configurations for which the program is true,
+     *      index 1 is the mask of the configurations for which it is false.
+     */
+    void evaluate(@NonNull FeatureEffectProgram program, long @NonNull [] result) {
+        if (program.getMaxStackDepth() > trueStack.length) {
+            trueStack = new long[program.getMaxStackDepth()];
+            falseStack = new long[program.getMaxStackDepth()];
+        }
+        long[] t = trueStack;
+        long[] f = falseStack;
+
+        int sp = 0;
+        for (int i = 0; i < program.getLength(); i++) {
+            switch (program.getOp(i)) {
+            case FeatureEffectProgram.OP_TRUE:
+                t[sp] = allMask;
+                f[sp] = 0;
+                sp++;
+                break;
+
+            case FeatureEffectProgram.OP_FALSE:
+                t[sp] = 0;
+                f[sp] = allMask;
+                sp++;
+                break;
+
+            case FeatureEffectProgram.OP_LOAD:
+                int slot = program.getArg(i);
+                int id = program.getAtomId(slot);
+                computeAtom(program, slot, id);
+                t[sp] = trueMasks[id];
+                f[sp] = falseMasks[id];
+                sp++;
+                break;
+
+            case FeatureEffectProgram.OP_NOT:
+                long tmp = t[sp - 1];
+                t[sp - 1] = f[sp - 1];
+                f[sp - 1] = tmp;
+                break;
+
+            case FeatureEffectProgram.OP_AND:
+                sp--;
+                t[sp - 1] &= t[sp];
+                f[sp - 1] |= f[sp];
+                break;
+
+            case FeatureEffectProgram.OP_OR:
+                sp--;
+                t[sp - 1] |= t[sp];
+                f[sp - 1] &= f[sp];
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown operation " + program.getOp(i));
+            }
+        }
+
+        result[0] = t[0];
+        result[1] = f[0];
+    }
+
+    /**
+     * Computes the masks of the given atom, if they are not computed yet. The masks only depend on the variable ID,
+     * thus they are shared by all programs.
+     *
+     * @param program The program that contains the atom.
+     * @param slot The slot of the atom in the program.
+     * @param id The variable ID of the atom.
+     */
+    private void computeAtom(@NonNull FeatureEffectProgram program, int slot, int id) {
+        if (!computed.get(id)) {
+            if (id >= trueMasks.length) {
+                int newLength = Math.max(id + 1, trueMasks.length * 2);
+                trueMasks = notNull(Arrays.copyOf(trueMasks, newLength));
+                falseMasks = notNull(Arrays.copyOf(falseMasks, newLength));
+            }
+
+            long trueMask = 0;
+            long falseMask = 0;
+            for (int i = 0; i < configurations.length; i++) {
+                byte value = program.evaluateAtom(slot, configurations[i]);
+                if (value == FeatureEffectProgram.TRUE) {
+                    trueMask |= 1L << i;
+                } else if (value == FeatureEffectProgram.FALSE) {
+                    falseMask |= 1L << i;
+                }
+            }
+            trueMasks[id] = trueMask;
+            falseMasks[id] = falseMask;
+            computed.set(id);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import net.ssehub.kernel_haven.fe_analysis.config_relevancy.VariableRelevance.Relevance;
+import net.ssehub.kernel_haven.util.io.TableElement;
+import net.ssehub.kernel_haven.util.io.TableRow;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Data type / result of the {@link BatchConfigRelevancyChecker}. Contains:
+ * <ul>
+ *     <li>The name of the checked configuration</li>
+ *     <li>The name of the checked variable</li>
+ *     <li>The Integer value of the variable in the configuration (may be <tt>null</tt>)</li>
+ *     <li>A description/rating of the situation</li>
+ * </ul>
+ *
+ * @author agent
+ */
+@TableRow
+public class ConfigurationRelevance {
+
+    private @NonNull String configuration;
+
+    private @NonNull String variable;
+
+    private @Nullable Integer value;
+
+    private @NonNull Relevance relevance;
+
+    /**
+     * Sole constructor.
+     *
+     * @param configuration The name of the configuration.
+     * @param variable The name of the variable.
+     * @param value The configured value of the variable.
+     * @param relevance The description of the situation.
+     */
+    public ConfigurationRelevance(@NonNull String configuration, @NonNull String variable, @Nullable Integer value,
+            @NonNull Relevance relevance) {
+
+        this.configuration = configuration;
+        this.variable = variable;
+        this.value = value;
+        this.relevance = relevance;
+    }
+
+    /**
+     * Returns the name of the configuration.
+     *
+     * @return The name of the configuration.
+     */
+    @TableElement(index = 0, name = "Configuration")
+    public @NonNull String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns the name of the variable.
+     *
+     * @return The name of the variable.
+     */
+    @TableElement(index = 1, name = "Variable")
+    public @NonNull String getVariable() {
+        return variable;
+    }
+
+    /**
+     * Returns the configured value of the variable.
+     *
+     * @return The configured value of the variable.
+     */
+    @TableElement(index = 2, name = "Value")
+    public @Nullable Integer getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the description of the situation.
+     *
+     * @return The description of the situation.
+     */
+    @TableElement(index = 3, name = "Relevance")
+    public @NonNull Relevance getRelevance() {
+        return relevance;
+    }
+
+}
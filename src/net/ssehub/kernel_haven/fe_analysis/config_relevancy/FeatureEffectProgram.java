@@ -0,0 +1,490 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary.Operator;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.IVoidFormulaVisitor;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A feature effect, compiled into a flat program in postfix order. The variables of the feature effect are resolved
+ * to "atoms" (variable IDs of a {@link VariableDictionary}) once, when the program is compiled; evaluating the
+ * program against a configuration does not touch the {@link Formula} object graph or any variable names.
+ * <p>
+ * Integer comparisons in the variable names (e.g. <code>VAR=4</code> or <code>VAR&gt;2</code>) are resolved at
+ * compile time, too: each atom stores the ID of its base variable, the comparison and the compared integer.
+ * <p>
+ * The program is evaluated with the three-valued (Kleene) logic of {@link ConfigRelevancyChecker}: an atom is unknown
+ * if the configuration does not define its variable; <code>false AND unknown</code> is false, <code>true OR
+ * unknown</code> is true. The results are ordered <code>{@link #FALSE} &lt; {@link #UNKNOWN} &lt; {@link #TRUE}</code>,
+ * so that a conjunction is the minimum and a disjunction is the maximum of its operands.
+ * <p>
+ * Compiling allocates the (exactly sized) arrays of the program; callers that compile many feature effects should
+ * re-use a {@link Compiler}, which keeps its working buffers between compilations. Evaluating a program with a
+ * caller-provided stack does not allocate memory.
+ * <p>
+ * Instances are immutable and thus thread-safe.
+ *
+ * @author agent
+ */
+public class FeatureEffectProgram {
+
+    /**
+     * Pushes the constant true.
+     */
+    static final byte OP_TRUE = 0;
+
+    /**
+     * Pushes the constant false.
+     */
+    static final byte OP_FALSE = 1;
+
+    /**
+     * Pushes the value of an atom; the argument is the slot of the atom.
+     */
+    static final byte OP_LOAD = 2;
+
+    /**
+     * Negates the top of the stack.
+     */
+    static final byte OP_NOT = 3;
+
+    /**
+     * Replaces the two top elements of the stack with their conjunction.
+     */
+    static final byte OP_AND = 4;
+
+    /**
+     * Replaces the two top elements of the stack with their disjunction.
+     */
+    static final byte OP_OR = 5;
+
+    /**
+     * The result of an atom or program: false.
+     */
+    public static final byte FALSE = 0;
+
+    /**
+     * The result of an atom or program: unknown, because the configuration does not define a required variable.
+     */
+    public static final byte UNKNOWN = 1;
+
+    /**
+     * The result of an atom or program: true.
+     */
+    public static final byte TRUE = 2;
+
+    private static final @NonNull Logger LOGGER = Logger.get();
+
+    private final byte @NonNull [] ops;
+
+    /**
+     * The argument of each operation; only used by {@link #OP_LOAD}.
+     */
+    private final int @NonNull [] args;
+
+    /**
+     * The variable IDs of the atoms, by slot.
+     */
+    private final int @NonNull [] atomIds;
+
+    /**
+     * The IDs of the base variables of the atoms, by slot.
+     */
+    private final int @NonNull [] atomBaseIds;
+
+    /**
+     * The comparisons of the atoms, by slot; <code>null</code> if the compared value is not an integer.
+     */
+    private final @Nullable Operator @NonNull [] atomOperators;
+
+    /**
+     * The compared integers of the atoms, by slot; only used if the atom has a comparison.
+     */
+    private final int @NonNull [] atomValues;
+
+    private final int maxStackDepth;
+
+    /**
+     * Compiles the given feature effect.
+     *
+     * @param featureEffect The feature effect to compile.
+     * @param dictionary The dictionary to resolve the variables with.
+     */
+    public FeatureEffectProgram(@NonNull Formula featureEffect, @NonNull VariableDictionary dictionary) {
+        this(new Compiler(dictionary).run(featureEffect));
+    }
+
+    /**
+     * Creates a program from the state of the given compiler, after it compiled a feature effect.
+     *
+     * @param compiler The compiler that compiled the feature effect.
+     */
+    private FeatureEffectProgram(@NonNull Compiler compiler) {
+        VariableDictionary dictionary = compiler.dictionary;
+
+        this.ops = notNull(Arrays.copyOf(compiler.ops, compiler.length));
+        this.args = notNull(Arrays.copyOf(compiler.args, compiler.length));
+        this.atomIds = notNull(Arrays.copyOf(compiler.atomIds, compiler.slots.size()));
+        this.maxStackDepth = compiler.maxDepth;
+
+        this.atomBaseIds = new int[atomIds.length];
+        this.atomOperators = new @Nullable Operator[atomIds.length];
+        this.atomValues = new int[atomIds.length];
+        for (int slot = 0; slot < atomIds.length; slot++) {
+            int id = atomIds[slot];
+            Operator operator = dictionary.getOperator(id);
+            Integer value = dictionary.getIntValue(id);
+
+            atomBaseIds[slot] = dictionary.getBaseId(id);
+            if (operator == Operator.NONE) {
+                atomOperators[slot] = operator;
+            } else if (value != null) {
+                atomOperators[slot] = operator;
+                atomValues[slot] = value;
+            } else {
+                LOGGER.logWarning("Can't parse right side of variable " + dictionary.getName(id)
+                        + "; setting its value to undefined");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of operations of this program.
+     *
+     * @return The length of this program.
+     */
+    public int getLength() {
+        return ops.length;
+    }
+
+    /**
+     * Returns the operation at the given position.
+     *
+     * @param index The position in the program.
+     *
+     * @return The operation code.
+     */
+    byte getOp(int index) {
+        return ops[index];
+    }
+
+    /**
+     * Returns the argument of the operation at the given position.
+     *
+     * @param index The position in the program.
+     *
+     * @return The argument of the operation.
+     */
+    int getArg(int index) {
+        return args[index];
+    }
+
+    /**
+     * Returns the number of distinct atoms (variables) of this program.
+     *
+     * @return The number of atom slots.
+     */
+    public int getNumAtoms() {
+        return atomIds.length;
+    }
+
+    /**
+     * Returns the variable ID of the atom in the given slot.
+     *
+     * @param slot The slot of the atom.
+     *
+     * @return The variable ID of the atom.
+     */
+    public int getAtomId(int slot) {
+        return atomIds[slot];
+    }
+
+    /**
+     * Returns the maximum number of stack elements needed to evaluate this program.
+     *
+     * @return The maximum stack depth.
+     */
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    /**
+     * Evaluates this program against a single configuration. Does not allocate any memory, all state is kept in the
+     * given stack.
+     *
+     * @param configuration The configuration to evaluate against; must use the dictionary of this program.
+     * @param stack The operand stack to use; at least {@link #getMaxStackDepth()} elements long.
+     *
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}.
+     */
+    public byte evaluate(@NonNull ProductConfiguration configuration, byte @NonNull [] stack) {
+        int sp = 0;
+        for (int i = 0; i < ops.length; i++) {
+            switch (ops[i]) {
+            case OP_TRUE:
+                stack[sp++] = TRUE;
+                break;
+
+            case OP_FALSE:
+                stack[sp++] = FALSE;
+                break;
+
+            case OP_LOAD:
+                stack[sp++] = evaluateAtom(args[i], configuration);
+                break;
+
+            case OP_NOT:
+                stack[sp - 1] = (byte) (TRUE - stack[sp - 1]);
+                break;
+
+            case OP_AND:
+                sp--;
+                if (stack[sp] < stack[sp - 1]) {
+                    stack[sp - 1] = stack[sp];
+                }
+                break;
+
+            case OP_OR:
+                sp--;
+                if (stack[sp] > stack[sp - 1]) {
+                    stack[sp - 1] = stack[sp];
+                }
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown operation " + ops[i]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates this program against a single configuration.
+     *
+     * @param configuration The configuration to evaluate against; must use the dictionary of this program.
+     *
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}.
+     *
+     * @see #evaluate(ProductConfiguration, byte[])
+     */
+    public byte evaluate(@NonNull ProductConfiguration configuration) {
+        return evaluate(configuration, new byte[maxStackDepth]);
+    }
+
+    /**
+     * Evaluates a single atom against a configuration:
+     * <ul>
+     *     <li>A variable without a comparison (e.g. <code>VAR</code>) is true if it has <i>some</i> value.</li>
+     *     <li>A variable with a comparison (e.g. <code>VAR=4</code> or <code>VAR&lt;4</code>) is true if its right side
+     *     is an integer and the comparison with the configured value holds.</li>
+     * </ul>
+     * If the (base) variable is not configured or the right side is not an integer, the atom is unknown.
+     *
+     * @param slot The slot of the atom.
+     * @param configuration The configuration to evaluate against; must use the dictionary of this program.
+     *
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}.
+     */
+    byte evaluateAtom(int slot, @NonNull ProductConfiguration configuration) {
+        int baseId = atomBaseIds[slot];
+        Operator operator = atomOperators[slot];
+
+        byte result = UNKNOWN;
+        if (operator != null && configuration.isConfigured(baseId)) {
+            int configured = configuration.getValue(baseId);
+            int value = atomValues[slot];
+
+            boolean holds;
+            switch (operator) {
+            case NONE:
+                // TODO: should 0 be treated like false here?
+                holds = true;
+                break;
+            case EQ:
+                holds = configured == value;
+                break;
+            case NE:
+                holds = configured != value;
+                break;
+            case GE:
+                holds = configured >= value;
+                break;
+            case GT:
+                holds = configured > value;
+                break;
+            case LE:
+                holds = configured <= value;
+                break;
+            case LT:
+                holds = configured < value;
+                break;
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+            }
+            result = holds ? TRUE : FALSE;
+        }
+        return result;
+    }
+
+    /**
+     * Compiles formulas into {@link FeatureEffectProgram}s. The working buffers (operations, atoms and the slots of
+     * the atoms) are kept between compilations, so only the final arrays of each program are allocated.
+     * <p>
+     * Not thread-safe.
+     */
+    public static final class Compiler implements IVoidFormulaVisitor {
+
+        private final @NonNull VariableDictionary dictionary;
+
+        private byte @NonNull [] ops = new byte[16];
+
+        private int @NonNull [] args = new int[16];
+
+        private int length;
+
+        private int @NonNull [] atomIds = new int[8];
+
+        /**
+         * The slots of the atoms by their variable IDs.
+         */
+        private final @NonNull Map<Integer, Integer> slots = new HashMap<>();
+
+        private int depth;
+
+        private int maxDepth;
+
+        /**
+         * Creates a compiler.
+         *
+         * @param dictionary The dictionary to resolve the variables with.
+         */
+        public Compiler(@NonNull VariableDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Compiles the given feature effect.
+         *
+         * @param featureEffect The feature effect to compile.
+         *
+         * @return The compiled program.
+         */
+        public @NonNull FeatureEffectProgram compile(@NonNull Formula featureEffect) {
+            return new FeatureEffectProgram(run(featureEffect));
+        }
+
+        /**
+         * Resets the working buffers and compiles the given feature effect into them.
+         *
+         * @param featureEffect The feature effect to compile.
+         *
+         * @return This compiler.
+         */
+        private @NonNull Compiler run(@NonNull Formula featureEffect) {
+            length = 0;
+            slots.clear();
+            depth = 0;
+            maxDepth = 0;
+
+            featureEffect.accept(this);
+            return this;
+        }
+
+        /**
+         * Appends an operation.
+         *
+         * @param op The operation code.
+         * @param arg The argument of the operation.
+         * @param stackChange The change of the stack depth caused by the operation.
+         */
+        private void emit(byte op, int arg, int stackChange) {
+            if (length == ops.length) {
+                ops = notNull(Arrays.copyOf(ops, length * 2));
+                args = notNull(Arrays.copyOf(args, length * 2));
+            }
+            ops[length] = op;
+            args[length] = arg;
+            length++;
+
+            depth += stackChange;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        @Override
+        public void visitFalse(@NonNull False falseConstant) {
+            emit(OP_FALSE, 0, 1);
+        }
+
+        @Override
+        public void visitTrue(@NonNull True trueConstant) {
+            emit(OP_TRUE, 0, 1);
+        }
+
+        @Override
+        public void visitVariable(@NonNull Variable variable) {
+            int atomId = dictionary.getId(variable.getName());
+            Integer slot = slots.get(atomId);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(atomId, slot);
+                if (slot == atomIds.length) {
+                    atomIds = notNull(Arrays.copyOf(atomIds, slot * 2));
+                }
+                atomIds[slot] = atomId;
+            }
+            emit(OP_LOAD, slot, 1);
+        }
+
+        @Override
+        public void visitNegation(@NonNull Negation formula) {
+            formula.getFormula().accept(this);
+            emit(OP_NOT, 0, 0);
+        }
+
+        @Override
+        public void visitDisjunction(@NonNull Disjunction formula) {
+            formula.getLeft().accept(this);
+            formula.getRight().accept(this);
+            emit(OP_OR, 0, -1);
+        }
+
+        @Override
+        public void visitConjunction(@NonNull Conjunction formula) {
+            formula.getLeft().accept(this);
+            formula.getRight().accept(this);
+            emit(OP_AND, 0, -1);
+        }
+
+    }
+
+}
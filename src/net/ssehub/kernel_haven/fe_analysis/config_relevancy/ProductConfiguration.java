@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.io.csv.CsvReader;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A (historical) product configuration, i.e. a mapping <code>variable name -&gt; integer</code>. The values are
+ * stored by the variable IDs of a {@link VariableDictionary}.
+ *
+ * @author agent
+ */
+public class ProductConfiguration {
+
+    private static final @NonNull Logger LOGGER = Logger.get();
+
+    private final @NonNull String name;
+
+    private final @NonNull VariableDictionary dictionary;
+
+    /**
+     * The configured values by variable ID; only valid for the IDs set in {@link #configured}.
+     */
+    private final int @NonNull [] values;
+
+    private final @NonNull BitSet configured;
+
+    /**
+     * Creates a product configuration.
+     *
+     * @param name The name of the configuration, e.g. the name of the file it was loaded from.
+     * @param variableValues The configured values by variable name.
+     * @param dictionary The dictionary that assigns the variable IDs.
+     */
+    public ProductConfiguration(@NonNull String name, @NonNull Map<String, Integer> variableValues,
+            @NonNull VariableDictionary dictionary) {
+
+        this.name = name;
+        this.dictionary = dictionary;
+
+        int maxId = -1;
+        for (String variable : variableValues.keySet()) {
+            maxId = Math.max(maxId, dictionary.getId(notNull(variable)));
+        }
+
+        this.values = new int[maxId + 1];
+        this.configured = new BitSet(maxId + 1);
+        for (Map.Entry<String, Integer> entry : variableValues.entrySet()) {
+            int id = dictionary.getId(notNull(entry.getKey()));
+            values[id] = entry.getValue();
+            configured.set(id);
+        }
+    }
+
+    /**
+     * Loads a product configuration from a CSV file. Each line contains a variable name and its integer value.
+     *
+     * @param file The file to load.
+     * @param dictionary The dictionary that assigns the variable IDs.
+     *
+     * @return The configuration, named after the file.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    public static @NonNull ProductConfiguration load(@NonNull File file, @NonNull VariableDictionary dictionary)
+            throws IOException {
+
+        return new ProductConfiguration(notNull(file.getName()), readCsv(file), dictionary);
+    }
+
+    /**
+     * Reads a product configuration CSV file. Each line contains a variable name and its integer value; lines with
+     * invalid values are skipped with a warning.
+     *
+     * @param file The file to read.
+     *
+     * @return A map containing (name of a variable, configured integer value).
+     *
+     * @throws IOException If the file could not be read.
+     */
+    public static @NonNull Map<String, Integer> readCsv(@NonNull File file) throws IOException {
+        Map<String, Integer> variableValues = new HashMap<>();
+
+        final int nameIndex = 0;
+        final int valueIndex = 1;
+
+        try (CsvReader in = new CsvReader(new FileInputStream(file))) {
+
+            String[] line;
+            while ((line = in.readNextRow()) != null) {
+                try {
+                    variableValues.put(line[nameIndex], Integer.parseInt(line[valueIndex]));
+                } catch (NumberFormatException e) {
+                    LOGGER.logWarning("Invalid integer value in " + file + " at line "
+                            + in.getLineNumber() + ": " + line[valueIndex]);
+                }
+            }
+
+        }
+
+        return variableValues;
+    }
+
+    /**
+     * Returns the name of this configuration.
+     *
+     * @return The name of this configuration.
+     */
+    public @NonNull String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the dictionary that assigns the variable IDs.
+     *
+     * @return The variable dictionary.
+     */
+    public @NonNull VariableDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns whether the given variable is configured.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return Whether the variable has a value in this configuration.
+     */
+    public boolean isConfigured(int id) {
+        return id >= 0 && configured.get(id);
+    }
+
+    /**
+     * Returns the configured value of the given variable. Only valid if {@link #isConfigured(int)}.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The configured value.
+     */
+    public int getValue(int id) {
+        return values[id];
+    }
+
+    /**
+     * Returns the configured value of the given variable.
+     *
+     * @param id The ID of the variable.
+     *
+     * @return The configured value, <code>null</code> if the variable is not configured.
+     */
+    public @Nullable Integer getValueOrNull(int id) {
+        return isConfigured(id) ? values[id] : null;
+    }
+
+    /**
+     * Returns the IDs of all configured variables.
+     *
+     * @return The IDs of the configured variables, in ascending order.
+     */
+    public int @NonNull [] getConfiguredIds() {
+        return notNull(configured.stream().toArray());
+    }
+
+}
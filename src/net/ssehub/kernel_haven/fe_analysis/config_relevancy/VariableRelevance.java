@@ -57,6 +57,25 @@ public class VariableRelevance {
             this.name = name;
         }
         
+        /**
+         * Rates a configured variable, based on the evaluation of its feature effect.
+         *
+         * @param feEvaluation The evaluated feature effect; <code>null</code> if it could not be solved.
+         * @param set Whether the variable has a value in the configuration.
+         *
+         * @return The rating of the variable.
+         */
+        public static @NonNull Relevance of(@Nullable Boolean feEvaluation, boolean set) {
+            Relevance relevance = UNKOWN;
+            if (feEvaluation == Boolean.FALSE) {
+                relevance = set ? SET_AND_IRRELEVANT : NOT_SET_AND_IRRELEVANT;
+            
+            } else if (feEvaluation == Boolean.TRUE) {
+                relevance = set ? SET_AND_RELEVANT : NOT_SET_AND_RELEVANT;
+            }
+            return relevance;
+        }
+        
         @Override
         public @NonNull String toString() {
             return name;
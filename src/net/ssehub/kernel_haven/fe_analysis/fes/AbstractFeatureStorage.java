@@ -15,57 +15,174 @@
  */
 package net.ssehub.kernel_haven.fe_analysis.fes;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
-import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
 import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * Stores processed, but still relevant variables during the analysis, Treats variables with same name as equal,
  * independent if they contain an operator in their names.
+ * <p>
+ * The variables are stored in an immutable prefix trie (one node per character of the variable names). Modifications
+ * copy the path to the modified node and replace the root atomically, thus all operations are lock-free and cost
+ * O(length of the variable name); concurrent readers always see a consistent state.
+ *
  * @author El-Sharkawy
  * @param <V> The variable type to use with the storage instance.
  */
 abstract class AbstractFeatureStorage<V> {
-    
-    private @NonNull Map<String, V> effects = new HashMap<>();
-    
+
+    /**
+     * An immutable node of the prefix trie.
+     *
+     * @param <V> The variable type.
+     */
+    private static final class Node<V> {
+
+        private static final char @NonNull [] NO_KEYS = new char[0];
+
+        private static final Object @NonNull [] NO_CHILDREN = new Object[0];
+
+        /**
+         * The characters leading to the children, sorted ascending.
+         */
+        private final char @NonNull [] keys;
+
+        /**
+         * The child nodes, in the same order as {@link #keys}.
+         */
+        private final Object @NonNull [] children;
+
+        /**
+         * The variable whose name ends at this node; <code>null</code> if no variable ends here.
+         */
+        private final @Nullable V value;
+
+        /**
+         * Creates a node.
+         *
+         * @param keys The characters leading to the children.
+         * @param children The child nodes.
+         * @param value The variable whose name ends at this node.
+         */
+        private Node(char @NonNull [] keys, Object @NonNull [] children, @Nullable V value) {
+            this.keys = keys;
+            this.children = children;
+            this.value = value;
+        }
+
+        /**
+         * Creates an empty node.
+         */
+        private Node() {
+            this(NO_KEYS, NO_CHILDREN, null);
+        }
+
+        /**
+         * Returns the child for the given character.
+         *
+         * @param c The next character of the variable name.
+         *
+         * @return The child node, <code>null</code> if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        private @Nullable Node<V> getChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? (Node<V>) children[index] : null;
+        }
+
+        /**
+         * Returns a copy of the path from this node along the given name, with the given value at its end.
+         *
+         * @param name The variable name.
+         * @param position The position in the name that this node represents.
+         * @param newValue The value to store at the end of the name.
+         *
+         * @return The new node that replaces this node.
+         */
+        private @NonNull Node<V> put(@NonNull String name, int position, @NonNull V newValue) {
+            Node<V> result;
+            if (position == name.length()) {
+                result = new Node<>(keys, children, newValue);
+
+            } else {
+                char c = name.charAt(position);
+                int index = Arrays.binarySearch(keys, c);
+
+                char[] newKeys;
+                Object[] newChildren;
+                Node<V> child;
+                if (index >= 0) {
+                    @SuppressWarnings("unchecked")
+                    Node<V> existing = (Node<V>) children[index];
+                    child = existing;
+                    newKeys = keys;
+                    newChildren = children.clone();
+                } else {
+                    index = -index - 1;
+                    child = new Node<>();
+                    newKeys = new char[keys.length + 1];
+                    newChildren = new Object[children.length + 1];
+                    System.arraycopy(keys, 0, newKeys, 0, index);
+                    System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+                    System.arraycopy(children, 0, newChildren, 0, index);
+                    System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+                    newKeys[index] = c;
+                }
+                newChildren[index] = child.put(name, position + 1, newValue);
+                result = new Node<>(newKeys, newChildren, value);
+            }
+            return result;
+        }
+
+    }
+
+    private final @NonNull AtomicReference<@NonNull Node<V>> root = new AtomicReference<>(new Node<>());
+
     /**
      * Adds a new {@link VariableWithFeatureEffect} and removes all old variables, which are no longer needed.
      * @param variable the variable to add.
      */
-    public synchronized void add(V variable) {
-        removeUnlessSimilarVariablesExist(getVariableName(variable));
-        effects.put(getVariableName(variable), variable);
+    public void add(V variable) {
+        String name = getVariableName(variable);
+
+        Node<V> oldRoot;
+        Node<V> newRoot;
+        do {
+            oldRoot = root.get();
+            // evict all stored variables, if none of them is a prefix of the new one
+            Node<V> base = containsPrefixOf(oldRoot, name) ? oldRoot : new Node<>();
+            newRoot = base.put(name, 0, variable);
+        } while (!root.compareAndSet(oldRoot, newRoot));
     }
-    
+
     /**
      * Retrieves the name of the variable.
      * @param variable The name for which the name should be retrieved from.
      * @return The name of the specified variable.
      */
     protected abstract String getVariableName(V variable);
-    
+
     /**
      * Returns the {@link VariableWithFeatureEffect} with the specified name.
      * @param variable The name to consider, contains also the value assignment including an equal character if in
      *     non-Boolean mode.
      * @return The specified variable or <tt>null</tt> if it does not exist or was already removed.
      */
-    public synchronized @Nullable V getFeatureEffect(String variable) {
-        return effects.get(variable);
+    public @Nullable V getFeatureEffect(String variable) {
+        return get(variable, variable.length());
     }
 
     /**
      * Clears the storage.
      */
-    public synchronized void clear() {
-        effects.clear();
+    public void clear() {
+        root.set(new Node<>());
     }
-    
+
     /**
      * Returns the base variable as it is used in define-expressions. This is either
      * <ul>
@@ -77,17 +194,29 @@ abstract class AbstractFeatureStorage<V> {
      * @return The variable without a value assignment and its feature effect.
      */
     public @Nullable V getBaseVariable(@NonNull String variable) {
-        int index = variable.lastIndexOf("=");
-        if (-1 != index) {
-            variable = NullHelpers.notNull(variable.substring(0, index));
+        int index = variable.lastIndexOf('=');
+        return get(variable, -1 != index ? index : variable.length());
+    }
+
+    /**
+     * Looks up the variable with the name given by the first characters of the given string.
+     *
+     * @param name The string containing the variable name.
+     * @param length The length of the variable name.
+     *
+     * @return The variable, or <code>null</code> if it is not stored.
+     */
+    private @Nullable V get(@NonNull String name, int length) {
+        Node<V> node = root.get();
+        for (int i = 0; i < length && node != null; i++) {
+            node = node.getChild(name.charAt(i));
         }
-        
-        return getFeatureEffect(variable);
+        return node != null ? node.value : null;
     }
-    
+
     /**
-     * {@link #clear()}s the storage if no relevant variables are stored anymore. Relevant variables are variables which
-     * start with the same name.
+     * Checks whether any stored variable is a prefix of (or equal to) the given name. Relevant variables are variables
+     * which start with the same name.
      * <ul>
      *   <li>variables are alphabetically sorted</li>
      *   <li>define variables are without a suffix</li>
@@ -95,19 +224,17 @@ abstract class AbstractFeatureStorage<V> {
      *   <li>Critical: some times other variables which start with a similar name may be sorted between the define
      *       variable and the assignment variables</li>
      * </ul>
+     * @param trie The root of the trie to check.
      * @param variable A variable to be added, which serves as a reference for which variables must not be deleted.
+     * @return Whether a stored variable is a prefix of the given variable.
      */
-    private synchronized void removeUnlessSimilarVariablesExist(String variable) {
-        boolean containsSimilarVariables = false;
-        for (String otherVariable : effects.keySet()) {
-            if (variable.startsWith(otherVariable)) {
-                containsSimilarVariables = true;
-                break;
-            }
-        }
-        
-        if (!containsSimilarVariables) {
-            clear();
+    private static <V> boolean containsPrefixOf(@NonNull Node<V> trie, @NonNull String variable) {
+        boolean found = trie.value != null;
+        Node<V> node = trie;
+        for (int i = 0; i < variable.length() && node != null && !found; i++) {
+            node = node.getChild(variable.charAt(i));
+            found = node != null && node.value != null;
         }
+        return found;
     }
 }
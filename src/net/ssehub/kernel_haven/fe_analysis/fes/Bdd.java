@@ -0,0 +1,568 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A small, pure-Java reduced ordered binary decision diagram (ROBDD). Nodes are referenced by <code>int</code>
+ * handles; {@link #FALSE} and {@link #TRUE} are the two terminal nodes. Variables are ordered in the order in which
+ * they are first registered.
+ * <p>
+ * Instances are not thread-safe; each thread should use its own {@link Bdd}.
+ *
+ * @author agent
+ */
+public class Bdd {
+
+    /**
+     * The terminal node representing <code>false</code>.
+     */
+    public static final int FALSE = 0;
+
+    /**
+     * The terminal node representing <code>true</code>.
+     */
+    public static final int TRUE = 1;
+
+    private static final int TERMINAL_LEVEL = Integer.MAX_VALUE;
+
+    private static final int OP_AND = 0;
+
+    private static final int OP_OR = 1;
+
+    private static final int OP_XOR = 2;
+
+    private static final int OP_NOT = 3;
+
+    private static final int OP_RESTRICT_FALSE = 4;
+
+    private static final int OP_RESTRICT_TRUE = 5;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private static final int MAX_CACHE_SIZE = 1 << 16;
+
+    private @NonNull Map<String, Integer> levels = new HashMap<>();
+
+    private @NonNull List<@NonNull String> variableNames = new ArrayList<>();
+
+    /*
+     * Node storage: level (variable index), low (else) child and high (then) child of each node.
+     */
+
+    private int[] nodeLevel = new int[INITIAL_CAPACITY];
+
+    private int[] nodeLow = new int[INITIAL_CAPACITY];
+
+    private int[] nodeHigh = new int[INITIAL_CAPACITY];
+
+    private int numNodes;
+
+    /*
+     * Unique table: open addressing over node handles, 0 marks an empty slot (terminals are never stored).
+     */
+
+    private int[] uniqueTable = new int[INITIAL_CAPACITY * 2];
+
+    /*
+     * Lossy, direct-mapped cache for operation results. Grows together with the unique table (up to
+     * MAX_CACHE_SIZE), so that small diagrams only allocate small caches.
+     */
+
+    private int[] cacheOp;
+
+    private int[] cacheA;
+
+    private int[] cacheB;
+
+    private int[] cacheResult;
+
+    /**
+     * Creates an empty {@link Bdd}, only containing the two terminal nodes.
+     */
+    public Bdd() {
+        nodeLevel[FALSE] = TERMINAL_LEVEL;
+        nodeLevel[TRUE] = TERMINAL_LEVEL;
+        numNodes = 2;
+        allocateCache(uniqueTable.length);
+    }
+
+    /**
+     * Returns the level (position in the variable order) of the given variable. Registers the variable at the end of
+     * the current variable order if it is not known yet.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The level of the variable.
+     */
+    public int getLevel(@NonNull String name) {
+        Integer level = levels.get(name);
+        if (level == null) {
+            level = variableNames.size();
+            levels.put(name, level);
+            variableNames.add(name);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the names of all variables registered in this {@link Bdd}, in variable order.
+     *
+     * @return The registered variable names; index is the level of the variable.
+     */
+    public @NonNull List<@NonNull String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Returns the node representing the given variable.
+     *
+     * @param name The name of the variable.
+     *
+     * @return The node of the variable.
+     */
+    public int variable(@NonNull String name) {
+        return mk(getLevel(name), FALSE, TRUE);
+    }
+
+    /**
+     * Returns the number of nodes (including the two terminals) created so far.
+     *
+     * @return The number of nodes.
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Converts the given {@link Formula} into a node of this {@link Bdd}.
+     *
+     * @param formula The formula to convert.
+     *
+     * @return The node representing the formula.
+     */
+    public int fromFormula(@NonNull Formula formula) {
+        int result;
+
+        if (formula instanceof Variable) {
+            result = variable(((Variable) formula).getName());
+
+        } else if (formula instanceof Negation) {
+            result = not(fromFormula(((Negation) formula).getFormula()));
+
+        } else if (formula instanceof Conjunction) {
+            Conjunction con = (Conjunction) formula;
+            result = and(fromFormula(con.getLeft()), fromFormula(con.getRight()));
+
+        } else if (formula instanceof Disjunction) {
+            Disjunction dis = (Disjunction) formula;
+            result = or(fromFormula(dis.getLeft()), fromFormula(dis.getRight()));
+
+        } else if (formula instanceof True) {
+            result = TRUE;
+
+        } else if (formula instanceof False) {
+            result = FALSE;
+
+        } else {
+            throw new IllegalArgumentException("Unsupported formula type: " + formula.getClass().getName());
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts the given node back into a {@link Formula}. The result is built by Shannon expansion, where shared
+     * sub-diagrams result in shared sub-formulas; expansions with terminal children are collapsed.
+     *
+     * @param node The node to convert.
+     *
+     * @return A formula that is logically equivalent to the given node.
+     */
+    public @NonNull Formula toFormula(int node) {
+        return toFormula(node, new HashMap<>());
+    }
+
+    /**
+     * Recursive implementation of {@link #toFormula(int)}.
+     *
+     * @param node The node to convert.
+     * @param converted Already converted nodes.
+     *
+     * @return A formula that is logically equivalent to the given node.
+     */
+    private @NonNull Formula toFormula(int node, @NonNull Map<Integer, @NonNull Formula> converted) {
+        Formula result;
+        if (node == TRUE) {
+            result = True.INSTANCE;
+
+        } else if (node == FALSE) {
+            result = False.INSTANCE;
+
+        } else {
+            result = converted.get(node);
+            if (result == null) {
+                Variable var = new Variable(notNull(variableNames.get(nodeLevel[node])));
+                int low = nodeLow[node];
+                int high = nodeHigh[node];
+
+                if (low == FALSE && high == TRUE) {
+                    result = var;
+                } else if (low == TRUE && high == FALSE) {
+                    result = new Negation(var);
+                } else if (low == FALSE) {
+                    result = new Conjunction(var, toFormula(high, converted));
+                } else if (high == FALSE) {
+                    result = new Conjunction(new Negation(var), toFormula(low, converted));
+                } else if (high == TRUE) {
+                    result = new Disjunction(var, toFormula(low, converted));
+                } else if (low == TRUE) {
+                    result = new Disjunction(new Negation(var), toFormula(high, converted));
+                } else {
+                    result = new Disjunction(new Conjunction(var, toFormula(high, converted)),
+                            new Conjunction(new Negation(var), toFormula(low, converted)));
+                }
+
+                converted.put(node, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the negation of the given node.
+     *
+     * @param node The node to negate.
+     *
+     * @return The negated node.
+     */
+    public int not(int node) {
+        int result;
+        if (node == TRUE) {
+            result = FALSE;
+        } else if (node == FALSE) {
+            result = TRUE;
+        } else {
+            result = cacheLookup(OP_NOT, node, 0);
+            if (result == -1) {
+                result = mk(nodeLevel[node], not(nodeLow[node]), not(nodeHigh[node]));
+                cacheStore(OP_NOT, node, 0, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the conjunction of the given nodes.
+     *
+     * @param left The left operand.
+     * @param right The right operand.
+     *
+     * @return The conjunction of the two nodes.
+     */
+    public int and(int left, int right) {
+        return apply(OP_AND, left, right);
+    }
+
+    /**
+     * Computes the disjunction of the given nodes.
+     *
+     * @param left The left operand.
+     * @param right The right operand.
+     *
+     * @return The disjunction of the two nodes.
+     */
+    public int or(int left, int right) {
+        return apply(OP_OR, left, right);
+    }
+
+    /**
+     * Computes the exclusive or of the given nodes.
+     *
+     * @param left The left operand.
+     * @param right The right operand.
+     *
+     * @return The exclusive or of the two nodes.
+     */
+    public int xor(int left, int right) {
+        return apply(OP_XOR, left, right);
+    }
+
+    /**
+     * Restricts the given node by setting the variable at the given level to a constant value.
+     *
+     * @param node The node to restrict.
+     * @param level The level of the variable to set, see {@link #getLevel(String)}.
+     * @param value The value of the variable.
+     *
+     * @return The restricted node, which does not depend on the variable anymore.
+     */
+    public int restrict(int node, int level, boolean value) {
+        int result;
+        int nodeLvl = nodeLevel[node];
+        if (nodeLvl > level) {
+            // terminal, or variable does not occur below this node
+            result = node;
+
+        } else if (nodeLvl == level) {
+            result = value ? nodeHigh[node] : nodeLow[node];
+
+        } else {
+            int op = value ? OP_RESTRICT_TRUE : OP_RESTRICT_FALSE;
+            result = cacheLookup(op, node, level);
+            if (result == -1) {
+                result = mk(nodeLvl, restrict(nodeLow[node], level, value), restrict(nodeHigh[node], level, value));
+                cacheStore(op, node, level, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a binary operator on the two given nodes.
+     *
+     * @param op The operator; one of {@link #OP_AND}, {@link #OP_OR}, {@link #OP_XOR}.
+     * @param left The left operand.
+     * @param right The right operand.
+     *
+     * @return The resulting node.
+     */
+    private int apply(int op, int left, int right) {
+        int result = -1;
+
+        // terminal cases
+        switch (op) {
+        case OP_AND:
+            if (left == FALSE || right == FALSE) {
+                result = FALSE;
+            } else if (left == TRUE || left == right) {
+                result = right;
+            } else if (right == TRUE) {
+                result = left;
+            }
+            break;
+
+        case OP_OR:
+            if (left == TRUE || right == TRUE) {
+                result = TRUE;
+            } else if (left == FALSE || left == right) {
+                result = right;
+            } else if (right == FALSE) {
+                result = left;
+            }
+            break;
+
+        default:
+            if (left == right) {
+                result = FALSE;
+            } else if (left == FALSE) {
+                result = right;
+            } else if (right == FALSE) {
+                result = left;
+            } else if (left == TRUE) {
+                result = not(right);
+            } else if (right == TRUE) {
+                result = not(left);
+            }
+            break;
+        }
+
+        if (result == -1) {
+            // all operators are commutative: normalize operand order for a better cache hit rate
+            if (left > right) {
+                int tmp = left;
+                left = right;
+                right = tmp;
+            }
+
+            result = cacheLookup(op, left, right);
+            if (result == -1) {
+                int leftLevel = nodeLevel[left];
+                int rightLevel = nodeLevel[right];
+                int level = Math.min(leftLevel, rightLevel);
+
+                int leftLow = leftLevel == level ? nodeLow[left] : left;
+                int leftHigh = leftLevel == level ? nodeHigh[left] : left;
+                int rightLow = rightLevel == level ? nodeLow[right] : right;
+                int rightHigh = rightLevel == level ? nodeHigh[right] : right;
+
+                result = mk(level, apply(op, leftLow, rightLow), apply(op, leftHigh, rightHigh));
+                cacheStore(op, left, right, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the unique node for the given triple, creates it if necessary.
+     *
+     * @param level The level of the variable of the node.
+     * @param low The else child.
+     * @param high The then child.
+     *
+     * @return The (shared) node.
+     */
+    private int mk(int level, int low, int high) {
+        int result;
+        if (low == high) {
+            // redundant test
+            result = low;
+        } else {
+            int mask = uniqueTable.length - 1;
+            int slot = hash(level, low, high) & mask;
+            result = 0;
+            while (uniqueTable[slot] != 0 && result == 0) {
+                int candidate = uniqueTable[slot];
+                if (nodeLevel[candidate] == level && nodeLow[candidate] == low && nodeHigh[candidate] == high) {
+                    result = candidate;
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+
+            if (result == 0) {
+                result = createNode(level, low, high);
+                uniqueTable[slot] = result;
+                if (numNodes * 2 > uniqueTable.length) {
+                    growUniqueTable();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Allocates a new node.
+     *
+     * @param level The level of the variable of the node.
+     * @param low The else child.
+     * @param high The then child.
+     *
+     * @return The handle of the new node.
+     */
+    private int createNode(int level, int low, int high) {
+        if (numNodes == nodeLevel.length) {
+            int newCapacity = nodeLevel.length * 2;
+            nodeLevel = Arrays.copyOf(nodeLevel, newCapacity);
+            nodeLow = Arrays.copyOf(nodeLow, newCapacity);
+            nodeHigh = Arrays.copyOf(nodeHigh, newCapacity);
+        }
+        int node = numNodes++;
+        nodeLevel[node] = level;
+        nodeLow[node] = low;
+        nodeHigh[node] = high;
+        return node;
+    }
+
+    /**
+     * Doubles the size of the unique table and re-inserts all nodes.
+     */
+    private void growUniqueTable() {
+        uniqueTable = new int[uniqueTable.length * 2];
+        int mask = uniqueTable.length - 1;
+        for (int node = 2; node < numNodes; node++) {
+            int slot = hash(nodeLevel[node], nodeLow[node], nodeHigh[node]) & mask;
+            while (uniqueTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            uniqueTable[slot] = node;
+        }
+
+        if (cacheOp.length < MAX_CACHE_SIZE) {
+            allocateCache(Math.min(uniqueTable.length, MAX_CACHE_SIZE));
+        }
+    }
+
+    /**
+     * Allocates a new, empty operation cache. Previously cached results are dropped.
+     *
+     * @param size The number of slots, must be a power of 2.
+     */
+    private void allocateCache(int size) {
+        cacheOp = new int[size];
+        cacheA = new int[size];
+        cacheB = new int[size];
+        cacheResult = new int[size];
+        Arrays.fill(cacheOp, -1);
+    }
+
+    /**
+     * Looks up a cached operation result.
+     *
+     * @param op The operation.
+     * @param a The first operand.
+     * @param b The second operand.
+     *
+     * @return The cached result, or -1 if not cached.
+     */
+    private int cacheLookup(int op, int a, int b) {
+        int slot = hash(op, a, b) & (cacheOp.length - 1);
+        int result = -1;
+        if (cacheOp[slot] == op && cacheA[slot] == a && cacheB[slot] == b) {
+            result = cacheResult[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Stores an operation result in the cache, possibly overwriting an older entry.
+     *
+     * @param op The operation.
+     * @param a The first operand.
+     * @param b The second operand.
+     * @param result The result of the operation.
+     */
+    private void cacheStore(int op, int a, int b, int result) {
+        int slot = hash(op, a, b) & (cacheOp.length - 1);
+        cacheOp[slot] = op;
+        cacheA[slot] = a;
+        cacheB[slot] = b;
+        cacheResult[slot] = result;
+    }
+
+    /**
+     * Hashes a triple of integers.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     * @param c The third value.
+     *
+     * @return A well distributed hash.
+     */
+    private static int hash(int a, int b, int c) {
+        int h = a * 0x9E3779B1 + b;
+        h = h * 0x85EBCA6B + c;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import java.util.List;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A {@link FeatureEffectComputer} that computes the feature effect on a binary decision diagram ({@link Bdd}), instead
+ * of building and simplifying XOR trees. The resulting formula is logically equivalent to the one computed by
+ * {@link FeatureEffectComputer}; it is already compact, thus no further simplification is applied.
+ * <p>
+ * This class is thread-safe, each computation uses its own {@link Bdd}.
+ *
+ * @author agent
+ */
+public class BddFeatureEffectComputer extends FeatureEffectComputer {
+
+    private boolean hasNonBooleanReplacement;
+
+    /**
+     * Creates a {@link BddFeatureEffectComputer}.
+     *
+     * @param hasNonBooleanReplacement Whether the formulas contain non boolean replacements (e.g. _eq_).
+     */
+    public BddFeatureEffectComputer(boolean hasNonBooleanReplacement) {
+        super(false, hasNonBooleanReplacement);
+        this.hasNonBooleanReplacement = hasNonBooleanReplacement;
+    }
+
+    @Override
+    public @NonNull Formula buildFeatureEffefct(@NonNull VariableWithPcs varWithPcs) {
+        String variable = varWithPcs.getVariable();
+        Bdd bdd = new Bdd();
+
+        // place the variable at the top of the order, this makes the restrictions trivial
+        int level = bdd.getLevel(variable);
+
+        int result = Bdd.FALSE;
+        for (Formula pc : varWithPcs.getPcs()) {
+            int node = bdd.fromFormula(pc);
+            int xor = bdd.xor(bdd.restrict(node, level, true), bdd.restrict(node, level, false));
+            result = bdd.or(result, xor);
+
+            if (result == Bdd.TRUE) {
+                // can't get any more true
+                break;
+            }
+        }
+
+        if (this.hasNonBooleanReplacement) {
+            int index = variable.indexOf("_eq_");
+
+            if (index != -1) {
+                // other values of the same variable are always false (same as the VariableValueReplacer with
+                // exactMatch = false in the super class)
+                String prefix = variable.substring(0, index) + "_eq_";
+                List<@NonNull String> names = bdd.getVariableNames();
+                for (int i = 0; i < names.size(); i++) {
+                    if (names.get(i).startsWith(prefix)) {
+                        result = bdd.restrict(result, i, false);
+                    }
+                }
+            }
+        }
+
+        return bdd.toFormula(result);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader.Row;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaWriter;
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A component that reads {@link VariableWithFeatureEffect}s from a binary file written by the
+ * {@link BinaryFeatureEffectWriter}. This is a drop-in alternative for the {@link FeatureEffectReader}; it uses the
+ * same setting for the input file and also replaces <code>=</code> by <code>_eq_</code> in variable names.
+ * 
+ * @author agent
+ */
+public class BinaryFeatureEffectReader extends AnalysisComponent<VariableWithFeatureEffect> {
+
+    private @NonNull File inputFile;
+    
+    /**
+     * Creates this component. No input required since the input file is read from the configuration.
+     * 
+     * @param config The pipeline configuration.
+     * 
+     * @throws SetUpException If reading the configuration for the input file fails.
+     */
+    public BinaryFeatureEffectReader(@NonNull Configuration config) throws SetUpException {
+        super(config);
+        
+        config.registerSetting(FeatureEffectReader.INPUT_FILE_SETTING);
+        this.inputFile = config.getValue(FeatureEffectReader.INPUT_FILE_SETTING);
+    }
+
+    @Override
+    protected void execute() {
+        // replacing once per dictionary entry is enough, since all names are stored in the dictionary
+        try (BinaryFormulaReader in = new BinaryFormulaReader(inputFile, (str) -> notNull(str.replace("=", "_eq_")))) {
+            
+            if (in.getContentType() != BinaryFormulaWriter.CONTENT_FEATURE_EFFECTS) {
+                LOGGER.logWarning(inputFile + " does not contain feature effects");
+            }
+            
+            Row row;
+            while ((row = in.readRow()) != null) {
+                if (row.getFormulas().size() != 1) {
+                    LOGGER.logError("Variable " + row.getName() + " in file " + inputFile + " has "
+                            + row.getFormulas().size() + " feature effects, instead of 1");
+                    continue;
+                }
+                
+                addResult(new VariableWithFeatureEffect(row.getName(), notNull(row.getFormulas().get(0))));
+            }
+            
+        } catch (IOException | FormatException e) {
+            LOGGER.logException("Can't read input file " + inputFile, e);
+        }
+    }
+
+    @Override
+    public @NonNull String getResultName() {
+        return "Feature Effects (read from file)";
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaWriter;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A component that writes {@link VariableWithFeatureEffect}s to a binary file (see {@link BinaryFormulaWriter}), which
+ * can be read by the {@link BinaryFeatureEffectReader}. All input results are passed through unchanged.
+ * 
+ * @author agent
+ */
+public class BinaryFeatureEffectWriter extends AnalysisComponent<VariableWithFeatureEffect> {
+
+    public static final @NonNull Setting<@NonNull File> OUTPUT_FILE_SETTING
+        = new Setting<>("analysis.feature_effect.binary_output_file", Type.FILE, true, null,
+            "The file that the " + BinaryFeatureEffectWriter.class.getName() + " writes the feature effects to.");
+    
+    private @NonNull AnalysisComponent<VariableWithFeatureEffect> input;
+    
+    private @NonNull File outputFile;
+    
+    /**
+     * Creates this component.
+     * 
+     * @param config The pipeline configuration.
+     * @param input The component to get the feature effects from.
+     * 
+     * @throws SetUpException If reading the configuration for the output file fails.
+     */
+    public BinaryFeatureEffectWriter(@NonNull Configuration config,
+            @NonNull AnalysisComponent<VariableWithFeatureEffect> input) throws SetUpException {
+        super(config);
+        this.input = input;
+        
+        config.registerSetting(OUTPUT_FILE_SETTING);
+        this.outputFile = config.getValue(OUTPUT_FILE_SETTING);
+    }
+
+    @Override
+    protected void execute() {
+        BinaryFormulaWriter out = null;
+        try {
+            out = new BinaryFormulaWriter(outputFile, BinaryFormulaWriter.CONTENT_FEATURE_EFFECTS);
+        } catch (IOException e) {
+            LOGGER.logException("Can't open output file " + outputFile, e);
+        }
+        
+        VariableWithFeatureEffect var;
+        while ((var = input.getNextResult()) != null) {
+            if (out != null) {
+                try {
+                    out.writeRow(var.getVariable(), notNull(Collections.singletonList(var.getFeatureEffect())));
+                } catch (IOException e) {
+                    LOGGER.logException("Can't write to output file " + outputFile, e);
+                    out = closeQuietly(out);
+                }
+            }
+            addResult(var);
+        }
+        
+        if (out != null) {
+            try {
+                out.close();
+                LOGGER.logInfo("Wrote " + out.getNumRows() + " variables to " + outputFile);
+            } catch (IOException e) {
+                LOGGER.logException("Can't close output file " + outputFile, e);
+            }
+        }
+    }
+    
+    /**
+     * Closes the given writer after an error, ignoring further errors.
+     * 
+     * @param out The writer to close.
+     * 
+     * @return Always <code>null</code>, to reset the writer variable.
+     */
+    private static @Nullable BinaryFormulaWriter closeQuietly(@NonNull BinaryFormulaWriter out) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // ignore, we already reported an error
+        }
+        return null;
+    }
+
+    @Override
+    public @NonNull String getResultName() {
+        return "Feature Effects";
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
+import net.ssehub.kernel_haven.util.logic.IFormulaVisitor;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Computes the "contexts" of a feature effect for several variables at once. The context of a variable is the
+ * "left-over" part of the feature effect, assuming the variable is selected; that is, the variable is replaced with
+ * True in the feature effect (and the result is simplified).
+ * <p>
+ * The feature effect is traversed only once: for each sub-formula, the replaced versions are only created for the
+ * variables that occur in it; all other contexts share the unchanged sub-formula. Simplified contexts are cached, as
+ * the same (left-over) contexts appear repeatedly in dense feature effects.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author agent
+ */
+class ContextComputer {
+
+    /**
+     * The maximum number of simplified contexts to cache; the cache is cleared when it grows beyond this.
+     */
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    /**
+     * The replaced versions of a sub-formula, for the variables (given by their index) that occur in it.
+     */
+    private static final class Replacements {
+
+        private static final @NonNull Replacements NONE = new Replacements(new int[0], new Formula[0]);
+
+        /**
+         * The indices of the variables, sorted ascending.
+         */
+        private final int @NonNull [] indices;
+
+        /**
+         * The replaced sub-formulas, in the same order as {@link #indices}.
+         */
+        private final @NonNull Formula @NonNull [] formulas;
+
+        /**
+         * Creates replacements.
+         *
+         * @param indices The indices of the variables.
+         * @param formulas The replaced sub-formulas.
+         */
+        private Replacements(int @NonNull [] indices, @NonNull Formula @NonNull [] formulas) {
+            this.indices = indices;
+            this.formulas = formulas;
+        }
+
+    }
+
+    private final @NonNull Map<@NonNull Formula, @NonNull Formula> simplified = new HashMap<>();
+
+    /**
+     * Computes the contexts of the given feature effect for all given variables.
+     *
+     * @param fe The feature effect.
+     * @param variableNames The names of the variables to compute the contexts for.
+     *
+     * @return The simplified contexts, in the same order as the variable names.
+     */
+    public @NonNull Formula @NonNull [] computeContexts(@NonNull Formula fe,
+            @NonNull String @NonNull [] variableNames) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            indices.put(variableNames[i], i);
+        }
+
+        Replacements replacements = fe.accept(new ReplacementVisitor(indices));
+
+        @NonNull Formula[] result = new @NonNull Formula[variableNames.length];
+        for (int i = 0; i < result.length; i++) {
+            // variables that don't occur in the feature effect keep the unchanged feature effect
+            result[i] = fe;
+        }
+        for (int i = 0; i < replacements.indices.length; i++) {
+            result[replacements.indices[i]] = replacements.formulas[i];
+        }
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = simplify(result[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Simplifies the given context, re-uses previously simplified contexts.
+     *
+     * @param context The context to simplify.
+     *
+     * @return The simplified context.
+     */
+    private @NonNull Formula simplify(@NonNull Formula context) {
+        Formula result = simplified.get(context);
+        if (result == null) {
+            result = FormulaSimplifier.defaultSimplifier(context);
+            if (simplified.size() >= MAX_CACHE_SIZE) {
+                simplified.clear();
+            }
+            simplified.put(context, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the {@link Replacements} of a formula, bottom-up.
+     */
+    private static final class ReplacementVisitor implements IFormulaVisitor<@NonNull Replacements> {
+
+        private final @NonNull Map<String, Integer> variableIndices;
+
+        /**
+         * The already computed replacements of (shared) sub-formulas, by identity.
+         */
+        private final @NonNull Map<Formula, @NonNull Replacements> computed = new IdentityHashMap<>();
+
+        /**
+         * Creates this visitor.
+         *
+         * @param variableIndices The indices of the variables to replace, by their names.
+         */
+        private ReplacementVisitor(@NonNull Map<String, Integer> variableIndices) {
+            this.variableIndices = variableIndices;
+        }
+
+        @Override
+        public @NonNull Replacements visitFalse(@NonNull False falseConstant) {
+            return Replacements.NONE;
+        }
+
+        @Override
+        public @NonNull Replacements visitTrue(@NonNull True trueConstant) {
+            return Replacements.NONE;
+        }
+
+        @Override
+        public @NonNull Replacements visitVariable(@NonNull Variable variable) {
+            Integer index = variableIndices.get(variable.getName());
+            Replacements result = Replacements.NONE;
+            if (index != null) {
+                result = new Replacements(new int[] {index}, new @NonNull Formula[] {True.INSTANCE});
+            }
+            return result;
+        }
+
+        @Override
+        public @NonNull Replacements visitNegation(@NonNull Negation formula) {
+            Replacements nested = formula.getFormula().accept(this);
+            Replacements result = nested;
+            if (nested.indices.length > 0) {
+                @NonNull Formula[] negated = new @NonNull Formula[nested.formulas.length];
+                for (int i = 0; i < negated.length; i++) {
+                    negated[i] = new Negation(nested.formulas[i]);
+                }
+                result = new Replacements(nested.indices, negated);
+            }
+            return result;
+        }
+
+        @Override
+        public @NonNull Replacements visitDisjunction(@NonNull Disjunction formula) {
+            Replacements result = computed.get(formula);
+            if (result == null) {
+                result = merge(formula.getLeft(), formula.getRight(), false);
+                computed.put(formula, result);
+            }
+            return result;
+        }
+
+        @Override
+        public @NonNull Replacements visitConjunction(@NonNull Conjunction formula) {
+            Replacements result = computed.get(formula);
+            if (result == null) {
+                result = merge(formula.getLeft(), formula.getRight(), true);
+                computed.put(formula, result);
+            }
+            return result;
+        }
+
+        /**
+         * Computes the replacements of a binary formula from the replacements of its operands. Variables that only
+         * occur in one operand keep the other operand unchanged.
+         *
+         * @param left The left operand.
+         * @param right The right operand.
+         * @param conjunction Whether the binary formula is a {@link Conjunction} or a {@link Disjunction}.
+         *
+         * @return The replacements of the binary formula.
+         */
+        private @NonNull Replacements merge(@NonNull Formula left, @NonNull Formula right, boolean conjunction) {
+            Replacements leftReplacements = left.accept(this);
+            Replacements rightReplacements = right.accept(this);
+
+            Replacements result = Replacements.NONE;
+            int numLeft = leftReplacements.indices.length;
+            int numRight = rightReplacements.indices.length;
+            if (numLeft + numRight > 0) {
+                int[] indices = new int[numLeft + numRight];
+                @NonNull Formula[] formulas = new @NonNull Formula[numLeft + numRight];
+                int l = 0;
+                int r = 0;
+                int size = 0;
+                while (l < numLeft || r < numRight) {
+                    int leftIndex = l < numLeft ? leftReplacements.indices[l] : Integer.MAX_VALUE;
+                    int rightIndex = r < numRight ? rightReplacements.indices[r] : Integer.MAX_VALUE;
+
+                    Formula newLeft = left;
+                    Formula newRight = right;
+                    int index = Math.min(leftIndex, rightIndex);
+                    if (leftIndex == index) {
+                        newLeft = leftReplacements.formulas[l++];
+                    }
+                    if (rightIndex == index) {
+                        newRight = rightReplacements.formulas[r++];
+                    }
+
+                    indices[size] = index;
+                    formulas[size] = combine(newLeft, newRight, conjunction);
+                    size++;
+                }
+
+                if (size < indices.length) {
+                    indices = notNull(Arrays.copyOf(indices, size));
+                    formulas = notNull(Arrays.copyOf(formulas, size));
+                }
+                result = new Replacements(indices, formulas);
+            }
+            return result;
+        }
+
+        /**
+         * Creates a binary formula.
+         *
+         * @param left The left operand.
+         * @param right The right operand.
+         * @param conjunction Whether to create a {@link Conjunction} or a {@link Disjunction}.
+         *
+         * @return The binary formula.
+         */
+        private static @NonNull Formula combine(@NonNull Formula left, @NonNull Formula right, boolean conjunction) {
+            return conjunction ? new Conjunction(left, right) : new Disjunction(left, right);
+        }
+
+    }
+
+}
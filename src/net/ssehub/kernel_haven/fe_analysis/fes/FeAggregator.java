@@ -17,9 +17,9 @@ package net.ssehub.kernel_haven.fe_analysis.fes;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,16 +27,19 @@ import java.util.Map;
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.Settings;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.fe_analysis.StringUtils;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.logic.DisjunctionQueue;
 import net.ssehub.kernel_haven.util.logic.Formula;
 import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
-import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * Aggregates feature effect constraints for values of the same variable. Only relevant in Pseudo-Boolean settings.
@@ -54,8 +57,15 @@ import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
  */
 public class FeAggregator extends AnalysisComponent<VariableWithFeatureEffect> {
     
+    public static final @NonNull Setting<@NonNull Integer> THREADS = new Setting<>(
+            "analysis.fe_aggregator.threads", Type.INTEGER, true, "1", "Defines the number of threads the "
+            + FeAggregator.class.getSimpleName() + " should use to compute (and simplify) the aggregated feature "
+            + "effects. If greater than 1, finished variables are aggregated in a worker pool, while the next "
+            + "feature effects are already consumed. The results are still sorted by variable name.");
+    
     private @NonNull AnalysisComponent<VariableWithFeatureEffect> feDetector;
     private boolean simplify = false;
+    private int numThreads;
 
     /**
      * Creates an {@link FeAggregator}, do create one constraint for the separated values of integer variables.
@@ -71,6 +81,12 @@ public class FeAggregator extends AnalysisComponent<VariableWithFeatureEffect> {
         this.feDetector = feDetector;
         
         simplify = config.getValue(Settings.SIMPLIFIY).ordinal() >= SimplificationType.PRESENCE_CONDITIONS.ordinal();
+        
+        config.registerSetting(THREADS);
+        numThreads = config.getValue(THREADS);
+        if (numThreads < 1) {
+            throw new SetUpException("Number of threads can't be " + numThreads);
+        }
     }
 
     @Override
@@ -79,31 +95,34 @@ public class FeAggregator extends AnalysisComponent<VariableWithFeatureEffect> {
         
         ProgressLogger progress = new ProgressLogger(notNull(getClass().getSimpleName()));
         
+        OrderPreservingParallelizer<Map.Entry<@NonNull String, DisjunctionQueue>, VariableWithFeatureEffect>
+            parallelizer = null;
+        if (numThreads > 1) {
+            parallelizer = new OrderPreservingParallelizer<>(FeAggregator::aggregate, this::addResult, numThreads);
+        }
+        
+        /*
+         * The first variable of the currently open groups. A new group is only opened if its name starts with an
+         * already open group, so all open groups start with this one; checking this single prefix is equivalent to
+         * checking all open groups.
+         */
+        String rootGroup = null;
+        
         VariableWithFeatureEffect var;
         while ((var = feDetector.getNextResult()) != null) {
-            @NonNull String varName = var.getVariable();
-            int lastIndex = StringUtils.getLastOperatorIndex(varName);
-            if (-1 != lastIndex) {
-                varName = NullHelpers.notNull(varName.substring(0, lastIndex));
-            }
+            @NonNull String varName = StringUtils.getBaseName(var.getVariable());
             
             DisjunctionQueue conditions = groupedQueues.get(varName);
             if (null == conditions) {
 
                 // New variable, check if we can (partially) process already gathered values
-                if (!groupedQueues.isEmpty()) {
-                    boolean containsSimilarVariables = false;
-                    for (String otherVariable : groupedQueues.keySet()) {
-                        if (varName.startsWith(otherVariable)) {
-                            containsSimilarVariables = true;
-                            break;
-                        }
-                    }
-                    
-                    if (!containsSimilarVariables) {
-                        // Keep the map as small as possible and facilitate multi-threading of analysis components
-                        aggregateFeatureEffects(groupedQueues);
-                    }
+                if (rootGroup != null && !varName.startsWith(rootGroup)) {
+                    // Keep the map as small as possible and facilitate multi-threading of analysis components
+                    aggregateFeatureEffects(groupedQueues, parallelizer);
+                    rootGroup = null;
+                }
+                if (rootGroup == null) {
+                    rootGroup = varName;
                 }
                 
                 // Start processing of the new (identified) variable
@@ -118,7 +137,12 @@ public class FeAggregator extends AnalysisComponent<VariableWithFeatureEffect> {
         }
         
         // Process very last elements
-        aggregateFeatureEffects(groupedQueues);
+        aggregateFeatureEffects(groupedQueues, parallelizer);
+        
+        if (parallelizer != null) {
+            parallelizer.end();
+            parallelizer.join();
+        }
         
         progress.close();
     }
@@ -127,32 +151,44 @@ public class FeAggregator extends AnalysisComponent<VariableWithFeatureEffect> {
      * Aggregates feature effects for the elements of the queue, clears the map, and send the results in an ordered
      * list to the next analysis component.
      * @param groupedQueues A list of tuples (variable name, collected feature effects).
+     * @param parallelizer Optional: The worker pool to aggregate the groups in. If <code>null</code>, the groups are
+     *     aggregated in the current thread.
      */
-    private void aggregateFeatureEffects(Map<@NonNull String, DisjunctionQueue> groupedQueues) {
-        // Compute aggregated feature effects for all elements of the map
-        List<@NonNull VariableWithFeatureEffect> results = new ArrayList<>(groupedQueues.size());
-        for (Map.Entry<@NonNull String, DisjunctionQueue> entry : groupedQueues.entrySet()) {
-            Formula completeFE = entry.getValue().getDisjunction(entry.getKey());
-            results.add(new VariableWithFeatureEffect(entry.getKey(), completeFE));
-            
-        }
+    private void aggregateFeatureEffects(Map<@NonNull String, DisjunctionQueue> groupedQueues,
+        @Nullable OrderPreservingParallelizer<Map.Entry<@NonNull String, DisjunctionQueue>, VariableWithFeatureEffect>
+            parallelizer) {
         
         // Results were ordered before through the map ordering has probably been changed -> reorder elements
-        Collections.sort(results, new Comparator<VariableWithFeatureEffect>() {
-
-            @Override
-            public int compare(VariableWithFeatureEffect var1, VariableWithFeatureEffect var2) {
-                return var1.getVariable().compareTo(var2.getVariable());
-            }
-            
-        });
+        List<@NonNull String> names = new ArrayList<>(groupedQueues.keySet());
+        Collections.sort(names);
         
-        // Publish results to next component
-        for (int i = 0; i < results.size(); i++) {
-            addResult(results.get(i));            
+        // Compute aggregated feature effects for all elements of the map and publish results to next component
+        for (String name : names) {
+            Map.Entry<@NonNull String, DisjunctionQueue> group
+                = new AbstractMap.SimpleImmutableEntry<>(name, groupedQueues.get(name));
+            if (parallelizer != null) {
+                parallelizer.add(group);
+            } else {
+                addResult(aggregate(group));
+            }
         }
         groupedQueues.clear();
     }
+    
+    /**
+     * Computes the aggregated feature effect of a single variable.
+     * 
+     * @param group The variable name and the collected feature effects of its values.
+     * 
+     * @return The aggregated feature effect.
+     */
+    private static @NonNull VariableWithFeatureEffect aggregate(
+        Map.Entry<@NonNull String, DisjunctionQueue> group) {
+        
+        String name = notNull(group.getKey());
+        Formula completeFE = notNull(group.getValue()).getDisjunction(name);
+        return new VariableWithFeatureEffect(name, completeFE);
+    }
 
     @Override
     public @NonNull String getResultName() {
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.parser.CStyleBooleanGrammar;
+import net.ssehub.kernel_haven.util.logic.parser.ExpressionFormatException;
+import net.ssehub.kernel_haven.util.logic.parser.Parser;
+import net.ssehub.kernel_haven.util.logic.parser.VariableCache;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A persistent, content-addressed cache for feature effects. The key of an entry is a hash over the variable name,
+ * its (canonicalized, i.e. sorted) presence conditions and the configuration of the {@link FeatureEffectComputer}.
+ * Each entry is stored as a single file in the cache directory; if the total size of all entries exceeds the
+ * configured limit, the least recently used entries are evicted.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author agent
+ */
+public class FeatureEffectCache {
+
+    private static final @NonNull Logger LOGGER = Logger.get();
+
+    private static final @NonNull String SUFFIX = ".fe";
+
+    /**
+     * After an eviction, the cache is shrunk to this fraction of the maximum size, to avoid evicting on every write.
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final @NonNull File directory;
+
+    private final long maxBytes;
+
+    private final @NonNull String configFingerprint;
+
+    private final @NonNull AtomicLong currentBytes = new AtomicLong();
+
+    private final @NonNull AtomicLong hits = new AtomicLong();
+
+    private final @NonNull AtomicLong misses = new AtomicLong();
+
+    private final @NonNull AtomicLong bytesRead = new AtomicLong();
+
+    private final @NonNull AtomicLong bytesWritten = new AtomicLong();
+
+    private final @NonNull AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache in the given directory. The directory is created if it does not exist yet.
+     *
+     * @param directory The directory to store the cache entries in.
+     * @param maxBytes The maximum total size of all cache entries, in bytes.
+     * @param configFingerprint A string describing the configuration of the feature effect computation; entries
+     *      created with a different configuration won't be re-used.
+     *
+     * @throws SetUpException If the cache directory can not be created.
+     */
+    public FeatureEffectCache(@NonNull File directory, long maxBytes, @NonNull String configFingerprint)
+            throws SetUpException {
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new SetUpException("Can't create feature effect cache directory " + directory);
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.configFingerprint = configFingerprint;
+
+        for (File entry : listEntries()) {
+            currentBytes.addAndGet(entry.length());
+        }
+    }
+
+    /**
+     * Computes the cache key for the given variable and its presence conditions.
+     *
+     * @param pcs The variable with its presence conditions.
+     *
+     * @return The key of the cache entry, a hexadecimal string.
+     */
+    public @NonNull String computeKey(@NonNull VariableWithPcs pcs) {
+        List<String> canonicalPcs = new ArrayList<>(pcs.getPcs().size());
+        for (Formula pc : pcs.getPcs()) {
+            canonicalPcs.add(pc.toString());
+        }
+        Collections.sort(canonicalPcs);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, configFingerprint);
+        update(digest, pcs.getVariable());
+        for (String pc : canonicalPcs) {
+            update(digest, notNull(pc));
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b & 0xFF));
+        }
+        return notNull(key.toString());
+    }
+
+    /**
+     * Adds a length-prefixed string to the given digest; the length prefix avoids ambiguous concatenations.
+     *
+     * @param digest The digest to update.
+     * @param value The string to add.
+     */
+    private static void update(@NonNull MessageDigest digest, @NonNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+            (byte) length});
+        digest.update(bytes);
+    }
+
+    /**
+     * Looks up a cached feature effect.
+     *
+     * @param key The key of the entry, see {@link #computeKey(VariableWithPcs)}.
+     *
+     * @return The cached feature effect, or <code>null</code> if there is no (valid) entry for the key.
+     */
+    public @Nullable Formula get(@NonNull String key) {
+        Formula result = null;
+        File entry = getFile(key);
+
+        if (entry.isFile()) {
+            try {
+                byte[] content = Files.readAllBytes(entry.toPath());
+                Parser<@NonNull Formula> parser = new Parser<>(new CStyleBooleanGrammar(new VariableCache()));
+                result = parser.parse(new String(content, StandardCharsets.UTF_8));
+
+                // mark as recently used
+                Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+                bytesRead.addAndGet(content.length);
+
+            } catch (IOException | ExpressionFormatException e) {
+                LOGGER.logExceptionWarning("Can't read feature effect cache entry " + entry, e);
+                result = null;
+            }
+        }
+
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Stores a feature effect in the cache. Evicts least recently used entries if the cache grows too large.
+     *
+     * @param key The key of the entry, see {@link #computeKey(VariableWithPcs)}.
+     * @param featureEffect The feature effect to store.
+     */
+    public void put(@NonNull String key, @NonNull Formula featureEffect) {
+        byte[] content = featureEffect.toString().getBytes(StandardCharsets.UTF_8);
+        File entry = getFile(key);
+
+        File tmp = null;
+        boolean moved = false;
+        try {
+            // write to a temporary file first, so that concurrent readers never see partial entries
+            tmp = File.createTempFile(key, ".tmp", directory);
+            Files.write(tmp.toPath(), content);
+
+            long oldSize = entry.length();
+            Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+
+            bytesWritten.addAndGet(content.length);
+            if (currentBytes.addAndGet(content.length - oldSize) > maxBytes) {
+                evict();
+            }
+
+        } catch (IOException e) {
+            LOGGER.logExceptionWarning("Can't write feature effect cache entry " + entry, e);
+
+        } finally {
+            // temporary files are not counted as entries, thus they must not be left behind
+            if (tmp != null && !moved) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is below {@link #EVICTION_TARGET} of its maximum size.
+     */
+    private synchronized void evict() {
+        if (currentBytes.get() <= maxBytes) {
+            // another thread already evicted
+            return;
+        }
+
+        File[] entries = listEntries();
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+
+        long target = (long) (maxBytes * EVICTION_TARGET);
+        for (int i = 0; i < entries.length && currentBytes.get() > target; i++) {
+            long size = entries[i].length();
+            if (entries[i].delete()) {
+                currentBytes.addAndGet(-size);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Lists all cache entries in the cache directory.
+     *
+     * @return All entry files.
+     */
+    private @NonNull File @NonNull [] listEntries() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        return entries != null ? entries : new @NonNull File[0];
+    }
+
+    /**
+     * Returns the file of the entry with the given key.
+     *
+     * @param key The key of the entry.
+     *
+     * @return The file that stores the entry.
+     */
+    private @NonNull File getFile(@NonNull String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find an entry.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries that were evicted because the cache grew too large.
+     *
+     * @return The number of evicted entries.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the current size of all cache entries.
+     *
+     * @return The size of the cache, in bytes.
+     */
+    public long getSize() {
+        return currentBytes.get();
+    }
+
+    /**
+     * Returns a human readable summary of the statistics of this cache.
+     *
+     * @return A summary of hits, misses, and bytes read and written.
+     */
+    public @NonNull String getStatistics() {
+        long numHits = getHits();
+        long numMisses = getMisses();
+        long total = numHits + numMisses;
+        double hitRate = total > 0 ? 100.0 * numHits / total : 0.0;
+
+        return notNull(String.format("Feature effect cache: %d hits, %d misses (%.2f%% hit rate), %d KiB of feature "
+                + "effects served from cache, %d KiB written, %d entries evicted, cache size %d KiB",
+                numHits, numMisses, hitRate, bytesRead.get() / 1024, bytesWritten.get() / 1024, getEvictions(),
+                getSize() / 1024));
+    }
+
+}
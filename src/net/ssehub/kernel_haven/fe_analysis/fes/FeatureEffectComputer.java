@@ -15,7 +15,10 @@
  */
 package net.ssehub.kernel_haven.fe_analysis.fes;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
 
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
 import net.ssehub.kernel_haven.logic_utils.SimplifyingDisjunctionQueue;
@@ -28,6 +31,7 @@ import net.ssehub.kernel_haven.util.logic.Negation;
 import net.ssehub.kernel_haven.util.logic.True;
 import net.ssehub.kernel_haven.util.logic.VariableValueReplacer;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * Helper class for computing feature effects.
@@ -36,10 +40,74 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class FeatureEffectComputer {
     
+    /**
+     * The number of PCs that are processed sequentially by a single {@link XorTreeTask}.
+     */
+    private static final int LEAF_SIZE = 64;
+    
+    /**
+     * A fork-join task that creates the XOR tree for a range of PCs, by splitting the range in halves and combining
+     * the two partial disjunctions.
+     */
+    private final class XorTreeTask extends RecursiveTask<@NonNull Formula> {
+        
+        private static final long serialVersionUID = -2385165386327196383L;
+
+        private final @NonNull String variable;
+        
+        private final @NonNull List<@NonNull Formula> pcs;
+        
+        private final int from;
+        
+        private final int to;
+        
+        /**
+         * Creates a task for the given range of PCs.
+         * 
+         * @param variable The variable name for which we currently compute the feature effect.
+         * @param pcs All presence conditions relevant for the variable.
+         * @param from The first PC to process (inclusive).
+         * @param to The last PC to process (exclusive).
+         */
+        private XorTreeTask(@NonNull String variable, @NonNull List<@NonNull Formula> pcs, int from, int to) {
+            this.variable = variable;
+            this.pcs = pcs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected @NonNull Formula compute() {
+            Formula result;
+            if (to - from <= LEAF_SIZE) {
+                result = createXorTreeSequential(variable, pcs.subList(from, to));
+                
+            } else {
+                int middle = (from + to) >>> 1;
+                XorTreeTask left = new XorTreeTask(variable, pcs, from, middle);
+                XorTreeTask right = new XorTreeTask(variable, pcs, middle, to);
+                right.fork();
+                Formula leftResult = left.compute();
+                Formula rightResult = right.join();
+                
+                DisjunctionQueue queue = simplify ? new SimplifyingDisjunctionQueue() : new DisjunctionQueue(true);
+                queue.add(leftResult);
+                queue.add(rightResult);
+                result = queue.getDisjunction(variable);
+            }
+            return result;
+        }
+        
+    }
+    
     private boolean simplify;
     
     private boolean hasNonBooleanReplacement;
     
+    private int parallelThreshold;
+    
+    private @Nullable PcEffectCache pcEffectCache;
+    
     /**
      * Creates a {@link FeatureEffectComputer}.
      * 
@@ -57,8 +125,35 @@ public class FeatureEffectComputer {
      * @param hasNonBooleanReplacement Whether the formulas contain non boolean replacements (e.g. _eq_).
      */
     public FeatureEffectComputer(boolean simplify, boolean hasNonBooleanReplacement) {
+        this(simplify, hasNonBooleanReplacement, 0);
+    }
+    
+    /**
+     * Creates a {@link FeatureEffectComputer}.
+     * 
+     * @param simplify Whether to use a more powerful simplification.
+     * @param hasNonBooleanReplacement Whether the formulas contain non boolean replacements (e.g. _eq_).
+     * @param parallelThreshold Variables with more PCs than this are computed with a parallel divide-and-conquer
+     *      reduction. 0 disables the parallel computation.
+     */
+    public FeatureEffectComputer(boolean simplify, boolean hasNonBooleanReplacement, int parallelThreshold) {
         this.simplify = simplify;
         this.hasNonBooleanReplacement = hasNonBooleanReplacement;
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    /**
+     * Sets a cache for the effects of single presence conditions, which is shared with other computers.
+     * 
+     * @param pcEffectCache The cache to use; <code>null</code> to compute every effect.
+     * 
+     * @throws IllegalArgumentException If the cache uses a different simplification mode than this computer.
+     */
+    public void setPcEffectCache(@Nullable PcEffectCache pcEffectCache) throws IllegalArgumentException {
+        if (pcEffectCache != null && pcEffectCache.isSimplify() != simplify) {
+            throw new IllegalArgumentException("Cache uses a different simplification mode");
+        }
+        this.pcEffectCache = pcEffectCache;
     }
 
     
@@ -120,56 +215,110 @@ public class FeatureEffectComputer {
      * @return The feature effect constraint (pre-condition).
      */
     private @NonNull Formula createXorTree(@NonNull String variable, @NonNull Collection<@NonNull Formula> pcs) {
+        Formula result;
+        if (parallelThreshold > 0 && pcs.size() > parallelThreshold) {
+            result = new XorTreeTask(variable, new ArrayList<>(pcs), 0, pcs.size()).invoke();
+        } else {
+            result = createXorTreeSequential(variable, pcs);
+        }
+        return result;
+    }
+    
+    /**
+     * Creates the disjunction of the XOR elements in the current thread.
+     * 
+     * @param variable The variable name for which we currently compute the feature effect.
+     * @param pcs The presence conditions relevant for the variable.
+     * @return The feature effect constraint (pre-condition).
+     */
+    private @NonNull Formula createXorTreeSequential(@NonNull String variable,
+            @NonNull Collection<@NonNull Formula> pcs) {
+        
+        DisjunctionQueue innerElements = createInnerQueue();
+        DisjunctionQueue xorTrees = this.simplify ? new SimplifyingDisjunctionQueue() : new DisjunctionQueue(true);
         
-        DisjunctionQueue innerElements;
-        DisjunctionQueue xorTrees;
+        for (Formula pc : pcs) {
+            xorTrees.add(getPcEffect(variable, pc, innerElements));
+        }
+        
+        Formula result = xorTrees.getDisjunction(variable);
+        return result;
+    }
+    
+    /**
+     * Creates the queue for the inner disjunctions of the XORs.
+     * 
+     * @return A new, empty queue.
+     */
+    private @NonNull DisjunctionQueue createInnerQueue() {
+        return this.simplify ? new DisjunctionQueue(true, FormulaSimplifier::simplify) : new DisjunctionQueue(true);
+    }
+    
+    /**
+     * Returns the effect of a single presence condition, uses the shared cache if one is set.
+     * 
+     * @param variable The variable name for which we currently compute the feature effect.
+     * @param pc A presence condition relevant for the variable.
+     * @param innerElements The (empty) queue to create the inner disjunctions with.
+     * @return The effect of the presence condition.
+     */
+    private @NonNull Formula getPcEffect(@NonNull String variable, @NonNull Formula pc,
+            @NonNull DisjunctionQueue innerElements) {
         
-        if (this.simplify) {
-            innerElements = new DisjunctionQueue(true, FormulaSimplifier::simplify);
-            xorTrees = new SimplifyingDisjunctionQueue();
+        Formula result;
+        PcEffectCache cache = this.pcEffectCache;
+        if (cache != null) {
+            result = cache.get(variable, pc, (formula) -> computePcEffect(variable, formula, innerElements));
         } else {
-            innerElements = new DisjunctionQueue(true);
-            xorTrees = new DisjunctionQueue(true);
+            result = computePcEffect(variable, pc, innerElements);
         }
+        return result;
+    }
+    
+    /**
+     * Computes the effect of a single presence condition.
+     * 
+     * @param variable The variable name for which we currently compute the feature effect.
+     * @param pc A presence condition relevant for the variable.
+     * @param innerElements The (empty) queue to create the inner disjunctions with.
+     * @return The effect of the presence condition.
+     */
+    private @NonNull Formula computePcEffect(@NonNull String variable, @NonNull Formula pc,
+            @NonNull DisjunctionQueue innerElements) {
         
-        for (Formula pc : pcs) {
-            //      A xor B
-            // <==> (A || B) && (!A || !B)
-            Formula trueFormula = pc.accept(new VariableValueReplacer(variable, true, true));
-            Formula falseFormula = pc.accept(new VariableValueReplacer(variable, false, true));
-            
-            // (A || B)
-            innerElements.add(trueFormula);
-            innerElements.add(falseFormula);
-            Formula atLeastOnePositive = innerElements.getDisjunction(variable);
-            
-            // (!A || !B)
-            innerElements.add(new Negation(trueFormula));
-            innerElements.add(new Negation(falseFormula));
-            Formula atLeastOneNegative = innerElements.getDisjunction(variable);
-            
-            Formula xor;
-            
-            if (atLeastOnePositive == True.INSTANCE) {
-                // TRUE AND atLeastOneNegative <-> atLeastOneNegative
-                xor = atLeastOneNegative;
+        //      A xor B
+        // <==> (A || B) && (!A || !B)
+        Formula trueFormula = pc.accept(new VariableValueReplacer(variable, true, true));
+        Formula falseFormula = pc.accept(new VariableValueReplacer(variable, false, true));
+        
+        // (A || B)
+        innerElements.add(trueFormula);
+        innerElements.add(falseFormula);
+        Formula atLeastOnePositive = innerElements.getDisjunction(variable);
+        
+        // (!A || !B)
+        innerElements.add(new Negation(trueFormula));
+        innerElements.add(new Negation(falseFormula));
+        Formula atLeastOneNegative = innerElements.getDisjunction(variable);
+        
+        Formula xor;
+        
+        if (atLeastOnePositive == True.INSTANCE) {
+            // TRUE AND atLeastOneNegative <-> atLeastOneNegative
+            xor = atLeastOneNegative;
                 
-            } else if (atLeastOneNegative == True.INSTANCE) {
-                // TRUE AND atLeastOnePositive <-> atLeastOnePositive
-                xor = atLeastOnePositive;
+        } else if (atLeastOneNegative == True.INSTANCE) {
+            // TRUE AND atLeastOnePositive <-> atLeastOnePositive
+            xor = atLeastOnePositive;
                 
-            } else if (False.INSTANCE == atLeastOnePositive || False.INSTANCE == atLeastOneNegative) {
-                // FALSE AND x <-> FALSE
-                xor = False.INSTANCE;
+        } else if (False.INSTANCE == atLeastOnePositive || False.INSTANCE == atLeastOneNegative) {
+            // FALSE AND x <-> FALSE
+            xor = False.INSTANCE;
                 
-            } else {
-                xor = new Conjunction(atLeastOnePositive, atLeastOneNegative);
-            }
-            xorTrees.add(xor);
+        } else {
+            xor = new Conjunction(atLeastOnePositive, atLeastOneNegative);
         }
-        
-        Formula result = xorTrees.getDisjunction(variable);
-        return result;
+        return xor;
     }
     
 }
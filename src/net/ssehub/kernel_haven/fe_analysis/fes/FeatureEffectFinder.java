@@ -17,10 +17,16 @@ package net.ssehub.kernel_haven.fe_analysis.fes;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.io.File;
+
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.PresenceConditionAnalysisHelper;
+import net.ssehub.kernel_haven.fe_analysis.Settings;
+import net.ssehub.kernel_haven.fe_analysis.Settings.FeatureEffectBackend;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
@@ -39,6 +45,22 @@ import net.ssehub.kernel_haven.util.null_checks.Nullable;
  */
 public class FeatureEffectFinder extends AnalysisComponent<VariableWithFeatureEffect> {
 
+    public static final @NonNull Setting<@NonNull Integer> PARALLEL_THRESHOLD
+        = new Setting<>("analysis.feature_effect.parallel_threshold", Type.INTEGER, true, "1000", "Variables with "
+            + "more presence conditions than this are computed by a parallel divide-and-conquer reduction, which "
+            + "utilizes all available processors for a single variable. 0 disables the parallel computation.");
+    
+    public static final @NonNull Setting<@Nullable File> CACHE_DIR
+        = new Setting<>("analysis.feature_effect.cache.dir", Type.DIRECTORY, false, null, "A directory where the "
+            + FeatureEffectFinder.class.getSimpleName() + " persistently caches computed feature effects. Variables "
+            + "with exactly the same presence conditions as in an earlier run are read from this cache instead of "
+            + "being computed again. If not specified, no cache is used.");
+    
+    public static final @NonNull Setting<@NonNull Integer> CACHE_MAX_SIZE
+        = new Setting<>("analysis.feature_effect.cache.max_size", Type.INTEGER, true, "512", "The maximum size of the "
+            + "feature effect cache (see " + CACHE_DIR.getKey() + ") in MiB. If the cache grows larger, the least "
+            + "recently used entries are removed.");
+
     /**
      * A variable together with its feature effect formula.
      * 
@@ -113,6 +135,10 @@ public class FeatureEffectFinder extends AnalysisComponent<VariableWithFeatureEf
     
     private @NonNull FeatureEffectComputer computer;
     
+    private @Nullable FeatureEffectCache cache;
+    
+    private @Nullable PcEffectCache pcEffectCache;
+    
     /**
      * Creates a new {@link FeatureEffectFinder} for the given PC finder.
      * 
@@ -124,12 +150,62 @@ public class FeatureEffectFinder extends AnalysisComponent<VariableWithFeatureEf
     public FeatureEffectFinder(@NonNull Configuration config, @NonNull AnalysisComponent<VariableWithPcs> pcFinder)
             throws SetUpException {
         
+        this(config, pcFinder, null);
+    }
+    
+    /**
+     * Creates a new {@link FeatureEffectFinder} for the given PC finder, which shares the effects of single presence
+     * conditions with other components.
+     * 
+     * @param config The global configuration.
+     * @param pcFinder The component to get the PCs from.
+     * @param pcEffectCache Optional: The cache for the effects of single presence conditions, that is shared with other
+     *      components consuming the same PCs. This component releases every variable that it receives.
+     * 
+     * @throws SetUpException If creating this component fails, e.g. if the cache uses a different simplification
+     *      mode.
+     */
+    public FeatureEffectFinder(@NonNull Configuration config, @NonNull AnalysisComponent<VariableWithPcs> pcFinder,
+            @Nullable PcEffectCache pcEffectCache) throws SetUpException {
+        
         super(config);
         this.pcFinder = pcFinder;
         this.helper = new PresenceConditionAnalysisHelper(config);
         
-        boolean simplify = helper.getSimplificationMode().ordinal() >= SimplificationType.PRESENCE_CONDITIONS.ordinal();
-        this.computer = new FeatureEffectComputer(simplify, helper.isNonBooleanReplacements());
+        config.registerSetting(Settings.FE_BACKEND);
+        if (config.getValue(Settings.FE_BACKEND) == FeatureEffectBackend.BDD) {
+            this.computer = new BddFeatureEffectComputer(helper.isNonBooleanReplacements());
+        } else {
+            boolean simplify
+                = helper.getSimplificationMode().ordinal() >= SimplificationType.PRESENCE_CONDITIONS.ordinal();
+            config.registerSetting(PARALLEL_THRESHOLD);
+            int parallelThreshold = config.getValue(PARALLEL_THRESHOLD);
+            if (parallelThreshold < 0) {
+                throw new SetUpException("Parallel threshold can't be " + parallelThreshold);
+            }
+            this.computer = new FeatureEffectComputer(simplify, helper.isNonBooleanReplacements(), parallelThreshold);
+        }
+        
+        config.registerSetting(CACHE_DIR);
+        config.registerSetting(CACHE_MAX_SIZE);
+        File cacheDir = config.getValue(CACHE_DIR);
+        if (cacheDir != null) {
+            // entries computed with a different configuration must not be re-used
+            String fingerprint = computer.getClass().getName() + ";" + helper.getSimplificationMode() + ";"
+                    + helper.isNonBooleanReplacements();
+            this.cache = new FeatureEffectCache(cacheDir, config.getValue(CACHE_MAX_SIZE) * 1024L * 1024L,
+                    notNull(fingerprint));
+        }
+        
+        this.pcEffectCache = pcEffectCache;
+        if (pcEffectCache != null && !(computer instanceof BddFeatureEffectComputer)) {
+            // the BDD backend does not compute the effects of single PCs
+            try {
+                computer.setPcEffectCache(pcEffectCache);
+            } catch (IllegalArgumentException e) {
+                throw new SetUpException("Can't use the per-PC effect cache: " + e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -148,6 +224,22 @@ public class FeatureEffectFinder extends AnalysisComponent<VariableWithFeatureEf
         }
         
         progress.close();
+        logCacheStatistics();
+    }
+    
+    /**
+     * Logs the statistics of the feature effect cache, if a cache is used, and of the relevance cache.
+     */
+    protected void logCacheStatistics() {
+        FeatureEffectCache feCache = this.cache;
+        if (feCache != null) {
+            LOGGER.logInfo(feCache.getStatistics());
+        }
+        LOGGER.logDebug(helper.getRelevanceStatistics());
+        PcEffectCache pcEffects = this.pcEffectCache;
+        if (pcEffects != null) {
+            LOGGER.logDebug(pcEffects.getStatistics());
+        }
     }
     
     /**
@@ -163,17 +255,47 @@ public class FeatureEffectFinder extends AnalysisComponent<VariableWithFeatureEf
         
         String varName = pcs.getVariable();
         if (helper.isRelevant(varName)) {
-            Formula feConstraint = helper.doReplacements(computer.buildFeatureEffefct(pcs));
+            Formula feConstraint = helper.doReplacements(computeFeatureEffect(pcs));
             varName = helper.doReplacements(varName);
             
             result = new VariableWithFeatureEffect(varName, feConstraint);
         }
         
+        PcEffectCache pcEffects = this.pcEffectCache;
+        if (pcEffects != null) {
+            pcEffects.release(pcs.getVariable());
+        }
+        
         p.close();
         
         return result;
     }
     
+    /**
+     * Computes the feature effect for the given variable, or reads it from the cache if a cache is used.
+     * 
+     * @param pcs The variable with presence conditions to calculate the feature effect for.
+     * @return The feature effect of the variable (without replacements).
+     */
+    private @NonNull Formula computeFeatureEffect(@NonNull VariableWithPcs pcs) {
+        Formula result;
+        
+        FeatureEffectCache feCache = this.cache;
+        if (feCache != null) {
+            String key = feCache.computeKey(pcs);
+            result = feCache.get(key);
+            if (result == null) {
+                result = computer.buildFeatureEffefct(pcs);
+                feCache.put(key, result);
+            }
+            
+        } else {
+            result = computer.buildFeatureEffefct(pcs);
+        }
+        
+        return result;
+    }
+    
     @Override
     public String getResultName() {
         return "Feature Effects";
@@ -15,10 +15,10 @@
  */
 package net.ssehub.kernel_haven.fe_analysis.fes;
 
-import java.util.HashSet;
-import java.util.Set;
-
+import net.ssehub.kernel_haven.fe_analysis.CompactBitSet;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
 
 /**
  * Stores whether a relation between two features was already processed (assumes sorted list of input features).
@@ -34,34 +34,49 @@ public class FeatureRelationStorage {
      */
     private static class StorageElement {
         private String name;
-        private Set<String> relations;
-        
+
+        /**
+         * The variable IDs (see {@link VariableDictionary}) of the processed dependensOn features.
+         */
+        private @NonNull CompactBitSet relations;
+
         /**
          * Sole constructor.
          * @param name The name of the feature.
          */
         private StorageElement(String name) {
             this.name = name;
-            relations = new HashSet<>();
+            relations = new CompactBitSet();
         }
-        
+
     }
-    
+
     /**
      * The storage to use.
      * @author El-Sharkawy
      *
      */
     private static class Storage extends AbstractFeatureStorage<StorageElement> {
-    
+
         @Override
         protected String getVariableName(StorageElement variable) {
             return variable.name;
         }
     }
-    
+
     private Storage storage = new Storage();
 
+    private @NonNull VariableDictionary dictionary = new VariableDictionary();
+
+    /**
+     * Returns the dictionary that is used to identify the dependensOn features.
+     *
+     * @return The variable dictionary.
+     */
+    public @NonNull VariableDictionary getDictionary() {
+        return dictionary;
+    }
+
     /**
      * Checks whether the given feature dependency was already processed.
      * @param feature The feature (dependent variable)
@@ -69,19 +84,52 @@ public class FeatureRelationStorage {
      * @return <tt>true</tt> The relation was not processed so far, <tt>false</tt> the relation was already processed.
      */
     public boolean elementNotProcessed(@NonNull String feature, String dependensOn) {
+        return !getElement(feature).relations.add(dictionary.getId(NullHelpers.notNull(dependensOn)));
+    }
+
+    /**
+     * Marks all given feature dependencies as processed and returns the ones, which were not processed so far. This is
+     * the bulk version of {@link #elementNotProcessed(String, String)}.
+     *
+     * @param feature The feature (dependent variable)
+     * @param dependensOnIds The variable IDs (see {@link #getDictionary()}) of the dependensOn features.
+     *
+     * @return The variable IDs of the dependensOn features, which were not processed so far, in ascending order.
+     */
+    public int @NonNull [] addRelations(@NonNull String feature, @NonNull CompactBitSet dependensOnIds) {
+        CompactBitSet processed = getElement(feature).relations;
+
+        int[] candidates = dependensOnIds.toArray();
+        int numNew = 0;
+        for (int id : candidates) {
+            if (processed.add(id)) {
+                // compact the array in place, the read index is always >= the write index
+                candidates[numNew++] = id;
+            }
+        }
+
+        int[] result = candidates;
+        if (numNew < candidates.length) {
+            result = new int[numNew];
+            System.arraycopy(candidates, 0, result, 0, numNew);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the storage element of the given feature, creates it if necessary.
+     *
+     * @param feature The feature (dependent variable)
+     *
+     * @return The storage element.
+     */
+    private @NonNull StorageElement getElement(@NonNull String feature) {
         // 1st check: If feature was already processed
         StorageElement element = storage.getBaseVariable(feature);
         if (null == element) {
             element = new StorageElement(feature);
             storage.add(element);
         }
-        
-        // 2nd check: If relation was already processed
-        boolean processed = element.relations.contains(dependensOn);
-        if (!processed) {
-            element.relations.add(dependensOn);
-        }
-        
-        return processed;
+        return element;
     }
 }
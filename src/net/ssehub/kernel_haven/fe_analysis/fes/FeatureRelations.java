@@ -17,28 +17,20 @@ package net.ssehub.kernel_haven.fe_analysis.fes;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.CompactBitSet;
+import net.ssehub.kernel_haven.fe_analysis.StringUtils;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureRelations.FeatureDependencyRelation;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.io.TableElement;
 import net.ssehub.kernel_haven.util.io.TableRow;
-import net.ssehub.kernel_haven.util.logic.Conjunction;
-import net.ssehub.kernel_haven.util.logic.Disjunction;
-import net.ssehub.kernel_haven.util.logic.False;
 import net.ssehub.kernel_haven.util.logic.Formula;
-import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
-import net.ssehub.kernel_haven.util.logic.IFormulaVisitor;
-import net.ssehub.kernel_haven.util.logic.Negation;
-import net.ssehub.kernel_haven.util.logic.True;
-import net.ssehub.kernel_haven.util.logic.Variable;
 import net.ssehub.kernel_haven.util.logic.VariableFinder;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
@@ -49,7 +41,6 @@ import net.ssehub.kernel_haven.util.null_checks.NullHelpers;
  * @author Sascha El-Sharkawy
  */
 public class FeatureRelations extends AnalysisComponent<FeatureDependencyRelation> {
-    private static final Pattern OPERATOR_PATTERN = Pattern.compile("(=|<|>|>=|<=|!=|\\+|\\*|\\-|/|%|\\||&)");
 
     /**
      * Stores feature relationships without any constraints.
@@ -113,6 +104,13 @@ public class FeatureRelations extends AnalysisComponent<FeatureDependencyRelatio
      */
     private @NonNull AnalysisComponent<VariableWithFeatureEffect> feFinder;
     
+    /**
+     * The IDs of the operator-stripped variables (dependensOn features), indexed by the IDs of the original
+     * variables. Computed on first use of each variable; 0 means not computed yet, -1 means that the stripped name is
+     * empty, any other value is the ID of the stripped variable plus 1.
+     */
+    private int @NonNull [] strippedIds = new int[0];
+    
     /**
      * Creates a new {@link FeatureRelations} for the given PC finder.
      * 
@@ -135,33 +133,37 @@ public class FeatureRelations extends AnalysisComponent<FeatureDependencyRelatio
         
         ProgressLogger progress = new ProgressLogger(notNull(getClass().getSimpleName()));
         
+        VariableDictionary dictionary = storage.getDictionary();
+        CompactBitSet dependentVars = new CompactBitSet();
+        ContextComputer contextComputer = new ContextComputer();
+        
         VariableWithFeatureEffect var;
         while ((var = feFinder.getNextResult()) != null) {
             @NonNull String variable = normalizeVariable(var.getVariable());
+            int variableId = dictionary.getId(variable);
             var.getFeatureEffect().accept(varFinder);
             if (!varFinder.getVariableNames().isEmpty()) {
-                Set<String> dependentVars = new HashSet<>();
                 for (String dependsOnVar : varFinder.getVariableNames()) {
                     // Do not track dependencies to value comparisons and keep only the assigned feature
                     // For instance: FEATURE=VALUE -> FEATURE
-                    Matcher matcher = OPERATOR_PATTERN.matcher(dependsOnVar);
-                    if (matcher.find()) {
-                        int pos = matcher.start();
-                        // Keep only Feature
-                        dependsOnVar = dependsOnVar.substring(0, pos);
-                    }
-                    if (dependsOnVar != null && !dependsOnVar.isEmpty() && !dependsOnVar.equals(variable)) {
-                        // dependsOnVar is trimmed to Feature
-                        dependentVars.add(dependsOnVar);
+                    int dependsOnId = getStrippedId(dictionary, notNull(dependsOnVar));
+                    if (dependsOnId != -1 && dependsOnId != variableId) {
+                        dependentVars.add(dependsOnId);
                     }
                 }
-                for (String dependsOnVar : dependentVars) {
-                    // Add all distinct features
-                    if (!storage.elementNotProcessed(variable, dependsOnVar)) {
-                        addResult(new FeatureDependencyRelation(variable, dependsOnVar,
-                                computeContext(notNull(dependsOnVar), var.getFeatureEffect())));
-                    }
+                
+                // Add all distinct features, sorted by name to get a stable order
+                int[] newIds = storage.addRelations(variable, dependentVars);
+                @NonNull String[] newDependsOn = new @NonNull String[newIds.length];
+                for (int i = 0; i < newIds.length; i++) {
+                    newDependsOn[i] = dictionary.getName(newIds[i]);
+                }
+                Arrays.sort(newDependsOn);
+                Formula[] contexts = contextComputer.computeContexts(var.getFeatureEffect(), newDependsOn);
+                for (int i = 0; i < newDependsOn.length; i++) {
+                    addResult(new FeatureDependencyRelation(variable, newDependsOn[i], contexts[i]));
                 }
+                dependentVars.clear();
             } else {
                 if (!storage.elementNotProcessed(variable, "TRUE")) {
                     addResult(new FeatureDependencyRelation(variable, "TRUE", var.getFeatureEffect()));
@@ -176,15 +178,44 @@ public class FeatureRelations extends AnalysisComponent<FeatureDependencyRelatio
         
     }
     
+    /**
+     * Returns the ID of the given dependensOn variable without a value comparison (e.g. <tt>FEATURE</tt> for
+     * <tt>FEATURE=VALUE</tt>). The operator is searched only once per variable.
+     * 
+     * @param dictionary The dictionary to get the IDs from.
+     * @param dependsOnVar The name of the dependensOn variable.
+     * 
+     * @return The ID of the stripped variable, or -1 if nothing is left after stripping the operator.
+     */
+    private int getStrippedId(@NonNull VariableDictionary dictionary, @NonNull String dependsOnVar) {
+        int id = dictionary.getId(dependsOnVar);
+        if (id >= strippedIds.length) {
+            strippedIds = notNull(Arrays.copyOf(strippedIds, Math.max(id + 1, strippedIds.length * 2)));
+        }
+        
+        int stripped = strippedIds[id];
+        if (stripped == 0) {
+            int pos = StringUtils.getFirstOperatorIndex(dependsOnVar);
+            String feature = dependsOnVar;
+            if (pos != -1) {
+                // Keep only Feature
+                feature = notNull(dependsOnVar.substring(0, pos));
+            }
+            stripped = feature.isEmpty() ? -1 : dictionary.getId(feature) + 1;
+            strippedIds[id] = stripped;
+        }
+        
+        return stripped == -1 ? -1 : stripped - 1;
+    }
+    
     /**
      * Cuts off all elements which come behind an operator.
      * @param variable A feature variable, maybe in the form of <tt>VARIABLE=CONSTANT</tt>.
      * @return Maybe the same instance of a shorter string without any comparison / arithmetic operation.
      */
     private @NonNull String normalizeVariable(@NonNull String variable) {
-        Matcher matcher = OPERATOR_PATTERN.matcher(variable);
-        if (matcher.find()) {
-            int pos = matcher.start();
+        int pos = StringUtils.getFirstOperatorIndex(variable);
+        if (pos != -1) {
             // Keep only Feature
             variable = NullHelpers.notNull(variable.substring(0, pos).trim());
         }
@@ -192,60 +223,6 @@ public class FeatureRelations extends AnalysisComponent<FeatureDependencyRelatio
         return variable;
     }
     
-    /**
-     * Computes the "context" for the given feature effect and the given variable name. The context is defined as the
-     * "left-over" part, assuming variableName is selected. That is, variableName is replaced with True in the given
-     * feature effect.
-     * 
-     * @param variableName The variable name that the context should be computed for.
-     * @param fe The feature effect for computing the context.
-     * 
-     * @return The context.
-     */
-    private @NonNull Formula computeContext(@NonNull String variableName, @NonNull Formula fe) {
-        
-        Formula context = fe.accept(new IFormulaVisitor<@NonNull Formula>() {
-
-            @Override
-            public @NonNull Formula visitFalse(@NonNull False falseConstant) {
-                return falseConstant;
-            }
-
-            @Override
-            public @NonNull Formula visitTrue(@NonNull True trueConstant) {
-                return trueConstant;
-            }
-
-            @Override
-            public @NonNull Formula visitVariable(@NonNull Variable variable) {
-                Formula result;
-                if (variable.getName().equals(variableName)) {
-                    result = True.INSTANCE;
-                } else {
-                    result = variable;
-                }
-                return result;
-            }
-
-            @Override
-            public @NonNull Formula visitNegation(@NonNull Negation formula) {
-                return new Negation(formula.getFormula().accept(this));
-            }
-
-            @Override
-            public @NonNull Formula visitDisjunction(@NonNull Disjunction formula) {
-                return new Disjunction(formula.getLeft().accept(this), formula.getRight().accept(this));
-            }
-
-            @Override
-            public @NonNull Formula visitConjunction(@NonNull Conjunction formula) {
-                return new Conjunction(formula.getLeft().accept(this), formula.getRight().accept(this));
-            }
-        });
-        
-        return FormulaSimplifier.defaultSimplifier(context);
-    }
-
     @Override
     public String getResultName() {
         return "Feature Dependency Relations";
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.analysis.PipelineAnalysis;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.pcs.IncrementalPcFinder;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * An analysis that finds feature effect formulas for variables, but only recomputes the feature effects of variables
+ * that are affected by changed source files. See {@link IncrementalPcFinder} for details.
+ *
+ * @author agent
+ */
+public class IncrementalFeatureEffectAnalysis extends PipelineAnalysis {
+
+    /**
+     * Creates a new {@link IncrementalFeatureEffectAnalysis}.
+     *
+     * @param config The global configuration.
+     */
+    public IncrementalFeatureEffectAnalysis(@NonNull Configuration config) {
+        super(config);
+    }
+
+    @Override
+    protected @NonNull AnalysisComponent<?> createPipeline() throws SetUpException {
+        IncrementalPcFinder pcFinder = new IncrementalPcFinder(config,
+                getCmComponent(),
+                getBmComponent()
+        );
+
+        return new IncrementalFeatureEffectMerger(config,
+                new NonBooleanFeExpander(config,
+                    new FeatureEffectFinder(config,
+                            pcFinder
+                    )
+                ),
+                pcFinder
+        );
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader.Row;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaWriter;
+import net.ssehub.kernel_haven.fe_analysis.pcs.IncrementalPcFinder;
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Merges the feature effects of the variables that are affected by changed source files (see
+ * {@link IncrementalPcFinder}) with the feature effects of all other variables from the previous run. The merged
+ * feature effects are stored in the state directory of the {@link IncrementalPcFinder} for the next run, and passed
+ * on sorted by variable name.
+ * <p>
+ * The state of the {@link IncrementalPcFinder} is only committed after the merged feature effects are completely
+ * written. Thus, if the analysis fails before, the next run still starts from the state of the previous run.
+ *
+ * @author agent
+ */
+public class IncrementalFeatureEffectMerger extends AnalysisComponent<VariableWithFeatureEffect> {
+
+    private static final @NonNull String STATE_FILE = "feature_effects.bin";
+
+    private final @NonNull AnalysisComponent<VariableWithFeatureEffect> input;
+
+    private final @NonNull IncrementalPcFinder pcFinder;
+
+    /**
+     * Creates this component.
+     *
+     * @param config The pipeline configuration.
+     * @param input The component to get the feature effects of the affected variables from.
+     * @param pcFinder The {@link IncrementalPcFinder} that determined the affected variables. Must be the source of
+     *      the input component.
+     */
+    public IncrementalFeatureEffectMerger(@NonNull Configuration config,
+            @NonNull AnalysisComponent<VariableWithFeatureEffect> input, @NonNull IncrementalPcFinder pcFinder) {
+        super(config);
+        this.input = input;
+        this.pcFinder = pcFinder;
+    }
+
+    @Override
+    protected void execute() {
+        Map<String, Formula> newResults = new TreeMap<>();
+        VariableWithFeatureEffect var;
+        while ((var = input.getNextResult()) != null) {
+            newResults.put(var.getVariable(), var.getFeatureEffect());
+        }
+
+        File stateFile = new File(pcFinder.getStateDir(), STATE_FILE);
+        Map<String, Formula> merged = pcFinder.isFullRun() ? new TreeMap<>() : readPreviousResults(stateFile);
+        boolean complete = true;
+        if (null == merged) {
+            // the unchanged feature effects are lost; the next run has to recompute everything
+            complete = false;
+            merged = new TreeMap<>();
+        }
+        int numPrevious = merged.size();
+
+        // remove all variables of the previous run that are affected, even if they don't have a feature effect anymore
+        Iterator<String> it = merged.keySet().iterator();
+        while (it.hasNext()) {
+            if (pcFinder.isAffected(notNull(it.next()))) {
+                it.remove();
+            }
+        }
+        int numKept = merged.size();
+        merged.putAll(newResults);
+
+        LOGGER.logInfo("Merged " + newResults.size() + " recomputed feature effects with " + numKept
+                + " unchanged feature effects (of " + numPrevious + " from previous run)");
+
+        File pendingFile = pcFinder.getPendingFile(STATE_FILE);
+        if (complete && writeResults(pendingFile, merged)) {
+            pcFinder.commitState(pendingFile);
+        } else {
+            pendingFile.delete();
+            pcFinder.discardState();
+        }
+
+        for (Map.Entry<String, Formula> entry : merged.entrySet()) {
+            addResult(new VariableWithFeatureEffect(notNull(entry.getKey()), notNull(entry.getValue())));
+        }
+    }
+
+    /**
+     * Reads the feature effects of the previous run.
+     *
+     * @param stateFile The file to read.
+     *
+     * @return The feature effects of the previous run, sorted by variable name. Empty if there was no previous run,
+     *      <code>null</code> if reading failed.
+     */
+    private @Nullable Map<String, Formula> readPreviousResults(@NonNull File stateFile) {
+        Map<String, Formula> result = new TreeMap<>();
+
+        if (stateFile.isFile()) {
+            try (BinaryFormulaReader in = new BinaryFormulaReader(stateFile, null)) {
+                Row row;
+                while ((row = in.readRow()) != null) {
+                    result.put(row.getName(), row.getFormulas().get(0));
+                }
+            } catch (IOException | FormatException e) {
+                LOGGER.logException("Can't read feature effects of previous run from " + stateFile, e);
+                result = null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the merged feature effects for the next run.
+     *
+     * @param file The (pending) file to write to.
+     * @param results The merged feature effects.
+     *
+     * @return Whether all feature effects were written.
+     */
+    private boolean writeResults(@NonNull File file, @NonNull Map<String, Formula> results) {
+        boolean success = true;
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(file, BinaryFormulaWriter.CONTENT_FEATURE_EFFECTS)) {
+            for (Map.Entry<String, Formula> entry : results.entrySet()) {
+                out.writeRow(notNull(entry.getKey()), notNull(Collections.singletonList(entry.getValue())));
+            }
+
+        } catch (IOException e) {
+            LOGGER.logException("Can't write feature effects for next run to " + file, e);
+            success = false;
+        }
+        return success;
+    }
+
+    @Override
+    public @NonNull String getResultName() {
+        return "Feature Effects";
+    }
+
+}
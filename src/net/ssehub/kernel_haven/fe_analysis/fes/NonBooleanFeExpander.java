@@ -18,11 +18,15 @@ package net.ssehub.kernel_haven.fe_analysis.fes;
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.PresenceConditionAnalysisHelper;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.logic.Disjunction;
 import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * Expands {@link VariableWithFeatureEffect}s for non-boolean variables with their "has any value" feature effect.
@@ -35,18 +39,47 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class NonBooleanFeExpander extends AnalysisComponent<VariableWithFeatureEffect> {
 
+    public static final @NonNull Setting<@NonNull Integer> THREADS = new Setting<>(
+            "analysis.non_boolean_fe_expander.threads", Type.INTEGER, true, "1", "Defines the number of threads the "
+            + NonBooleanFeExpander.class.getSimpleName() + " should use to combine (and simplify) the feature effects "
+            + "of non-boolean values with the feature effect of their base variable. The results keep the order of the "
+            + "incoming feature effects.");
+
+    /**
+     * A feature effect together with the feature effect of its base variable, to be combined by a worker thread.
+     */
+    private static final class ExpansionJob {
+
+        private final @NonNull VariableWithFeatureEffect fe;
+
+        private final @Nullable VariableWithFeatureEffect baseVar;
+
+        /**
+         * Creates a job.
+         *
+         * @param fe The feature effect to expand.
+         * @param baseVar The feature effect of the base variable; <code>null</code> if there is none.
+         */
+        private ExpansionJob(@NonNull VariableWithFeatureEffect fe, @Nullable VariableWithFeatureEffect baseVar) {
+            this.fe = fe;
+            this.baseVar = baseVar;
+        }
+
+    }
 
     protected @NonNull AnalysisComponent<VariableWithFeatureEffect> feFinder;
     
     private FeatureEffectStorage storage;
     
+    private int numThreads;
+    
     /**
      * Creates this component.
      * 
      * @param config The pipeline configuration.
      * @param feFinder The component to get {@link VariableWithFeatureEffect}s from.
      * 
-     * @throws SetUpException If detecting non-boolean mode fails.
+     * @throws SetUpException If detecting non-boolean mode fails or the number of threads is invalid.
      */
     public NonBooleanFeExpander(@NonNull Configuration config,
             @NonNull AnalysisComponent<VariableWithFeatureEffect> feFinder) throws SetUpException {
@@ -59,28 +92,65 @@ public class NonBooleanFeExpander extends AnalysisComponent<VariableWithFeatureE
         if (helper.isNonBooleanReplacements()) {
             storage = new FeatureEffectStorage();
         }
+        
+        config.registerSetting(THREADS);
+        numThreads = config.getValue(THREADS);
+        if (numThreads < 1) {
+            throw new SetUpException("Number of threads can't be " + numThreads);
+        }
     }
 
     @Override
     protected void execute() {
+        OrderPreservingParallelizer<ExpansionJob, VariableWithFeatureEffect> parallelizer = null;
+        if (storage != null && numThreads > 1) {
+            parallelizer = new OrderPreservingParallelizer<>(NonBooleanFeExpander::expand, this::addResult,
+                    numThreads);
+        }
+        
         VariableWithFeatureEffect fe;
         while ((fe = feFinder.getNextResult()) != null) {
-            VariableWithFeatureEffect result = fe;
+            VariableWithFeatureEffect baseVar = null;
             
             if (storage != null) {
-                VariableWithFeatureEffect baseVar = storage.getBaseVariable(fe.getVariable());
+                // the storage depends on the order of the variables, thus it is only accessed by this thread
+                baseVar = storage.getBaseVariable(fe.getVariable());
                 
-                if (baseVar != null) {
-                    result = new VariableWithFeatureEffect(fe.getVariable(), FormulaSimplifier.simplify(
-                            new Disjunction(baseVar.getFeatureEffect(), fe.getFeatureEffect())));
-                } else {
+                if (baseVar == null) {
                     // if we could find a baseVar, there is no need to add to the storage anymore
                     storage.add(fe);
                 }
             }
             
-            addResult(result);
+            ExpansionJob job = new ExpansionJob(fe, baseVar);
+            if (parallelizer != null) {
+                parallelizer.add(job);
+            } else {
+                addResult(expand(job));
+            }
+        }
+        
+        if (parallelizer != null) {
+            parallelizer.end();
+            parallelizer.join();
+        }
+    }
+    
+    /**
+     * Combines the feature effect of a job with the feature effect of its base variable.
+     * 
+     * @param job The job to compute.
+     * 
+     * @return The expanded feature effect; the unchanged feature effect if there is no base variable.
+     */
+    private static @NonNull VariableWithFeatureEffect expand(@NonNull ExpansionJob job) {
+        VariableWithFeatureEffect result = job.fe;
+        VariableWithFeatureEffect baseVar = job.baseVar;
+        if (baseVar != null) {
+            result = new VariableWithFeatureEffect(job.fe.getVariable(), FormulaSimplifier.simplify(
+                    new Disjunction(baseVar.getFeatureEffect(), job.fe.getFeatureEffect())));
         }
+        return result;
     }
 
     @Override
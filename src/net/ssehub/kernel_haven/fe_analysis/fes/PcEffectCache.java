@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * An in-memory cache for the feature effects of single presence conditions (the <code>PC[variable &lt;- true] XOR
+ * PC[variable &lt;- false]</code> part of a feature effect), shared by several components that consume the same
+ * presence conditions, e.g. the two branches of the
+ * {@link net.ssehub.kernel_haven.fe_analysis.EnhancedDependencyGraph}. Each per-PC effect is computed only once, by
+ * the first consumer that needs it.
+ * <p>
+ * Each consumer must {@link #release(String)} a variable exactly once after it is done with it (or if it skips it),
+ * and must not request effects of it afterwards; the entries of a variable are dropped as soon as all consumers have
+ * released it. Thus, the cache only holds the variables between the slowest and the fastest consumer.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author agent
+ */
+public class PcEffectCache {
+
+    /**
+     * The cached effects of a single variable.
+     */
+    private static final class VariableEntry {
+
+        private final @NonNull Map<@NonNull Formula, @NonNull Formula> effects = new ConcurrentHashMap<>();
+
+        /**
+         * The number of consumers that did not release the variable yet.
+         */
+        private final @NonNull AtomicInteger remaining;
+
+        /**
+         * Creates an entry.
+         *
+         * @param remaining The number of consumers that did not release the variable yet.
+         */
+        private VariableEntry(int remaining) {
+            this.remaining = new AtomicInteger(remaining);
+        }
+
+    }
+
+    private final boolean simplify;
+
+    private final int numConsumers;
+
+    private final @NonNull Map<@NonNull String, @NonNull VariableEntry> entries = new ConcurrentHashMap<>();
+
+    private final @NonNull AtomicLong hits = new AtomicLong();
+
+    private final @NonNull AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param simplify Whether the per-PC effects are computed with simplification (see
+     *      {@link FeatureEffectComputer#FeatureEffectComputer(boolean)}); all consumers must use the same mode.
+     * @param numConsumers The number of consumers, that each release every variable.
+     */
+    public PcEffectCache(boolean simplify, int numConsumers) {
+        this.simplify = simplify;
+        this.numConsumers = numConsumers;
+    }
+
+    /**
+     * Returns whether the per-PC effects in this cache are computed with simplification.
+     *
+     * @return Whether the effects are simplified.
+     */
+    public boolean isSimplify() {
+        return simplify;
+    }
+
+    /**
+     * Returns the effect of the given presence condition for the given variable. Computes it, if no other consumer
+     * has computed it yet. The computation is done without holding any lock; if two consumers request the same
+     * effect concurrently, both may compute it, but only the first result is kept.
+     *
+     * @param variable The variable.
+     * @param pc The presence condition.
+     * @param computation Computes the effect of the presence condition, if it is not cached yet.
+     *
+     * @return The effect of the presence condition.
+     */
+    public @NonNull Formula get(@NonNull String variable, @NonNull Formula pc,
+            @NonNull Function<@NonNull Formula, @NonNull Formula> computation) {
+
+        Map<@NonNull Formula, @NonNull Formula> effects = getEntry(variable).effects;
+        Formula result = effects.get(pc);
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            Formula computed = computation.apply(pc);
+            result = effects.putIfAbsent(pc, computed);
+            if (result == null) {
+                result = computed;
+            }
+        }
+        return notNull(result);
+    }
+
+    /**
+     * Marks the given variable as done for one consumer. Once all consumers released the variable, its effects are
+     * removed from this cache.
+     *
+     * @param variable The variable that the calling consumer is done with.
+     */
+    public void release(@NonNull String variable) {
+        boolean done = false;
+        while (!done) {
+            VariableEntry entry = entries.get(variable);
+            if (entry != null) {
+                // count down without re-creating the entry; the last consumer removes it
+                if (entry.remaining.decrementAndGet() <= 0) {
+                    entries.remove(variable, entry);
+                }
+                done = true;
+
+            } else if (numConsumers <= 1) {
+                done = true;
+
+            } else {
+                // the calling consumer is the first one that is done with this variable (without requesting effects)
+                done = entries.putIfAbsent(variable, new VariableEntry(numConsumers - 1)) == null;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry for the given variable, creates it if no consumer accessed the variable yet.
+     *
+     * @param variable The variable.
+     *
+     * @return The entry of the variable.
+     */
+    private @NonNull VariableEntry getEntry(@NonNull String variable) {
+        VariableEntry entry = entries.get(variable);
+        if (entry == null) {
+            VariableEntry created = new VariableEntry(numConsumers);
+            entry = entries.putIfAbsent(variable, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of effects that were served from this cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of effects that had to be computed.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of variables currently held in this cache.
+     *
+     * @return The number of variables.
+     */
+    public int getNumVariables() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a human readable summary of the cache statistics.
+     *
+     * @return The statistics of this cache.
+     */
+    public @NonNull String getStatistics() {
+        long numHits = getHits();
+        long total = numHits + getMisses();
+        return notNull(String.format("Per-PC effect cache: %d/%d hits (%.2f%%)",
+                numHits, total, total > 0 ? 100.0 * numHits / total : 0.0));
+    }
+
+}
@@ -17,6 +17,14 @@ package net.ssehub.kernel_haven.fe_analysis.fes;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
@@ -25,11 +33,21 @@ import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
 import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.ProgressLogger;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * A {@link FeatureEffectFinder} that utilizes multiple threads. This helps with performance if simplification takes
  * long.
+ * <p>
+ * If {@link #REORDER_BUFFER_SETTING} is set, a cost-aware scheduler is used: up to that many variables are read
+ * ahead into a reorder buffer. Whenever a worker thread of a {@link ForkJoinPool} becomes idle, it starts the most
+ * expensive variable of the whole buffer that is not started yet. If the output waits for a variable that no worker
+ * started yet, it is computed directly by the waiting thread. The output is still in the same order as the input.
  * 
  * @author Adam
  */
@@ -39,8 +57,66 @@ public class ThreadedFeatureEffectFinder extends FeatureEffectFinder {
             "analysis.fe_finder.threads", Type.INTEGER, true, "4", "Defines the number of threads the "
             + ThreadedFeatureEffectFinder.class.getSimpleName() + " should use.");
     
+    public static final @NonNull Setting<@NonNull Integer> REORDER_BUFFER_SETTING = new Setting<>(
+            "analysis.fe_finder.reorder_buffer_size", Type.INTEGER, true, "0", "Defines the maximum number of "
+            + "variables that the " + ThreadedFeatureEffectFinder.class.getSimpleName() + " schedules ahead of the "
+            + "next variable to output. If greater than 0, a cost-aware scheduler is used, which starts variables with "
+            + "many and large presence conditions first. 0 uses a simple order preserving thread pool.");
+    
+    /**
+     * A variable that is scheduled in the cost-aware mode.
+     */
+    private static final class ScheduledVariable {
+        
+        private final @NonNull VariableWithPcs pcs;
+        
+        private final long cost;
+        
+        /**
+         * The position in the input, breaks ties between variables with the same cost.
+         */
+        private final long sequence;
+        
+        private final long submitTime;
+        
+        private volatile long latency;
+        
+        private final @NonNull CompletableFuture<@Nullable VariableWithFeatureEffect> result
+            = new CompletableFuture<>();
+        
+        /**
+         * Creates a scheduled variable.
+         * 
+         * @param pcs The variable with its presence conditions.
+         * @param sequence The position in the input.
+         */
+        private ScheduledVariable(@NonNull VariableWithPcs pcs, long sequence) {
+            this.pcs = pcs;
+            this.cost = estimateCost(pcs);
+            this.sequence = sequence;
+            this.submitTime = System.nanoTime();
+        }
+        
+    }
+    
     private int numThreads;
     
+    private int reorderBufferSize;
+    
+    private int maxQueueDepth;
+    
+    private long sumQueueDepth;
+    
+    private long numScheduled;
+    
+    private long numEmitted;
+    
+    private long sumLatency;
+    
+    private long maxLatency;
+    
+    private @Nullable String maxLatencyVariable;
+    
     /**
      * Creates a new {@link ThreadedFeatureEffectFinder} for the given PC finder.
      * 
@@ -59,12 +135,35 @@ public class ThreadedFeatureEffectFinder extends FeatureEffectFinder {
         if (numThreads < 1) {
             throw new SetUpException("Number of threads can't be " + numThreads);
         }
+        
+        config.registerSetting(REORDER_BUFFER_SETTING);
+        reorderBufferSize = config.getValue(REORDER_BUFFER_SETTING);
+        
+        if (reorderBufferSize < 0) {
+            throw new SetUpException("Reorder buffer size can't be " + reorderBufferSize);
+        }
     }
     
     @Override
     protected void execute() {
         ProgressLogger progress = new ProgressLogger(notNull(getClass().getSimpleName()));
         
+        if (reorderBufferSize > 0) {
+            executeCostAware(progress);
+        } else {
+            executeOrderPreserving(progress);
+        }
+        
+        progress.close();
+        logCacheStatistics();
+    }
+    
+    /**
+     * Calculates the feature effects with a simple {@link OrderPreservingParallelizer}.
+     * 
+     * @param progress The progress logger to report processed variables to.
+     */
+    private void executeOrderPreserving(@NonNull ProgressLogger progress) {
         OrderPreservingParallelizer<VariableWithPcs, VariableWithFeatureEffect> parallelizer
             = new OrderPreservingParallelizer<>(this::processSingle, (result) -> {
                 if (result != null) {
@@ -82,8 +181,149 @@ public class ThreadedFeatureEffectFinder extends FeatureEffectFinder {
         
         parallelizer.end();
         parallelizer.join();
+    }
+    
+    /**
+     * Calculates the feature effects with the cost-aware scheduler.
+     * 
+     * @param progress The progress logger to report processed variables to.
+     */
+    private void executeCostAware(@NonNull ProgressLogger progress) {
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
         
-        progress.close();
+        // the reorder buffer, in input order
+        Deque<@NonNull ScheduledVariable> buffer = new ArrayDeque<>(reorderBufferSize);
+        // the variables of the buffer that are not started yet, most expensive first
+        Queue<@NonNull ScheduledVariable> notStarted = new PriorityBlockingQueue<>(reorderBufferSize,
+                Comparator.comparingLong((ScheduledVariable variable) -> -variable.cost)
+                .thenComparingLong((variable) -> variable.sequence));
+        
+        try {
+            long sequence = 0;
+            VariableWithPcs pcs;
+            while ((pcs = pcFinder.getNextResult()) != null) {
+                // emit already finished results, and block on the head while the buffer is full
+                while (!buffer.isEmpty()
+                        && (buffer.size() >= reorderBufferSize || notNull(buffer.peek()).result.isDone())) {
+                    emit(notNull(buffer.poll()), notStarted, progress);
+                }
+                
+                ScheduledVariable variable = new ScheduledVariable(pcs, sequence++);
+                buffer.add(variable);
+                notStarted.add(variable);
+                // each task starts the most expensive variable at the time it runs, not necessarily this one
+                pool.execute(() -> {
+                    ScheduledVariable next = notStarted.poll();
+                    if (next != null) {
+                        compute(next);
+                    }
+                });
+                
+                maxQueueDepth = Math.max(maxQueueDepth, buffer.size());
+                sumQueueDepth += buffer.size();
+                numScheduled++;
+            }
+            
+            while (!buffer.isEmpty()) {
+                emit(notNull(buffer.poll()), notStarted, progress);
+            }
+            
+        } finally {
+            pool.shutdown();
+        }
+        
+        logSchedulerStatistics();
+    }
+    
+    /**
+     * Computes the feature effect of the given variable and completes its result.
+     * 
+     * @param variable The variable to compute, must have been removed from the not started variables.
+     */
+    private void compute(@NonNull ScheduledVariable variable) {
+        try {
+            VariableWithFeatureEffect result = processSingle(variable.pcs);
+            variable.latency = System.nanoTime() - variable.submitTime;
+            variable.result.complete(result);
+            
+        } catch (RuntimeException | Error e) {
+            variable.result.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * Waits for the result of the given variable and adds it as a result of this component. If no worker started the
+     * variable yet, it is computed in the calling thread.
+     * 
+     * @param variable The variable to emit, must be the oldest one in the reorder buffer.
+     * @param notStarted The variables that are not started yet.
+     * @param progress The progress logger to report processed variables to.
+     */
+    private void emit(@NonNull ScheduledVariable variable, @NonNull Queue<@NonNull ScheduledVariable> notStarted,
+            @NonNull ProgressLogger progress) {
+        
+        if (notStarted.remove(variable)) {
+            compute(variable);
+        }
+        
+        VariableWithFeatureEffect result = variable.result.join();
+        if (result != null) {
+            addResult(result);
+        }
+        progress.processedOne();
+        
+        numEmitted++;
+        long latency = variable.latency;
+        sumLatency += latency;
+        if (latency > maxLatency) {
+            maxLatency = latency;
+            maxLatencyVariable = variable.pcs.getVariable();
+        }
+        LOGGER.logDebug("Feature effect for " + variable.pcs.getVariable() + " (estimated cost "
+                + variable.cost + ") took " + (latency / 1000000) + " ms");
+    }
+    
+    /**
+     * Logs the queue depth and latency metrics of the cost-aware scheduler.
+     */
+    private void logSchedulerStatistics() {
+        LOGGER.logInfo("Cost-aware scheduler statistics:",
+                "Max. queue depth: " + maxQueueDepth + " (buffer size " + reorderBufferSize + ")",
+                "Avg. queue depth: " + (numScheduled > 0 ? sumQueueDepth / numScheduled : 0),
+                "Avg. latency per variable: " + (numEmitted > 0 ? sumLatency / numEmitted / 1000000 : 0) + " ms",
+                "Max. latency: " + (maxLatency / 1000000) + " ms (" + maxLatencyVariable + ")");
+    }
+    
+    /**
+     * Estimates the cost for computing the feature effect of the given variable.
+     * 
+     * @param pcs The variable with its presence conditions.
+     * @return The number of presence conditions times their total size.
+     */
+    private static long estimateCost(@NonNull VariableWithPcs pcs) {
+        long size = 0;
+        for (Formula pc : pcs.getPcs()) {
+            size += getSize(pc);
+        }
+        return pcs.getPcs().size() * size;
+    }
+    
+    /**
+     * Counts the number of nodes in the given formula.
+     * 
+     * @param formula The formula to count the nodes of.
+     * @return The number of nodes.
+     */
+    private static long getSize(@NonNull Formula formula) {
+        long size = 1;
+        if (formula instanceof Conjunction) {
+            size += getSize(((Conjunction) formula).getLeft()) + getSize(((Conjunction) formula).getRight());
+        } else if (formula instanceof Disjunction) {
+            size += getSize(((Disjunction) formula).getLeft()) + getSize(((Disjunction) formula).getRight());
+        } else if (formula instanceof Negation) {
+            size += getSize(((Negation) formula).getFormula());
+        }
+        return size;
     }
 
 }
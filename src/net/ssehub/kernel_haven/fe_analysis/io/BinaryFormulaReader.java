@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.io;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Reads files written by the {@link BinaryFormulaWriter}. The file is memory-mapped in windows of limited size, and
+ * rows are read one at a time. Only the string dictionary (and one {@link Variable} per string) is kept in memory for
+ * the whole file; the formula nodes are dropped after each row, as node IDs are scoped to a row.
+ *
+ * @author agent
+ */
+public class BinaryFormulaReader implements Closeable {
+
+    /**
+     * A single row read from the file.
+     */
+    public static final class Row {
+
+        private final @NonNull String name;
+
+        private final @NonNull List<@NonNull Formula> formulas;
+
+        /**
+         * Creates a row.
+         *
+         * @param name The name of the row.
+         * @param formulas The formulas of the row.
+         */
+        private Row(@NonNull String name, @NonNull List<@NonNull Formula> formulas) {
+            this.name = name;
+            this.formulas = formulas;
+        }
+
+        /**
+         * Returns the name of the row, e.g. the variable.
+         *
+         * @return The name of the row.
+         */
+        public @NonNull String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the formulas of the row, e.g. the presence conditions of the variable.
+         *
+         * @return The formulas of the row.
+         */
+        public @NonNull List<@NonNull Formula> getFormulas() {
+            return formulas;
+        }
+
+    }
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final @NonNull File file;
+
+    private final @NonNull FileChannel channel;
+
+    private final long fileSize;
+
+    private @NonNull MappedByteBuffer window;
+
+    /**
+     * The position of the current window in the file.
+     */
+    private long windowStart;
+
+    private final byte contentType;
+
+    private final @Nullable Function<@NonNull String, @NonNull String> stringMapper;
+
+    private final @NonNull List<@NonNull String> strings = new ArrayList<>();
+
+    /**
+     * The nodes defined since the previous row.
+     */
+    private final @NonNull List<@NonNull Formula> nodes = new ArrayList<>();
+
+    private final @NonNull List<@Nullable Variable> variables = new ArrayList<>();
+
+    private boolean ended;
+
+    /**
+     * Opens the given file and reads its header.
+     *
+     * @param file The file to read.
+     * @param stringMapper Optional: A function that is applied to each string of the dictionary when it is read (e.g.
+     *      to replace characters in variable names). <code>null</code> keeps the strings unchanged.
+     *
+     * @throws IOException If opening the file fails.
+     * @throws FormatException If the file is not a valid binary formula file.
+     */
+    public BinaryFormulaReader(@NonNull File file, @Nullable Function<@NonNull String, @NonNull String> stringMapper)
+            throws IOException, FormatException {
+
+        this.file = file;
+        this.stringMapper = stringMapper;
+        this.channel = notNull(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        try {
+            this.fileSize = channel.size();
+            this.window = map(0);
+
+            for (byte expected : BinaryFormulaWriter.MAGIC) {
+                if (readByte() != expected) {
+                    throw new FormatException(file + " is not a binary formula file");
+                }
+            }
+            byte version = readByte();
+            if (version != BinaryFormulaWriter.VERSION) {
+                throw new FormatException("Unsupported version " + version + " of binary formula file " + file);
+            }
+            this.contentType = readByte();
+
+        } catch (IOException | FormatException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the type of the content, as passed to the {@link BinaryFormulaWriter}.
+     *
+     * @return The content type, e.g. {@link BinaryFormulaWriter#CONTENT_PRESENCE_CONDITIONS}.
+     */
+    public byte getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return The next row, or <code>null</code> if the end of the file is reached.
+     *
+     * @throws IOException If reading the file fails.
+     * @throws FormatException If the file is malformed.
+     */
+    public @Nullable Row readRow() throws IOException, FormatException {
+        Row result = null;
+
+        while (result == null && !ended) {
+            byte record = readByte();
+            switch (record) {
+            case BinaryFormulaWriter.RECORD_STRING:
+                readString();
+                break;
+
+            case BinaryFormulaWriter.RECORD_NODE:
+                readNode();
+                break;
+
+            case BinaryFormulaWriter.RECORD_ROW:
+                String name = getString(readVarInt());
+                int numFormulas = readVarInt();
+                List<@NonNull Formula> formulas = new ArrayList<>(numFormulas);
+                for (int i = 0; i < numFormulas; i++) {
+                    formulas.add(getNode(readVarInt()));
+                }
+                result = new Row(name, formulas);
+                // node IDs are scoped to the row
+                nodes.clear();
+                break;
+
+            case BinaryFormulaWriter.RECORD_END:
+                ended = true;
+                break;
+
+            default:
+                throw new FormatException("Invalid record type " + record + " in " + file);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a string definition and adds it to the dictionary.
+     *
+     * @throws IOException If reading the file fails.
+     * @throws FormatException If the file is malformed.
+     */
+    private void readString() throws IOException, FormatException {
+        int length = readVarInt();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = readByte();
+        }
+        String value = new String(bytes, StandardCharsets.UTF_8);
+
+        Function<@NonNull String, @NonNull String> mapper = this.stringMapper;
+        if (mapper != null) {
+            value = mapper.apply(value);
+        }
+        strings.add(value);
+        // created lazily, when a node references the string as a variable
+        variables.add(null);
+    }
+
+    /**
+     * Reads a node definition and adds it to the node table of the current row.
+     *
+     * @throws IOException If reading the file fails.
+     * @throws FormatException If the file is malformed.
+     */
+    private void readNode() throws IOException, FormatException {
+        byte kind = readByte();
+        Formula node;
+        switch (kind) {
+        case BinaryFormulaWriter.NODE_FALSE:
+            node = False.INSTANCE;
+            break;
+
+        case BinaryFormulaWriter.NODE_TRUE:
+            node = True.INSTANCE;
+            break;
+
+        case BinaryFormulaWriter.NODE_VARIABLE:
+            int stringId = readVarInt();
+            Variable variable = stringId >= 0 && stringId < variables.size() ? variables.get(stringId) : null;
+            if (variable == null) {
+                // share one variable instance per name
+                variable = new Variable(getString(stringId));
+                variables.set(stringId, variable);
+            }
+            node = variable;
+            break;
+
+        case BinaryFormulaWriter.NODE_NEGATION:
+            node = new Negation(getNode(readVarInt()));
+            break;
+
+        case BinaryFormulaWriter.NODE_CONJUNCTION:
+            node = new Conjunction(getNode(readVarInt()), getNode(readVarInt()));
+            break;
+
+        case BinaryFormulaWriter.NODE_DISJUNCTION:
+            node = new Disjunction(getNode(readVarInt()), getNode(readVarInt()));
+            break;
+
+        default:
+            throw new FormatException("Invalid node kind " + kind + " in " + file);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * Returns the string with the given ID.
+     *
+     * @param id The ID of the string.
+     *
+     * @return The string.
+     *
+     * @throws FormatException If the ID is not defined.
+     */
+    private @NonNull String getString(int id) throws FormatException {
+        if (id < 0 || id >= strings.size()) {
+            throw new FormatException("Undefined string " + id + " in " + file);
+        }
+        return notNull(strings.get(id));
+    }
+
+    /**
+     * Returns the node with the given ID in the current row.
+     *
+     * @param id The ID of the node.
+     *
+     * @return The formula of the node.
+     *
+     * @throws FormatException If the ID is not defined.
+     */
+    private @NonNull Formula getNode(int id) throws FormatException {
+        if (id < 0 || id >= nodes.size()) {
+            throw new FormatException("Undefined node " + id + " in " + file);
+        }
+        return notNull(nodes.get(id));
+    }
+
+    /**
+     * Reads a variable length quantity, see {@link BinaryFormulaWriter}.
+     *
+     * @return The read value.
+     *
+     * @throws IOException If reading the file fails.
+     * @throws FormatException If the value is malformed.
+     */
+    private int readVarInt() throws IOException, FormatException {
+        int result = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (shift > 28) {
+                throw new FormatException("Malformed integer in " + file);
+            }
+            current = readByte();
+            result |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return result;
+    }
+
+    /**
+     * Reads a single byte, moves the mapped window if necessary.
+     *
+     * @return The read byte.
+     *
+     * @throws IOException If the end of the file is reached or mapping the file fails.
+     */
+    private byte readByte() throws IOException {
+        if (!window.hasRemaining()) {
+            long next = windowStart + window.capacity();
+            if (next >= fileSize) {
+                throw new IOException("Unexpected end of file " + file);
+            }
+            window = map(next);
+        }
+        return window.get();
+    }
+
+    /**
+     * Maps a window of the file starting at the given position.
+     *
+     * @param position The position in the file.
+     *
+     * @return The mapped window.
+     *
+     * @throws IOException If mapping fails.
+     */
+    private @NonNull MappedByteBuffer map(long position) throws IOException {
+        windowStart = position;
+        return notNull(channel.map(MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
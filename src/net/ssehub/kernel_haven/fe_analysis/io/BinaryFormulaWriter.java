@@ -0,0 +1,335 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Writes rows of a name and a list of {@link Formula}s in a compact binary format. Strings (variable names) are
+ * stored once in a dictionary for the whole file; formulas are stored as a DAG of nodes in post-order, where
+ * structurally equal sub-formulas are stored only once per row. Node IDs are scoped to a row: they start at 0 again
+ * after each {@link #RECORD_ROW}, so that neither the writer nor the reader has to keep the nodes of previous rows.
+ * Integers are written as variable length quantities.
+ * <p>
+ * The file consists of a header ({@link #MAGIC}, {@link #VERSION} and a content type), followed by records. Each
+ * record starts with a marker byte:
+ * <ul>
+ *     <li>{@link #RECORD_STRING}: Defines the next string in the dictionary (length and UTF-8 bytes).</li>
+ *     <li>{@link #RECORD_NODE}: Defines the next formula node (kind and IDs of the string or child nodes).</li>
+ *     <li>{@link #RECORD_ROW}: A row (string ID of the name, number of formulas and their node IDs). Ends the
+ *         scope of the nodes defined since the previous row.</li>
+ *     <li>{@link #RECORD_END}: The end of the file.</li>
+ * </ul>
+ * Strings and nodes are always defined before they are referenced, so the file can be read in a single pass by the
+ * {@link BinaryFormulaReader}.
+ *
+ * @author agent
+ */
+public class BinaryFormulaWriter implements Closeable {
+
+    static final byte @NonNull [] MAGIC = {'K', 'H', 'F', 'E'};
+
+    static final byte VERSION = 2;
+
+    /**
+     * Content type for files containing presence conditions.
+     */
+    public static final byte CONTENT_PRESENCE_CONDITIONS = 'P';
+
+    /**
+     * Content type for files containing feature effects.
+     */
+    public static final byte CONTENT_FEATURE_EFFECTS = 'F';
+
+    /**
+     * Content type for files containing the presence conditions found per source file.
+     */
+    public static final byte CONTENT_PC_INDEX = 'I';
+
+    static final byte RECORD_END = 0;
+
+    static final byte RECORD_STRING = 1;
+
+    static final byte RECORD_NODE = 2;
+
+    static final byte RECORD_ROW = 3;
+
+    static final byte NODE_FALSE = 0;
+
+    static final byte NODE_TRUE = 1;
+
+    static final byte NODE_VARIABLE = 2;
+
+    static final byte NODE_NEGATION = 3;
+
+    static final byte NODE_CONJUNCTION = 4;
+
+    static final byte NODE_DISJUNCTION = 5;
+
+    /**
+     * Structural key of a node: the kind and the IDs of its operands.
+     */
+    private static final class NodeKey {
+
+        private final byte kind;
+
+        private final int first;
+
+        private final int second;
+
+        /**
+         * Creates a node key.
+         *
+         * @param kind The kind of the node.
+         * @param first The first operand ID (string ID for variables), -1 if not used.
+         * @param second The second operand ID, -1 if not used.
+         */
+        private NodeKey(byte kind, int first, int second) {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * kind + first) + second;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            boolean equal = false;
+            if (obj instanceof NodeKey) {
+                NodeKey other = (NodeKey) obj;
+                equal = kind == other.kind && first == other.first && second == other.second;
+            }
+            return equal;
+        }
+
+    }
+
+    private final @NonNull OutputStream out;
+
+    private final @NonNull Map<String, Integer> strings = new HashMap<>();
+
+    private final @NonNull Map<NodeKey, Integer> nodes = new HashMap<>();
+
+    /**
+     * Cache of formula instances already written in the current row; avoids traversing shared sub-formulas more than
+     * once.
+     */
+    private final @NonNull Map<Formula, Integer> writtenInstances = new IdentityHashMap<>();
+
+    private int numRows;
+
+    /**
+     * Creates a writer for the given file.
+     *
+     * @param file The file to write to. Will be overwritten.
+     * @param contentType The type of content, e.g. {@link #CONTENT_PRESENCE_CONDITIONS}.
+     *
+     * @throws IOException If opening the file or writing the header fails.
+     */
+    public BinaryFormulaWriter(@NonNull File file, byte contentType) throws IOException {
+        this(new FileOutputStream(file), contentType);
+    }
+
+    /**
+     * Creates a writer for the given stream.
+     *
+     * @param out The stream to write to. Will be closed by {@link #close()}.
+     * @param contentType The type of content, e.g. {@link #CONTENT_PRESENCE_CONDITIONS}.
+     *
+     * @throws IOException If writing the header fails.
+     */
+    public BinaryFormulaWriter(@NonNull OutputStream out, byte contentType) throws IOException {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+        this.out.write(contentType);
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param name The name of the row, e.g. the variable.
+     * @param formulas The formulas of the row, e.g. the presence conditions of the variable.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void writeRow(@NonNull String name, @NonNull Collection<@NonNull Formula> formulas) throws IOException {
+        int nameId = writeString(name);
+
+        List<Integer> ids = new ArrayList<>(formulas.size());
+        for (Formula formula : formulas) {
+            ids.add(writeNode(formula));
+        }
+
+        out.write(RECORD_ROW);
+        writeVarInt(nameId);
+        writeVarInt(ids.size());
+        for (Integer id : ids) {
+            writeVarInt(id);
+        }
+        numRows++;
+
+        // node IDs are scoped to the row
+        nodes.clear();
+        writtenInstances.clear();
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     *
+     * @return The number of rows.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the ID of the given string, writes its definition first if it is new.
+     *
+     * @param value The string.
+     *
+     * @return The ID of the string in the dictionary.
+     *
+     * @throws IOException If writing fails.
+     */
+    private int writeString(@NonNull String value) throws IOException {
+        Integer id = strings.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.put(value, id);
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.write(RECORD_STRING);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of the given formula, writes the definitions of all new (sub-)nodes first.
+     *
+     * @param formula The formula.
+     *
+     * @return The ID of the root node of the formula in the current row.
+     *
+     * @throws IOException If writing fails.
+     */
+    private int writeNode(@NonNull Formula formula) throws IOException {
+        Integer cached = writtenInstances.get(formula);
+        if (cached != null) {
+            return cached;
+        }
+
+        NodeKey key;
+        if (formula instanceof Variable) {
+            key = new NodeKey(NODE_VARIABLE, writeString(((Variable) formula).getName()), -1);
+
+        } else if (formula instanceof Negation) {
+            key = new NodeKey(NODE_NEGATION, writeNode(((Negation) formula).getFormula()), -1);
+
+        } else if (formula instanceof Conjunction) {
+            Conjunction con = (Conjunction) formula;
+            key = new NodeKey(NODE_CONJUNCTION, writeNode(con.getLeft()), writeNode(con.getRight()));
+
+        } else if (formula instanceof Disjunction) {
+            Disjunction dis = (Disjunction) formula;
+            key = new NodeKey(NODE_DISJUNCTION, writeNode(dis.getLeft()), writeNode(dis.getRight()));
+
+        } else if (formula instanceof True) {
+            key = new NodeKey(NODE_TRUE, -1, -1);
+
+        } else if (formula instanceof False) {
+            key = new NodeKey(NODE_FALSE, -1, -1);
+
+        } else {
+            throw new IOException("Can't serialize formula of type " + formula.getClass().getName());
+        }
+
+        Integer id = nodes.get(key);
+        if (id == null) {
+            id = nodes.size();
+            nodes.put(key, id);
+
+            out.write(RECORD_NODE);
+            out.write(key.kind);
+            if (key.first != -1) {
+                writeVarInt(key.first);
+            }
+            if (key.second != -1) {
+                writeVarInt(key.second);
+            }
+        }
+
+        writtenInstances.put(formula, id);
+        return id;
+    }
+
+    /**
+     * Writes a non-negative integer as a variable length quantity (7 bits per byte, least significant group first).
+     *
+     * @param value The value to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void writeVarInt(int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    /**
+     * Writes the end marker and closes the underlying stream.
+     *
+     * @throws IOException If writing or closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(RECORD_END);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.fe_analysis.FormulaInterner;
+import net.ssehub.kernel_haven.fe_analysis.Settings;
+import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader.Row;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaWriter;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A component that reads {@link VariableWithPcs} from a binary file written by the {@link BinaryPcWriter}. This is a
+ * drop-in alternative for the {@link PcReader}; it uses the same setting for the input file.
+ * 
+ * @author agent
+ */
+public class BinaryPcReader extends AnalysisComponent<VariableWithPcs> {
+
+    private @NonNull File inputFile;
+    
+    private boolean simplify;
+    
+    private @Nullable FormulaInterner interner;
+    
+    /**
+     * Creates this component. No input required since the input file is read from the configuration.
+     * 
+     * @param config The pipeline configuration.
+     * 
+     * @throws SetUpException If reading the configuration for the input file fails.
+     */
+    public BinaryPcReader(@NonNull Configuration config) throws SetUpException {
+        super(config);
+        
+        config.registerSetting(PcReader.INPUT_FILE_SETTING);
+        this.inputFile = config.getValue(PcReader.INPUT_FILE_SETTING);
+        
+        config.registerSetting(Settings.SIMPLIFIY);
+        this.simplify = config.getValue(Settings.SIMPLIFIY) == SimplificationType.PRESENCE_CONDITIONS;
+        
+        config.registerSetting(Settings.INTERN_FORMULAS);
+        if (config.getValue(Settings.INTERN_FORMULAS)) {
+            this.interner = new FormulaInterner();
+        }
+    }
+
+    @Override
+    protected void execute() {
+        try (BinaryFormulaReader in = new BinaryFormulaReader(inputFile, null)) {
+            
+            if (in.getContentType() != BinaryFormulaWriter.CONTENT_PRESENCE_CONDITIONS) {
+                LOGGER.logWarning(inputFile + " does not contain presence conditions");
+            }
+            
+            Row row;
+            while ((row = in.readRow()) != null) {
+                Set<@NonNull Formula> pcs = new HashSet<>((int) (row.getFormulas().size() * 1.5));
+                for (Formula pc : row.getFormulas()) {
+                    if (simplify) {
+                        pc = FormulaSimplifier.simplify(pc);
+                    }
+                    
+                    FormulaInterner formulaInterner = this.interner;
+                    if (formulaInterner != null) {
+                        pc = formulaInterner.intern(pc);
+                    }
+                    
+                    pcs.add(pc);
+                }
+                
+                addResult(new VariableWithPcs(row.getName(), pcs));
+            }
+            
+        } catch (IOException | FormatException e) {
+            LOGGER.logException("Can't read input file " + inputFile, e);
+        }
+        
+        FormulaInterner formulaInterner = this.interner;
+        if (formulaInterner != null) {
+            LOGGER.logDebug(formulaInterner.getStatistics());
+        }
+    }
+
+    @Override
+    public @NonNull String getResultName() {
+        return "Presence Conditions (read from file)";
+    }
+
+}
@@ -29,6 +29,7 @@ import net.ssehub.kernel_haven.config.Setting;
 import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.io.TableElement;
 import net.ssehub.kernel_haven.util.io.TableRow;
@@ -41,8 +42,12 @@ import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Collects (conditional) code blocks of all code files.
@@ -60,6 +65,24 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
             + CodeBlockAnalysis.class.getName() + " should treat missing build information as TRUE/FALSE (e.g., as this belongs"
             + " to another architecture). This will be considered if no build information can be retrieved.");
 
+    public static final @NonNull Setting<@NonNull Integer> THREADS = new Setting<>(
+            "analysis.code_block.threads", Type.INTEGER, true, "1", "Defines the number of threads "
+            + CodeBlockAnalysis.class.getSimpleName() + " should use to extract the code blocks of the source files. "
+            + "The code blocks are passed on in the same order as with a single thread.");
+
+    public static final @NonNull Setting<@NonNull Boolean> INCREMENTAL_PCS = new Setting<>(
+            "analysis.code_block.incremental_pcs", Type.BOOLEAN, true, "false", "Whether "
+            + CodeBlockAnalysis.class.getSimpleName() + " should compute the presence condition of a nested block "
+            + "from the already simplified presence condition of its parent block, instead of simplifying the complete "
+            + "presence condition again. This is considerably faster for deeply nested blocks; the results are "
+            + "equivalent, but may be structured differently.");
+
+    public static final @NonNull Setting<@NonNull Integer> ORDER_MAX_BLOCKS_IN_MEMORY = new Setting<>(
+            "analysis.code_block.order.max_blocks_in_memory", Type.INTEGER, true, "0", "The maximum number of code "
+            + "blocks " + CodeBlockAnalysis.class.getSimpleName() + " keeps in memory while ordering the results (see "
+            + ORDER_RESULTS.getKey() + "). If more blocks are found, they are written sorted to temporary files, which "
+            + "are merged when all files are analyzed. 0 keeps all blocks in memory.");
+
     /**
      * An entry that stores a condition of a <b>code block</b> of a code file.
      * The entry consists of:
@@ -100,10 +123,29 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
                          @NonNull Formula presencecondition, int start, int end, IFormulaVisitor<Formula> filter) {
             //checkstyle: resume parameter number check
 
+            this(path, NullHelpers.notNull(fileCondition.accept(filter)), NullHelpers.notNull(condition.accept(filter)),
+                    NullHelpers.notNull(presencecondition.accept(filter)), start, end);
+        }
+
+        /**
+         * Creates a new {@link CodeBlock} from already filtered conditions, e.g. when reading it back from a file.
+         *
+         * @param path              The path to the analyzed file
+         * @param fileCondition     The presence condition in order that the file is compiled into the final product
+         * @param condition         The actual condition of the analyzed code block
+         * @param presencecondition The total presence condition of the analyzed code block
+         * @param start             The line where the block starts within the analyzed file
+         * @param end               The line where the block ends within the analyzed file
+         */
+        //checkstyle: stop parameter number check
+        CodeBlock(@NonNull String path, @NonNull Formula fileCondition, @NonNull Formula condition,
+                  @NonNull Formula presencecondition, int start, int end) {
+            //checkstyle: resume parameter number check
+
             this.path = path;
-            this.fileCondition = fileCondition.accept(filter);
-            this.condition = condition.accept(filter);
-            this.presencecondition = presencecondition.accept(filter);
+            this.fileCondition = fileCondition;
+            this.condition = condition;
+            this.presencecondition = presencecondition;
             this.start = start;
             this.end = end;
         }
@@ -169,6 +211,113 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
         }
     }
 
+    /**
+     * A formula filtered by the {@link FeatureFilter}, together with the counts the filter recorded for it.
+     */
+    private static final class FilteredFormula {
+
+        private final @NonNull Formula formula;
+        private final int filtered;
+        private final int kept;
+        private final int constants;
+
+        /**
+         * Creates a filtered formula.
+         *
+         * @param formula   The filtered formula.
+         * @param filtered  The number of variables that were filtered.
+         * @param kept      The number of variables that were kept.
+         * @param constants The number of constants.
+         */
+        private FilteredFormula(@NonNull Formula formula, int filtered, int kept, int constants) {
+            this.formula = formula;
+            this.filtered = filtered;
+            this.kept = kept;
+            this.constants = constants;
+        }
+    }
+
+    /**
+     * The state of the analysis of a single file.
+     */
+    private static final class FileState {
+
+        private final @NonNull String path;
+        private final @NonNull Formula fileCondition;
+        private final @NonNull FeatureFilter filter;
+        private final @NonNull Consumer<@NonNull CodeBlock> sink;
+
+        /**
+         * Filters the formulas of this file, its counts are only used to determine the counts of single formulas.
+         */
+        private final @NonNull FeatureFilter localFilter;
+
+        /**
+         * The simplified formulas of this file; the same conditions usually appear in several blocks of a file.
+         */
+        private final @NonNull Map<@NonNull Formula, @NonNull Formula> simplified = new HashMap<>();
+
+        /**
+         * The filtered formulas of this file, by the (shared) simplified formulas; blocks with the same condition
+         * share the same filtered formula.
+         */
+        private final @NonNull Map<@NonNull Formula, @NonNull FilteredFormula> filtered = new IdentityHashMap<>();
+
+        /**
+         * Creates the state for a file.
+         *
+         * @param path          The path of the file.
+         * @param fileCondition The simplified presence condition of the file.
+         * @param filter        The filter to apply to the conditions of the created {@link CodeBlock}s.
+         * @param sink          Receives the analyzed blocks.
+         */
+        private FileState(@NonNull String path, @NonNull Formula fileCondition,
+                          @NonNull FeatureFilter filter, @NonNull Consumer<@NonNull CodeBlock> sink) {
+            this.path = path;
+            this.fileCondition = fileCondition;
+            this.filter = filter;
+            this.sink = sink;
+            this.localFilter = filter.createLocal();
+        }
+
+        /**
+         * Applies the filter to the given formula, re-uses previous results of this file. The counts of the filter
+         * are increased on every call, as if the formula was filtered again.
+         *
+         * @param formula The (simplified) formula to filter.
+         * @return The filtered formula.
+         */
+        private @NonNull Formula filter(@NonNull Formula formula) {
+            FilteredFormula result = filtered.get(formula);
+            if (null == result) {
+                int numFiltered = localFilter.filtered();
+                int numKept = localFilter.kept();
+                int numConstants = localFilter.constants();
+                Formula filteredFormula = NullHelpers.notNull(formula.accept(localFilter));
+                result = new FilteredFormula(filteredFormula, localFilter.filtered() - numFiltered,
+                        localFilter.kept() - numKept, localFilter.constants() - numConstants);
+                filtered.put(formula, result);
+            }
+            filter.count(result.filtered, result.kept, result.constants);
+            return result.formula;
+        }
+
+        /**
+         * Simplifies the given formula, re-uses previous results of this file.
+         *
+         * @param formula The formula to simplify.
+         * @return The simplified formula.
+         */
+        private @NonNull Formula simplify(@NonNull Formula formula) {
+            Formula result = simplified.get(formula);
+            if (null == result) {
+                result = FormulaSimplifier.simplify(formula);
+                simplified.put(formula, result);
+            }
+            return result;
+        }
+    }
+
     private @NonNull AnalysisComponent<SourceFile<?>> sourceFiles;
     private @Nullable AnalysisComponent<BuildModel> bmComponent;
     private AnalysisComponent<VariabilityModel> vmComponent;
@@ -176,11 +325,19 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
     private FeatureFilter featureFilter;
     private boolean orderResults;
     private boolean missingBuildAs;
+    private int numThreads;
+    private boolean incrementalPcs;
     private File sourceTree;
     private final File filterCountFile;
     private final File variablesFile;
     private CodeBlockStore results;
 
+    /**
+     * The simplified file conditions, by the presence conditions of the build model. Many files share the same
+     * condition, e.g. all files of a directory.
+     */
+    private final @NonNull Map<@NonNull Formula, @NonNull Formula> fileConditions = new ConcurrentHashMap<>();
+
     /**
      * Creates a {@link PcFinder} for the given code model.
      *
@@ -196,11 +353,25 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
 
         config.registerSetting(ORDER_RESULTS);
         orderResults = config.getValue(ORDER_RESULTS);
-        results = new CodeBlockStore();
+        config.registerSetting(ORDER_MAX_BLOCKS_IN_MEMORY);
+        int maxBlocksInMemory = config.getValue(ORDER_MAX_BLOCKS_IN_MEMORY);
+        if (maxBlocksInMemory < 0) {
+            throw new SetUpException("Maximum number of code blocks in memory can't be " + maxBlocksInMemory);
+        }
+        results = new CodeBlockStore(maxBlocksInMemory);
 
         config.registerSetting(MISSING_BUILD_INFORMATION_AS);
         missingBuildAs = config.getValue(MISSING_BUILD_INFORMATION_AS);
 
+        config.registerSetting(THREADS);
+        numThreads = config.getValue(THREADS);
+        if (numThreads < 1) {
+            throw new SetUpException("Number of threads can't be " + numThreads);
+        }
+
+        config.registerSetting(INCREMENTAL_PCS);
+        incrementalPcs = config.getValue(INCREMENTAL_PCS);
+
         sourceTree = config.getValue(DefaultSettings.SOURCE_TREE);
         filterCountFile = new File(config.getValue(DefaultSettings.OUTPUT_DIR), "FILTERED.txt");
         variablesFile = new File(config.getValue(DefaultSettings.OUTPUT_DIR), "VARIABLES.txt");
@@ -283,29 +454,42 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
         ProgressLogger progress = new ProgressLogger(getResultName() + " Collecting");
 
         // Iterate through code files to detect all code blocks
+        final BuildModel buildModel = bm;
+        OrderPreservingParallelizer<SourceFile<?>, List<@NonNull CodeBlock>> parallelizer = null;
+        if (numThreads > 1) {
+            parallelizer = new OrderPreservingParallelizer<>((sourceFile) -> {
+                List<@NonNull CodeBlock> blocks = new ArrayList<>();
+                analyzeFile(sourceFile, buildModel, blocks::add);
+                return blocks;
+
+            }, (blocks) -> {
+                blocks.forEach(this::progressResult);
+                progress.processedOne();
+
+            }, numThreads);
+        }
+
         SourceFile<?> file;
         while ((file = sourceFiles.getNextResult()) != null) {
-            Formula filePc = null;
-            if (null != bm) {
-                filePc = bm.getPc(file.getPath());
-            }
-            if (null == filePc) {
-                filePc = missingBuildAs ? True.INSTANCE : False.INSTANCE;
-            }
-
-            // Code block parameters, which are constant for the whole file
-            @NonNull String path = NullHelpers.notNull(file.getPath().getPath());
-            @NonNull Formula fileCondition = getCondition(filePc);
-            // Recursively analyze all top level blocks of the file
-            for (CodeElement<?> block : file) {
-                analyzeBlock(block, path, fileCondition);
+            if (parallelizer != null) {
+                parallelizer.add(file);
+            } else {
+                analyzeFile(file, buildModel, this::progressResult);
+                progress.processedOne();
             }
+        }
 
-            progress.processedOne();
+        if (parallelizer != null) {
+            parallelizer.end();
+            parallelizer.join();
         }
 
         if (orderResults) {
-            results.getOrderedStream().forEach(this::addResult);
+            try (Stream<@NonNull CodeBlock> orderedResults = results.getOrderedStream()) {
+                orderedResults.forEach(this::addResult);
+            } catch (UncheckedIOException e) {
+                LOGGER.logException("Can't read code blocks from temporary files", e);
+            }
         }
 
         try {
@@ -330,24 +514,89 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
         progress.close();
     }
 
+    /**
+     * Analyzes all code blocks of a single file. May be called concurrently for different files.
+     *
+     * @param file  The file to analyze.
+     * @param bm    The build model, may be <tt>null</tt>.
+     * @param sink  Receives the code blocks of the file, in the order of the file.
+     */
+    private void analyzeFile(@NonNull SourceFile<?> file, @Nullable BuildModel bm,
+                             @NonNull Consumer<@NonNull CodeBlock> sink) {
+
+        Formula filePc = null;
+        if (null != bm) {
+            filePc = bm.getPc(file.getPath());
+        }
+        if (null == filePc) {
+            filePc = missingBuildAs ? True.INSTANCE : False.INSTANCE;
+        }
+
+        // Code block parameters, which are constant for the whole file
+        @NonNull String path = NullHelpers.notNull(file.getPath().getPath());
+        @NonNull Formula fileCondition = NullHelpers.notNull(
+                fileConditions.computeIfAbsent(filePc, this::getCondition));
+        FileState state = new FileState(path, fileCondition, featureFilter, sink);
+        // Recursively analyze all top level blocks of the file
+        for (CodeElement<?> block : file) {
+            analyzeBlock(block, state, null, fileCondition);
+        }
+    }
+
     /**
      * Recursive function to analyze a code block and all its nested blocks.
      *
-     * @param block         The block to analyze, start with top level blocks of a file.
-     * @param path          The path of the file.
-     * @param fileCondition The path to the analyzed file.
+     * @param block        The block to analyze, start with top level blocks of a file.
+     * @param state        The state of the analyzed file.
+     * @param parentPc     The (unsimplified) presence condition of the parent block, <tt>null</tt> for top level
+     *                     blocks.
+     * @param parentResult The simplified presence condition of the parent block (including the file condition).
      */
-    private void analyzeBlock(CodeElement<?> block, @NonNull String path, @NonNull Formula fileCondition) {
-        Formula blockCondition = getCondition(block.getCondition());
-        Formula pcCondition = computePresenceCondition(block.getPresenceCondition(), fileCondition);
+    private void analyzeBlock(CodeElement<?> block, @NonNull FileState state, @Nullable Formula parentPc,
+                              @NonNull Formula parentResult) {
+        Formula condition = block.getCondition();
+        Formula blockCondition = state.simplify(null != condition ? condition : True.INSTANCE);
+
+        Formula presenceCondition = block.getPresenceCondition();
+        Formula extension = getExtension(presenceCondition, parentPc);
+        Formula pcCondition;
+        if (null != extension && parentResult instanceof False) {
+            // the presence condition only restricts the one of the parent block further
+            pcCondition = False.INSTANCE;
+        } else if (null != extension && incrementalPcs) {
+            pcCondition = state.simplify(new Conjunction(parentResult, extension));
+        } else {
+            pcCondition = state.simplify(computePresenceCondition(presenceCondition, state.fileCondition));
+        }
 
-        progressResult(new CodeBlock(path, fileCondition, blockCondition, pcCondition, block.getLineStart(),
-                block.getLineEnd(), featureFilter));
+        // the file condition is filtered (and counted) for each block, like the conditions of the block
+        state.sink.accept(new CodeBlock(state.path, state.filter(state.fileCondition), state.filter(blockCondition),
+                state.filter(pcCondition), block.getLineStart(), block.getLineEnd()));
 
         for (CodeElement<?> nested : block) {
-            analyzeBlock(nested, path, fileCondition);
+            analyzeBlock(nested, state, presenceCondition, pcCondition);
         }
     }
+
+    /**
+     * Checks whether the presence condition of a nested block extends the presence condition of its parent block,
+     * i.e. whether it has the form <tt>parentPc &and; extension</tt>.
+     *
+     * @param presenceCondition The presence condition of the nested block, may be <tt>null</tt>.
+     * @param parentPc          The presence condition of the parent block, may be <tt>null</tt>.
+     * @return The extension of the parent presence condition, <tt>null</tt> if the presence condition does not
+     *     extend the parent presence condition.
+     */
+    private static @Nullable Formula getExtension(@Nullable Formula presenceCondition, @Nullable Formula parentPc) {
+        Formula result = null;
+        if (null != parentPc && presenceCondition instanceof Conjunction) {
+            Conjunction conjunction = (Conjunction) presenceCondition;
+            if (conjunction.getLeft() == parentPc || conjunction.getLeft().equals(parentPc)) {
+                result = conjunction.getRight();
+            }
+        }
+        return result;
+    }
     
     /**
      * Processes a new result.
@@ -369,10 +618,10 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
      *
      * @param presenceCondition The presence condition, may be <tt>null</tt> if block is always active.
      * @param fileCondition     The condition of the file, may be <tt>null</tt> if the file is always present.
-     * @return The compound formula, <tt>null</tt> elements are treated as <tt>true</tt>.
+     * @return The compound (unsimplified) formula, <tt>null</tt> elements are treated as <tt>true</tt>.
      */
-    private @NonNull Formula computePresenceCondition(@Nullable Formula presenceCondition,
-                                                      @Nullable Formula fileCondition) {
+    private static @NonNull Formula computePresenceCondition(@Nullable Formula presenceCondition,
+                                                             @Nullable Formula fileCondition) {
 
         @NonNull Formula result;
         if (null != presenceCondition) {
@@ -382,7 +631,7 @@ public class CodeBlockAnalysis extends AnalysisComponent<CodeBlock> {
             result = null != fileCondition ? fileCondition : True.INSTANCE;
         }
 
-        return FormulaSimplifier.simplify(result);
+        return result;
     }
 
     /**
@@ -15,47 +15,585 @@
  */
 package net.ssehub.kernel_haven.fe_analysis.pcs;
 
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.IVoidFormulaVisitor;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
- * 
- * Stores computes {@link CodeBlock} results.
+ *
+ * Stores computes {@link CodeBlock} results. The blocks in memory are kept in a compact {@link CodeBlockTable}.
+ * <p>
+ * If a memory budget is given, the stored blocks are written as a run (sorted by path) to a temporary file whenever
+ * the budget is reached. {@link #getOrderedStream()} then merges all runs with the blocks still in memory, thus only
+ * the current block of each run is read into memory. Blocks of the same path keep the order in which they were added.
  * @author El-Sharkawy
  */
 class CodeBlockStore {
 
-    private Map<String, List<@NonNull CodeBlock>> map = new HashMap<>();
-    
+    private static final @NonNull Logger LOGGER = Logger.get();
+
+    /**
+     * Marks the end of a run.
+     */
+    private static final byte END_OF_RUN = 0;
+
+    /**
+     * Marks a code block in a run; may be combined with {@link #NEW_PATH} and {@link #NEW_FILE_CONDITION}.
+     */
+    private static final byte BLOCK = 1;
+
+    /**
+     * The block has a different path than the previous block of the run, the path follows.
+     */
+    private static final byte NEW_PATH = 2;
+
+    /**
+     * The block has a different file condition than the previous block of the run, the file condition follows.
+     */
+    private static final byte NEW_FILE_CONDITION = 4;
+
+    private static final byte FORMULA_FALSE = 0;
+    private static final byte FORMULA_TRUE = 1;
+    private static final byte FORMULA_VARIABLE = 2;
+    private static final byte FORMULA_NEGATION = 3;
+    private static final byte FORMULA_CONJUNCTION = 4;
+    private static final byte FORMULA_DISJUNCTION = 5;
+
+    private final @NonNull CodeBlockTable table = new CodeBlockTable();
+
+    /**
+     * The maximum number of blocks kept in memory, 0 if unlimited.
+     */
+    private int maxBlocksInMemory;
+
+    /**
+     * The temporary files with the runs written so far, in the order they were written.
+     */
+    private final @NonNull List<@NonNull File> runs = new ArrayList<>();
+
+    /**
+     * Creates a store, which keeps all blocks in memory.
+     */
+    public CodeBlockStore() {
+        this(0);
+    }
+
+    /**
+     * Creates a store, which keeps at most the given number of blocks in memory.
+     *
+     * @param maxBlocksInMemory The maximum number of blocks kept in memory before they are written to a temporary
+     *      file, 0 if unlimited.
+     */
+    public CodeBlockStore(int maxBlocksInMemory) {
+        this.maxBlocksInMemory = maxBlocksInMemory;
+    }
+
     /**
      * Adds a new {@link CodeBlock} to this store.
      * @param block The newly computed {@link CodeBlock} to store.
      */
     public void add(@NonNull CodeBlock block) {
-        List<@NonNull CodeBlock> blocksOfFile = map.get(block.getPath());
-        if (null == blocksOfFile) {
-            blocksOfFile = new ArrayList<>();
-            map.put(block.getPath(), blocksOfFile);
+        table.add(block);
+
+        if (maxBlocksInMemory > 0 && table.size() >= maxBlocksInMemory) {
+            spill();
         }
-        blocksOfFile.add(block);
     }
-    
+
     /**
-     * Returns a sorted list of all stored {@link CodeBlock}s.
+     * Writes all blocks in memory as a sorted run to a temporary file. If this fails, all further blocks are kept in
+     * memory.
+     */
+    private void spill() {
+        File file = null;
+        try {
+            file = File.createTempFile("code_blocks", ".run");
+            file.deleteOnExit();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                writeRun(out);
+            }
+            runs.add(file);
+            table.clear();
+
+        } catch (IOException e) {
+            LOGGER.logExceptionWarning("Can't write code blocks to temporary file, keeping them in memory", e);
+            if (null != file) {
+                file.delete();
+            }
+            maxBlocksInMemory = 0;
+        }
+    }
+
+    /**
+     * Writes all blocks in memory as a run, sorted by path.
+     *
+     * @param out The stream to write to.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void writeRun(@NonNull DataOutputStream out) throws IOException {
+        FormulaWriter formulaWriter = new FormulaWriter(out);
+        String previousPath = null;
+        Formula previousFileCondition = null;
+
+        for (int row : table.getOrderByPath()) {
+            String path = table.getPath(row);
+            Formula fileCondition = table.getFileCondition(row);
+
+            byte marker = BLOCK;
+            if (!path.equals(previousPath)) {
+                marker |= NEW_PATH;
+            }
+            if (fileCondition != previousFileCondition) {
+                marker |= NEW_FILE_CONDITION;
+            }
+
+            out.writeByte(marker);
+            if ((marker & NEW_PATH) != 0) {
+                out.writeUTF(path);
+            }
+            if ((marker & NEW_FILE_CONDITION) != 0) {
+                formulaWriter.write(fileCondition);
+            }
+            formulaWriter.write(table.getCondition(row));
+            formulaWriter.write(table.getPresenceCondition(row));
+            out.writeInt(table.getStart(row));
+            out.writeInt(table.getEnd(row));
+
+            previousPath = path;
+            previousFileCondition = fileCondition;
+        }
+        out.writeByte(END_OF_RUN);
+    }
+
+    /**
+     * Returns a sorted list of all stored {@link CodeBlock}s. If blocks were written to temporary files, the returned
+     * stream merges these with the blocks in memory; the files are deleted once the stream is consumed or closed.
+     * The store must not be modified while the stream is consumed.
      * @return A sorted list of all stored {@link CodeBlock}s.
+     * @throws UncheckedIOException If reading the temporary files fails while consuming the stream.
      */
     public Stream<@NonNull CodeBlock> getOrderedStream() {
-        List<@NonNull CodeBlock> orderedList = new ArrayList<>();
-        map.keySet().stream()
-            .sorted()
-            .map(p -> map.get(p))
-            .forEach(orderedList::addAll);
-        return orderedList.stream();
+        Stream<@NonNull CodeBlock> result;
+        if (runs.isEmpty()) {
+            result = Arrays.stream(table.getOrderByPath()).mapToObj(table::get);
+
+        } else {
+            RunMerger merger = new RunMerger(new ArrayList<>(runs), table);
+            runs.clear();
+            result = StreamSupport.stream(Spliterators.spliteratorUnknownSize(merger, Spliterator.ORDERED), false)
+                .onClose(merger::close);
+        }
+        return result;
     }
+
+    /**
+     * Writes formulas in prefix order.
+     */
+    private static class FormulaWriter implements IVoidFormulaVisitor {
+
+        private final @NonNull DataOutputStream out;
+
+        /**
+         * Creates a writer.
+         *
+         * @param out The stream to write to.
+         */
+        FormulaWriter(@NonNull DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes the given formula.
+         *
+         * @param formula The formula to write.
+         *
+         * @throws IOException If writing fails.
+         */
+        void write(@NonNull Formula formula) throws IOException {
+            try {
+                formula.accept(this);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Writes a single byte, the visitor methods can't throw checked exceptions.
+         *
+         * @param value The byte to write.
+         */
+        private void writeByte(byte value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visitFalse(@NonNull False falseConstant) {
+            writeByte(FORMULA_FALSE);
+        }
+
+        @Override
+        public void visitTrue(@NonNull True trueConstant) {
+            writeByte(FORMULA_TRUE);
+        }
+
+        @Override
+        public void visitVariable(@NonNull Variable variable) {
+            writeByte(FORMULA_VARIABLE);
+            try {
+                out.writeUTF(variable.getName());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visitNegation(@NonNull Negation formula) {
+            writeByte(FORMULA_NEGATION);
+            formula.getFormula().accept(this);
+        }
+
+        @Override
+        public void visitDisjunction(@NonNull Disjunction formula) {
+            writeByte(FORMULA_DISJUNCTION);
+            formula.getLeft().accept(this);
+            formula.getRight().accept(this);
+        }
+
+        @Override
+        public void visitConjunction(@NonNull Conjunction formula) {
+            writeByte(FORMULA_CONJUNCTION);
+            formula.getLeft().accept(this);
+            formula.getRight().accept(this);
+        }
+
+    }
+
+    /**
+     * A sorted sequence of blocks, which is read one block at a time.
+     */
+    private abstract static class Run implements Closeable {
+
+        /**
+         * The position of the run, used to keep the order of blocks with the same path.
+         */
+        private final int index;
+
+        protected @Nullable CodeBlock current;
+
+        /**
+         * Creates a run.
+         *
+         * @param index The position of the run.
+         */
+        Run(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Reads the next block of this run into {@link #current}; <code>null</code> if the run is finished.
+         *
+         * @throws IOException If reading the block fails.
+         */
+        abstract void next() throws IOException;
+
+        @Override
+        public abstract void close();
+
+    }
+
+    /**
+     * The blocks still in memory, these are the last run.
+     */
+    private static class MemoryRun extends Run {
+
+        private final @NonNull CodeBlockTable table;
+
+        private final int @NonNull [] order;
+
+        private int position;
+
+        /**
+         * Creates a run of the blocks in memory and reads its first block.
+         *
+         * @param index The position of the run.
+         * @param table The blocks in memory.
+         */
+        MemoryRun(int index, @NonNull CodeBlockTable table) {
+            super(index);
+            this.table = table;
+            this.order = table.getOrderByPath();
+            next();
+        }
+
+        @Override
+        void next() {
+            current = position < order.length ? table.get(order[position++]) : null;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+
+    }
+
+    /**
+     * Reads the blocks of a run written to a temporary file.
+     */
+    private static class FileRun extends Run {
+
+        private final @NonNull File file;
+
+        private final @NonNull DataInputStream in;
+
+        /**
+         * The variables read so far, shared by all runs.
+         */
+        private final @NonNull Map<String, Variable> variables;
+
+        private @Nullable String path;
+
+        private @Nullable Formula fileCondition;
+
+        /**
+         * Opens a run and reads its first block.
+         *
+         * @param index The position of the run.
+         * @param file The file containing the run.
+         * @param variables The variables read so far, shared by all runs.
+         *
+         * @throws IOException If opening or reading the file fails.
+         */
+        FileRun(int index, @NonNull File file, @NonNull Map<String, Variable> variables) throws IOException {
+            super(index);
+            this.file = file;
+            this.variables = variables;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            next();
+        }
+
+        @Override
+        void next() throws IOException {
+            byte marker = in.readByte();
+            if (marker == END_OF_RUN) {
+                current = null;
+            } else {
+                if ((marker & NEW_PATH) != 0) {
+                    path = in.readUTF();
+                }
+                if ((marker & NEW_FILE_CONDITION) != 0) {
+                    fileCondition = readFormula();
+                }
+                Formula condition = readFormula();
+                Formula presenceCondition = readFormula();
+                int start = in.readInt();
+                int end = in.readInt();
+
+                String path = this.path;
+                Formula fileCondition = this.fileCondition;
+                if (null == path || null == fileCondition) {
+                    throw new IOException("Corrupt code block run " + file);
+                }
+                current = new CodeBlock(path, fileCondition, condition, presenceCondition, start, end);
+            }
+        }
+
+        /**
+         * Reads a formula written by the {@link FormulaWriter}.
+         *
+         * @return The read formula.
+         *
+         * @throws IOException If reading the file fails.
+         */
+        private @NonNull Formula readFormula() throws IOException {
+            Formula result;
+            byte kind = in.readByte();
+            switch (kind) {
+            case FORMULA_FALSE:
+                result = False.INSTANCE;
+                break;
+            case FORMULA_TRUE:
+                result = True.INSTANCE;
+                break;
+            case FORMULA_VARIABLE:
+                result = variables.computeIfAbsent(in.readUTF(), Variable::new);
+                break;
+            case FORMULA_NEGATION:
+                result = new Negation(readFormula());
+                break;
+            case FORMULA_CONJUNCTION:
+                result = new Conjunction(readFormula(), readFormula());
+                break;
+            case FORMULA_DISJUNCTION:
+                result = new Disjunction(readFormula(), readFormula());
+                break;
+            default:
+                throw new IOException("Corrupt code block run " + file + ", unknown formula kind " + kind);
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                LOGGER.logExceptionWarning("Can't close " + file, e);
+            }
+            file.delete();
+        }
+
+    }
+
+    /**
+     * Merges the runs written to temporary files and the blocks in memory, ordered by path. Blocks with the same path
+     * are returned in the order of the runs.
+     */
+    private static class RunMerger implements Iterator<@NonNull CodeBlock>, Closeable {
+
+        private final @NonNull List<@NonNull File> files;
+
+        private final @NonNull CodeBlockTable inMemory;
+
+        private @Nullable PriorityQueue<@NonNull Run> queue;
+
+        private final @NonNull List<@NonNull Run> openRuns = new ArrayList<>();
+
+        /**
+         * Creates a merger, the files are opened lazily.
+         *
+         * @param files The files containing the runs, in the order they were written.
+         * @param inMemory The blocks in memory.
+         */
+        RunMerger(@NonNull List<@NonNull File> files, @NonNull CodeBlockTable inMemory) {
+            this.files = files;
+            this.inMemory = inMemory;
+        }
+
+        /**
+         * Opens all runs, if not done yet.
+         *
+         * @return The queue of all runs, which have blocks left.
+         */
+        private @NonNull PriorityQueue<@NonNull Run> getQueue() {
+            PriorityQueue<@NonNull Run> result = queue;
+            if (null == result) {
+                Comparator<Run> byPath = Comparator.comparing(r -> notNull(r.current).getPath());
+                result = new PriorityQueue<>(files.size() + 1, byPath.thenComparingInt(r -> r.index));
+                queue = result;
+
+                Map<String, Variable> variables = new HashMap<>();
+                try {
+                    for (int i = 0; i < files.size(); i++) {
+                        openRuns.add(new FileRun(i, notNull(files.get(i)), variables));
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+                openRuns.add(new MemoryRun(files.size(), inMemory));
+
+                for (Run run : openRuns) {
+                    if (null != run.current) {
+                        result.add(run);
+                    } else {
+                        run.close();
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean result = !getQueue().isEmpty();
+            if (!result) {
+                close();
+            }
+            return result;
+        }
+
+        @Override
+        public @NonNull CodeBlock next() {
+            PriorityQueue<@NonNull Run> queue = getQueue();
+            Run run = queue.poll();
+            if (null == run) {
+                throw new NoSuchElementException();
+            }
+
+            CodeBlock result = notNull(run.current);
+            try {
+                run.next();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (null != run.current) {
+                queue.add(run);
+            } else {
+                run.close();
+            }
+            return result;
+        }
+
+        /**
+         * Closes and deletes all runs.
+         */
+        @Override
+        public void close() {
+            for (Run run : openRuns) {
+                run.close();
+            }
+            openRuns.clear();
+            for (File file : files) {
+                file.delete();
+            }
+            PriorityQueue<@NonNull Run> queue = this.queue;
+            if (null != queue) {
+                queue.clear();
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2021 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A columnar table of {@link CodeBlock}s. Instead of one object per block, each row consists of an index into the
+ * interned files (path and file condition), the line range and references to the (shared) block condition and
+ * presence condition. {@link CodeBlock}s are only created when a row is read with {@link #get(int)}.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author agent
+ */
+class CodeBlockTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The paths of the interned files, by file index.
+     */
+    private final @NonNull List<@NonNull String> paths = new ArrayList<>();
+
+    /**
+     * The file conditions of the interned files, by file index.
+     */
+    private final @NonNull List<@NonNull Formula> fileConditions = new ArrayList<>();
+
+    /**
+     * The index of the most recently interned file of each path.
+     */
+    private final @NonNull Map<@NonNull String, Integer> fileIndices = new HashMap<>();
+
+    private int @NonNull [] files = new int[INITIAL_CAPACITY];
+
+    private int @NonNull [] starts = new int[INITIAL_CAPACITY];
+
+    private int @NonNull [] ends = new int[INITIAL_CAPACITY];
+
+    private Formula @NonNull [] conditions = new Formula[INITIAL_CAPACITY];
+
+    private Formula @NonNull [] presenceConditions = new Formula[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Adds a block as a new row to this table.
+     *
+     * @param block The block to add.
+     */
+    public void add(@NonNull CodeBlock block) {
+        if (size == files.length) {
+            int newCapacity = size * 2;
+            files = notNull(Arrays.copyOf(files, newCapacity));
+            starts = notNull(Arrays.copyOf(starts, newCapacity));
+            ends = notNull(Arrays.copyOf(ends, newCapacity));
+            conditions = notNull(Arrays.copyOf(conditions, newCapacity));
+            presenceConditions = notNull(Arrays.copyOf(presenceConditions, newCapacity));
+        }
+
+        files[size] = internFile(block.getPath(), block.getFileCondition());
+        starts[size] = block.getStart();
+        ends[size] = block.getEnd();
+        conditions[size] = block.getCondition();
+        presenceConditions[size] = block.getPresenceCondition();
+        size++;
+    }
+
+    /**
+     * Returns the index of the given file, adds it if it is not known yet. Files are compared by their path and the
+     * identity of their file condition, as all blocks of a file share the same file condition object.
+     *
+     * @param path The path of the file.
+     * @param fileCondition The file condition of the file.
+     *
+     * @return The index of the file.
+     */
+    private int internFile(@NonNull String path, @NonNull Formula fileCondition) {
+        Integer index = fileIndices.get(path);
+        if (null == index || fileConditions.get(index) != fileCondition) {
+            index = paths.size();
+            paths.add(path);
+            fileConditions.add(fileCondition);
+            fileIndices.put(path, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of rows in this table.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the path of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The path of the file of the block.
+     */
+    public @NonNull String getPath(int row) {
+        return notNull(paths.get(files[row]));
+    }
+
+    /**
+     * Returns the file condition of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The presence condition of the file of the block.
+     */
+    public @NonNull Formula getFileCondition(int row) {
+        return notNull(fileConditions.get(files[row]));
+    }
+
+    /**
+     * Returns the block condition of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The condition of the block.
+     */
+    public @NonNull Formula getCondition(int row) {
+        return notNull(conditions[row]);
+    }
+
+    /**
+     * Returns the presence condition of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The presence condition of the block.
+     */
+    public @NonNull Formula getPresenceCondition(int row) {
+        return notNull(presenceConditions[row]);
+    }
+
+    /**
+     * Returns the start line of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The line where the block starts.
+     */
+    public int getStart(int row) {
+        return starts[row];
+    }
+
+    /**
+     * Returns the end line of the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return The line where the block ends.
+     */
+    public int getEnd(int row) {
+        return ends[row];
+    }
+
+    /**
+     * Creates a {@link CodeBlock} for the given row.
+     *
+     * @param row The row, between 0 and {@link #size()}.
+     *
+     * @return A new {@link CodeBlock} with the values of the row.
+     */
+    public @NonNull CodeBlock get(int row) {
+        return new CodeBlock(getPath(row), getFileCondition(row), getCondition(row), getPresenceCondition(row),
+                starts[row], ends[row]);
+    }
+
+    /**
+     * Returns the rows of this table ordered by path. Rows with the same path keep the order in which they were
+     * added. This is a counting sort over the ranks of the paths, thus only the (few) distinct paths are compared.
+     *
+     * @return The indices of all rows, ordered by path.
+     */
+    public int @NonNull [] getOrderByPath() {
+        // rank of each file: files with the same path get the same rank
+        Integer[] byPath = new Integer[paths.size()];
+        for (int i = 0; i < byPath.length; i++) {
+            byPath[i] = i;
+        }
+        Arrays.sort(byPath, (f1, f2) -> paths.get(f1).compareTo(paths.get(f2)));
+
+        int[] ranks = new int[byPath.length];
+        int rank = -1;
+        String previousPath = null;
+        for (Integer file : byPath) {
+            String path = paths.get(file);
+            if (!path.equals(previousPath)) {
+                rank++;
+                previousPath = path;
+            }
+            ranks[file] = rank;
+        }
+
+        // start position of each rank in the result
+        int[] positions = new int[rank + 2];
+        for (int row = 0; row < size; row++) {
+            positions[ranks[files[row]] + 1]++;
+        }
+        for (int i = 1; i < positions.length; i++) {
+            positions[i] += positions[i - 1];
+        }
+
+        int[] result = new int[size];
+        for (int row = 0; row < size; row++) {
+            result[positions[ranks[files[row]]]++] = row;
+        }
+        return result;
+    }
+
+    /**
+     * Removes all rows of this table. The allocated capacity is kept.
+     */
+    public void clear() {
+        Arrays.fill(conditions, 0, size, null);
+        Arrays.fill(presenceConditions, 0, size, null);
+        paths.clear();
+        fileConditions.clear();
+        fileIndices.clear();
+        size = 0;
+    }
+
+}
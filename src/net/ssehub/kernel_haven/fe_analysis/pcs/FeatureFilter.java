@@ -4,30 +4,48 @@ import net.ssehub.kernel_haven.util.logic.*;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Thread-safe: CodeBlockAnalysis filters the code blocks of several files concurrently
 public class FeatureFilter implements IFormulaVisitor<Formula> {
     private final Set<String> features;
     private final Set<String> observedVariables;
-    private int filtered = 0;
-    private int kept = 0;
-    private int constants = 0;
+    private final AtomicInteger filtered = new AtomicInteger();
+    private final AtomicInteger kept = new AtomicInteger();
+    private final AtomicInteger constants = new AtomicInteger();
 
     public FeatureFilter(@Nullable Set<String> features) {
+        this(features, ConcurrentHashMap.newKeySet());
+    }
+
+    private FeatureFilter(@Nullable Set<String> features, Set<String> observedVariables) {
         this.features = features;
-        this.observedVariables = new HashSet<>();
+        this.observedVariables = observedVariables;
+    }
+
+    // Creates a filter with the same features, that records observed variables in this filter, but has its own counts
+    FeatureFilter createLocal() {
+        return new FeatureFilter(features, observedVariables);
+    }
+
+    // Adds counts, e.g. of a formula that was filtered before by a local filter
+    void count(int filtered, int kept, int constants) {
+        this.filtered.addAndGet(filtered);
+        this.kept.addAndGet(kept);
+        this.constants.addAndGet(constants);
     }
 
     @Override
     public Formula visitFalse(@NonNull False falseConstant) {
-        constants++;
+        constants.incrementAndGet();
         return falseConstant;
     }
 
     @Override
     public Formula visitTrue(@NonNull True trueConstant) {
-        constants++;
+        constants.incrementAndGet();
         return trueConstant;
     }
 
@@ -35,15 +53,15 @@ public class FeatureFilter implements IFormulaVisitor<Formula> {
     public Formula visitVariable(@NonNull Variable variable) {
         observedVariables.add(variable.getName());
         if (features == null) {
-            kept++;
+            kept.incrementAndGet();
             return variable;
         }
         String name = variable.getName();
         if (features.contains(name)) {
-            kept++;
+            kept.incrementAndGet();
             return variable;
         } else {
-            filtered++;
+            filtered.incrementAndGet();
             return True.INSTANCE;
         }
     }
@@ -85,15 +103,15 @@ public class FeatureFilter implements IFormulaVisitor<Formula> {
     }
 
     public int filtered() {
-        return filtered;
+        return filtered.get();
     }
 
     public int kept() {
-        return kept;
+        return kept.get();
     }
 
     public int constants() {
-        return constants;
+        return constants.get();
     }
 
     public Set<String> variables() {
@@ -0,0 +1,624 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.analysis.AnalysisComponent;
+import net.ssehub.kernel_haven.build_model.BuildModel;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.PresenceConditionAnalysisHelper;
+import net.ssehub.kernel_haven.fe_analysis.StringUtils;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaReader.Row;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaWriter;
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
+
+/**
+ * A {@link PcFinder} that only emits the variables that are affected by changed source files. The presence
+ * conditions found per source file are persisted in a state directory; in the next run, only the source files passed
+ * by the code model are re-collected. Files listed in {@link #CHANGED_FILES} that are not passed by the code model are
+ * considered as removed. A variable is affected, if a presence condition containing it was added or removed. For
+ * non-boolean variables, the base variable and all its replacements (e.g. <code>_eq_</code>) are affected together.
+ * <p>
+ * The code model should be restricted to the changed files (e.g. via <code>code.extractor.files</code>); source files
+ * that are passed by the code model, but did not change, are handled correctly, but cost extra time. If there is no
+ * valid previous state, all variables are affected (i.e. this behaves like a normal {@link PcFinder}).
+ * <p>
+ * The state also contains fingerprints of the build model and the (considered) variability model. If either of them
+ * changed since the last run, the previous state is discarded and everything is recomputed; in this case, the code
+ * model must provide all source files.
+ * <p>
+ * The new state is only written to pending files during {@link #execute()}. It replaces the state of the previous run
+ * once {@link #commitState(File...)} is called, after all results of the incremental analysis are stored (see
+ * {@link net.ssehub.kernel_haven.fe_analysis.fes.IncrementalFeatureEffectMerger}). If the analysis fails before, the
+ * state of the previous run is kept.
+ *
+ * @author agent
+ */
+public class IncrementalPcFinder extends PcFinder {
+
+    public static final @NonNull Setting<@NonNull File> STATE_DIR = new Setting<>(
+            "analysis.incremental.state_dir", Type.DIRECTORY, true, null, "The directory where the incremental "
+            + "analysis stores the presence conditions per source file and the feature effects of the last run.");
+
+    public static final @NonNull Setting<@Nullable File> CHANGED_FILES = new Setting<>(
+            "analysis.incremental.changed_files", Type.FILE, false, null, "A text file listing the changed or removed "
+            + "source files since the last run (one path per line, as used in the code model). Listed files that are "
+            + "not passed by the code model are removed from the state of the incremental analysis.");
+
+    /**
+     * The pseudo source file that stores the presence conditions of the build model, if all build model presence
+     * conditions are considered.
+     */
+    private static final @NonNull String BUILD_MODEL_ENTRY = "<build model>";
+
+    private static final @NonNull String INDEX_FILE = "pc_index.bin";
+
+    /**
+     * Marks a complete state: contains the fingerprints of the models. Written last when the state is committed and
+     * deleted first, so that a partially committed state is never used.
+     */
+    private static final @NonNull String STATE_PROPERTIES = "state.properties";
+
+    private static final @NonNull String BUILD_MODEL_FINGERPRINT = "build_model";
+
+    private static final @NonNull String VARIABILITY_MODEL_FINGERPRINT = "variability_model";
+
+    /**
+     * The suffix of the state files written by the current run, which are not committed yet.
+     */
+    private static final @NonNull String PENDING_SUFFIX = ".pending";
+
+    private final @NonNull AnalysisComponent<SourceFile<?>> sourceFiles;
+
+    private @Nullable AnalysisComponent<BuildModel> bmComponent;
+
+    private final @NonNull PresenceConditionAnalysisHelper helper;
+
+    private final @NonNull File stateDir;
+
+    private final @Nullable File changedFilesList;
+
+    private final boolean addAllBmPcs;
+
+    /**
+     * The base names of all affected variables. Set before the first result is emitted.
+     */
+    private volatile @NonNull Set<@NonNull String> affectedGroups = notNull(Collections.emptySet());
+
+    /**
+     * Whether the previous state was not used, i.e. all variables are affected. Set before the first result is
+     * emitted.
+     */
+    private volatile boolean fullRun;
+
+    /**
+     * The fingerprints of the models of this run, written to {@link #STATE_PROPERTIES} when the state is committed.
+     */
+    private final @NonNull Properties fingerprints = new Properties();
+
+    /**
+     * The written, but not yet committed index of this run; <code>null</code> if writing it failed.
+     */
+    private @Nullable File pendingIndex;
+
+    /**
+     * The variables that are affected by the changes processed so far. Only used during {@link #execute()}.
+     */
+    private final @NonNull Set<@NonNull String> pendingAffected = new HashSet<>();
+
+    /**
+     * Creates an {@link IncrementalPcFinder} for the given code model.
+     *
+     * @param config The global configuration.
+     * @param sourceFiles The code model provider component; should only provide the changed source files.
+     *
+     * @throws SetUpException If setting up this component fails.
+     */
+    public IncrementalPcFinder(@NonNull Configuration config, @NonNull AnalysisComponent<SourceFile<?>> sourceFiles)
+            throws SetUpException {
+        super(config, sourceFiles);
+        this.sourceFiles = sourceFiles;
+        this.helper = new PresenceConditionAnalysisHelper(config);
+
+        config.registerSetting(STATE_DIR);
+        this.stateDir = config.getValue(STATE_DIR);
+        if (!stateDir.isDirectory() && !stateDir.mkdirs()) {
+            throw new SetUpException("Can't create state directory " + stateDir);
+        }
+
+        config.registerSetting(CHANGED_FILES);
+        this.changedFilesList = config.getValue(CHANGED_FILES);
+
+        this.addAllBmPcs = config.getValue(CONSIDER_ALL_BM);
+    }
+
+    /**
+     * Creates an {@link IncrementalPcFinder} for the given code and build model.
+     *
+     * @param config The global configuration.
+     * @param sourceFiles The code model provider component; should only provide the changed source files.
+     * @param bm The build model provider component.
+     *
+     * @throws SetUpException If setting up this component fails.
+     */
+    public IncrementalPcFinder(@NonNull Configuration config, @NonNull AnalysisComponent<SourceFile<?>> sourceFiles,
+            @NonNull AnalysisComponent<BuildModel> bm) throws SetUpException {
+        this(config, sourceFiles);
+        this.bmComponent = bm;
+    }
+
+    @Override
+    protected void execute() {
+        BuildModel bm = null;
+        AnalysisComponent<BuildModel> bmProvider = this.bmComponent;
+        if (bmProvider != null) {
+            bm = bmProvider.getNextResult();
+        }
+
+        fingerprints.setProperty(BUILD_MODEL_FINGERPRINT, fingerprint(bm));
+        fingerprints.setProperty(VARIABILITY_MODEL_FINGERPRINT, fingerprint(getVariabilityModel()));
+
+        Map<String, List<@NonNull Formula>> index = readIndex();
+        fullRun = index.isEmpty();
+        LOGGER.logInfo("Read presence conditions of " + index.size() + " source files from previous run");
+
+        Set<@NonNull String> changed = new HashSet<>();
+
+        // re-collect all files that are passed by the code model
+        SourceFile<?> file;
+        while ((file = sourceFiles.getNextResult()) != null) {
+            PcCollection pcs = createPcCollection();
+            processFile(file, bm, pcs);
+            updateEntry(index, notNull(file.getPath().getPath()), pcs, changed);
+        }
+
+        if (null != bm && addAllBmPcs) {
+            PcCollection pcs = createPcCollection();
+            findPcsInBuildModel(bm, pcs);
+            updateEntry(index, BUILD_MODEL_ENTRY, pcs, changed);
+        }
+
+        // listed files that were not passed by the code model have been removed
+        for (String path : readChangedFiles()) {
+            if (!changed.contains(path)) {
+                List<@NonNull Formula> oldPcs = index.remove(path);
+                if (oldPcs != null) {
+                    LOGGER.logDebug("Removing " + path);
+                    changed.add(path);
+                    collectAffected(oldPcs, notNull(Collections.emptyList()));
+                }
+            }
+        }
+
+        LOGGER.logInfo(changed.size() + " source files updated, " + pendingAffected.size() + " variables affected");
+
+        Set<@NonNull String> groups = new HashSet<>();
+        for (String var : pendingAffected) {
+            groups.add(helper.removeReplacements(var));
+        }
+        pendingAffected.clear();
+        affectedGroups = notNull(Collections.unmodifiableSet(groups));
+
+        PcCollection result = collectAffectedPcs(index, groups);
+
+        pendingIndex = writeIndex(index);
+
+        for (VariableWithPcs var : sortResults(result)) {
+            addResult(var);
+        }
+    }
+
+    /**
+     * Replaces the presence conditions of a single source file in the index and records the affected variables.
+     *
+     * @param index The index of presence conditions per source file.
+     * @param path The path of the source file.
+     * @param pcs The newly collected presence conditions of the file.
+     * @param changed The set of changed files to add the path to.
+     */
+    private void updateEntry(@NonNull Map<String, List<@NonNull Formula>> index, @NonNull String path,
+            @NonNull PcCollection pcs, @NonNull Set<@NonNull String> changed) {
+
+        Set<@NonNull Formula> newPcs = new LinkedHashSet<>();
+        for (int id : pcs.getVariableIds()) {
+            newPcs.addAll(notNull(pcs.get(id)));
+        }
+
+        List<@NonNull Formula> oldPcs = index.put(path, new ArrayList<>(newPcs));
+        changed.add(path);
+        collectAffected(oldPcs != null ? oldPcs : notNull(Collections.emptyList()), newPcs);
+    }
+
+    /**
+     * Adds all variables of presence conditions that were added or removed to the affected variables.
+     *
+     * @param oldPcs The presence conditions of a file from the previous run.
+     * @param newPcs The presence conditions of the file in this run.
+     */
+    private void collectAffected(@NonNull Collection<@NonNull Formula> oldPcs,
+            @NonNull Collection<@NonNull Formula> newPcs) {
+
+        Set<@NonNull Formula> oldSet = new HashSet<>(oldPcs);
+        Set<@NonNull Formula> newSet = new HashSet<>(newPcs);
+
+        Set<@NonNull Variable> vars = new HashSet<>();
+        for (Formula pc : oldSet) {
+            if (!newSet.contains(pc)) {
+                helper.findVars(pc, vars);
+            }
+        }
+        for (Formula pc : newSet) {
+            if (!oldSet.contains(pc)) {
+                helper.findVars(pc, vars);
+            }
+        }
+
+        for (Variable var : vars) {
+            pendingAffected.add(var.getName());
+        }
+    }
+
+    /**
+     * Collects the presence conditions of all affected variables from the index. Affected non-boolean variables
+     * are extended by their base variable and all their other values.
+     *
+     * @param index The index of presence conditions per source file.
+     * @param groups The base names of the affected variables.
+     *
+     * @return The presence conditions of all affected variables.
+     */
+    private @NonNull PcCollection collectAffectedPcs(@NonNull Map<String, List<@NonNull Formula>> index,
+            @NonNull Set<@NonNull String> groups) {
+
+        PcCollection result = createPcCollection();
+        Set<@NonNull Variable> vars = new HashSet<>();
+        for (List<@NonNull Formula> pcs : index.values()) {
+            for (Formula pc : pcs) {
+                vars.clear();
+                helper.findVars(pc, vars);
+                for (Variable var : vars) {
+                    if (groups.contains(helper.removeReplacements(var.getName()))) {
+                        result.add(result.getDictionary().getId(var.getName()), pc);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the list of changed files, if configured.
+     *
+     * @return The paths of the changed files.
+     */
+    private @NonNull List<@NonNull String> readChangedFiles() {
+        List<@NonNull String> result = new ArrayList<>();
+        File list = this.changedFilesList;
+        if (list != null) {
+            try {
+                for (String line : Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+                    String path = line.trim();
+                    if (!path.isEmpty()) {
+                        result.add(notNull(new File(path).getPath()));
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.logException("Can't read list of changed files " + list, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the index of presence conditions per source file from the previous run.
+     *
+     * @return The index; sorted by path. Empty if there was no (valid) previous run or if one of the models changed.
+     */
+    private @NonNull Map<String, List<@NonNull Formula>> readIndex() {
+        Map<String, List<@NonNull Formula>> index = new TreeMap<>();
+        File indexFile = new File(stateDir, INDEX_FILE);
+
+        Properties previousFingerprints = readStateProperties();
+        if (null == previousFingerprints) {
+            if (indexFile.isFile()) {
+                LOGGER.logWarning("State of previous run is incomplete; recomputing everything",
+                        "The code model must provide all source files in this run");
+            }
+
+        } else if (!previousFingerprints.equals(fingerprints)) {
+            LOGGER.logWarning("Build model or variability model changed since previous run; recomputing everything",
+                    "The code model must provide all source files in this run");
+
+        } else if (indexFile.isFile()) {
+            try (BinaryFormulaReader in = new BinaryFormulaReader(indexFile, null)) {
+                Row row;
+                while ((row = in.readRow()) != null) {
+                    index.put(row.getName(), row.getFormulas());
+                }
+            } catch (IOException | FormatException e) {
+                LOGGER.logException("Can't read state of previous run; recomputing everything", e);
+                index.clear();
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Reads the fingerprints of the models of the previous run.
+     *
+     * @return The fingerprints; <code>null</code> if the state of the previous run is missing or incomplete.
+     */
+    private @Nullable Properties readStateProperties() {
+        Properties result = null;
+        File file = new File(stateDir, STATE_PROPERTIES);
+        if (file.isFile()) {
+            try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                result = new Properties();
+                result.load(in);
+            } catch (IOException e) {
+                LOGGER.logException("Can't read " + file, e);
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the index of presence conditions per source file for the next run to a pending file.
+     *
+     * @param index The index to write.
+     *
+     * @return The pending file, or <code>null</code> if writing failed.
+     */
+    private @Nullable File writeIndex(@NonNull Map<String, List<@NonNull Formula>> index) {
+        File result = getPendingFile(INDEX_FILE);
+
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(result, BinaryFormulaWriter.CONTENT_PC_INDEX)) {
+            for (Map.Entry<String, List<@NonNull Formula>> entry : index.entrySet()) {
+                out.writeRow(notNull(entry.getKey()), notNull(entry.getValue()));
+            }
+        } catch (IOException e) {
+            LOGGER.logException("Can't write state for next run to " + result, e);
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the pending file for a state file of this run. Components that store further state (e.g. the results
+     * of the analysis) write it to their pending file and pass it to {@link #commitState(File...)}.
+     *
+     * @param name The name of the state file.
+     *
+     * @return The pending file in the state directory.
+     */
+    public @NonNull File getPendingFile(@NonNull String name) {
+        return new File(stateDir, name + PENDING_SUFFIX);
+    }
+
+    /**
+     * Replaces the state of the previous run by the state of this run. Must only be called after all results of this
+     * run are stored, i.e. after the given pending files are completely written. If committing fails, the state is
+     * left incomplete, so the next run recomputes everything.
+     *
+     * @param pendingFiles Further pending state files (see {@link #getPendingFile(String)}) to commit together with
+     *      the presence conditions of this component.
+     */
+    public void commitState(@NonNull File @NonNull ... pendingFiles) {
+        File stateFile = new File(stateDir, STATE_PROPERTIES);
+        try {
+            // invalidate the previous state first; the new state becomes valid only once everything is in place
+            Files.deleteIfExists(stateFile.toPath());
+
+            File index = this.pendingIndex;
+            if (null == index) {
+                throw new IOException("Presence conditions of this run were not written");
+            }
+            commitFile(index);
+            for (File file : pendingFiles) {
+                commitFile(file);
+            }
+
+            File pendingStateFile = getPendingFile(STATE_PROPERTIES);
+            try (Writer out = Files.newBufferedWriter(pendingStateFile.toPath(), StandardCharsets.UTF_8)) {
+                fingerprints.store(out, null);
+            }
+            commitFile(pendingStateFile);
+
+        } catch (IOException e) {
+            LOGGER.logException("Can't store state for next run; the next run recomputes everything", e);
+        }
+        this.pendingIndex = null;
+    }
+
+    /**
+     * Discards the state of this run and of the previous run, e.g. because the results of this run could not be
+     * stored. The next run recomputes everything.
+     */
+    public void discardState() {
+        try {
+            Files.deleteIfExists(new File(stateDir, STATE_PROPERTIES).toPath());
+        } catch (IOException e) {
+            LOGGER.logException("Can't delete state of previous run", e);
+        }
+        File index = this.pendingIndex;
+        if (null != index) {
+            index.delete();
+        }
+        this.pendingIndex = null;
+    }
+
+    /**
+     * Moves a pending state file to its final name.
+     *
+     * @param pendingFile The pending file, see {@link #getPendingFile(String)}.
+     *
+     * @throws IOException If moving the file fails.
+     */
+    private static void commitFile(@NonNull File pendingFile) throws IOException {
+        String name = pendingFile.getName();
+        if (!name.endsWith(PENDING_SUFFIX)) {
+            throw new IOException(pendingFile + " is not a pending state file");
+        }
+        File target = new File(pendingFile.getParentFile(), name.substring(0, name.length() - PENDING_SUFFIX.length()));
+        Files.move(pendingFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns the variability model that is considered by the analysis, i.e. that influences the presence conditions.
+     * Protected for test cases.
+     *
+     * @return The considered variability model, <code>null</code> if the variability model is not considered.
+     */
+    protected @Nullable VariabilityModel getVariabilityModel() {
+        return helper.getConsideredVariabilityModel();
+    }
+
+    /**
+     * Computes a fingerprint of the given build model: a hash over the presence conditions of all files.
+     *
+     * @param bm The build model, may be <code>null</code>.
+     *
+     * @return The fingerprint.
+     */
+    private static @NonNull String fingerprint(@Nullable BuildModel bm) {
+        List<@NonNull String> entries = new ArrayList<>();
+        if (null != bm) {
+            for (File file : bm) {
+                entries.add(file.getPath() + ":" + bm.getPc(file));
+            }
+        }
+        return null == bm ? "none" : hash(entries);
+    }
+
+    /**
+     * Computes a fingerprint of the given variability model: a hash over the names and types of all variables.
+     *
+     * @param vm The variability model, may be <code>null</code>.
+     *
+     * @return The fingerprint.
+     */
+    private static @NonNull String fingerprint(@Nullable VariabilityModel vm) {
+        List<@NonNull String> entries = new ArrayList<>();
+        if (null != vm) {
+            for (VariabilityVariable var : vm.getVariables()) {
+                entries.add(var.getName() + ":" + var.getType());
+            }
+        }
+        return null == vm ? "none" : hash(entries);
+    }
+
+    /**
+     * Computes an order-independent hash of the given strings.
+     *
+     * @param entries The strings to hash; sorted by this method.
+     *
+     * @return The hash as hexadecimal string.
+     */
+    private static @NonNull String hash(@NonNull List<@NonNull String> entries) {
+        Collections.sort(entries);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        for (String entry : entries) {
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest()) {
+            result.append(String.format("%02x", b & 0xFF));
+        }
+        return notNull(result.toString());
+    }
+
+    /**
+     * Checks whether the given variable is affected by the changes. All values of a non-boolean variable are affected
+     * together. Affected variables that do not have any presence condition anymore are not passed to the next
+     * components, but are still considered as affected. Only valid once the first result of this component has been
+     * retrieved.
+     *
+     * @param variable The name of the variable; either the internal name (e.g. <code>A_eq_1</code>) or the name
+     *      after the non-boolean replacements have been removed (e.g. <code>A=1</code>).
+     *
+     * @return Whether the variable is affected by the changes.
+     */
+    public boolean isAffected(@NonNull String variable) {
+        // cut off the operator and value of human readable names, e.g. A=1 or A>=1
+        String name = StringUtils.getBaseName(variable);
+        return fullRun || affectedGroups.contains(helper.removeReplacements(name));
+    }
+
+    /**
+     * Returns whether the state of the previous run was not used, i.e. all variables are affected and all results of
+     * the previous run are outdated. Only valid once the first result of this component has been retrieved.
+     *
+     * @return Whether everything is recomputed in this run.
+     */
+    public boolean isFullRun() {
+        return fullRun;
+    }
+
+    /**
+     * Returns the directory where the state of the incremental analysis is stored.
+     *
+     * @return The state directory.
+     */
+    public @NonNull File getStateDir() {
+        return stateDir;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * The presence conditions collected per variable, indexed by the (dense) variable IDs of a {@link VariableDictionary}.
+ * Not thread-safe; each collecting thread should use its own instance.
+ *
+ * @author agent
+ */
+public class PcCollection {
+
+    private final @NonNull VariableDictionary dictionary;
+
+    /**
+     * The presence conditions by variable ID; <code>null</code> for variables without presence conditions.
+     */
+    private final @NonNull List<@Nullable Set<@NonNull Formula>> pcs = new ArrayList<>();
+
+    private int numVariables;
+
+    /**
+     * Creates an empty collection.
+     *
+     * @param dictionary The dictionary that assigns the variable IDs.
+     */
+    public PcCollection(@NonNull VariableDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the dictionary that assigns the variable IDs.
+     *
+     * @return The variable dictionary.
+     */
+    public @NonNull VariableDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds a presence condition for the given variable.
+     *
+     * @param variableId The ID of the variable.
+     * @param pc The presence condition that the variable is used in.
+     */
+    public void add(int variableId, @NonNull Formula pc) {
+        getOrCreate(variableId).add(pc);
+    }
+
+    /**
+     * Adds all presence conditions of the given collection to this one.
+     *
+     * @param other The collection to add; must use the same dictionary.
+     */
+    public void addAll(@NonNull PcCollection other) {
+        for (int id = 0; id < other.pcs.size(); id++) {
+            Set<@NonNull Formula> otherPcs = other.pcs.get(id);
+            if (otherPcs != null) {
+                if (id < pcs.size() && pcs.get(id) != null) {
+                    getOrCreate(id).addAll(otherPcs);
+                } else {
+                    // take over the set instead of copying it
+                    ensureSize(id + 1);
+                    pcs.set(id, otherPcs);
+                    numVariables++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the presence conditions of the given variable.
+     *
+     * @param variableId The ID of the variable.
+     *
+     * @return The presence conditions, <code>null</code> if none were collected for the variable.
+     */
+    public @Nullable Set<@NonNull Formula> get(int variableId) {
+        return variableId < pcs.size() ? pcs.get(variableId) : null;
+    }
+
+    /**
+     * Returns the IDs of all variables with presence conditions.
+     *
+     * @return The variable IDs in ascending order.
+     */
+    public int @NonNull [] getVariableIds() {
+        int[] result = new int[numVariables];
+        int i = 0;
+        for (int id = 0; id < pcs.size(); id++) {
+            if (pcs.get(id) != null) {
+                result[i++] = id;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of variables with presence conditions.
+     *
+     * @return The number of variables.
+     */
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    /**
+     * Removes all presence conditions.
+     */
+    public void clear() {
+        pcs.clear();
+        numVariables = 0;
+    }
+
+    /**
+     * Returns the set of presence conditions for the given variable, creates it if necessary.
+     *
+     * @param variableId The ID of the variable.
+     *
+     * @return The (modifiable) set of presence conditions.
+     */
+    private @NonNull Set<@NonNull Formula> getOrCreate(int variableId) {
+        ensureSize(variableId + 1);
+        Set<@NonNull Formula> result = pcs.get(variableId);
+        if (result == null) {
+            result = new HashSet<>();
+            pcs.set(variableId, result);
+            numVariables++;
+        }
+        return result;
+    }
+
+    /**
+     * Grows the list of sets to the given size.
+     *
+     * @param size The minimum size.
+     */
+    private void ensureSize(int size) {
+        while (pcs.size() < size) {
+            pcs.add(null);
+        }
+    }
+
+}
@@ -18,11 +18,18 @@ package net.ssehub.kernel_haven.fe_analysis.pcs;
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import net.ssehub.kernel_haven.SetUpException;
@@ -33,9 +40,12 @@ import net.ssehub.kernel_haven.code_model.SourceFile;
 import net.ssehub.kernel_haven.config.Configuration;
 import net.ssehub.kernel_haven.config.Setting;
 import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.FormulaInterner;
 import net.ssehub.kernel_haven.fe_analysis.PresenceConditionAnalysisHelper;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.PerformanceProbe;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.io.TableElement;
@@ -64,6 +74,21 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
             + PcFinder.class.getSimpleName() + " should collapse all non-boolean replacements to a single variable ("
             + "i.e. VAR and VAR_eq_1 will be treated as the same variable VAR)");
     
+    public static final @NonNull Setting<@NonNull Integer> THREADS = new Setting<>(
+            "analysis.pc_finder.threads", Type.INTEGER, true, "1", "Defines the number of threads the "
+            + PcFinder.class.getSimpleName() + " should use to collect presence conditions from the source files. "
+            + "If greater than 1, each thread collects the presence conditions of its files separately and the "
+            + "partial results are merged once all files are processed. In streaming mode, this is also the number "
+            + "of threads that simplify the presence conditions.");
+    
+    public static final @NonNull Setting<@NonNull Boolean> STREAMING = new Setting<>(
+            "analysis.pc_finder.streaming", Type.BOOLEAN, true, "false", "If true, the "
+            + PcFinder.class.getSimpleName() + " emits the variables in sorted order as soon as the code model is "
+            + "fully consumed, instead of sorting (and simplifying) all of them first. Presence conditions are "
+            + "simplified lazily per variable in a worker pool (see analysis.pc_finder.threads), so that "
+            + "simplification overlaps with later analysis "
+            + "steps. Emitted variables are released, which reduces the peak memory consumption.");
+    
     /**
      * A variable together with all presence conditions it is used in.
      * 
@@ -123,6 +148,20 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
     private boolean addAllBmPcs;
     
     private boolean combineNonBoolean;
+    
+    private int numThreads;
+    
+    private boolean streaming;
+    
+    private long startTime;
+    
+    private long firstResultTime;
+    
+    private long peakUsedMemory;
+    
+    private final @NonNull Object sourceFilesLock = new Object();
+    
+    private final @NonNull VariableDictionary dictionary = new VariableDictionary();
 
     /**
      * Creates a {@link PcFinder} for the given code model.
@@ -144,6 +183,15 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
         
         config.registerSetting(COMBINE_NON_BOOLEAN);
         combineNonBoolean = config.getValue(COMBINE_NON_BOOLEAN);
+        
+        config.registerSetting(THREADS);
+        numThreads = config.getValue(THREADS);
+        if (numThreads < 1) {
+            throw new SetUpException("Number of threads can't be " + numThreads);
+        }
+        
+        config.registerSetting(STREAMING);
+        streaming = config.getValue(STREAMING);
     }
     
     /**
@@ -164,6 +212,10 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
 
     @Override
     protected void execute() {
+        startTime = System.currentTimeMillis();
+        firstResultTime = -1;
+        peakUsedMemory = 0;
+        
         BuildModel bm = null;
         if (bmComponent != null) {
             bm = bmComponent.getNextResult();
@@ -177,78 +229,272 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
             LOGGER.logDebug("Calculating presence conditions without considering build model");
         }
 
-        Map<String, Set<@NonNull Formula>> result = new HashMap<>();
-        
         ProgressLogger progress = new ProgressLogger(getClass().getSimpleName() + " Collecting");
         
-        SourceFile<?> file;
-        while ((file = sourceFiles.getNextResult()) != null) {
-            Formula filePc = null;
-            if (null != bm) {
-                filePc = bm.getPc(file.getPath());
+        PcCollection result;
+        if (numThreads > 1) {
+            result = collectInParallel(bm, progress);
+        } else {
+            result = createPcCollection();
+            SourceFile<?> file;
+            while ((file = sourceFiles.getNextResult()) != null) {
+                processFile(file, bm, result);
+                progress.processedOne();
+            }
+        }
+        
+        // consider all presence conditions from the build model, if configured
+        if (null != bm && addAllBmPcs) {
+            findPcsInBuildModel(bm, result);
+        }
+        
+        progress.close();
+        
+        FormulaInterner interner = helper.getFormulaInterner();
+        if (interner != null) {
+            LOGGER.logDebug(interner.getStatistics());
+        }
+        LOGGER.logDebug(helper.getRelevanceStatistics());
+        
+        sampleMemory();
+        
+        if (streaming) {
+            emitStreaming(result);
+        } else {
+            @NonNull VariableWithPcs[] list = sortResults(result);
+            
+            for (VariableWithPcs var : list) {
+                emit(var);
+            }
+        }
+        
+        sampleMemory();
+        LOGGER.logDebug((streaming ? "Streaming" : "Sorting") + " mode: time to first result: "
+                + (firstResultTime >= 0 ? (firstResultTime - startTime) + " ms" : "no results")
+                + ", total time: " + (System.currentTimeMillis() - startTime) + " ms"
+                + ", peak used heap (sampled): " + (peakUsedMemory / (1024 * 1024)) + " MiB");
+    }
+    
+    /**
+     * Emits the collected presence conditions in sorted order, without waiting for all variables to be sorted and
+     * simplified. The collected map is converted into a sorted concurrent structure, from which the variables are
+     * removed one by one. If enabled in the config, the presence conditions are simplified in {@link #numThreads}
+     * worker threads while the results are already consumed by the next analysis.
+     * 
+     * @param pcs The collected presence conditions. Will be cleared.
+     */
+    private void emitStreaming(@NonNull PcCollection pcs) {
+        boolean simplify = helper.getSimplificationMode() == SimplificationType.PRESENCE_CONDITIONS;
+        
+        ConcurrentSkipListMap<String, Set<@NonNull Formula>> sorted = new ConcurrentSkipListMap<>();
+        for (int id : pcs.getVariableIds()) {
+            sorted.put(dictionary.getName(id), pcs.get(id));
+        }
+        pcs.clear();
+        
+        ProgressLogger progress = new ProgressLogger(getClass().getSimpleName() + " Streaming"
+                + (simplify ? " and simplifying" : ""), sorted.size());
+        
+        OrderPreservingParallelizer<Map.Entry<String, Set<@NonNull Formula>>, VariableWithPcs> parallelizer = null;
+        if (simplify) {
+            parallelizer = new OrderPreservingParallelizer<>((entry) -> {
+                Set<@NonNull Formula> pcs = new HashSet<>();
+                for (Formula pc : notNull(entry.getValue())) {
+                    pcs.add(FormulaSimplifier.simplify(pc));
+                }
+                return new VariableWithPcs(notNull(entry.getKey()), pcs);
                 
-                if (filePc != null) {
-                    LOGGER.logDebug("File PC for " + file.getPath() + ": " + filePc);
-                    // add the file PC as a stand-alone PC
-                    addPcToResult(result, filePc);
-                    
-                } else {
-                    LOGGER.logWarning("No file PC for " + file.getPath() + " in build model");
+            }, (var) -> {
+                emit(var);
+                progress.processedOne();
+                
+            }, numThreads);
+        }
+        
+        Map.Entry<String, Set<@NonNull Formula>> entry;
+        while ((entry = sorted.pollFirstEntry()) != null) {
+            if (parallelizer != null) {
+                parallelizer.add(entry);
+            } else {
+                emit(new VariableWithPcs(notNull(entry.getKey()), notNull(entry.getValue())));
+                progress.processedOne();
+            }
+        }
+        
+        if (parallelizer != null) {
+            parallelizer.end();
+            parallelizer.join();
+        }
+        
+        progress.close();
+    }
+    
+    /**
+     * Adds a result and records the time of the first result.
+     * 
+     * @param var The result to add.
+     */
+    private void emit(@NonNull VariableWithPcs var) {
+        if (firstResultTime < 0) {
+            firstResultTime = System.currentTimeMillis();
+            sampleMemory();
+        }
+        addResult(var);
+    }
+    
+    /**
+     * Samples the currently used heap memory, to estimate the peak memory consumption.
+     */
+    private void sampleMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        peakUsedMemory = Math.max(peakUsedMemory, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Collects the presence conditions of all source files in {@link #numThreads} parallel worker threads. Each worker
+     * pulls files from the code model and collects into its own map; these partial maps are merged afterwards.
+     * 
+     * @param bm Optional: The build model to get the file presence conditions from.
+     * @param progress The progress logger to notify about processed files.
+     * 
+     * @return The merged map of collected presence conditions.
+     * 
+     * @throws RuntimeException If a worker fails; the other workers are stopped and no partial result is returned.
+     */
+    private @NonNull PcCollection collectInParallel(@Nullable BuildModel bm, @NonNull ProgressLogger progress) {
+        
+        List<@NonNull PcCollection> partialResults = new ArrayList<>(numThreads);
+        List<@NonNull Future<?>> workers = new ArrayList<>(numThreads);
+        
+        AtomicInteger workerNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, (runnable) ->
+                new Thread(runnable, getClass().getSimpleName() + "-Worker-" + workerNumber.getAndIncrement()));
+        
+        for (int i = 0; i < numThreads; i++) {
+            PcCollection partialResult = createPcCollection();
+            partialResults.add(partialResult);
+            
+            workers.add(executor.submit(() -> {
+                SourceFile<?> file;
+                while (!Thread.currentThread().isInterrupted() && (file = getNextSourceFile()) != null) {
+                    processFile(file, bm, partialResult);
+                    progress.processedOne();
                 }
+            }));
+        }
+        executor.shutdown();
+        
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
             }
             
-            for (CodeElement<?> b : file) {
-                // TODO: check if parentIsRelevant should be true if we added the file PC to the result above
-                findPcsInElement(b, result, filePc, false);
+        } catch (ExecutionException e) {
+            // stop the other workers, the collection is incomplete anyway
+            executor.shutdownNow();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new IllegalStateException("Collecting presence conditions failed", cause);
             
-            progress.processedOne();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while collecting presence conditions", e);
         }
         
-        // consider all presence conditions from the build model, if configured
-        if (null != bm && addAllBmPcs) {
-            findPcsInBuildModel(bm, result);
+        // merge all partial results into the first one
+        PcCollection result = notNull(partialResults.get(0));
+        for (int i = 1; i < partialResults.size(); i++) {
+            result.addAll(notNull(partialResults.get(i)));
         }
         
-        progress.close();
+        return result;
+    }
+    
+    /**
+     * Retrieves the next {@link SourceFile} from the code model. Synchronized, since multiple worker threads may
+     * request files concurrently.
+     * 
+     * @return The next source file, or <code>null</code> if all files have been retrieved.
+     */
+    private @Nullable SourceFile<?> getNextSourceFile() {
+        synchronized (sourceFilesLock) {
+            return sourceFiles.getNextResult();
+        }
+    }
+    
+    /**
+     * Collects all presence conditions of the given source file.
+     * 
+     * @param file The source file to collect the presence conditions from.
+     * @param bm Optional: The build model to get the file presence condition from.
+     * @param result The result to add the PCs to.
+     */
+    protected void processFile(@NonNull SourceFile<?> file, @Nullable BuildModel bm, @NonNull PcCollection result) {
         
-        @NonNull VariableWithPcs[] list = sortResults(result);
+        Formula filePc = null;
+        if (null != bm) {
+            filePc = bm.getPc(file.getPath());
+            
+            if (filePc != null) {
+                LOGGER.logDebug("File PC for " + file.getPath() + ": " + filePc);
+                // add the file PC as a stand-alone PC
+                addPcToResult(result, filePc);
+                
+            } else {
+                LOGGER.logWarning("No file PC for " + file.getPath() + " in build model");
+            }
+        }
         
-        for (VariableWithPcs var : list) {
-            addResult(var);
+        for (CodeElement<?> b : file) {
+            // TODO: check if parentIsRelevant should be true if we added the file PC to the result above
+            findPcsInElement(b, result, filePc, false);
         }
     }
 
     /**
-     * Turns the map of collected PCs into a sorted array of {@link VariableWithPcs}s. The results are sorted by
+     * Creates an empty collection for presence conditions, using the variable IDs of this finder.
+     * 
+     * @return An empty {@link PcCollection}.
+     */
+    protected @NonNull PcCollection createPcCollection() {
+        return new PcCollection(dictionary);
+    }
+    
+    /**
+     * Turns the collected PCs into a sorted array of {@link VariableWithPcs}s. The results are sorted by
      * variable name. If enabled in the config, this also simplifies the presence conditions.
      * 
-     * @param pcMap The map of collected presence conditions.
+     * @param pcCollection The collected presence conditions.
      * 
-     * @return A sorted array of {@link VariableWithPcs}s created from the map.
+     * @return A sorted array of {@link VariableWithPcs}s created from the collection.
      */
     @SuppressWarnings("null") // stream API and null annotations don't work so nicely together :-/
-    private @NonNull VariableWithPcs @NonNull [] sortResults(Map<String, Set<@NonNull Formula>> pcMap) {
+    protected @NonNull VariableWithPcs @NonNull [] sortResults(@NonNull PcCollection pcCollection) {
         boolean simplify = helper.getSimplificationMode() == SimplificationType.PRESENCE_CONDITIONS;
         
         ProgressLogger progress = new ProgressLogger(getClass().getSimpleName() + " Sorting"
-                + (simplify ? " and simplifying" : ""), pcMap.size());
+                + (simplify ? " and simplifying" : ""), pcCollection.getNumVariables());
         
         LOGGER.logInfo("Sorting " + (simplify ? "and simplifying " : "") + "PCs; this may take a long time");
         
         PerformanceProbe p = new PerformanceProbe("PcFinder simplification");
         
-        @NonNull VariableWithPcs[] result = new @NonNull VariableWithPcs[pcMap.size()];
+        @NonNull VariableWithPcs[] result = new @NonNull VariableWithPcs[pcCollection.getNumVariables()];
         int i = 0;
-        for (Map.Entry<String, Set<@NonNull Formula>> entry : pcMap.entrySet()) {
-            Set<@NonNull Formula> pcs = notNull(entry.getValue());
+        for (int id : pcCollection.getVariableIds()) {
+            Set<@NonNull Formula> pcs = notNull(pcCollection.get(id));
             
             if (simplify) {
                 // Stream-based simplification of formulas and re-creation of set in multiple threads.
                 pcs = notNull(pcs.parallelStream().map(FormulaSimplifier::simplify).collect(Collectors.toSet()));
             }
             
-            result[i++] = new VariableWithPcs(notNull(entry.getKey()), pcs);
+            result[i++] = new VariableWithPcs(dictionary.getName(id), pcs);
             
             progress.processedOne();
         }
@@ -273,7 +519,7 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
      * @param parentIsRelevant Used for optimization (<tt>true</tt> parent condition is relevant and, thus, also all
      * nested conditions are relevant, <tt>false</tt> this method will check if the condition should be considered).
      */
-    private void findPcsInElement(@NonNull CodeElement<?> element, @NonNull Map<String, Set<@NonNull Formula>> result,
+    private void findPcsInElement(@NonNull CodeElement<?> element, @NonNull PcCollection result,
             @Nullable Formula filePc, boolean parentIsRelevant) {
         
         Formula pc = element.getPresenceCondition();
@@ -296,19 +542,20 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
     /**
      * Adds a presence condition to the result.
      * 
-     * @param result The result map to add to.
+     * @param result The result collection to add to.
      * @param pc The presence condition that was found.
      */
-    private void addPcToResult(@NonNull Map<String, Set<@NonNull Formula>> result, @NonNull Formula pc) {
+    private void addPcToResult(@NonNull PcCollection result, @NonNull Formula pc) {
         if (combineNonBoolean) {
             pc = helper.removeReplacements(pc);
         }
+        // share structurally equal PCs, if enabled
+        pc = helper.intern(pc);
         
         Set<@NonNull Variable> vars = new HashSet<>();
         helper.findVars(pc, vars);
         for (Variable var : vars)  {
-            result.putIfAbsent(var.getName(), new HashSet<>());
-            result.get(var.getName()).add(pc);
+            result.add(dictionary.getId(var.getName()), pc);
         }
     }
     
@@ -318,7 +565,7 @@ public class PcFinder extends AnalysisComponent<VariableWithPcs> {
      * @param bm The build model to walk through.
      * @param result The result set to add PCs to.
      */
-    private void findPcsInBuildModel(@NonNull BuildModel bm, @NonNull Map<String, Set<@NonNull Formula>> result) {
+    protected void findPcsInBuildModel(@NonNull BuildModel bm, @NonNull PcCollection result) {
         for (File f : bm) {
             Formula pc = bm.getPc(f);
             if (pc != null) {
@@ -27,6 +27,7 @@ import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
 import net.ssehub.kernel_haven.config.Setting;
 import net.ssehub.kernel_haven.config.Setting.Type;
+import net.ssehub.kernel_haven.fe_analysis.FormulaInterner;
 import net.ssehub.kernel_haven.fe_analysis.Settings;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
@@ -41,6 +42,7 @@ import net.ssehub.kernel_haven.util.logic.parser.ExpressionFormatException;
 import net.ssehub.kernel_haven.util.logic.parser.Parser;
 import net.ssehub.kernel_haven.util.logic.parser.VariableCache;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * A component that reads {@link VariableWithPcs} from a file specified in the configuration.
@@ -62,6 +64,8 @@ public class PcReader extends AnalysisComponent<VariableWithPcs> {
     
     private boolean simplify;
     
+    private @Nullable FormulaInterner interner;
+    
     /**
      * Creates this component. No input required since the input file is read from the configuration.
      * 
@@ -80,6 +84,11 @@ public class PcReader extends AnalysisComponent<VariableWithPcs> {
         
         config.registerSetting(Settings.SIMPLIFIY);
         this.simplify = config.getValue(Settings.SIMPLIFIY) == SimplificationType.PRESENCE_CONDITIONS;
+        
+        config.registerSetting(Settings.INTERN_FORMULAS);
+        if (config.getValue(Settings.INTERN_FORMULAS)) {
+            this.interner = new FormulaInterner();
+        }
     }
 
     @Override
@@ -105,6 +114,11 @@ public class PcReader extends AnalysisComponent<VariableWithPcs> {
         } catch (IOException e) {
             LOGGER.logException("Can't read input file", e);
         }
+        
+        FormulaInterner formulaInterner = this.interner;
+        if (formulaInterner != null) {
+            LOGGER.logDebug(formulaInterner.getStatistics());
+        }
     }
     
     /**
@@ -175,6 +189,11 @@ public class PcReader extends AnalysisComponent<VariableWithPcs> {
                     pc = FormulaSimplifier.simplify(pc);
                 }
                 
+                FormulaInterner formulaInterner = this.interner;
+                if (formulaInterner != null) {
+                    pc = formulaInterner.intern(pc);
+                }
+                
                 pcs.add(pc);
                 
             } catch (ExpressionFormatException e) {
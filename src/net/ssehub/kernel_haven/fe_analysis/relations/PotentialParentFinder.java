@@ -20,11 +20,15 @@ import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 import java.util.HashSet;
 import java.util.Set;
 
+import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.Setting;
+import net.ssehub.kernel_haven.config.Setting.Type;
 import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectComputer;
+import net.ssehub.kernel_haven.fe_analysis.fes.PcEffectCache;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
-import net.ssehub.kernel_haven.fe_analysis.relations.VariableWithPotentialParents.PotentialParent;
+import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.ProgressLogger;
 import net.ssehub.kernel_haven.util.logic.Conjunction;
 import net.ssehub.kernel_haven.util.logic.Disjunction;
@@ -35,6 +39,7 @@ import net.ssehub.kernel_haven.util.logic.Negation;
 import net.ssehub.kernel_haven.util.logic.True;
 import net.ssehub.kernel_haven.util.logic.Variable;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * An analysis component that finds potential "parent" variables for variability variables. This is done by checking
@@ -44,88 +49,156 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class PotentialParentFinder extends AnalysisComponent<VariableWithPotentialParents> {
 
+    public static final @NonNull Setting<@NonNull Integer> THREADS = new Setting<>(
+            "analysis.potential_parents.threads", Type.INTEGER, true, "1", "Defines the number of threads the "
+            + PotentialParentFinder.class.getSimpleName() + " should use to compute the potential parents of "
+            + "variables. The results keep the order of the incoming variables.");
+    
     private @NonNull AnalysisComponent<VariableWithPcs> pcFinder;
     
+    private @Nullable PcEffectCache pcEffectCache;
+    
+    private @NonNull FeatureEffectComputer computer;
+    
+    private int numThreads;
+    
     /**
      * Creates a new {@link PotentialParentFinder}.
      * 
      * @param config The pipeline configuration.
      * @param pcFinder The component to get the presence conditions from.
+     * 
+     * @throws SetUpException If the number of threads is invalid.
+     */
+    public PotentialParentFinder(@NonNull Configuration config, @NonNull AnalysisComponent<VariableWithPcs> pcFinder)
+            throws SetUpException {
+        this(config, pcFinder, null);
+    }
+    
+    /**
+     * Creates a new {@link PotentialParentFinder}, which shares the effects of single presence conditions with other
+     * components.
+     * 
+     * @param config The pipeline configuration.
+     * @param pcFinder The component to get the presence conditions from.
+     * @param pcEffectCache Optional: The cache for the effects of single presence conditions, that is shared with other
+     *      components consuming the same PCs. This component releases every variable that it receives. Must compute
+     *      the effects with simplification, like this component.
+     * 
+     * @throws SetUpException If the number of threads is invalid.
+     * @throws IllegalArgumentException If the cache computes the effects without simplification.
      */
-    public PotentialParentFinder(@NonNull Configuration config, @NonNull AnalysisComponent<VariableWithPcs> pcFinder) {
+    public PotentialParentFinder(@NonNull Configuration config, @NonNull AnalysisComponent<VariableWithPcs> pcFinder,
+            @Nullable PcEffectCache pcEffectCache) throws SetUpException {
         super(config);
         this.pcFinder = pcFinder;
+        this.pcEffectCache = pcEffectCache;
+        
+        computer = new FeatureEffectComputer(true);
+        computer.setPcEffectCache(pcEffectCache);
+        
+        config.registerSetting(THREADS);
+        numThreads = config.getValue(THREADS);
+        if (numThreads < 1) {
+            throw new SetUpException("Number of threads can't be " + numThreads);
+        }
     }
 
     @Override
     protected void execute() {
-        FeatureEffectComputer computer = new FeatureEffectComputer(true);
-        
         ProgressLogger progress = new ProgressLogger(notNull(getClass().getSimpleName()));
         
+        OrderPreservingParallelizer<VariableWithPcs, VariableWithPotentialParents> parallelizer = null;
+        if (numThreads > 1) {
+            parallelizer = new OrderPreservingParallelizer<>(this::findPotentialParents, this::addResult, numThreads);
+        }
+        
         VariableWithPcs varPcs;
         while ((varPcs = pcFinder.getNextResult()) != null) {
-            
-            VariableWithPotentialParents result = new VariableWithPotentialParents(varPcs.getVariable());
-            
-            Set<String> seenVariables = new HashSet<>();
-            int numPcs = varPcs.getPcs().size();
-            for (Formula pc : varPcs.getPcs()) {
-                seenVariables.clear();
-                seenVariables.add(varPcs.getVariable()); // don't visit self
-                
-                // create a temporary VariableWithPcs to calculate the FE for a single PC
-                Set<Formula> tmpPc = new HashSet<>();
-                tmpPc.add(pc);
-                VariableWithPcs tmp = new VariableWithPcs(varPcs.getVariable(), tmpPc);
-                pc = computer.buildFeatureEffefct(tmp);
-                
-                pc.accept(new IVoidFormulaVisitor() {
-                    
-                    @Override
-                    public void visitVariable(@NonNull Variable variable) {
-                        if (seenVariables.add(variable.getName())) {
-                            
-                            PotentialParent pp = result.getOrCreatePotentialParent(variable.getName());
-                            pp.setProbability(pp.getProbability() + (1.0 / numPcs));
-                        }
-                    }
-                    
-                    @Override
-                    public void visitTrue(@NonNull True trueConstant) {
-                    }
-                    
-                    @Override
-                    public void visitNegation(@NonNull Negation formula) {
-                        formula.getFormula().accept(this);
-                    }
-                    
-                    @Override
-                    public void visitFalse(@NonNull False falseConstant) {
-                    }
-                    
-                    @Override
-                    public void visitDisjunction(@NonNull Disjunction formula) {
-                        formula.getLeft().accept(this);
-                        formula.getRight().accept(this);
-                    }
-                    
-                    @Override
-                    public void visitConjunction(@NonNull Conjunction formula) {
-                        formula.getLeft().accept(this);
-                        formula.getRight().accept(this);
-                    }
-                });
+            if (parallelizer != null) {
+                parallelizer.add(varPcs);
+            } else {
+                addResult(findPotentialParents(varPcs));
             }
-            
-            result.sort();
-            addResult(result);
 
             progress.processedOne();
         }
         
+        if (parallelizer != null) {
+            parallelizer.end();
+            parallelizer.join();
+        }
+        
         progress.close();
     }
+    
+    /**
+     * Computes the potential parents of a single variable. Thread-safe.
+     * 
+     * @param varPcs The variable with its presence conditions.
+     * 
+     * @return The potential parents of the variable, sorted by descending probability.
+     */
+    private @NonNull VariableWithPotentialParents findPotentialParents(@NonNull VariableWithPcs varPcs) {
+        PcEffectCache pcEffects = this.pcEffectCache;
+        VariableWithPotentialParents result = new VariableWithPotentialParents(varPcs.getVariable());
+        
+        Set<String> seenVariables = new HashSet<>();
+        int numPcs = varPcs.getPcs().size();
+        for (Formula pc : varPcs.getPcs()) {
+            seenVariables.clear();
+            seenVariables.add(varPcs.getVariable()); // don't visit self
+            
+            // create a temporary VariableWithPcs to calculate the FE for a single PC
+            Set<Formula> tmpPc = new HashSet<>();
+            tmpPc.add(pc);
+            VariableWithPcs tmp = new VariableWithPcs(varPcs.getVariable(), tmpPc);
+            pc = computer.buildFeatureEffefct(tmp);
+            
+            pc.accept(new IVoidFormulaVisitor() {
+                
+                @Override
+                public void visitVariable(@NonNull Variable variable) {
+                    if (seenVariables.add(variable.getName())) {
+                        result.getOrCreatePotentialParent(variable.getName()).addProbability(1.0 / numPcs);
+                    }
+                }
+                
+                @Override
+                public void visitTrue(@NonNull True trueConstant) {
+                }
+                
+                @Override
+                public void visitNegation(@NonNull Negation formula) {
+                    formula.getFormula().accept(this);
+                }
+                
+                @Override
+                public void visitFalse(@NonNull False falseConstant) {
+                }
+                
+                @Override
+                public void visitDisjunction(@NonNull Disjunction formula) {
+                    formula.getLeft().accept(this);
+                    formula.getRight().accept(this);
+                }
+                
+                @Override
+                public void visitConjunction(@NonNull Conjunction formula) {
+                    formula.getLeft().accept(this);
+                    formula.getRight().accept(this);
+                }
+            });
+        }
+        
+        if (pcEffects != null) {
+            pcEffects.release(varPcs.getVariable());
+        }
+        
+        // the sorting itself is done lazily, when the result is written
+        result.sort();
+        return result;
+    }
 
     @Override
     public @NonNull String getResultName() {
@@ -18,8 +18,10 @@ package net.ssehub.kernel_haven.fe_analysis.relations;
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import net.ssehub.kernel_haven.fe_analysis.relations.VariableWithPotentialParents.PotentialParent;
 import net.ssehub.kernel_haven.util.io.TableElement;
@@ -80,6 +82,15 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
             this.probability = probability;
         }
         
+        /**
+         * Adds to the probability that this a potential parent.
+         * 
+         * @param probability The probability to add.
+         */
+        public void addProbability(double probability) {
+            this.probability += probability;
+        }
+        
         @Override
         public String toString() {
             return String.format("%s (%.2f%%)", variable, probability * 100);
@@ -89,8 +100,23 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
     
     private @NonNull String variable;
     
+    /**
+     * The potential parents in the order they were added.
+     */
     private @NonNull List<@NonNull PotentialParent> potentialParents;
     
+    /**
+     * The first added potential parent of each name, for lookups by name.
+     */
+    private @NonNull Map<String, @NonNull PotentialParent> parentsByName;
+    
+    private boolean sortByProbability;
+    
+    /**
+     * The potential parents in the order they are returned; created lazily on first access.
+     */
+    private @Nullable List<@NonNull PotentialParent> orderedParents;
+    
     /**
      * Creates a new and empty {@link PotentialParent} container for the given variable.
      * 
@@ -99,6 +125,7 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
     public VariableWithPotentialParents(@NonNull String variable) {
         this.variable = variable;
         this.potentialParents = new ArrayList<>();
+        this.parentsByName = new HashMap<>();
     }
     
     /**
@@ -118,7 +145,7 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
      */
     @TableElement(index = 2, name = "Potential Parents")
     public @NonNull String getPotentialParentsString() {
-        return notNull(potentialParents.toString());
+        return notNull(getOrderedParents().toString());
     }
     
     /**
@@ -128,14 +155,37 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
      */
     public void addPotentialParent(@NonNull PotentialParent parent) {
         this.potentialParents.add(parent);
+        this.parentsByName.putIfAbsent(parent.variable, parent);
+        this.orderedParents = null;
     }
     
     /**
      * Sorts the list of potential parents with descending probability. This should be called after all
-     * {@link PotentialParent}s are added and their probabilities are set.
+     * {@link PotentialParent}s are added and their probabilities are set. The sorting itself is deferred until the
+     * potential parents are accessed the first time.
      */
     public void sort() {
-        this.potentialParents.sort((pp1, pp2) -> Double.compare(pp2.probability, pp1.probability));
+        this.sortByProbability = true;
+        this.orderedParents = null;
+    }
+    
+    /**
+     * Returns the potential parents in the order they should be returned, i.e. sorted by descending probability if
+     * {@link #sort()} was called, otherwise in the order they were added.
+     * 
+     * @return The ordered list of potential parents.
+     */
+    private @NonNull List<@NonNull PotentialParent> getOrderedParents() {
+        List<@NonNull PotentialParent> result = this.orderedParents;
+        if (result == null) {
+            result = new ArrayList<>(potentialParents);
+            if (sortByProbability) {
+                // stable sort, parents with equal probabilities keep the order they were added
+                result.sort((pp1, pp2) -> Double.compare(pp2.probability, pp1.probability));
+            }
+            this.orderedParents = result;
+        }
+        return result;
     }
     
     /**
@@ -145,9 +195,8 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
      * 
      * @return The {@link PotentialParent}, or <code>null</code> if none with this name exists.
      */
-    @SuppressWarnings("null")
     public @Nullable PotentialParent getPotentialParent(@NonNull String name) {
-        return this.potentialParents.stream().filter(pp -> pp.variable.equals(name)).findFirst().orElse(null);
+        return this.parentsByName.get(name);
     }
     
     /**
@@ -173,6 +222,6 @@ public class VariableWithPotentialParents implements Iterable<PotentialParent> {
 
     @Override
     public Iterator<PotentialParent> iterator() {
-        return potentialParents.iterator();
+        return getOrderedParents().iterator();
     }
 }
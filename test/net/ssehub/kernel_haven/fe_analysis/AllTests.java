@@ -20,8 +20,11 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import net.ssehub.kernel_haven.fe_analysis.arch_components.AllArchComponentTests;
+import net.ssehub.kernel_haven.fe_analysis.config_relevancy.BatchConfigRelevancyCheckerTest;
 import net.ssehub.kernel_haven.fe_analysis.config_relevancy.ConfigRelevancyCheckerTest;
+import net.ssehub.kernel_haven.fe_analysis.config_relevancy.FeatureEffectProgramTest;
 import net.ssehub.kernel_haven.fe_analysis.fes.AllFeatureEffectTests;
+import net.ssehub.kernel_haven.fe_analysis.io.BinaryFormulaCodecTest;
 import net.ssehub.kernel_haven.fe_analysis.pcs.AllPresenceConditionTests;
 import net.ssehub.kernel_haven.fe_analysis.relations.AllRelationsTests;
 
@@ -33,13 +36,19 @@ import net.ssehub.kernel_haven.fe_analysis.relations.AllRelationsTests;
 @RunWith(Suite.class)
 @SuiteClasses({
     AllArchComponentTests.class,
+    BatchConfigRelevancyCheckerTest.class,
     ConfigRelevancyCheckerTest.class,
+    FeatureEffectProgramTest.class,
     AllFeatureEffectTests.class,
+    BinaryFormulaCodecTest.class,
     AllPresenceConditionTests.class,
     AllRelationsTests.class,
     
+    CompactBitSetTest.class,
+    FormulaInternerTest.class,
     PresenceConditionAnalysisHelperTest.class,
     StringUtilsTests.class,
+    VariableDictionaryTest.class,
     })
 public class AllTests {
 
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link CompactBitSet}.
+ *
+ * @author agent
+ */
+public class CompactBitSetTest {
+
+    /**
+     * Tests adding and retrieving sparse values over multiple chunks.
+     */
+    @Test
+    public void testSparse() {
+        CompactBitSet set = new CompactBitSet();
+
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.add(70000), is(true));
+        assertThat(set.add(5), is(true));
+        assertThat(set.add(3), is(true));
+        assertThat(set.add(5), is(false));
+
+        assertThat(set.cardinality(), is(3));
+        assertThat(set.contains(5), is(true));
+        assertThat(set.contains(4), is(false));
+        assertThat(set.contains(70000), is(true));
+        assertThat(set.contains(-1), is(false));
+        assertThat(set.toArray(), is(new int[] {3, 5, 70000}));
+
+        set.clear();
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.contains(5), is(false));
+    }
+
+    /**
+     * Tests that a chunk with many values (stored as a bitmap) behaves like one with few values.
+     */
+    @Test
+    public void testDense() {
+        CompactBitSet set = new CompactBitSet();
+
+        int count = CompactBitSet.ARRAY_LIMIT * 2;
+        for (int i = count - 1; i >= 0; i--) {
+            assertThat(set.add(i * 3), is(true));
+        }
+        assertThat(set.add(3), is(false));
+
+        assertThat(set.cardinality(), is(count));
+        assertThat(set.contains(3 * (count - 1)), is(true));
+        assertThat(set.contains(4), is(false));
+
+        int[] values = set.toArray();
+        assertThat(values.length, is(count));
+        for (int i = 0; i < count; i++) {
+            assertThat(values[i], is(i * 3));
+        }
+    }
+
+    /**
+     * Tests that negative values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegative() {
+        new CompactBitSet().add(-1);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FormulaInterner}.
+ * 
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class FormulaInternerTest {
+
+    /**
+     * Tests that structurally equal formulas are mapped to the same instance.
+     */
+    @Test
+    public void testEqualFormulasAreShared() {
+        FormulaInterner interner = new FormulaInterner();
+        
+        Formula f1 = interner.intern(and(or("A", "B"), not("C")));
+        Formula f2 = interner.intern(and(or("A", "B"), not("C")));
+        
+        Assert.assertSame(f1, f2);
+        Assert.assertEquals(and(or("A", "B"), not("C")), f1);
+    }
+    
+    /**
+     * Tests that equal sub-formulas of different formulas are shared.
+     */
+    @Test
+    public void testSubFormulasAreShared() {
+        FormulaInterner interner = new FormulaInterner();
+        
+        Conjunction f1 = (Conjunction) interner.intern(and(or("A", "B"), "C"));
+        Conjunction f2 = (Conjunction) interner.intern(and(or("A", "B"), "D"));
+        
+        Assert.assertNotSame(f1, f2);
+        Assert.assertSame(f1.getLeft(), f2.getLeft());
+    }
+    
+    /**
+     * Tests that the factory methods return the same instances as {@link FormulaInterner#intern(Formula)}.
+     */
+    @Test
+    public void testFactoryMethods() {
+        FormulaInterner interner = new FormulaInterner();
+        
+        Formula interned = interner.intern(or(new Conjunction(new Variable("A"), True.INSTANCE), not("B")));
+        Formula created = interner.or(interner.and(interner.variable("A"), True.INSTANCE),
+                interner.not(interner.variable("B")));
+        
+        Assert.assertSame(interned, created);
+    }
+    
+    /**
+     * Tests the hit and miss statistics.
+     */
+    @Test
+    public void testStatistics() {
+        FormulaInterner interner = new FormulaInterner();
+        
+        // 3 new nodes: A, B, A && B
+        interner.intern(and("A", "B"));
+        Assert.assertEquals(0, interner.getHits());
+        Assert.assertEquals(3, interner.getMisses());
+        Assert.assertEquals(3, interner.size());
+        
+        // 3 hits: A, B, A && B
+        interner.intern(and("A", "B"));
+        Assert.assertEquals(3, interner.getHits());
+        Assert.assertEquals(3, interner.getMisses());
+        Assert.assertTrue(interner.getEstimatedBytesSaved() > 0);
+    }
+
+}
@@ -346,4 +346,34 @@ public class PresenceConditionAnalysisHelperTest {
                 is(and(or("A", False.INSTANCE), not(and("B", True.INSTANCE)))));
     }
     
+    /**
+     * Tests that repeated relevance checks are answered from the caches and yield the same results.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testRelevanceCache() throws SetUpException {
+        // relevantVarsPatter, considerVmVarsOnly, simplification, preparation, fuzzyParsing, varModel
+        
+        PresenceConditionAnalysisHelper helper = create("CONFIG_.*", false, NO_SIMPLIFICATION, false, false, null);
+        Formula relevant = or("C", "CONFIG_A");
+        Formula irrelevant = and("C", "D");
+        
+        assertThat(helper.isRelevant(relevant), is(true));
+        assertThat(helper.isRelevant(relevant), is(true));
+        assertThat(helper.isRelevant(irrelevant), is(false));
+        assertThat(helper.isRelevant(irrelevant), is(false));
+        assertThat(helper.getFormulaRelevanceHits(), is(2L));
+        assertThat(helper.getFormulaRelevanceMisses(), is(2L));
+        
+        // C was checked in both (uncached) formulas
+        assertThat(helper.getVariableRelevanceMisses(), is(3L));
+        assertThat(helper.getVariableRelevanceHits(), is(1L));
+        
+        // an equal, but not identical formula is evaluated again, but its variables are cached
+        assertThat(helper.isRelevant(and("C", "D")), is(false));
+        assertThat(helper.getFormulaRelevanceMisses(), is(3L));
+        assertThat(helper.getVariableRelevanceMisses(), is(3L));
+    }
+    
 }
@@ -45,5 +45,46 @@ public class StringUtilsTests {
             }
         }
     }
+    
+    /**
+     * Tests that the first comparison operator decides and that names without comparison are not matched.
+     */
+    @Test
+    public void testFindLastOperatorFirstMatch() {
+        Assert.assertEquals(1, StringUtils.getLastOperatorIndex("A<B=3"));
+        Assert.assertEquals(3, StringUtils.getLastOperatorIndex("A!B=3"));
+        Assert.assertEquals(-1, StringUtils.getLastOperatorIndex("A!B"));
+        Assert.assertEquals(-1, StringUtils.getLastOperatorIndex("A!"));
+        Assert.assertEquals(-1, StringUtils.getLastOperatorIndex("A+B"));
+        Assert.assertEquals(-1, StringUtils.getLastOperatorIndex(""));
+    }
+    
+    /**
+     * Tests that arithmetic and bitwise operators are found, too.
+     */
+    @Test
+    public void testFindFirstOperator() {
+        String[] operators = {"=", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/", "%", "|", "&"};
+        for (String operator : operators) {
+            Assert.assertEquals("Could not detect operator " + operator, 3,
+                StringUtils.getFirstOperatorIndex("VAR" + operator + "1"));
+        }
+        Assert.assertEquals(1, StringUtils.getFirstOperatorIndex("A+B=3"));
+        Assert.assertEquals(-1, StringUtils.getFirstOperatorIndex("A!B"));
+        Assert.assertEquals(-1, StringUtils.getFirstOperatorIndex("CONFIG_A"));
+    }
+    
+    /**
+     * Tests that the base name is the part in front of the comparison operator.
+     */
+    @Test
+    public void testGetBaseName() {
+        Assert.assertEquals("A", StringUtils.getBaseName("A=1"));
+        Assert.assertEquals("A", StringUtils.getBaseName("A!=1"));
+        Assert.assertEquals("A", StringUtils.getBaseName("A>=1"));
+        
+        String name = "CONFIG_A";
+        Assert.assertSame(name, StringUtils.getBaseName(name));
+    }
 
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary.Operator;
+
+/**
+ * Tests the {@link VariableDictionary}.
+ *
+ * @author agent
+ */
+public class VariableDictionaryTest {
+
+    /**
+     * Tests that IDs are dense and stable.
+     */
+    @Test
+    public void testIds() {
+        VariableDictionary dictionary = new VariableDictionary();
+
+        assertThat(dictionary.findId("A"), is(-1));
+        assertThat(dictionary.getId("A"), is(0));
+        assertThat(dictionary.getId("B"), is(1));
+        assertThat(dictionary.getId("A"), is(0));
+        assertThat(dictionary.findId("B"), is(1));
+        assertThat(dictionary.getName(1), is("B"));
+        assertThat(dictionary.size(), is(2));
+    }
+
+    /**
+     * Tests the base variables and operators of non-Boolean replacements.
+     */
+    @Test
+    public void testReplacements() {
+        VariableDictionary dictionary = new VariableDictionary();
+
+        int eq = dictionary.getId("A_eq_1");
+        int base = dictionary.findId("A");
+        assertThat(base, is(0));
+        assertThat(dictionary.getBaseId(eq), is(base));
+        assertThat(dictionary.getBaseId(base), is(base));
+        assertThat(dictionary.getOperator(eq), is(Operator.EQ));
+        assertThat(dictionary.getOperator(base), is(Operator.NONE));
+        assertThat(dictionary.getValue(eq), is("1"));
+        assertThat(dictionary.getIntValue(eq), is(1));
+        assertThat(dictionary.getValue(base), nullValue());
+
+        assertThat(dictionary.getOperator(dictionary.getId("A_ne_2")), is(Operator.NE));
+        assertThat(dictionary.getOperator(dictionary.getId("A_ge_2")), is(Operator.GE));
+        assertThat(dictionary.getOperator(dictionary.getId("A_gt_2")), is(Operator.GT));
+        assertThat(dictionary.getOperator(dictionary.getId("A_le_2")), is(Operator.LE));
+        assertThat(dictionary.getOperator(dictionary.getId("A_lt_2")), is(Operator.LT));
+        assertThat(dictionary.getBaseId(dictionary.getId("A_lt_2")), is(base));
+    }
+
+    /**
+     * Tests the base variables and operators of human readable comparisons.
+     */
+    @Test
+    public void testReadableComparisons() {
+        VariableDictionary dictionary = new VariableDictionary();
+
+        int base = dictionary.getId("VAR");
+        int eq = dictionary.getId("VAR=4");
+        assertThat(dictionary.getBaseId(eq), is(base));
+        assertThat(dictionary.getOperator(eq), is(Operator.EQ));
+        assertThat(dictionary.getIntValue(eq), is(4));
+
+        assertThat(dictionary.getOperator(dictionary.getId("VAR!=4")), is(Operator.NE));
+        assertThat(dictionary.getOperator(dictionary.getId("VAR>=4")), is(Operator.GE));
+        assertThat(dictionary.getOperator(dictionary.getId("VAR>4")), is(Operator.GT));
+        assertThat(dictionary.getOperator(dictionary.getId("VAR<=4")), is(Operator.LE));
+        assertThat(dictionary.getOperator(dictionary.getId("VAR<4")), is(Operator.LT));
+        assertThat(dictionary.getBaseId(dictionary.getId("VAR<=4")), is(base));
+
+        int nonInteger = dictionary.getId("VAR=abc");
+        assertThat(dictionary.getValue(nonInteger), is("abc"));
+        assertThat(dictionary.getIntValue(nonInteger), nullValue());
+
+        // a single ! is not an operator
+        assertThat(dictionary.getOperator(dictionary.getId("VAR!X")), is(Operator.NONE));
+    }
+
+    /**
+     * Tests that IDs beyond the initial capacity are assigned correctly.
+     */
+    @Test
+    public void testGrowing() {
+        VariableDictionary dictionary = new VariableDictionary();
+        for (int i = 0; i < 5000; i++) {
+            assertThat(dictionary.getId("VAR_" + i), is(i));
+        }
+        assertThat(dictionary.getName(4321), is("VAR_4321"));
+    }
+
+}
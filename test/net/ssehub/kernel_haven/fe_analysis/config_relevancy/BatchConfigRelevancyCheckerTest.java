@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.fe_analysis.config_relevancy.VariableRelevance.Relevance;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
+import net.ssehub.kernel_haven.test_utils.TestConfiguration;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link BatchConfigRelevancyChecker} and the {@link ConfigurationBatch}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class BatchConfigRelevancyCheckerTest {
+
+    /**
+     * Tests that all configurations of a directory are checked against all feature effects, with the same rating as
+     * the {@link ConfigRelevancyChecker}.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testMultipleConfigurations() throws SetUpException {
+        List<VariableWithFeatureEffect> fes = new LinkedList<>();
+        fes.add(new VariableWithFeatureEffect("VAR_1", new Variable("B=1")));
+        fes.add(new VariableWithFeatureEffect("A", or("C=4", "B=2")));
+        fes.add(new VariableWithFeatureEffect("B", and("A=1", "C=4")));
+
+        List<ConfigurationRelevance> result = run(fes, new File("testdata/config_relevancy/batch"));
+
+        assertRow(result.get(0), "a.csv", "VAR_1", null, Relevance.NOT_SET_AND_IRRELEVANT);
+        assertRow(result.get(1), "b.csv", "VAR_1", null, Relevance.UNKOWN);
+        assertRow(result.get(2), "a.csv", "A", 1, Relevance.SET_AND_RELEVANT);
+        assertRow(result.get(3), "b.csv", "A", 2, Relevance.SET_AND_RELEVANT);
+        assertRow(result.get(4), "a.csv", "B", 2, Relevance.UNKOWN);
+        assertRow(result.get(5), "b.csv", "B", null, Relevance.NOT_SET_AND_IRRELEVANT);
+        assertRow(result.get(6), "b.csv", "C", 4, Relevance.NOT_FOUND_IN_CODE);
+
+        assertThat(result.size(), is(7));
+    }
+
+    /**
+     * Tests the bit-parallel evaluation of a full batch, including the configuration in the sign bit.
+     */
+    @Test
+    public void testFullBatch() {
+        VariableDictionary dictionary = new VariableDictionary();
+        List<ProductConfiguration> configurations = new ArrayList<>();
+        for (int i = 0; i < ConfigurationBatch.MAX_SIZE; i++) {
+            Map<String, Integer> values = new HashMap<>();
+            values.put("X", i);
+            configurations.add(new ProductConfiguration("config" + i, values, dictionary));
+        }
+        ConfigurationBatch batch = new ConfigurationBatch(configurations);
+        long[] result = new long[2];
+
+        // Y is not configured: true only where X=63, unknown otherwise
+        batch.evaluate(new FeatureEffectProgram(or("X=63", "Y"), dictionary), result);
+        assertThat(result[0], is(1L << 63));
+        assertThat(result[1], is(0L));
+
+        // false everywhere except X=0, where it's unknown
+        batch.evaluate(new FeatureEffectProgram(and("X=0", "Y"), dictionary), result);
+        assertThat(result[0], is(0L));
+        assertThat(result[1], is(~1L));
+
+        batch.evaluate(new FeatureEffectProgram(not("X=5"), dictionary), result);
+        assertThat(result[0], is(~(1L << 5)));
+        assertThat(result[1], is(1L << 5));
+
+        batch.evaluate(new FeatureEffectProgram(not("Y"), dictionary), result);
+        assertThat(result[0], is(0L));
+        assertThat(result[1], is(0L));
+    }
+
+    /**
+     * Asserts the content of a single result row.
+     *
+     * @param row The row to check.
+     * @param configuration The expected name of the configuration.
+     * @param variable The expected name of the variable.
+     * @param value The expected configured value.
+     * @param relevance The expected rating.
+     */
+    private static void assertRow(ConfigurationRelevance row, String configuration, String variable, Integer value,
+            Relevance relevance) {
+
+        assertThat(row.getConfiguration(), is(configuration));
+        assertThat(row.getVariable(), is(variable));
+        if (value == null) {
+            assertThat(row.getValue(), nullValue());
+        } else {
+            assertThat(row.getValue(), is(value));
+        }
+        assertThat(row.getRelevance(), is(relevance));
+    }
+
+    /**
+     * Runs the {@link BatchConfigRelevancyChecker} on the given feature effects and configuration directory.
+     *
+     * @param fes The list of feature effects to run the checker on.
+     * @param configurationDir The directory containing the SPL configurations in CSV.
+     *
+     * @return The result of the checker run.
+     *
+     * @throws SetUpException If creating the checker fails.
+     */
+    private List<ConfigurationRelevance> run(List<VariableWithFeatureEffect> fes, File configurationDir)
+            throws SetUpException {
+
+        TestConfiguration config = new TestConfiguration(new Properties());
+        config.registerSetting(BatchConfigRelevancyChecker.CONFIGURATION_DIR);
+        config.setValue(BatchConfigRelevancyChecker.CONFIGURATION_DIR, configurationDir);
+
+        TestAnalysisComponentProvider<VariableWithFeatureEffect> feProvider = new TestAnalysisComponentProvider<>(fes);
+
+        BatchConfigRelevancyChecker checker = new BatchConfigRelevancyChecker(config, feProvider);
+        List<ConfigurationRelevance> result = new LinkedList<>();
+
+        ConfigurationRelevance r;
+        while ((r = checker.getNextResult()) != null) {
+            result.add(r);
+        }
+
+        return result;
+    }
+
+}
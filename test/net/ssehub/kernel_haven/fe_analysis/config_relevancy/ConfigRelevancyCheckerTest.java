@@ -193,6 +193,39 @@ public class ConfigRelevancyCheckerTest {
         assertThat(result.size(), is(3));
     }
     
+    /**
+     * Tests that feature effects with &gt;, &lt;, &gt;=, &lt;=, != comparisons are evaluated.
+     * 
+     * @throws SetUpException unwanted.
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testComparisons() throws SetUpException, IOException {
+        List<VariableWithFeatureEffect> fes = new LinkedList<>();
+        fes.add(new VariableWithFeatureEffect("VAR_1", new Variable("B>1")));
+        fes.add(new VariableWithFeatureEffect("A", and("B!=2", "A<=1")));
+        fes.add(new VariableWithFeatureEffect("B", or("A>=2", "C<4")));
+        
+        List<VariableRelevance> result = run(fes, new File("testdata/config_relevancy/test.csv"));
+        
+        VariableRelevance r1 = result.get(0);
+        assertThat(r1.getVariable(), is("VAR_1"));
+        assertThat(r1.getValue(), nullValue());
+        assertThat(r1.getRelevance(), is(Relevance.NOT_SET_AND_RELEVANT));
+        
+        VariableRelevance r2 = result.get(1);
+        assertThat(r2.getVariable(), is("A"));
+        assertThat(r2.getValue(), is(1));
+        assertThat(r2.getRelevance(), is(Relevance.SET_AND_IRRELEVANT));
+        
+        VariableRelevance r3 = result.get(2);
+        assertThat(r3.getVariable(), is("B"));
+        assertThat(r3.getValue(), is(2));
+        assertThat(r3.getRelevance(), is(Relevance.UNKOWN));
+        
+        assertThat(result.size(), is(3));
+    }
+    
     /**
      * Runs the {@link ConfigRelevancyChecker} on the given feature effects and input file.
      * 
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.config_relevancy;
+
+import static net.ssehub.kernel_haven.fe_analysis.config_relevancy.FeatureEffectProgram.FALSE;
+import static net.ssehub.kernel_haven.fe_analysis.config_relevancy.FeatureEffectProgram.TRUE;
+import static net.ssehub.kernel_haven.fe_analysis.config_relevancy.FeatureEffectProgram.UNKNOWN;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.VariableDictionary;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FeatureEffectProgram}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class FeatureEffectProgramTest {
+
+    private VariableDictionary dictionary;
+
+    private ProductConfiguration configuration;
+
+    /**
+     * Creates the configuration <code>A=1, B=2</code>.
+     */
+    @Before
+    public void setUp() {
+        dictionary = new VariableDictionary();
+        Map<String, Integer> values = new HashMap<>();
+        values.put("A", 1);
+        values.put("B", 2);
+        configuration = new ProductConfiguration("test", values, dictionary);
+    }
+
+    /**
+     * Evaluates the given formula against the test configuration.
+     *
+     * @param formula The formula to evaluate.
+     *
+     * @return The result of the evaluation.
+     */
+    private byte evaluate(Formula formula) {
+        return new FeatureEffectProgram(formula, dictionary).evaluate(configuration);
+    }
+
+    /**
+     * Tests that all integer comparisons are resolved.
+     */
+    @Test
+    public void testComparisons() {
+        assertThat(evaluate(new Variable("A")), is(TRUE));
+        assertThat(evaluate(new Variable("B=2")), is(TRUE));
+        assertThat(evaluate(new Variable("B=3")), is(FALSE));
+        assertThat(evaluate(new Variable("B!=3")), is(TRUE));
+        assertThat(evaluate(new Variable("B!=2")), is(FALSE));
+        assertThat(evaluate(new Variable("B>1")), is(TRUE));
+        assertThat(evaluate(new Variable("B>2")), is(FALSE));
+        assertThat(evaluate(new Variable("B>=2")), is(TRUE));
+        assertThat(evaluate(new Variable("B>=3")), is(FALSE));
+        assertThat(evaluate(new Variable("B<3")), is(TRUE));
+        assertThat(evaluate(new Variable("B<2")), is(FALSE));
+        assertThat(evaluate(new Variable("B<=2")), is(TRUE));
+        assertThat(evaluate(new Variable("B<=1")), is(FALSE));
+        assertThat(evaluate(new Variable("A_eq_1")), is(TRUE));
+    }
+
+    /**
+     * Tests that atoms are unknown if their variable is not configured or the compared value is not an integer.
+     */
+    @Test
+    public void testUnknownAtoms() {
+        assertThat(evaluate(new Variable("C")), is(UNKNOWN));
+        assertThat(evaluate(new Variable("C=1")), is(UNKNOWN));
+        assertThat(evaluate(new Variable("C<1")), is(UNKNOWN));
+        assertThat(evaluate(new Variable("B=abc")), is(UNKNOWN));
+    }
+
+    /**
+     * Tests the three-valued evaluation of the Boolean operators.
+     */
+    @Test
+    public void testThreeValuedLogic() {
+        assertThat(evaluate(True.INSTANCE), is(TRUE));
+        assertThat(evaluate(not("A")), is(FALSE));
+        assertThat(evaluate(not("C")), is(UNKNOWN));
+
+        assertThat(evaluate(and("A", "C")), is(UNKNOWN));
+        assertThat(evaluate(and("A=2", "C")), is(FALSE));
+        assertThat(evaluate(and("A", "B=2")), is(TRUE));
+
+        assertThat(evaluate(or("A", "C")), is(TRUE));
+        assertThat(evaluate(or("A=2", "C")), is(UNKNOWN));
+        assertThat(evaluate(or("A=2", "B=3")), is(FALSE));
+    }
+
+    /**
+     * Tests that repeated variables share a single atom slot and that the stack depth is computed correctly.
+     */
+    @Test
+    public void testProgramStructure() {
+        FeatureEffectProgram program = new FeatureEffectProgram(or(and("A", "B=2"), and(not("A"), "B=2")),
+                dictionary);
+
+        assertThat(program.getLength(), is(8));
+        assertThat(program.getNumAtoms(), is(2));
+        assertThat(program.getMaxStackDepth(), is(3));
+        assertThat(program.getAtomId(0), is(dictionary.getId("A")));
+        assertThat(program.getAtomId(1), is(dictionary.getId("B=2")));
+    }
+
+    /**
+     * Tests that a re-used {@link FeatureEffectProgram.Compiler} does not carry state from one program to the next.
+     */
+    @Test
+    public void testCompilerReuse() {
+        FeatureEffectProgram.Compiler compiler = new FeatureEffectProgram.Compiler(dictionary);
+
+        FeatureEffectProgram first = compiler.compile(or(and("A", "B=2"), and(not("A"), or("C", "B=3"))));
+        FeatureEffectProgram second = compiler.compile(not("B=2"));
+
+        assertThat(first.getNumAtoms(), is(4));
+        assertThat(first.evaluate(configuration), is(TRUE));
+
+        assertThat(second.getLength(), is(2));
+        assertThat(second.getNumAtoms(), is(1));
+        assertThat(second.getMaxStackDepth(), is(1));
+        assertThat(second.getAtomId(0), is(dictionary.getId("B=2")));
+        assertThat(second.evaluate(configuration), is(FALSE));
+
+        // the first program is not changed by the second compilation
+        assertThat(first.getNumAtoms(), is(4));
+        assertThat(first.evaluate(configuration), is(TRUE));
+    }
+
+}
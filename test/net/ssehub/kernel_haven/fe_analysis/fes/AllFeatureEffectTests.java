@@ -30,6 +30,11 @@ import org.junit.runners.Suite.SuiteClasses;
     FeatureEffectReaderTest.class,
     ThreadedFeatureEffectFinderTest.class,
     NonBooleanFeExpanderTest.class,
+    FeatureEffectComputerTest.class,
+    BddFeatureEffectComputerTest.class,
+    FeatureEffectCacheTest.class,
+    IncrementalFeatureEffectMergerTest.class,
+    PcEffectCacheTest.class,
     
     // Simplification & FEAggregation Tests
     FeatureEffectFinderWithSimplificationTests.class,
@@ -37,7 +42,8 @@ import org.junit.runners.Suite.SuiteClasses;
     FeAggregatorWithSimplificationTest.class,
     
     // Dependency Graph
-    FeatureRelationsTests.class
+    FeatureRelationsTests.class,
+    ContextComputerTest.class
     })
 public class AllFeatureEffectTests {
 
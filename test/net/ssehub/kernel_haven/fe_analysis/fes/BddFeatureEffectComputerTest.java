@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.FormulaEvaluator;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.logic.VariableFinder;
+
+/**
+ * Tests the {@link BddFeatureEffectComputer} and the {@link Bdd}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class BddFeatureEffectComputerTest {
+
+    /**
+     * Tests that converting a formula into a {@link Bdd} and back results in an equivalent formula.
+     */
+    @Test
+    public void testBddRoundTrip() {
+        Formula formula = or(and("A", not("B")), and(or("C", "A"), not(and("A", "C"))));
+
+        Bdd bdd = new Bdd();
+        Formula result = bdd.toFormula(bdd.fromFormula(formula));
+
+        assertEquivalent(formula, result);
+    }
+
+    /**
+     * Tests that tautologies and contradictions are reduced to the terminal nodes.
+     */
+    @Test
+    public void testBddTerminals() {
+        Bdd bdd = new Bdd();
+        assertThat(bdd.fromFormula(or("A", not("A"))), is(Bdd.TRUE));
+        assertThat(bdd.fromFormula(and("A", not("A"))), is(Bdd.FALSE));
+    }
+
+    /**
+     * Tests that a {@link Bdd} stays canonical when its tables and its operation cache grow.
+     */
+    @Test
+    public void testBddGrowth() {
+        Formula formula = False.INSTANCE;
+        for (int i = 0; i < 300; i++) {
+            formula = or(formula, and("X" + i, "Y" + i));
+        }
+
+        Bdd bdd = new Bdd();
+        int node = bdd.fromFormula(formula);
+        int numNodes = bdd.getNumNodes();
+        assertThat(numNodes > 600, is(true));
+
+        assertThat(bdd.fromFormula(formula), is(node));
+        assertThat(bdd.getNumNodes(), is(numNodes));
+        assertThat(bdd.and(node, bdd.not(node)), is(Bdd.FALSE));
+        assertThat(bdd.or(node, bdd.not(node)), is(Bdd.TRUE));
+    }
+
+    /**
+     * Tests that a variable that is always relevant gets <code>true</code> as its feature effect.
+     */
+    @Test
+    public void testSimpleFeatureEffect() {
+        BddFeatureEffectComputer computer = new BddFeatureEffectComputer(false);
+        Formula fe = computer.buildFeatureEffefct(new VariableWithPcs("A", set(new Variable("A"))));
+
+        assertThat(fe, is(True.INSTANCE));
+    }
+
+    /**
+     * Tests that the BDD backend computes feature effects equivalent to the XOR tree backend.
+     */
+    @Test
+    public void testEquivalentToXorTree() {
+        Set<Formula> pcs = set(
+            and("A", "B"),
+            or(and("A", "C"), "D"),
+            and(not("A"), or("B", "D")),
+            and("B", "C"));
+
+        assertSameFeatureEffect(new VariableWithPcs("A", pcs), false);
+        assertSameFeatureEffect(new VariableWithPcs("B", pcs), false);
+        assertSameFeatureEffect(new VariableWithPcs("D", pcs), false);
+    }
+
+    /**
+     * Tests that the BDD backend handles non-boolean replacements like the XOR tree backend.
+     */
+    @Test
+    public void testEquivalentToXorTreeNonBoolean() {
+        Set<Formula> pcs = set(
+            and("A_eq_1", "B"),
+            or(and("A_eq_2", "C"), "A_eq_1"),
+            and("A_eq_1", not("A_eq_2")));
+
+        assertSameFeatureEffect(new VariableWithPcs("A_eq_1", pcs), true);
+    }
+
+    /**
+     * Asserts that the {@link BddFeatureEffectComputer} and the {@link FeatureEffectComputer} compute equivalent
+     * feature effects.
+     *
+     * @param varWithPcs The variable to compute the feature effect for.
+     * @param nonBoolean Whether to handle non-boolean replacements.
+     */
+    private static void assertSameFeatureEffect(VariableWithPcs varWithPcs, boolean nonBoolean) {
+        Formula expected = new FeatureEffectComputer(false, nonBoolean).buildFeatureEffefct(varWithPcs);
+        Formula actual = new BddFeatureEffectComputer(nonBoolean).buildFeatureEffefct(varWithPcs);
+
+        assertEquivalent(expected, actual);
+    }
+
+    /**
+     * Asserts that two formulas are logically equivalent by evaluating both for all variable assignments.
+     *
+     * @param expected The expected formula.
+     * @param actual The actual formula.
+     */
+    private static void assertEquivalent(Formula expected, Formula actual) {
+        VariableFinder finder = new VariableFinder();
+        expected.accept(finder);
+        actual.accept(finder);
+        List<String> variables = new ArrayList<>(finder.getVariableNames());
+
+        for (int assignment = 0; assignment < (1 << variables.size()); assignment++) {
+            Map<String, Boolean> values = new HashMap<>();
+            for (int i = 0; i < variables.size(); i++) {
+                values.put(variables.get(i), (assignment & (1 << i)) != 0);
+            }
+
+            FormulaEvaluator evaluator = new FormulaEvaluator(values);
+            assertThat("Assignment " + values + " for " + expected + " and " + actual,
+                    evaluator.visit(actual), is(evaluator.visit(expected)));
+        }
+    }
+
+    /**
+     * Creates a set from varargs.
+     *
+     * @param formulas The elements to add in the set.
+     *
+     * @return A set containing the elements.
+     */
+    private static Set<Formula> set(Formula... formulas) {
+        Set<Formula> result = new HashSet<>();
+        for (Formula formula : formulas) {
+            result.add(formula);
+        }
+        return result;
+    }
+
+}
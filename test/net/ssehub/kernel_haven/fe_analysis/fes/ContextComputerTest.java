@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.FormulaSimplifier;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link ContextComputer}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class ContextComputerTest {
+
+    /**
+     * Tests that the contexts of all variables are computed in one call.
+     */
+    @Test
+    public void testMultipleVariables() {
+        Formula fe = and("A", or("B", "C"));
+
+        Formula[] contexts = new ContextComputer().computeContexts(fe, new String[] {"A", "B", "D"});
+
+        assertThat(contexts.length, is(3));
+        assertThat(contexts[0], is(or("B", "C")));
+        assertThat(contexts[1], is(new Variable("A")));
+        // D does not occur in the feature effect
+        assertThat(contexts[2], is(FormulaSimplifier.defaultSimplifier(fe)));
+    }
+
+    /**
+     * Tests variables that occur multiple times and below negations.
+     */
+    @Test
+    public void testRepeatedVariable() {
+        Formula fe = or(and("A", "B"), and(not("A"), "C"));
+
+        Formula[] contexts = new ContextComputer().computeContexts(fe, new String[] {"A", "C"});
+
+        assertThat(contexts[0], is(new Variable("B")));
+        assertThat(contexts[1], is(FormulaSimplifier.defaultSimplifier(or(and("A", "B"), not("A")))));
+        assertThat(new ContextComputer().computeContexts(True.INSTANCE, new String[] {"A"})[0],
+                is(True.INSTANCE));
+    }
+
+}
@@ -227,4 +227,59 @@ public class FeAggregatorTest {
         assertThat(ag.getNextResult(), nullValue());
     }
     
+    /**
+     * Tests that aggregating in multiple threads produces the same, sorted results as the sequential mode.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testMultipleThreads() throws SetUpException {
+        List<VariableWithFeatureEffect> input = new ArrayList<>();
+        List<String> expectedNames = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String base = String.format("VAR_%02d", i);
+            expectedNames.add(base);
+            for (int value = 0; value < 3; value++) {
+                input.add(new VariableWithFeatureEffect(base + "=" + value, new Variable("X_" + (i + value))));
+            }
+        }
+        
+        List<VariableWithFeatureEffect> sequential = runAggregator(input, 1);
+        List<VariableWithFeatureEffect> parallel = runAggregator(input, 4);
+        
+        assertThat(parallel.size(), is(expectedNames.size()));
+        for (int i = 0; i < parallel.size(); i++) {
+            assertThat(parallel.get(i).getVariable(), is(expectedNames.get(i)));
+            assertThat(parallel.get(i).getFeatureEffect(), is(sequential.get(i).getFeatureEffect()));
+        }
+    }
+    
+    /**
+     * Runs the {@link FeAggregator} on the given input.
+     * 
+     * @param input The feature effects to aggregate.
+     * @param threads The number of threads to use.
+     * 
+     * @return All results of the aggregator.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    private static List<VariableWithFeatureEffect> runAggregator(List<VariableWithFeatureEffect> input, int threads)
+        throws SetUpException {
+        
+        Properties props = new Properties();
+        props.setProperty(FeAggregator.THREADS.getKey(), String.valueOf(threads));
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(Settings.SIMPLIFIY);
+        
+        FeAggregator ag = new FeAggregator(config, new TestAnalysisComponentProvider<>(input));
+        
+        List<VariableWithFeatureEffect> results = new ArrayList<>();
+        VariableWithFeatureEffect fe;
+        while ((fe = ag.getNextResult()) != null) {
+            results.add(fe);
+        }
+        return results;
+    }
+    
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FeatureEffectCache}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class FeatureEffectCacheTest {
+
+    private File cacheDir;
+
+    /**
+     * Creates an empty cache directory.
+     *
+     * @throws IOException If creating the directory fails.
+     */
+    @Before
+    public void createCacheDir() throws IOException {
+        cacheDir = Files.createTempDirectory("fe_cache").toFile();
+    }
+
+    /**
+     * Deletes the cache directory.
+     */
+    @After
+    public void deleteCacheDir() {
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    /**
+     * Tests that stored feature effects are found again, also by a new cache instance (i.e. a later run).
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testPersistentHit() throws SetUpException {
+        VariableWithPcs pcs = new VariableWithPcs("A", pcs(and("A", "B"), or("A", "C")));
+        Formula fe = or("B", "C");
+
+        FeatureEffectCache cache = new FeatureEffectCache(cacheDir, 1024 * 1024, "config");
+        String key = cache.computeKey(pcs);
+        assertThat(cache.get(key), nullValue());
+        cache.put(key, fe);
+
+        FeatureEffectCache secondRun = new FeatureEffectCache(cacheDir, 1024 * 1024, "config");
+        assertThat(secondRun.get(secondRun.computeKey(pcs)), is(fe));
+        assertThat(secondRun.getHits(), is(1L));
+        assertThat(secondRun.getMisses(), is(0L));
+    }
+
+    /**
+     * Tests that the key does not depend on the order of the presence conditions, but on the configuration.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testKey() throws SetUpException {
+        FeatureEffectCache cache = new FeatureEffectCache(cacheDir, 1024 * 1024, "config");
+        String key1 = cache.computeKey(new VariableWithPcs("A", pcs(and("A", "B"), or("A", "C"))));
+        String key2 = cache.computeKey(new VariableWithPcs("A", pcs(or("A", "C"), and("A", "B"))));
+        String key3 = cache.computeKey(new VariableWithPcs("B", pcs(or("A", "C"), and("A", "B"))));
+
+        FeatureEffectCache otherConfig = new FeatureEffectCache(cacheDir, 1024 * 1024, "other config");
+        String key4 = otherConfig.computeKey(new VariableWithPcs("A", pcs(and("A", "B"), or("A", "C"))));
+
+        assertThat(key1, is(key2));
+        assertThat(key1, not(key3));
+        assertThat(key1, not(key4));
+    }
+
+    /**
+     * Tests that the cache is shrunk if it grows larger than the maximum size.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testEviction() throws SetUpException {
+        FeatureEffectCache cache = new FeatureEffectCache(cacheDir, 20, "config");
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, new Variable("VARIABLE_" + i));
+        }
+
+        assertThat(cache.getEvictions() > 0, is(true));
+        assertThat(cache.getSize() <= 20, is(true));
+    }
+
+    /**
+     * Creates an ordered set of presence conditions.
+     *
+     * @param formulas The presence conditions.
+     *
+     * @return A set containing the presence conditions in the given order.
+     */
+    private static Set<Formula> pcs(Formula... formulas) {
+        Set<Formula> result = new LinkedHashSet<>();
+        for (Formula formula : formulas) {
+            result.add(formula);
+        }
+        return result;
+    }
+
+}
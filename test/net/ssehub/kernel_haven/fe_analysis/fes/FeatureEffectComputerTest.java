@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.FormulaEvaluator;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FeatureEffectComputer}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class FeatureEffectComputerTest {
+
+    private static final int NUM_VARIABLES = 8;
+
+    /**
+     * Tests that the parallel reduction computes a feature effect that is equivalent to the sequential one.
+     */
+    @Test
+    public void testParallelEquivalentToSequential() {
+        Random random = new Random(42);
+        Set<Formula> pcs = new HashSet<>();
+        while (pcs.size() < 300) {
+            pcs.add(randomFormula(random, 3));
+        }
+        VariableWithPcs varWithPcs = new VariableWithPcs("VAR_0", pcs);
+
+        Formula sequential = new FeatureEffectComputer(false, false, 0).buildFeatureEffefct(varWithPcs);
+        Formula parallel = new FeatureEffectComputer(false, false, 10).buildFeatureEffefct(varWithPcs);
+
+        for (int assignment = 0; assignment < (1 << NUM_VARIABLES); assignment++) {
+            Map<String, Boolean> values = new HashMap<>();
+            for (int i = 0; i < NUM_VARIABLES; i++) {
+                values.put("VAR_" + i, (assignment & (1 << i)) != 0);
+            }
+
+            FormulaEvaluator evaluator = new FormulaEvaluator(values);
+            assertThat("Assignment " + values, evaluator.visit(parallel), is(evaluator.visit(sequential)));
+        }
+    }
+
+    /**
+     * Creates a random formula over {@link #NUM_VARIABLES} variables.
+     *
+     * @param random The random number generator to use.
+     * @param depth The maximum depth of the formula.
+     *
+     * @return A random formula.
+     */
+    private static Formula randomFormula(Random random, int depth) {
+        Formula result;
+        int kind = depth > 0 ? random.nextInt(4) : 0;
+        switch (kind) {
+        case 1:
+            result = new Negation(randomFormula(random, depth - 1));
+            break;
+        case 2:
+            result = new Conjunction(randomFormula(random, depth - 1), randomFormula(random, depth - 1));
+            break;
+        case 3:
+            result = new Disjunction(randomFormula(random, depth - 1), randomFormula(random, depth - 1));
+            break;
+        default:
+            result = new Variable("VAR_" + random.nextInt(NUM_VARIABLES));
+            break;
+        }
+        return result;
+    }
+
+}
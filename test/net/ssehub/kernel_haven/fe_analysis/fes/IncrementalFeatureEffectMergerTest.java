@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.DefaultSettings;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectFinder.VariableWithFeatureEffect;
+import net.ssehub.kernel_haven.fe_analysis.pcs.IncrementalPcFinder;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
+import net.ssehub.kernel_haven.test_utils.TestConfiguration;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link IncrementalFeatureEffectMerger} together with the {@link IncrementalPcFinder}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class IncrementalFeatureEffectMergerTest {
+
+    private File stateDir;
+
+    /**
+     * Creates an empty state directory.
+     *
+     * @throws IOException If creating the directory fails.
+     */
+    @Before
+    public void createStateDir() throws IOException {
+        stateDir = Files.createTempDirectory("incremental_state").toFile();
+    }
+
+    /**
+     * Deletes the state directory.
+     */
+    @After
+    public void deleteStateDir() {
+        File[] files = stateDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        stateDir.delete();
+    }
+
+    /**
+     * Tests that the recomputed feature effects of affected variables are merged with the feature effects of the
+     * unaffected variables from the previous run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testMergeCachedAndRecomputed() throws SetUpException {
+        runFirst();
+
+        // file1.c changed: A and B are affected, B disappeared, E is new
+        List<VariableWithFeatureEffect> results = run(createFinder(file("file1.c", or("A", "E"))),
+                fe("A", "new_A"), fe("E", "new_E"));
+
+        assertResults(results, "A", "new_A", "C", "fe_C", "D", "fe_D", "E", "new_E");
+    }
+
+    /**
+     * Tests that a run that fails before the merger stored its results (i.e. after the {@link IncrementalPcFinder}
+     * computed its state) does not change the state: the next run still merges with the last completed run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testFailedRun() throws SetUpException {
+        runFirst();
+
+        // the feature effects of this run are never computed
+        IncrementalPcFinder failed = createFinder(file("file1.c", or("A", "E")));
+        while (failed.getNextResult() != null) {
+            // consume all results
+        }
+
+        List<VariableWithFeatureEffect> results = run(createFinder(file("file1.c", or("A", "E"))),
+                fe("A", "new_A"), fe("E", "new_E"));
+
+        assertResults(results, "A", "new_A", "C", "fe_C", "D", "fe_D", "E", "new_E");
+    }
+
+    /**
+     * Tests that the results of the previous run are not used, if its state is incomplete (e.g. because the analysis
+     * was killed while committing the state).
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testIncompleteState() throws SetUpException {
+        runFirst();
+        new File(stateDir, "state.properties").delete();
+
+        IncrementalPcFinder finder = createFinder(file("file1.c", or("A", "E")), file("file2.c", and("C", "D")));
+        List<VariableWithFeatureEffect> results = run(finder,
+                fe("A", "new_A"), fe("C", "new_C"), fe("D", "new_D"), fe("E", "new_E"));
+
+        assertThat(finder.isFullRun(), is(true));
+        assertResults(results, "A", "new_A", "C", "new_C", "D", "new_D", "E", "new_E");
+    }
+
+    /**
+     * Executes and commits the first run with two source files.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private void runFirst() throws SetUpException {
+        List<VariableWithFeatureEffect> results = run(
+                createFinder(file("file1.c", or("A", "B")), file("file2.c", and("C", "D"))),
+                fe("A", "fe_A"), fe("B", "fe_B"), fe("C", "fe_C"), fe("D", "fe_D"));
+
+        assertResults(results, "A", "fe_A", "B", "fe_B", "C", "fe_C", "D", "fe_D");
+    }
+
+    /**
+     * Runs the given finder and merges the given (recomputed) feature effects.
+     *
+     * @param finder The finder to run.
+     * @param featureEffects The feature effects that were computed for the affected variables.
+     *
+     * @return The merged feature effects.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private List<VariableWithFeatureEffect> run(IncrementalPcFinder finder,
+            VariableWithFeatureEffect... featureEffects) throws SetUpException {
+
+        // the feature effects are passed directly, but only after the finder is done (as in the pipeline)
+        while (finder.getNextResult() != null) {
+            // consume all results
+        }
+
+        IncrementalFeatureEffectMerger merger = new IncrementalFeatureEffectMerger(new TestConfiguration(
+                new Properties()), new TestAnalysisComponentProvider<>(featureEffects), finder);
+
+        List<VariableWithFeatureEffect> results = new ArrayList<>();
+        VariableWithFeatureEffect result;
+        while ((result = merger.getNextResult()) != null) {
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Asserts the merged feature effects.
+     *
+     * @param results The merged feature effects.
+     * @param expected Pairs of variable names and the name of the variable used as expected feature effect.
+     */
+    private static void assertResults(List<VariableWithFeatureEffect> results, String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (VariableWithFeatureEffect result : results) {
+            actual.add(result.getVariable());
+            actual.add(((Variable) result.getFeatureEffect()).getName());
+        }
+        assertThat(actual, is(Arrays.asList(expected)));
+    }
+
+    /**
+     * Creates a feature effect.
+     *
+     * @param variable The name of the variable.
+     * @param featureEffect The name of the variable that is used as feature effect.
+     *
+     * @return The feature effect.
+     */
+    private static VariableWithFeatureEffect fe(String variable, String featureEffect) {
+        return new VariableWithFeatureEffect(variable, new Variable(featureEffect));
+    }
+
+    /**
+     * Creates a source file with a single code block.
+     *
+     * @param path The path of the source file.
+     * @param condition The condition of the code block.
+     *
+     * @return The source file.
+     */
+    private static SourceFile<?> file(String path, Formula condition) {
+        SourceFile<CodeElement<?>> file = new SourceFile<>(new File(path));
+        file.addElement(new CodeBlock(condition));
+        return file;
+    }
+
+    /**
+     * Creates an {@link IncrementalPcFinder} on the state directory.
+     *
+     * @param files The source files to pass to the finder.
+     *
+     * @return The finder.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private IncrementalPcFinder createFinder(SourceFile<?>... files) throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(IncrementalPcFinder.STATE_DIR.getKey(), stateDir.getPath());
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+
+        return new IncrementalPcFinder(config, new TestAnalysisComponentProvider<SourceFile<?>>(files));
+    }
+
+}
@@ -112,5 +112,37 @@ public class NonBooleanFeExpanderTest {
                 new VariableWithFeatureEffect("A=1", or("B", "C"))
                 )));
     }
+    
+    /**
+     * Tests that multiple threads produce the same results in the same order as a single thread.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testMultipleThreads() throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(NonBooleanFeExpander.THREADS.getKey(), "4");
+        TestConfiguration config = new TestConfiguration(props);
+        config.setValue(DefaultSettings.FUZZY_PARSING, true);
+        
+        VariableWithFeatureEffect fe1 = new VariableWithFeatureEffect("A", new Variable("B"));
+        VariableWithFeatureEffect fe2 = new VariableWithFeatureEffect("A=1", new Variable("C"));
+        VariableWithFeatureEffect fe3 = new VariableWithFeatureEffect("AA", new Variable("D"));
+        VariableWithFeatureEffect fe4 = new VariableWithFeatureEffect("A=2", new Variable("D"));
+        VariableWithFeatureEffect fe5 = new VariableWithFeatureEffect("B", new Variable("A"));
+        VariableWithFeatureEffect fe6 = new VariableWithFeatureEffect("B=1", new Variable("A=1"));
+        
+        List<VariableWithFeatureEffect> result = AnalysisComponentExecuter.executeComponent(
+                NonBooleanFeExpander.class, config, new VariableWithFeatureEffect[] {fe1, fe2, fe3, fe4, fe5, fe6});
+        
+        assertThat(result, is(Arrays.asList(
+                new VariableWithFeatureEffect("A", new Variable("B")),
+                new VariableWithFeatureEffect("A=1", or("B", "C")),
+                new VariableWithFeatureEffect("AA", new Variable("D")),
+                new VariableWithFeatureEffect("A=2", or("B", "D")),
+                new VariableWithFeatureEffect("B", new Variable("A")),
+                new VariableWithFeatureEffect("B=1", or("A", "A=1"))
+                )));
+    }
 
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.fes;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link PcEffectCache}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class PcEffectCacheTest {
+
+    /**
+     * Tests that an effect is computed once and dropped after all consumers released the variable.
+     */
+    @Test
+    public void testComputeOnceAndRelease() {
+        PcEffectCache cache = new PcEffectCache(false, 2);
+        int[] computations = {0};
+
+        Formula first = cache.get("A", new Variable("B"), (pc) -> {
+            computations[0]++;
+            return pc;
+        });
+        Formula second = cache.get("A", new Variable("B"), (pc) -> {
+            computations[0]++;
+            return pc;
+        });
+
+        assertThat(first, is(new Variable("B")));
+        assertThat(second, is(new Variable("B")));
+        assertThat(computations[0], is(1));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(1L));
+
+        cache.release("A");
+        assertThat(cache.getNumVariables(), is(1));
+        cache.release("A");
+        assertThat(cache.getNumVariables(), is(0));
+    }
+
+    /**
+     * Tests that the entries of a variable are dropped, if one consumer releases it before the other one requested
+     * any effect.
+     */
+    @Test
+    public void testReleaseBeforeAccess() {
+        PcEffectCache cache = new PcEffectCache(false, 2);
+
+        cache.release("A");
+        assertThat(cache.getNumVariables(), is(1));
+
+        cache.get("A", new Variable("B"), (pc) -> pc);
+        cache.release("A");
+        assertThat(cache.getNumVariables(), is(0));
+        assertThat(cache.getMisses(), is(1L));
+    }
+
+    /**
+     * Tests that computers sharing a cache compute the same feature effects as without a cache.
+     */
+    @Test
+    public void testSharedComputers() {
+        VariableWithPcs pcs = new VariableWithPcs("A",
+                new HashSet<>(Arrays.asList(and("A", "B"), or("A", "C"), and("A", or("B", "D")))));
+        Formula expected = new FeatureEffectComputer(false).buildFeatureEffefct(pcs);
+
+        PcEffectCache cache = new PcEffectCache(false, 2);
+        FeatureEffectComputer computer1 = new FeatureEffectComputer(false);
+        computer1.setPcEffectCache(cache);
+        FeatureEffectComputer computer2 = new FeatureEffectComputer(false);
+        computer2.setPcEffectCache(cache);
+
+        assertThat(computer1.buildFeatureEffefct(pcs), is(expected));
+        assertThat(computer2.buildFeatureEffefct(pcs), is(expected));
+        assertThat(cache.getMisses(), is(3L));
+        assertThat(cache.getHits(), is(3L));
+    }
+
+    /**
+     * Tests that a cache with a different simplification mode is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentMode() {
+        new FeatureEffectComputer(false).setPcEffectCache(new PcEffectCache(true, 2));
+    }
+
+}
@@ -19,6 +19,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.List;
+import java.util.Properties;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -115,6 +116,40 @@ public class ThreadedFeatureEffectFinderTest extends AbstractFinderTests<Variabl
         
     }
     
+    /**
+     * Checks if the cost-aware scheduler keeps the input order and computes the same feature effects as the simple
+     * thread pool, even with a reorder buffer that is smaller than the input. The cheapest variables come first, so
+     * the scheduler reorders the whole buffer.
+     */
+    @Test
+    public void testCostAwareOrder() {
+        final int numVariables = 20;
+        
+        CodeBlock topLevelElement = new CodeBlock(True.INSTANCE);
+        Formula pc = True.INSTANCE;
+        // do higher elements first -> higher elements are used in more and larger PCs, i.e. they are more expensive
+        for (int i = numVariables - 1; i >= 0; i--) {
+            Variable var = new Variable("VAR_" + (i + 10));
+            pc = new Disjunction(new Negation(var), new Conjunction(pc, var));
+            topLevelElement.addNestedElement(new CodeBlock(pc));
+        }
+        
+        List<VariableWithFeatureEffect> expected = super.runAnalysis(topLevelElement,
+                SimplificationType.NO_SIMPLIFICATION);
+        
+        Properties props = new Properties();
+        props.put(ThreadedFeatureEffectFinder.REORDER_BUFFER_SETTING.getKey(), "5");
+        props.put(ThreadedFeatureEffectFinder.THREAD_SETTING.getKey(), "2");
+        List<VariableWithFeatureEffect> results = super.runAnalysis(topLevelElement,
+                SimplificationType.NO_SIMPLIFICATION, props);
+        
+        assertThat(results.size(), is(numVariables));
+        for (int i = 0; i < numVariables; i++) {
+            assertThat(results.get(i).getVariable(), is("VAR_" + (i + 10)));
+            assertThat(results.get(i).getFeatureEffect(), is(expected.get(i).getFeatureEffect()));
+        }
+    }
+    
     /**
      * Runs the {@link ThreadedFeatureEffectFinder} on the passed element and returns the result for testing.
      * @param element A mocked element, which should be analyzed by the {@link ThreadedFeatureEffectFinder}.
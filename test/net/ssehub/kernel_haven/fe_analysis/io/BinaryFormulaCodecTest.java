@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.io;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link BinaryFormulaWriter} and the {@link BinaryFormulaReader}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class BinaryFormulaCodecTest {
+
+    private File file;
+
+    /**
+     * Creates a temporary file.
+     *
+     * @throws IOException If creating the file fails.
+     */
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("formulas", ".bin");
+    }
+
+    /**
+     * Deletes the temporary file.
+     */
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    /**
+     * Tests that rows are read back as they were written.
+     *
+     * @throws IOException unwanted.
+     * @throws FormatException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException, FormatException {
+        Formula f1 = or(and("A", not("B")), "C");
+        Formula f2 = and("C", "D");
+
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(file, BinaryFormulaWriter.CONTENT_PRESENCE_CONDITIONS)) {
+            out.writeRow("A", Arrays.asList(f1));
+            out.writeRow("C", Arrays.asList(f1, f2, True.INSTANCE, False.INSTANCE));
+        }
+
+        try (BinaryFormulaReader in = new BinaryFormulaReader(file, null)) {
+            assertThat(in.getContentType(), is(BinaryFormulaWriter.CONTENT_PRESENCE_CONDITIONS));
+
+            BinaryFormulaReader.Row row = in.readRow();
+            assertThat(row.getName(), is("A"));
+            assertThat(row.getFormulas(), is(Arrays.asList(f1)));
+
+            row = in.readRow();
+            assertThat(row.getName(), is("C"));
+            assertThat(row.getFormulas(), is(Arrays.asList(f1, f2, True.INSTANCE, False.INSTANCE)));
+
+            assertThat(in.readRow(), nullValue());
+        }
+    }
+
+    /**
+     * Tests that structurally equal sub-formulas are shared within a row, and that variables are shared across rows.
+     *
+     * @throws IOException unwanted.
+     * @throws FormatException unwanted.
+     */
+    @Test
+    public void testSharing() throws IOException, FormatException {
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(file, BinaryFormulaWriter.CONTENT_PRESENCE_CONDITIONS)) {
+            out.writeRow("A", Arrays.asList(and("A", "B"), or(and("A", "B"), "C")));
+            out.writeRow("C", Arrays.asList(new Variable("A")));
+        }
+
+        try (BinaryFormulaReader in = new BinaryFormulaReader(file, null)) {
+            BinaryFormulaReader.Row row = in.readRow();
+            Formula first = row.getFormulas().get(0);
+            Formula second = row.getFormulas().get(1);
+            Formula third = in.readRow().getFormulas().get(0);
+
+            assertThat(((Disjunction) second).getLeft(), sameInstance(first));
+            assertThat(third, sameInstance(((Conjunction) first).getLeft()));
+        }
+    }
+
+    /**
+     * Tests that node IDs are scoped to a row, i.e. that a formula of a previous row is written again in a later row.
+     *
+     * @throws IOException unwanted.
+     * @throws FormatException unwanted.
+     */
+    @Test
+    public void testRowScopedNodes() throws IOException, FormatException {
+        Formula formula = and(or("A", "B"), not("C"));
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(file, BinaryFormulaWriter.CONTENT_PRESENCE_CONDITIONS)) {
+            for (int i = 0; i < 3; i++) {
+                out.writeRow("V" + i, Arrays.asList(formula));
+            }
+        }
+
+        try (BinaryFormulaReader in = new BinaryFormulaReader(file, null)) {
+            for (int i = 0; i < 3; i++) {
+                BinaryFormulaReader.Row row = in.readRow();
+                assertThat(row.getName(), is("V" + i));
+                assertThat(row.getFormulas(), is(Arrays.asList(formula)));
+            }
+            assertThat(in.readRow(), nullValue());
+        }
+    }
+
+    /**
+     * Tests that the string mapper is applied to names and variables.
+     *
+     * @throws IOException unwanted.
+     * @throws FormatException unwanted.
+     */
+    @Test
+    public void testStringMapper() throws IOException, FormatException {
+        try (BinaryFormulaWriter out = new BinaryFormulaWriter(file, BinaryFormulaWriter.CONTENT_FEATURE_EFFECTS)) {
+            out.writeRow("A=1", Arrays.asList(new Variable("B=2")));
+        }
+
+        try (BinaryFormulaReader in = new BinaryFormulaReader(file, (str) -> str.replace("=", "_eq_"))) {
+            BinaryFormulaReader.Row row = in.readRow();
+            assertThat(row.getName(), is("A_eq_1"));
+            assertThat(row.getFormulas(), is(Arrays.asList(new Variable("B_eq_2"))));
+        }
+    }
+
+    /**
+     * Tests that files with an invalid header are rejected.
+     *
+     * @throws IOException unwanted.
+     * @throws FormatException wanted.
+     */
+    @Test(expected = FormatException.class)
+    public void testInvalidHeader() throws IOException, FormatException {
+        Files.write(file.toPath(), "Variable;Presence conditions".getBytes(StandardCharsets.UTF_8));
+
+        try (BinaryFormulaReader in = new BinaryFormulaReader(file, null)) {
+            in.readRow();
+        }
+    }
+
+}
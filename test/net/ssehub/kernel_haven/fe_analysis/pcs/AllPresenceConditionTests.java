@@ -27,9 +27,12 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
     CodeBlockAnalysisTests.class,
+    CodeBlockStoreTest.class,
+    CodeBlockTableTest.class,
     PcFinderTests.class,
     PcReaderTest.class,
-    PcFinderTestsWithSimplificationTests.class
+    PcFinderTestsWithSimplificationTests.class,
+    IncrementalPcFinderTest.class
     })
 public class AllPresenceConditionTests {
 
@@ -19,6 +19,10 @@ import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
 import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
@@ -30,7 +34,9 @@ import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.build_model.BuildModel;
 import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.CodeElement;
 import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.DefaultSettings;
 import net.ssehub.kernel_haven.fe_analysis.AbstractFinderTests;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.logic_utils.LogicUtils;
@@ -184,6 +190,46 @@ public class CodeBlockAnalysisTests extends
         assertBlock(results.get(3), conditionalBlockElse, filePC, and(varX, not(varA)));
     }
     
+    /**
+     * Tests that nested blocks re-use the simplified presence condition of their parent block if
+     * {@link CodeBlockAnalysis#INCREMENTAL_PCS} is enabled.
+     */
+    @Test
+    public void testNestedBlocksIncremental() {
+        Variable varA = new Variable("A");
+        Variable varB = new Variable("B");
+        Variable varX = new Variable("X");
+
+        bm = new BuildModel();
+        bm.add(new File("file1.c"), varX);
+        
+        // Input files to analyze
+        File fakeFile = new File("file1.c");
+        CodeBlock element = new CodeBlock(1, 100, fakeFile, True.INSTANCE, True.INSTANCE);
+        CodeBlock conditionalBlockIf = new CodeBlock(1, 50, fakeFile, varA, varA);
+        CodeBlock nested = new CodeBlock(25, 30, fakeFile, varB, and(varA, varB));
+        conditionalBlockIf.addNestedElement(nested);
+        CodeBlock conditionalBlockElse = new CodeBlock(51, 100, fakeFile, not(varA), not(varA));
+        element.addNestedElement(conditionalBlockIf);
+        element.addNestedElement(conditionalBlockElse);
+        
+        // Run the analysis
+        Properties props = new Properties();
+        props.put(CodeBlockAnalysis.INCREMENTAL_PCS.getKey(), "true");
+        List<net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock> results
+            = runAnalysis(element, SimplificationType.PRESENCE_CONDITIONS, props);
+        
+        // Verify correct analysis results
+        Assert.assertEquals(4, results.size());
+        // Build model used -> BM = varX
+        Formula filePC = varX;
+        assertBlock(results.get(0), element, filePC, varX);
+        assertBlock(results.get(1), conditionalBlockIf, filePC, and(varX, varA));
+        // nested PC extends the one of its parent
+        assertBlock(results.get(2), nested, filePC, and(and(varX, varA), varB));
+        assertBlock(results.get(3), conditionalBlockElse, filePC, and(varX, not(varA)));
+    }
+    
     /**
      * Tests handling of files with nested code blocks with a build model.
      * Build model uses same variables as code.
@@ -256,6 +302,147 @@ public class CodeBlockAnalysisTests extends
         assertBlock(results.get(3), conditionalBlockElse, filePC, filePC);
     }
         
+    /**
+     * Tests that extracting the code blocks in multiple threads keeps the order of the files, even if the results are
+     * not sorted.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testMultipleThreads() throws SetUpException {
+        // Input files to analyze
+        List<SourceFile<?>> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            File fakeFile = new File("src/File" + i + ".c");
+            CodeBlock element = new CodeBlock(1, 100, fakeFile, True.INSTANCE, True.INSTANCE);
+            Variable var = new Variable("VAR_" + i);
+            element.addNestedElement(new CodeBlock(10, 20, fakeFile, var, var));
+            
+            SourceFile<CodeElement<?>> sourceFile = new SourceFile<>(fakeFile);
+            sourceFile.addElement(element);
+            files.add(sourceFile);
+        }
+        
+        // Run the analysis
+        Properties props = new Properties();
+        props.put(CodeBlockAnalysis.THREADS.getKey(), "4");
+        props.put(CodeBlockAnalysis.ORDER_RESULTS.getKey(), "false");
+        CodeBlockAnalysis analysis = new CodeBlockAnalysis(new TestConfiguration(props),
+            new TestAnalysisComponentProvider<SourceFile<?>>(files));
+        
+        List<net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock> results = new ArrayList<>();
+        net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock result;
+        while ((result = analysis.getNextResult()) != null) {
+            results.add(result);
+        }
+        
+        // Verify correct analysis results in the order of the files
+        Assert.assertEquals(40, results.size());
+        for (int i = 0; i < 20; i++) {
+            String path = new File("src/File" + i + ".c").getPath();
+            Variable var = new Variable("VAR_" + i);
+            assertBlock(results.get(2 * i), path, True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 100);
+            assertBlock(results.get(2 * i + 1), path, True.INSTANCE, var, var, 10, 20);
+        }
+    }
+    
+    /**
+     * Tests that ordered results are correctly merged if the code blocks exceed the memory budget and are written to
+     * temporary files.
+     * @throws SetUpException unwanted
+     */
+    @Test
+    public void testOrderedResultsWithMemoryBudget() throws SetUpException {
+        // Input files to analyze, in reverse order
+        List<SourceFile<?>> files = new ArrayList<>();
+        for (int i = 9; i >= 0; i--) {
+            File fakeFile = new File("src/File" + i + ".c");
+            CodeBlock element = new CodeBlock(1, 100, fakeFile, True.INSTANCE, True.INSTANCE);
+            Variable var = new Variable("VAR_" + i);
+            element.addNestedElement(new CodeBlock(10, 20, fakeFile, var, var));
+            
+            SourceFile<CodeElement<?>> sourceFile = new SourceFile<>(fakeFile);
+            sourceFile.addElement(element);
+            files.add(sourceFile);
+        }
+        
+        // Run the analysis
+        Properties props = new Properties();
+        props.put(CodeBlockAnalysis.ORDER_RESULTS.getKey(), "true");
+        props.put(CodeBlockAnalysis.ORDER_MAX_BLOCKS_IN_MEMORY.getKey(), "3");
+        CodeBlockAnalysis analysis = new CodeBlockAnalysis(new TestConfiguration(props),
+            new TestAnalysisComponentProvider<SourceFile<?>>(files));
+        
+        List<net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock> results = new ArrayList<>();
+        net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock result;
+        while ((result = analysis.getNextResult()) != null) {
+            results.add(result);
+        }
+        
+        // Verify correct analysis results, ordered by path
+        Assert.assertEquals(20, results.size());
+        for (int i = 0; i < 10; i++) {
+            String path = new File("src/File" + i + ".c").getPath();
+            Variable var = new Variable("VAR_" + i);
+            assertBlock(results.get(2 * i), path, True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 100);
+            assertBlock(results.get(2 * i + 1), path, True.INSTANCE, var, var, 10, 20);
+        }
+    }
+        
+    /**
+     * Tests that FILTERED.txt counts the file condition and the conditions of each block, even if the same
+     * conditions are re-used by several blocks.
+     * 
+     * @throws SetUpException unwanted.
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testFilterCounts() throws SetUpException, IOException {
+        // Input files to analyze, the same conditions appear in several blocks of each file
+        List<SourceFile<?>> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            File fakeFile = new File("src/File" + i + ".c");
+            CodeBlock element = new CodeBlock(1, 100, fakeFile, True.INSTANCE, True.INSTANCE);
+            Formula condition = and("VAR_" + i, not("B"));
+            for (int j = 0; j < 3; j++) {
+                element.addNestedElement(new CodeBlock(10 * j, 10 * j + 5, fakeFile, condition, condition));
+            }
+            
+            SourceFile<CodeElement<?>> sourceFile = new SourceFile<>(fakeFile);
+            sourceFile.addElement(element);
+            files.add(sourceFile);
+        }
+        
+        // Run the analysis
+        File outputDir = Files.createTempDirectory("code_blocks").toFile();
+        Properties props = new Properties();
+        props.put(DefaultSettings.OUTPUT_DIR.getKey(), outputDir.getPath());
+        props.put(CodeBlockAnalysis.THREADS.getKey(), "2");
+        CodeBlockAnalysis analysis = new CodeBlockAnalysis(new TestConfiguration(props),
+            new TestAnalysisComponentProvider<SourceFile<?>>(files));
+        
+        // Without a variability model, nothing is filtered: filtering the results again yields the same counts
+        FeatureFilter expected = new FeatureFilter(null);
+        net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock result;
+        int numResults = 0;
+        while ((result = analysis.getNextResult()) != null) {
+            result.getFileCondition().accept(expected);
+            result.getCondition().accept(expected);
+            result.getPresenceCondition().accept(expected);
+            numResults++;
+        }
+        Assert.assertEquals(20, numResults);
+        
+        File filterCountFile = new File(outputDir, "FILTERED.txt");
+        List<String> counts = Files.readAllLines(filterCountFile.toPath());
+        filterCountFile.delete();
+        new File(outputDir, "VARIABLES.txt").delete();
+        outputDir.delete();
+        
+        Assert.assertEquals(Arrays.asList("FILTERED: " + expected.filtered(), "KEPT: " + expected.kept(),
+            "CONST: " + expected.constants()), counts);
+    }
+    
     /**
      * Tests one {@link net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock} based on the given input
      * block.
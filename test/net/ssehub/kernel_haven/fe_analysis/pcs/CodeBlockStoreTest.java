@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link CodeBlockStore}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class CodeBlockStoreTest {
+
+    /**
+     * Tests that blocks are ordered by path and keep their order within a path, if all blocks are kept in memory.
+     */
+    @Test
+    public void testInMemory() {
+        CodeBlockStore store = new CodeBlockStore();
+        addBlocks(store);
+
+        assertBlocks(store.getOrderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that blocks are ordered by path and keep their order within a path, if the blocks are written to
+     * temporary files. The blocks of a path are split over several runs.
+     */
+    @Test
+    public void testMemoryBudget() {
+        CodeBlockStore store = new CodeBlockStore(2);
+        addBlocks(store);
+
+        assertBlocks(store.getOrderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that all kinds of formulas are restored correctly from the temporary files.
+     */
+    @Test
+    public void testFormulas() {
+        Formula fileCondition = or(new Variable("A"), not("B"));
+        Formula condition = and(not(or("C", "D")), True.INSTANCE);
+        Formula pc = and(fileCondition, condition);
+
+        CodeBlockStore store = new CodeBlockStore(1);
+        store.add(new CodeBlock("b.c", fileCondition, condition, pc, 1, 10));
+        store.add(new CodeBlock("a.c", False.INSTANCE, False.INSTANCE, False.INSTANCE, 2, 3));
+
+        List<CodeBlock> result = store.getOrderedStream().collect(Collectors.toList());
+        Assert.assertEquals(2, result.size());
+        assertBlock(result.get(0), "a.c", False.INSTANCE, False.INSTANCE, False.INSTANCE, 2, 3);
+        assertBlock(result.get(1), "b.c", fileCondition, condition, pc, 1, 10);
+    }
+
+    /**
+     * Adds the blocks of three files in an unordered way to the store.
+     *
+     * @param store The store to add the blocks to.
+     */
+    private static void addBlocks(CodeBlockStore store) {
+        store.add(new CodeBlock("c.c", True.INSTANCE, new Variable("C"), new Variable("C"), 1, 2));
+        store.add(new CodeBlock("a.c", new Variable("A"), True.INSTANCE, new Variable("A"), 1, 20));
+        store.add(new CodeBlock("a.c", new Variable("A"), new Variable("X"), and("A", "X"), 2, 5));
+        store.add(new CodeBlock("b.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 9));
+        store.add(new CodeBlock("a.c", new Variable("A"), new Variable("Y"), and("A", "Y"), 6, 8));
+    }
+
+    /**
+     * Asserts that the given blocks are the ones added by {@link #addBlocks(CodeBlockStore)}, in the sorted order.
+     *
+     * @param blocks The blocks returned by the store.
+     */
+    private static void assertBlocks(List<CodeBlock> blocks) {
+        Assert.assertEquals(5, blocks.size());
+        assertBlock(blocks.get(0), "a.c", new Variable("A"), True.INSTANCE, new Variable("A"), 1, 20);
+        assertBlock(blocks.get(1), "a.c", new Variable("A"), new Variable("X"), and("A", "X"), 2, 5);
+        assertBlock(blocks.get(2), "a.c", new Variable("A"), new Variable("Y"), and("A", "Y"), 6, 8);
+        assertBlock(blocks.get(3), "b.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 9);
+        assertBlock(blocks.get(4), "c.c", True.INSTANCE, new Variable("C"), new Variable("C"), 1, 2);
+    }
+
+    /**
+     * Tests a single {@link CodeBlock}.
+     *
+     * @param block The block to test.
+     * @param path The expected path.
+     * @param fileCondition The expected file condition.
+     * @param condition The expected condition.
+     * @param pc The expected presence condition.
+     * @param start The expected start line.
+     * @param end The expected end line.
+     */
+    //checkstyle: stop parameter number check
+    private static void assertBlock(CodeBlock block, String path, Formula fileCondition, Formula condition,
+            Formula pc, int start, int end) {
+        //checkstyle: resume parameter number check
+
+        Assert.assertEquals(path, block.getPath());
+        Assert.assertEquals(fileCondition, block.getFileCondition());
+        Assert.assertEquals(condition, block.getCondition());
+        Assert.assertEquals(pc, block.getPresenceCondition());
+        Assert.assertEquals(start, block.getStart());
+        Assert.assertEquals(end, block.getEnd());
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.fe_analysis.pcs.CodeBlockAnalysis.CodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link CodeBlockTable}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class CodeBlockTableTest {
+
+    /**
+     * Tests that the rows contain the values of the added blocks and are converted back to equal
+     * {@link CodeBlock}s.
+     */
+    @Test
+    public void testRows() {
+        Formula fileCondition = new Variable("A");
+        Formula condition = new Variable("X");
+        Formula pc = and(fileCondition, condition);
+
+        CodeBlockTable table = new CodeBlockTable();
+        table.add(new CodeBlock("a.c", fileCondition, True.INSTANCE, fileCondition, 1, 20));
+        table.add(new CodeBlock("a.c", fileCondition, condition, pc, 2, 5));
+
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals("a.c", table.getPath(1));
+        Assert.assertSame(fileCondition, table.getFileCondition(1));
+        Assert.assertSame(condition, table.getCondition(1));
+        Assert.assertSame(pc, table.getPresenceCondition(1));
+        Assert.assertEquals(2, table.getStart(1));
+        Assert.assertEquals(5, table.getEnd(1));
+
+        CodeBlock block = table.get(0);
+        Assert.assertEquals("a.c", block.getPath());
+        Assert.assertSame(fileCondition, block.getFileCondition());
+        Assert.assertEquals(True.INSTANCE, block.getCondition());
+        Assert.assertSame(fileCondition, block.getPresenceCondition());
+        Assert.assertEquals(1, block.getStart());
+        Assert.assertEquals(20, block.getEnd());
+    }
+
+    /**
+     * Tests that the rows are ordered by path, and that rows with the same path keep their order, even if they
+     * have different file conditions.
+     */
+    @Test
+    public void testOrderByPath() {
+        CodeBlockTable table = new CodeBlockTable();
+        table.add(new CodeBlock("c.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 2));
+        table.add(new CodeBlock("a.c", new Variable("A"), True.INSTANCE, new Variable("A"), 1, 2));
+        table.add(new CodeBlock("b.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 2));
+        table.add(new CodeBlock("a.c", new Variable("B"), True.INSTANCE, new Variable("B"), 3, 4));
+        table.add(new CodeBlock("c.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 3, 4));
+
+        Assert.assertArrayEquals(new int[] {1, 3, 2, 0, 4}, table.getOrderByPath());
+        Assert.assertEquals(new Variable("A"), table.getFileCondition(1));
+        Assert.assertEquals(new Variable("B"), table.getFileCondition(3));
+    }
+
+    /**
+     * Tests that a cleared table can be re-used.
+     */
+    @Test
+    public void testClear() {
+        CodeBlockTable table = new CodeBlockTable();
+        for (int i = 0; i < 100; i++) {
+            table.add(new CodeBlock("file" + i + ".c", True.INSTANCE, True.INSTANCE, True.INSTANCE, i, i));
+        }
+        Assert.assertEquals(100, table.size());
+
+        table.clear();
+        Assert.assertEquals(0, table.size());
+        Assert.assertArrayEquals(new int[0], table.getOrderByPath());
+
+        table.add(new CodeBlock("b.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 1, 2));
+        table.add(new CodeBlock("a.c", True.INSTANCE, True.INSTANCE, True.INSTANCE, 3, 4));
+        Assert.assertArrayEquals(new int[] {1, 0}, table.getOrderByPath());
+        Assert.assertEquals("a.c", table.getPath(1));
+    }
+
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2017-2019 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ssehub.kernel_haven.fe_analysis.pcs;
+
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.build_model.BuildModel;
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.DefaultSettings;
+import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
+import net.ssehub.kernel_haven.test_utils.TestConfiguration;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
+
+/**
+ * Tests the {@link IncrementalPcFinder}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("null")
+public class IncrementalPcFinderTest {
+
+    private File stateDir;
+
+    /**
+     * Creates an empty state directory.
+     *
+     * @throws IOException If creating the directory fails.
+     */
+    @Before
+    public void createStateDir() throws IOException {
+        stateDir = Files.createTempDirectory("incremental_state").toFile();
+    }
+
+    /**
+     * Deletes the state directory.
+     */
+    @After
+    public void deleteStateDir() {
+        File[] files = stateDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        stateDir.delete();
+    }
+
+    /**
+     * Tests that the first run (without previous state) finds all variables.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testFirstRun() throws SetUpException {
+        IncrementalPcFinder finder = createFinder(null,
+                file("file1.c", or("A", "B")), file("file2.c", and("A", "C")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(results.size(), is(3));
+        assertThat(results.get(0).getVariable(), is("A"));
+        assertThat(results.get(0).getPcs(), is(new HashSet<>(Arrays.asList(or("A", "B"), and("A", "C")))));
+        assertThat(results.get(1).getVariable(), is("B"));
+        assertThat(results.get(2).getVariable(), is("C"));
+        assertThat(finder.isAffected("C"), is(true));
+    }
+
+    /**
+     * Tests that only the variables of changed and removed files are emitted in the second run, with their presence
+     * conditions from all (including unchanged) files.
+     *
+     * @throws SetUpException unwanted.
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testChangedAndRemovedFiles() throws SetUpException, IOException {
+        runAndCommit(createFinder(null,
+                file("file1.c", or("A", "B")), file("file2.c", and("A", "C")), file("file3.c", and("E", "F"))));
+
+        File changedFiles = new File(stateDir, "changed.txt");
+        Files.write(changedFiles.toPath(), Arrays.asList("file1.c", "file2.c"), StandardCharsets.UTF_8);
+
+        // file1.c changed, file2.c was removed, file3.c is unchanged and thus not passed
+        IncrementalPcFinder finder = createFinder(changedFiles, file("file1.c", and("A", "D")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getVariable(), is("A"));
+        assertThat(results.get(0).getPcs(), is(new HashSet<>(Arrays.asList(and("A", "D")))));
+        assertThat(results.get(1).getVariable(), is("D"));
+
+        assertThat(finder.isAffected("A"), is(true));
+        assertThat(finder.isAffected("B"), is(true));
+        assertThat(finder.isAffected("C"), is(true));
+        assertThat(finder.isAffected("E"), is(false));
+    }
+
+    /**
+     * Tests that re-passing an unchanged file does not affect any variable.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testUnchangedFile() throws SetUpException {
+        runAndCommit(createFinder(null, file("file1.c", or("A", "B"))));
+
+        IncrementalPcFinder finder = createFinder(null, file("file1.c", or("A", "B")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(results.size(), is(0));
+        assertThat(finder.isAffected("A"), is(false));
+    }
+
+    /**
+     * Tests that all values of a non-boolean variable are affected together.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testNonBooleanGroup() throws SetUpException {
+        runAndCommit(createFinder(null, file("file1.c", or("A_eq_1", "B")), file("file2.c", and("A_eq_2", "C"))));
+
+        IncrementalPcFinder finder = createFinder(null, file("file2.c", and("A_eq_2", "D")));
+        List<VariableWithPcs> results = run(finder);
+
+        List<String> names = new ArrayList<>();
+        for (VariableWithPcs var : results) {
+            names.add(var.getVariable());
+        }
+        assertThat(names, is(Arrays.asList("A_eq_1", "A_eq_2", "D")));
+        assertThat(finder.isAffected("A=1"), is(true));
+        assertThat(finder.isAffected("A"), is(true));
+        assertThat(finder.isAffected("B"), is(false));
+    }
+
+    /**
+     * Tests that a run whose state was not committed (e.g. because the analysis failed) does not change the state:
+     * the next run still compares against the last committed run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testUncommittedRun() throws SetUpException {
+        runAndCommit(createFinder(null, file("file1.c", or("A", "B")), file("file2.c", and("A", "C"))));
+
+        // not committed
+        run(createFinder(null, file("file1.c", and("A", "D"))));
+
+        IncrementalPcFinder finder = createFinder(null, file("file1.c", and("A", "D")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(finder.isFullRun(), is(false));
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getVariable(), is("A"));
+        assertThat(results.get(1).getVariable(), is("D"));
+        assertThat(finder.isAffected("B"), is(true));
+        assertThat(finder.isAffected("C"), is(false));
+    }
+
+    /**
+     * Tests that a discarded state leads to a full run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testDiscardedState() throws SetUpException {
+        runAndCommit(createFinder(null, file("file1.c", or("A", "B"))));
+
+        IncrementalPcFinder finder = createFinder(null, file("file1.c", or("A", "B")));
+        run(finder);
+        finder.discardState();
+
+        finder = createFinder(null, file("file1.c", or("A", "B")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(finder.isFullRun(), is(true));
+        assertThat(results.size(), is(2));
+        assertThat(finder.isAffected("X"), is(true));
+    }
+
+    /**
+     * Tests that a changed build model leads to a full run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testChangedBuildModel() throws SetUpException {
+        BuildModel bm = new BuildModel();
+        bm.add(new File("file1.c"), new Variable("X"));
+        runAndCommit(createFinderWithBm(bm, file("file1.c", or("A", "B"))));
+
+        // equal build model: nothing changed
+        bm = new BuildModel();
+        bm.add(new File("file1.c"), new Variable("X"));
+        IncrementalPcFinder finder = createFinderWithBm(bm, file("file1.c", or("A", "B")));
+        assertThat(runAndCommit(finder).size(), is(0));
+        assertThat(finder.isFullRun(), is(false));
+
+        bm = new BuildModel();
+        bm.add(new File("file1.c"), new Variable("Y"));
+        finder = createFinderWithBm(bm, file("file1.c", or("A", "B")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(finder.isFullRun(), is(true));
+        assertThat(results.size(), is(3));
+        assertThat(results.get(2).getVariable(), is("Y"));
+    }
+
+    /**
+     * Tests that a changed variability model leads to a full run.
+     *
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testChangedVariabilityModel() throws SetUpException {
+        runAndCommit(createFinderWithVm(createVm("A", "B"), file("file1.c", or("A", "B"))));
+
+        // equal variability model: nothing changed
+        IncrementalPcFinder finder = createFinderWithVm(createVm("A", "B"), file("file1.c", or("A", "B")));
+        assertThat(runAndCommit(finder).size(), is(0));
+        assertThat(finder.isFullRun(), is(false));
+
+        finder = createFinderWithVm(createVm("A", "B", "C"), file("file1.c", or("A", "B")));
+        List<VariableWithPcs> results = run(finder);
+
+        assertThat(finder.isFullRun(), is(true));
+        assertThat(results.size(), is(2));
+    }
+
+    /**
+     * Creates a variability model with the given boolean variables.
+     *
+     * @param names The names of the variables.
+     *
+     * @return The variability model.
+     */
+    private static VariabilityModel createVm(String... names) {
+        Set<VariabilityVariable> variables = new HashSet<>();
+        for (String name : names) {
+            variables.add(new VariabilityVariable(name, "bool"));
+        }
+        return new VariabilityModel(new File("not_existing.dimacs"), variables);
+    }
+
+    /**
+     * Creates a source file with a single code block.
+     *
+     * @param path The path of the source file.
+     * @param condition The condition of the code block.
+     *
+     * @return The source file.
+     */
+    private static SourceFile<?> file(String path, Formula condition) {
+        SourceFile<CodeElement<?>> file = new SourceFile<>(new File(path));
+        file.addElement(new CodeBlock(condition));
+        return file;
+    }
+
+    /**
+     * Creates an {@link IncrementalPcFinder} on the state directory.
+     *
+     * @param changedFiles Optional: The list of changed files.
+     * @param files The source files to pass to the finder.
+     *
+     * @return The finder.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private IncrementalPcFinder createFinder(File changedFiles, SourceFile<?>... files) throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(IncrementalPcFinder.STATE_DIR.getKey(), stateDir.getPath());
+        if (changedFiles != null) {
+            props.setProperty(IncrementalPcFinder.CHANGED_FILES.getKey(), changedFiles.getPath());
+        }
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+
+        return new IncrementalPcFinder(config, new TestAnalysisComponentProvider<SourceFile<?>>(files));
+    }
+
+    /**
+     * Creates an {@link IncrementalPcFinder} on the state directory, which uses the given build model.
+     *
+     * @param bm The build model.
+     * @param files The source files to pass to the finder.
+     *
+     * @return The finder.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private IncrementalPcFinder createFinderWithBm(BuildModel bm, SourceFile<?>... files) throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(IncrementalPcFinder.STATE_DIR.getKey(), stateDir.getPath());
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+
+        return new IncrementalPcFinder(config, new TestAnalysisComponentProvider<SourceFile<?>>(files),
+                new TestAnalysisComponentProvider<BuildModel>(bm));
+    }
+
+    /**
+     * Creates an {@link IncrementalPcFinder} on the state directory, which considers the given variability model.
+     *
+     * @param vm The variability model.
+     * @param files The source files to pass to the finder.
+     *
+     * @return The finder.
+     *
+     * @throws SetUpException unwanted.
+     */
+    private IncrementalPcFinder createFinderWithVm(VariabilityModel vm, SourceFile<?>... files)
+            throws SetUpException {
+
+        Properties props = new Properties();
+        props.setProperty(IncrementalPcFinder.STATE_DIR.getKey(), stateDir.getPath());
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+
+        return new IncrementalPcFinder(config, new TestAnalysisComponentProvider<SourceFile<?>>(files)) {
+
+            @Override
+            protected VariabilityModel getVariabilityModel() {
+                return vm;
+            }
+
+        };
+    }
+
+    /**
+     * Retrieves all results of the given finder and commits its state for the next run.
+     *
+     * @param finder The finder to run.
+     *
+     * @return All results.
+     */
+    private static List<VariableWithPcs> runAndCommit(IncrementalPcFinder finder) {
+        List<VariableWithPcs> results = run(finder);
+        finder.commitState();
+        return results;
+    }
+
+    /**
+     * Retrieves all results of the given finder.
+     *
+     * @param finder The finder to run.
+     *
+     * @return All results.
+     */
+    private static List<VariableWithPcs> run(IncrementalPcFinder finder) {
+        List<VariableWithPcs> results = new ArrayList<>();
+        VariableWithPcs result;
+        while ((result = finder.getNextResult()) != null) {
+            results.add(result);
+        }
+        return results;
+    }
+
+}
@@ -21,6 +21,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
@@ -35,6 +36,7 @@ import net.ssehub.kernel_haven.build_model.BuildModel;
 import net.ssehub.kernel_haven.code_model.CodeBlock;
 import net.ssehub.kernel_haven.code_model.CodeElement;
 import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.config.DefaultSettings;
 import net.ssehub.kernel_haven.fe_analysis.AbstractFinderTests;
 import net.ssehub.kernel_haven.fe_analysis.Settings.SimplificationType;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
@@ -236,6 +238,139 @@ public class PcFinderTests extends AbstractFinderTests<VariableWithPcs> {
         Assert.assertEquals(3,  results.size());
     }
     
+    /**
+     * Checks if collecting PCs in multiple threads produces the same result as the sequential collection.
+     */
+    @Test
+    public void testParallelCollection() {
+        CodeBlock c1 = new CodeBlock(or("A", "B"));
+        CodeBlock c2 = new CodeBlock(new Variable("A"));
+
+        c2.addNestedElement(new CodeBlock(and("A", "C")));
+
+        CodeBlock top = new CodeBlock(True.INSTANCE);
+        top.addNestedElement(c1);
+        top.addNestedElement(c2);
+
+        Properties props = new Properties();
+        props.put(PcFinder.THREADS.getKey(), "4");
+        List<VariableWithPcs> results = super.runAnalysis(top, SimplificationType.NO_SIMPLIFICATION, props);
+
+        VariableWithPcs r = results.get(0);
+        assertThat(r.getVariable(), is("A"));
+        assertThat(r.getPcs(), is(set(or("A", "B"), and("A", "C"), new Variable("A"))));
+
+        r = results.get(1);
+        assertThat(r.getVariable(), is("B"));
+        assertThat(r.getPcs(), is(set(or("A", "B"))));
+
+        r = results.get(2);
+        assertThat(r.getVariable(), is("C"));
+        assertThat(r.getPcs(), is(set(and("A", "C"))));
+
+        Assert.assertEquals(3,  results.size());
+    }
+
+    /**
+     * Checks if collecting the PCs of several files in multiple threads produces the same result as the sequential
+     * collection, i.e. that the partial results of the workers are merged correctly.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testParallelCollectionOfSeveralFiles() throws SetUpException {
+        SourceFile<?>[] files = new SourceFile<?>[20];
+        for (int i = 0; i < files.length; i++) {
+            SourceFile<CodeElement<?>> file = new SourceFile<>(new File("file" + i + ".c"));
+            CodeBlock block = new CodeBlock(or("V" + (i % 3), "W" + i));
+            block.addNestedElement(new CodeBlock(and(or("V" + (i % 3), "W" + i), "V" + (i % 5))));
+            file.addElement(block);
+            file.addElement(new CodeBlock(new Variable("V" + (i % 4))));
+            files[i] = file;
+        }
+        
+        Properties props = new Properties();
+        props.put(PcFinder.THREADS.getKey(), "1");
+        List<VariableWithPcs> sequential = runOnFiles(new PcFinder(createConfig(props),
+                new TestAnalysisComponentProvider<SourceFile<?>>(files)));
+        
+        props.put(PcFinder.THREADS.getKey(), "4");
+        List<VariableWithPcs> parallel = runOnFiles(new PcFinder(createConfig(props),
+                new TestAnalysisComponentProvider<SourceFile<?>>(files)));
+        
+        Assert.assertEquals(25, sequential.size());
+        Assert.assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertThat(parallel.get(i).getVariable(), is(sequential.get(i).getVariable()));
+            assertThat(parallel.get(i).getPcs(), is(sequential.get(i).getPcs()));
+        }
+    }
+    
+    /**
+     * Checks that the parallel collection fails as a whole, if a worker fails: no partial result is emitted.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    public void testParallelCollectionFailure() throws SetUpException {
+        SourceFile<?>[] files = new SourceFile<?>[10];
+        for (int i = 0; i < files.length; i++) {
+            SourceFile<CodeElement<?>> file = new SourceFile<>(new File("file" + i + ".c"));
+            file.addElement(new CodeBlock(new Variable("V" + i)));
+            files[i] = file;
+        }
+        
+        Properties props = new Properties();
+        props.put(PcFinder.THREADS.getKey(), "4");
+        PcFinder finder = new PcFinder(createConfig(props),
+                new TestAnalysisComponentProvider<SourceFile<?>>(files)) {
+            
+            @Override
+            protected void processFile(SourceFile<?> file, BuildModel bm, PcCollection result) {
+                if (file.getPath().getName().equals("file5.c")) {
+                    throw new IllegalStateException("Test failure");
+                }
+                super.processFile(file, bm, result);
+            }
+            
+        };
+        
+        Assert.assertEquals(0, runOnFiles(finder).size());
+    }
+    
+    /**
+     * Checks if the streaming mode produces the same (sorted) result as the default mode.
+     */
+    @Test
+    public void testStreaming() {
+        CodeBlock c1 = new CodeBlock(or("A", "B"));
+        CodeBlock c2 = new CodeBlock(new Variable("A"));
+
+        c2.addNestedElement(new CodeBlock(and("A", "C")));
+
+        CodeBlock top = new CodeBlock(True.INSTANCE);
+        top.addNestedElement(c1);
+        top.addNestedElement(c2);
+
+        Properties props = new Properties();
+        props.put(PcFinder.STREAMING.getKey(), "true");
+        List<VariableWithPcs> results = super.runAnalysis(top, SimplificationType.NO_SIMPLIFICATION, props);
+
+        VariableWithPcs r = results.get(0);
+        assertThat(r.getVariable(), is("A"));
+        assertThat(r.getPcs(), is(set(or("A", "B"), and("A", "C"), new Variable("A"))));
+
+        r = results.get(1);
+        assertThat(r.getVariable(), is("B"));
+        assertThat(r.getPcs(), is(set(or("A", "B"))));
+
+        r = results.get(2);
+        assertThat(r.getVariable(), is("C"));
+        assertThat(r.getPcs(), is(set(and("A", "C"))));
+
+        Assert.assertEquals(3,  results.size());
+    }
+
     /**
      * Creates a set from varargs.
      * 
@@ -253,6 +388,37 @@ public class PcFinderTests extends AbstractFinderTests<VariableWithPcs> {
         return set;
     }
     
+    /**
+     * Creates the configuration for a {@link PcFinder}.
+     * 
+     * @param props The configuration settings.
+     * 
+     * @return The configuration.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    private static TestConfiguration createConfig(Properties props) throws SetUpException {
+        TestConfiguration config = new TestConfiguration(props);
+        config.registerSetting(DefaultSettings.PREPARATION_CLASSES);
+        return config;
+    }
+    
+    /**
+     * Retrieves all results of the given {@link PcFinder}.
+     * 
+     * @param finder The finder to run.
+     * 
+     * @return The detected presence conditions.
+     */
+    private static List<VariableWithPcs> runOnFiles(PcFinder finder) {
+        List<VariableWithPcs> results = new ArrayList<>();
+        VariableWithPcs result;
+        while ((result = finder.getNextResult()) != null) {
+            results.add(result);
+        }
+        return results;
+    }
+    
     /**
      * Runs the {@link PcFinder} on the passed element and returns the result for testing.
      * @param element A mocked element, which should be analyzed by the {@link PcFinder}. 
@@ -33,6 +33,7 @@ import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
 import net.ssehub.kernel_haven.logic_utils.LogicUtils;
 import net.ssehub.kernel_haven.test_utils.TestConfiguration;
 import net.ssehub.kernel_haven.util.StaticClassLoader;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
 import net.ssehub.kernel_haven.util.logic.Disjunction;
 import net.ssehub.kernel_haven.util.logic.Formula;
 import net.ssehub.kernel_haven.util.logic.Variable;
@@ -74,6 +75,34 @@ public class PcFinderTestsWithSimplificationTests extends AbstractFinderTests<Va
         Assert.assertTrue(result1.getPcs().contains(varA));
     }
     
+    /**
+     * Tests that the streaming mode simplifies the presence conditions in the same way as the default mode.
+     */
+    @Test
+    public void testStreamingWithSimplification() {
+        CodeBlock top = new CodeBlock(new Disjunction(new Variable("A"), new Variable("A")));
+        for (int i = 0; i < 10; i++) {
+            Variable var = new Variable("V" + i);
+            CodeBlock block = new CodeBlock(new Conjunction(var, new Disjunction(var, new Variable("A"))));
+            block.addNestedElement(new CodeBlock(new Disjunction(new Variable("B"), new Variable("B"))));
+            top.addNestedElement(block);
+        }
+        List<VariableWithPcs> expected = detectPCs(top);
+        
+        Properties props = new Properties();
+        props.put(PcFinder.STREAMING.getKey(), "true");
+        props.put(PcFinder.THREADS.getKey(), "2");
+        List<VariableWithPcs> results = super.runAnalysis(top, SimplificationType.PRESENCE_CONDITIONS, props);
+        
+        Assert.assertEquals(12, results.size());
+        Assert.assertEquals(expected.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(expected.get(i).getVariable(), results.get(i).getVariable());
+            Assert.assertEquals(expected.get(i).getPcs(), results.get(i).getPcs());
+        }
+        Assert.assertTrue(results.get(0).getPcs().contains(new Variable("A")));
+    }
+    
     /**
      * Runs the {@link PcFinder} on the passed element and returns the result for testing.
      * @param element A mocked element, which should be analyzed by the {@link PcFinder}. 
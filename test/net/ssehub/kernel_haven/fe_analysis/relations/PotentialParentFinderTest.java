@@ -16,10 +16,13 @@
 package net.ssehub.kernel_haven.fe_analysis.relations;
 
 import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.and;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.not;
+import static net.ssehub.kernel_haven.util.logic.FormulaBuilder.or;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -30,8 +33,11 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import net.ssehub.kernel_haven.SetUpException;
+import net.ssehub.kernel_haven.fe_analysis.fes.FeatureEffectComputer;
+import net.ssehub.kernel_haven.fe_analysis.fes.PcEffectCache;
 import net.ssehub.kernel_haven.fe_analysis.pcs.PcFinder.VariableWithPcs;
 import net.ssehub.kernel_haven.test_utils.AnalysisComponentExecuter;
+import net.ssehub.kernel_haven.test_utils.TestAnalysisComponentProvider;
 import net.ssehub.kernel_haven.test_utils.TestConfiguration;
 import net.ssehub.kernel_haven.util.logic.Formula;
 import net.ssehub.kernel_haven.util.logic.Variable;
@@ -119,4 +125,105 @@ public class PotentialParentFinderTest {
         Locale.setDefault(old);
     }
     
+    /**
+     * Tests that multiple threads produce the same results in the same order as a single thread.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    @SuppressWarnings("null")
+    public void testMultipleThreads() throws SetUpException {
+        VariableWithPcs[] input = new VariableWithPcs[50];
+        for (int i = 0; i < input.length; i++) {
+            Set<@NonNull Formula> pcs = new HashSet<>();
+            pcs.add(and("V" + i, "V" + (i / 2)));
+            pcs.add(and(and("V" + i, "V" + (i / 3)), "V" + (i / 5)));
+            pcs.add(new Variable("V" + i));
+            input[i] = new VariableWithPcs("V" + i, pcs);
+        }
+        
+        List<String> sequential = run(input, 1);
+        List<String> parallel = run(input, 4);
+        
+        assertThat(parallel.size(), is(input.length));
+        assertThat(parallel, is(sequential));
+    }
+    
+    /**
+     * Tests that sharing the effects of single presence conditions with a {@link FeatureEffectComputer} does not
+     * change the results.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test
+    @SuppressWarnings("null")
+    public void testSharedPcEffects() throws SetUpException {
+        VariableWithPcs[] input = new VariableWithPcs[20];
+        for (int i = 0; i < input.length; i++) {
+            Set<@NonNull Formula> pcs = new HashSet<>();
+            pcs.add(or(and("V" + i, "V" + (i / 2)), and("V" + i, not("V" + (i / 3)))));
+            pcs.add(and(or("V" + i, "V" + (i / 5)), or(not("V" + i), "V" + (i / 5))));
+            pcs.add(or("V" + i, and("V" + (i / 2), not("V" + (i / 2)))));
+            input[i] = new VariableWithPcs("V" + i, pcs);
+        }
+        List<String> expected = run(input, 1);
+        
+        // the other consumer computes all effects first
+        PcEffectCache cache = new PcEffectCache(true, 2);
+        FeatureEffectComputer computer = new FeatureEffectComputer(true);
+        computer.setPcEffectCache(cache);
+        for (VariableWithPcs var : input) {
+            computer.buildFeatureEffefct(var);
+            cache.release(var.getVariable());
+        }
+        
+        PotentialParentFinder finder = new PotentialParentFinder(new TestConfiguration(new Properties()),
+                new TestAnalysisComponentProvider<>(input), cache);
+        List<String> actual = new ArrayList<>();
+        VariableWithPotentialParents pp;
+        while ((pp = finder.getNextResult()) != null) {
+            actual.add(pp.toString());
+        }
+        
+        assertThat(actual, is(expected));
+        assertThat(cache.getMisses(), is(60L));
+        assertThat(cache.getHits(), is(60L));
+        assertThat(cache.getNumVariables(), is(0));
+    }
+    
+    /**
+     * Tests that a cache with effects that are not simplified is rejected.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("null")
+    public void testUnsimplifiedPcEffects() throws SetUpException {
+        new PotentialParentFinder(new TestConfiguration(new Properties()),
+                new TestAnalysisComponentProvider<VariableWithPcs>(), new PcEffectCache(false, 2));
+    }
+    
+    /**
+     * Runs the {@link PotentialParentFinder} on the given input.
+     * 
+     * @param input The variables with their presence conditions.
+     * @param threads The number of threads to use.
+     * 
+     * @return The string representations of the results.
+     * 
+     * @throws SetUpException unwanted.
+     */
+    private static List<String> run(VariableWithPcs[] input, int threads) throws SetUpException {
+        Properties props = new Properties();
+        props.setProperty(PotentialParentFinder.THREADS.getKey(), String.valueOf(threads));
+        TestConfiguration config = new TestConfiguration(props);
+        
+        List<String> result = new ArrayList<>();
+        for (VariableWithPotentialParents pp : AnalysisComponentExecuter.executeComponent(PotentialParentFinder.class,
+                config, input)) {
+            result.add(pp.toString());
+        }
+        return result;
+    }
+    
 }